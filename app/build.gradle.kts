@@ -44,6 +44,8 @@ application {
 tasks.named<Test>("test") {
     // Use JUnit Platform for unit tests.
     useJUnitPlatform()
+    // A fixed heap, so the tests of maps larger than the heap stay meaningful.
+    maxHeapSize = "512m"
 }
 
 tasks.named<Jar>("jar") {
@@ -3,11 +3,32 @@
  */
 
 import data.DataManager;
+import data.GameConfig;
+import engine.BattleSummary;
+import engine.FightEstimate;
+import engine.FrameBuffer;
+import engine.GameListener;
 import engine.GameState;
 import engine.GameStatus;
+import engine.RenderThread;
+import engine.TerminalRenderer;
+import engine.entity.EntityNPC;
+import engine.item.Inventory;
+import engine.item.InventoryError;
+import engine.item.Item;
 import engine.item.ItemType;
+import engine.simulation.BotPolicy;
+import engine.simulation.ExitSeekingBot;
+import engine.simulation.GameResult;
+import engine.simulation.Simulator;
+import com.google.gson.JsonObject;
+import utils.PlainTextOutputStream;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Scanner;
 
 import static utils.ANSIColors.*;
@@ -34,74 +55,201 @@ public class App {
     private static final String HORIZONTAL = "-";
     private static final String VERTICAL = "|";
 
+    // fights simulated to estimate meeting an NPC
+    private static final int FIGHT_ESTIMATE_SAMPLES = 10000;
+
     /**
      * The main entry point for the application.
      *
-     * @param args Command line arguments.
+     * @param args Command line arguments, optionally the width and height of a
+     *             newly generated map followed by the name of its maze
+     *             generator and the chunk directory of a chunked world, or
+     *             "simulate" followed by the arguments of
+     *             {@link #simulate(String[])}.
      * @throws IOException If there is an error loading or saving the game state.
      */
     public static void main(String[] args) throws IOException {
-        GameState gameState = (DataManager.READ_CONFIG_FROM_FILE) ? (DataManager.getInstance().load())
-                : new GameState();
+        if (args.length >= 1 && args[0].equalsIgnoreCase("simulate")) {
+            simulate(args);
+            return;
+        }
 
-        displayInstructions();
+        GameConfig config = new GameConfig();
+        if (args.length >= 2) {
+            config.setMapSize(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        }
+        if (args.length >= 3) {
+            config.setMapGenerator(args[2]);
+        }
+        if (args.length >= 4) {
+            config.setMapChunkDirectory(args[3]);
+        }
+        config.setFightEstimateSamples(FIGHT_ESTIMATE_SAMPLES);
+        DataManager dataManager = new DataManager(config);
+
+        if (!DataManager.ANSI_OUTPUT) {
+            // piped or redirected output gets plain text
+            System.setOut(new PrintStream(new PlainTextOutputStream(System.out), true));
+        }
+
+        GameState gameState = (config.isReadConfigFromFile()) ? (dataManager.load())
+                : new GameState(config);
+        // the engine runs headless, what happens is printed here
+        gameState.setListener(new ConsoleListener());
+
+        // with incremental redraw the instructions are part of every frame
+        TerminalRenderer renderer = DataManager.INCREMENTAL_REDRAW && DataManager.ANSI_OUTPUT
+                ? new TerminalRenderer(System.out)
+                : null;
+        if (renderer == null) {
+            displayInstructions();
+        }
+        // frames are written out on a thread of their own, so a slow terminal
+        // does not hold up reading the next command
+        RenderThread renderThread = new RenderThread(
+                renderer != null ? renderer::draw : frame -> frame.writeTo(System.out));
 
         Scanner scanner = new Scanner(System.in);
-        while (true) {
+        try {
+            while (true) {
 
-            gameState.display();
-            // the state
-            System.out.println(ANSI_RED + gameState.getGameStatus().toString() + ANSI_RESET);
-            // System.out.println(gameState);
+                FrameBuffer frame = renderThread.getFrame();
+                if (renderer != null) {
+                    renderInstructions(frame);
+                }
+                gameState.render(frame);
+                // the state
+                frame.appendLine(ANSI_RED + gameState.getGameStatus().toString() + ANSI_RESET);
+                renderThread.publish();
+                // System.out.println(gameState);
 
-            String input = scanner.nextLine();
+                String input = scanner.nextLine();
+                if (renderer != null) {
+                    renderer.clearMessages();
+                }
 
-            if (input.equals("q") || input.equals("Q")) {
-                System.out.println("Quitting the game. Goodbye!");
-                DataManager.getInstance().save(gameState);
-                break;
-            }
+                if (input.equals("q") || input.equals("Q")) {
+                    stopRendering(renderThread, renderer);
+                    System.out.println("Quitting the game. Goodbye!");
+                    dataManager.save(gameState);
+                    break;
+                }
 
-            processInput(input, gameState);
+                processInput(input, gameState);
 
-            if (gameState.getGameStatus() == GameStatus.LOSS) {
-                System.out.println(ANSI_RED + "You lost!" + ANSI_RESET);
-                gameState.display();
-                showLoss();
-                break;
+                if (gameState.getGameStatus() == GameStatus.LOSS) {
+                    stopRendering(renderThread, renderer);
+                    System.out.println(ANSI_RED + "You lost!" + ANSI_RESET);
+                    gameState.display();
+                    showLoss();
+                    break;
+                }
+                if (gameState.getGameStatus() == GameStatus.WIN) {
+                    stopRendering(renderThread, renderer);
+                    System.out.println(ANSI_GREEN + "You win!" + ANSI_RESET);
+                    gameState.display();
+                    showWin();
+                    break;
+                }
             }
-            if (gameState.getGameStatus() == GameStatus.WIN) {
-                System.out.println(ANSI_GREEN + "You win!" + ANSI_RESET);
-                gameState.display();
-                showWin();
-                break;
+        } finally {
+            stopRendering(renderThread, renderer);
+        }
+    }
+
+    /**
+     * Plays a batch of generated games headless with a bot and prints a JSON
+     * summary of the results. The games use the seeds from 0 on, so a batch
+     * is repeatable.
+     *
+     * @param args "simulate" followed by, each optional in this order: the
+     *             number of games (1000), the name of the bot ("exit" or
+     *             "random"), the width and height of the maps (35 12), the
+     *             number of NPCs (2), their health (100) and attack (30), the
+     *             number of threads (one per core) and a CSV file for the
+     *             result of every game.
+     * @throws IOException If the CSV file can not be written.
+     */
+    private static void simulate(String[] args) throws IOException {
+        int games = args.length >= 2 ? Integer.parseInt(args[1]) : 1000;
+        BotPolicy bot = BotPolicy.fromName(args.length >= 3 ? args[2] : ExitSeekingBot.NAME);
+        GameConfig config = new GameConfig();
+        // the default layout only fits the default map size
+        config.setRandomPlacement(true);
+        if (args.length >= 5) {
+            config.setMapSize(Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        }
+        if (args.length >= 6) {
+            config.setNpcCount(Integer.parseInt(args[5]));
+        }
+        config.setNpcStrength(args.length >= 7 ? Integer.parseInt(args[6]) : 100,
+                args.length >= 8 ? Integer.parseInt(args[7]) : 30);
+        // nobody looks at a simulated game
+        config.setFogOfWar(false);
+        int threads = args.length >= 9 ? Integer.parseInt(args[8])
+                : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        List<GameResult> results = new Simulator(config, bot, Simulator.DEFAULT_MAX_TURNS).run(games, 0, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        JsonObject summary = Simulator.summarize(results);
+        summary.addProperty("bot", bot.getName());
+        summary.addProperty("threads", threads);
+        summary.addProperty("games_per_second", games / seconds);
+        System.out.println(DataManager.GSON.toJson(summary));
+        if (args.length >= 10) {
+            try (PrintStream csv = new PrintStream(new FileOutputStream(args[9]), false, StandardCharsets.UTF_8)) {
+                Simulator.writeCsv(results, csv);
             }
         }
     }
 
+    /**
+     * Draws the last frame and stops the render thread, then leaves the
+     * alternate screen of the incremental redraw, so what follows stays in the
+     * terminal.
+     *
+     * @param renderThread the render thread
+     * @param renderer     the renderer, null without incremental redraw
+     */
+    private static void stopRendering(RenderThread renderThread, TerminalRenderer renderer) {
+        renderThread.close();
+        if (renderer != null) {
+            renderer.close();
+        }
+    }
+
     /**
      * Displays the game instructions.
      */
     private static void displayInstructions() {
-        String message = " Use W/A/S/D to move, Q to quit ";
+        FrameBuffer frame = new FrameBuffer();
+        renderInstructions(frame);
+        frame.writeTo(System.out);
+    }
+
+    /**
+     * Draws the game instructions into a frame.
+     *
+     * @param frame the frame being drawn
+     */
+    private static void renderInstructions(FrameBuffer frame) {
+        String message = " Use W/A/S/D to move, G to go to the exit, G x,y to go to a cell, Q to quit ";
         int width = message.length() + 2; // Add 2 for left and right padding
 
         // Top border
-        System.out.print(ANSI_GREEN + TOP_LEFT);
-        for (int i = 0; i < width; i++) {
-            System.out.print(HORIZONTAL);
-        }
-        System.out.println(TOP_RIGHT);
+        frame.append(ANSI_GREEN + TOP_LEFT);
+        frame.repeat(HORIZONTAL.charAt(0), width);
+        frame.appendLine(TOP_RIGHT);
 
         // Message
-        System.out.println(VERTICAL + " " + message + " " + VERTICAL);
+        frame.appendLine(VERTICAL + " " + message + " " + VERTICAL);
 
         // Bottom border
-        System.out.print(BOTTOM_LEFT);
-        for (int i = 0; i < width; i++) {
-            System.out.print(HORIZONTAL);
-        }
-        System.out.println(BOTTOM_RIGHT + ANSI_RESET);
+        frame.append(BOTTOM_LEFT);
+        frame.repeat(HORIZONTAL.charAt(0), width);
+        frame.appendLine(BOTTOM_RIGHT + ANSI_RESET);
     }
 
     /**
@@ -147,8 +295,37 @@ public class App {
                 System.out.println("Moving right");
                 gameState.movePlayer(1, 0);
                 break;
+            case "g", "G":
+                System.out.println("Going to the exit");
+                gameState.goToExit();
+                break;
             default:
-                // Ignore other inputs
+                goToProcess(input, gameState);
+        }
+    }
+
+    /**
+     * Handles the command to walk to a cell, written as "g x,y".
+     * Other inputs are ignored.
+     *
+     * @param input     The user input as a string.
+     * @param gameState The current state of the game.
+     */
+    private static void goToProcess(String input, GameState gameState) {
+        if (input.length() < 5 || !input.substring(0, 2).equalsIgnoreCase("g ")) {
+            return;
+        }
+        String[] target = input.substring(2).trim().split("\\s*,\\s*");
+        if (target.length != 2) {
+            return;
+        }
+        try {
+            int x = Integer.parseInt(target[0]);
+            int y = Integer.parseInt(target[1]);
+            System.out.println("Going to " + x + "," + y);
+            gameState.goTo(x, y);
+        } catch (NumberFormatException e) {
+            // Ignore inputs which are not coordinates
         }
     }
 
@@ -192,6 +369,12 @@ public class App {
      * @param gameState The current state of the game.
      */
     private static void fightProcess(String input, GameState gameState) {
+        if (input.equals("a") || input.equals("A")) {
+            // fight it out with the strongest weapon
+            BattleSummary summary = gameState.autoBattle(gameState.getConfig().getAutoBattleHealBelow());
+            System.out.println(ANSI_BLUE + "Auto battle: " + summary + ANSI_RESET);
+            return;
+        }
         // fight choose weapon
         if (input.length() == 1) {
             if (!Character.isDigit(input.charAt(0))) {
@@ -251,4 +434,146 @@ public class App {
         System.out.println(ANSI_RESET);
     }
 
+    /**
+     * Prints what happens in the game to the console.
+     */
+    private static class ConsoleListener implements GameListener {
+
+        /**
+         * Prints that the game has no player.
+         */
+        @Override
+        public void onNoPlayer() {
+            System.out.println(ANSI_RED + "no player" + ANSI_RESET);
+        }
+
+        /**
+         * Prints that the move is not possible.
+         *
+         * @param x The x-coordinate of the cell.
+         * @param y The y-coordinate of the cell.
+         */
+        @Override
+        public void onInvalidMove(int x, int y) {
+            System.out.println(ANSI_RED + "invalid move" + ANSI_RESET);
+        }
+
+        /**
+         * Prints the challenge of the NPC met.
+         *
+         * @param npc the NPC met
+         */
+        @Override
+        public void onMeetNPC(EntityNPC npc) {
+            System.out.println(ANSI_RED + "Meet NPC!");
+            System.out.println(ANSI_RED + "NPC: I am very powerful, do you want to fight with me? " + ANSI_RESET);
+        }
+
+        /**
+         * Prints the estimated outcome of fighting the NPC out.
+         *
+         * @param estimate the estimated outcome
+         */
+        @Override
+        public void onFightEstimate(FightEstimate estimate) {
+            System.out.println(ANSI_YELLOW + "Fight estimate: " + estimate + ANSI_RESET);
+        }
+
+        /**
+         * Prints that the player arrived at the exit.
+         */
+        @Override
+        public void onExit() {
+            System.out.println(ANSI_GREEN + "Arrive the exit!" + ANSI_RESET);
+        }
+
+        /**
+         * Prints the bonus item found.
+         *
+         * @param item the item found
+         */
+        @Override
+        public void onFindBonus(Item item) {
+            System.out.println(ANSI_RED + "Find Bonus! -- " + item + ANSI_RESET);
+        }
+
+        /**
+         * Prints that there is no way to the cell.
+         *
+         * @param x The x-coordinate of the cell.
+         * @param y The y-coordinate of the cell.
+         */
+        @Override
+        public void onNoPath(int x, int y) {
+            System.out.println(ANSI_RED + "no way to " + x + "," + y + ANSI_RESET);
+        }
+
+        /**
+         * Prints the last words of the NPC beaten.
+         *
+         * @param npc the NPC beaten
+         */
+        @Override
+        public void onNPCDefeated(EntityNPC npc) {
+            System.out.println(ANSI_RED + "NPC: I can't believe you can beat me!" + ANSI_RESET);
+        }
+
+        /**
+         * Prints the taunt of the NPC which won.
+         *
+         * @param npc the NPC which won
+         */
+        @Override
+        public void onPlayerDied(EntityNPC npc) {
+            System.out.println(ANSI_RED + "NPC: You can't beat me, you are a looser!" + ANSI_RESET);
+        }
+
+        /**
+         * Prints that the game is lost.
+         */
+        @Override
+        public void onGameLost() {
+            System.out.println(ANSI_RED + "You have no life to resurrect, you lose the game!" + ANSI_RESET);
+        }
+
+        /**
+         * Prints that the player resurrected.
+         *
+         * @param life the lives left
+         */
+        @Override
+        public void onResurrected(int life) {
+            System.out.println(ANSI_BLUE + "You resurrected!");
+        }
+
+        /**
+         * Prints the inventory.
+         *
+         * @param inventory the inventory
+         */
+        @Override
+        public void onInventory(Inventory inventory) {
+            inventory.display();
+        }
+
+        /**
+         * Prints why an inventory operation failed.
+         *
+         * @param type  the kind of item asked for
+         * @param error why it failed
+         */
+        @Override
+        public void onInventoryError(ItemType type, InventoryError error) {
+            boolean weapon = type == ItemType.WEAPON;
+            String message = switch (error) {
+                case INVALID_INDEX -> weapon ? "invalid index" : "invalid index (negative)";
+                case OUT_OF_BOUNDS -> "index out of bounds";
+                case EMPTY_SLOT -> weapon ? "this slot is no weapon" : "this slot is no recover";
+                case FULL -> weapon
+                        ? "xxxx no rest slot for storing weapon, please remove some of the weapon use command  (rm w + index)!"
+                        : "xxxx no rest slot for storing recover, please remove some of the recover use command (rm r + index)!";
+            };
+            System.out.println(ANSI_RED + message + ANSI_RESET);
+        }
+    }
 }
@@ -7,20 +7,28 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
 
 /**
  * DataManager class is responsible for saving and loading game state data
  */
 public class DataManager {
 
-    public static boolean READ_CONFIG_FROM_FILE = true;
-    public static boolean PRINT_SAVE_JASON = false;
+    /**
+     * Whether the game is drawn on the alternate screen, sending only the
+     * cells which changed since the last frame, when the output is a terminal
+     */
+    public static final boolean INCREMENTAL_REDRAW = true;
 
-    private static final String SAVE_FILE = "save.json";
-    private static DataManager instance;
+    /**
+     * Whether the output may contain ANSI escape codes. Off when the output is
+     * piped or redirected, for TERM=dumb and when NO_COLOR is set, so logs get
+     * plain text
+     */
+    public static final boolean ANSI_OUTPUT = System.console() != null && System.getenv("NO_COLOR") == null
+            && !"dumb".equals(System.getenv("TERM"));
 
     /**
      * Gson instance, singleton
@@ -29,37 +37,29 @@ public class DataManager {
      */
     public static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
 
-    /**
-     * Private constructor to prevent instantiation from outside the class.
-     */
-    private DataManager() {
-        // Private constructor to prevent instantiation
-    }
+    private final GameConfig config;
 
     /**
-     * Gets the singleton instance of DataManager.
+     * Constructs a DataManager saving and loading the games of a config.
      *
-     * @return the singleton instance of DataManager
+     * @param config the settings of the games, naming the save file
      */
-    public static DataManager getInstance() {
-        if (instance == null) {
-            instance = new DataManager();
-        }
-        return instance;
+    public DataManager(GameConfig config) {
+        this.config = config;
     }
 
     /**
-     * Saves the game state data to `save.json` in a formatted JSON.
+     * Saves the game state data to the save file in a formatted JSON.
      *
      * @param gameState the current state of the game to be saved
      */
     public void save(GameState gameState) {
-        try (FileWriter writer = new FileWriter(SAVE_FILE)) {
+        try (FileWriter writer = new FileWriter(config.getSaveFile())) {
             String serializedGameState = gameState.serialize();
             JsonElement jsonElement = JsonParser.parseString(serializedGameState);
             String formattedJson = GSON.toJson(jsonElement);
 
-            System.out.println("Saving game state: " + ((PRINT_SAVE_JASON) ? formattedJson : ""));
+            System.out.println("Saving game state: " + ((config.isPrintSaveJson()) ? formattedJson : ""));
 
             writer.write(formattedJson);
         } catch (IOException e) {
@@ -68,32 +68,29 @@ public class DataManager {
     }
 
     /**
-     * Loads the game state data from `save.json`.
+     * Loads the game state data from the save file.
      *
      * @return the loaded game state, or a new GameState if the file doesn't exist
      *         or an error occurs
      */
     public GameState load() {
-        File file = new File(SAVE_FILE);
+        File file = new File(config.getSaveFile());
         if (!file.exists()) {
-            return new GameState(); // Return a new game state if save file doesn't exist
+            return new GameState(config); // Return a new game state if save file doesn't exist
         }
 
-        try (FileReader reader = new FileReader(file)) {
-            StringBuilder content = new StringBuilder();
-            int character;
-            while ((character = reader.read()) != -1) {
-                content.append((char) character);
-            }
-            String serializedGameState = content.toString();
-            System.out.println("Loaded game state: " + ((PRINT_SAVE_JASON) ? serializedGameState : ""));
-            GameState gameState = new GameState();
+        try {
+            // read the whole file at once, saves of large maps can be several megabytes
+            String serializedGameState = Files.readString(file.toPath());
+            System.out.println("Loaded game state: " + ((config.isPrintSaveJson()) ? serializedGameState : ""));
+            GameState gameState = new GameState(config);
             gameState.deserialize(serializedGameState);
             gameState.initialize();
             return gameState;
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
+            // a save whose exit, entities or items can not be reached is rejected
             System.err.println("Error loading game state: " + e.getMessage());
-            return new GameState(); // Return a new game state if there's an error
+            return new GameState(config); // Return a new game state if there's an error
         }
     }
 }
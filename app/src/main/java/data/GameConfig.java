@@ -0,0 +1,462 @@
+package data;
+
+/**
+ * Settings of one game, handed to its GameState, GameMap and DataManager.
+ * Every game holds its own settings, so games in the same process never
+ * share anything they can change. A new config has the default settings.
+ */
+public class GameConfig {
+
+    // whether a game is loaded from the save file instead of generated
+    private boolean readConfigFromFile = true;
+    // file the game is saved to and loaded from
+    private String saveFile = "save.json";
+    // whether the saved and loaded JSON is printed
+    private boolean printSaveJson = false;
+
+    // size of newly generated maps, a loaded save keeps its own size
+    private int mapWidth = 35;
+    private int mapHeight = 12;
+    // name of the maze generator of newly generated maps, "dfs" or "eller"
+    private String mapGenerator = "dfs";
+    // seed of a generated game, null for a random one
+    private Long seed = null;
+
+    // whether the NPCs and items of a generated game go on random free cells
+    // instead of the fixed cells of the default layout
+    private boolean randomPlacement = false;
+    // NPCs of a generated game and their strength, the count only applies to
+    // random placement
+    private int npcCount = 2;
+    private int npcHealth = 0;
+    private int npcAttack = 0;
+    // health every living NPC recovers each time the player moves, 0 for none
+    private int npcRegeneration = 0;
+
+    // health below which an auto-battle uses a recover
+    private int autoBattleHealBelow = 50;
+    // fights simulated to estimate the outcome of meeting an NPC, 0 for none
+    private int fightEstimateSamples = 0;
+
+    // directory of the chunk files of a chunked world, null keeps the whole
+    // map in memory. A chunked world is loaded in pieces and can be far larger
+    private String mapChunkDirectory = null;
+    // largest number of chunks of a chunked world kept in memory
+    private int mapChunkCache = 1024;
+
+    // whether the map only shows the cells the player sees or has seen, and
+    // how far the player sees
+    private boolean fogOfWar = true;
+    private int viewRadius = 8;
+
+    // largest part of the map drawn around the player, in cells, so a map
+    // larger than the terminal is followed by a camera
+    private int viewportWidth = 78;
+    private int viewportHeight = 20;
+
+    /**
+     * Constructs a config with the default settings.
+     */
+    public GameConfig() {
+    }
+
+    /**
+     * Constructs a copy of a config, for a game whose settings differ a little.
+     *
+     * @param other the config copied
+     */
+    public GameConfig(GameConfig other) {
+        this.readConfigFromFile = other.readConfigFromFile;
+        this.saveFile = other.saveFile;
+        this.printSaveJson = other.printSaveJson;
+        this.mapWidth = other.mapWidth;
+        this.mapHeight = other.mapHeight;
+        this.mapGenerator = other.mapGenerator;
+        this.seed = other.seed;
+        this.randomPlacement = other.randomPlacement;
+        this.npcCount = other.npcCount;
+        this.npcHealth = other.npcHealth;
+        this.npcAttack = other.npcAttack;
+        this.npcRegeneration = other.npcRegeneration;
+        this.autoBattleHealBelow = other.autoBattleHealBelow;
+        this.fightEstimateSamples = other.fightEstimateSamples;
+        this.mapChunkDirectory = other.mapChunkDirectory;
+        this.mapChunkCache = other.mapChunkCache;
+        this.fogOfWar = other.fogOfWar;
+        this.viewRadius = other.viewRadius;
+        this.viewportWidth = other.viewportWidth;
+        this.viewportHeight = other.viewportHeight;
+    }
+
+    /**
+     * Checks if a game is loaded from the save file instead of generated.
+     *
+     * @return true if the game is loaded; false if it is generated
+     */
+    public boolean isReadConfigFromFile() {
+        return readConfigFromFile;
+    }
+
+    /**
+     * Sets if a game is loaded from the save file instead of generated.
+     *
+     * @param readConfigFromFile true to load the game; false to generate it
+     */
+    public void setReadConfigFromFile(boolean readConfigFromFile) {
+        this.readConfigFromFile = readConfigFromFile;
+    }
+
+    /**
+     * Gets the file the game is saved to and loaded from.
+     *
+     * @return the path of the save file
+     */
+    public String getSaveFile() {
+        return saveFile;
+    }
+
+    /**
+     * Sets the file the game is saved to and loaded from.
+     *
+     * @param saveFile the path of the save file
+     */
+    public void setSaveFile(String saveFile) {
+        this.saveFile = saveFile;
+    }
+
+    /**
+     * Checks if the saved and loaded JSON is printed.
+     *
+     * @return true if it is printed; false otherwise
+     */
+    public boolean isPrintSaveJson() {
+        return printSaveJson;
+    }
+
+    /**
+     * Sets if the saved and loaded JSON is printed.
+     *
+     * @param printSaveJson true to print it; false otherwise
+     */
+    public void setPrintSaveJson(boolean printSaveJson) {
+        this.printSaveJson = printSaveJson;
+    }
+
+    /**
+     * Gets the width of newly generated maps.
+     *
+     * @return the width in cells
+     */
+    public int getMapWidth() {
+        return mapWidth;
+    }
+
+    /**
+     * Gets the height of newly generated maps.
+     *
+     * @return the height in cells
+     */
+    public int getMapHeight() {
+        return mapHeight;
+    }
+
+    /**
+     * Sets the size of newly generated maps.
+     *
+     * @param mapWidth  the width in cells
+     * @param mapHeight the height in cells
+     * @throws IllegalArgumentException if the width or height is not positive
+     */
+    public void setMapSize(int mapWidth, int mapHeight) {
+        if (mapWidth <= 0 || mapHeight <= 0) {
+            throw new IllegalArgumentException("Invalid map size: " + mapWidth + "x" + mapHeight);
+        }
+        this.mapWidth = mapWidth;
+        this.mapHeight = mapHeight;
+    }
+
+    /**
+     * Gets the name of the maze generator of newly generated maps.
+     *
+     * @return the name of the maze generator
+     */
+    public String getMapGenerator() {
+        return mapGenerator;
+    }
+
+    /**
+     * Sets the name of the maze generator of newly generated maps.
+     *
+     * @param mapGenerator the name of the maze generator, "dfs" or "eller"
+     */
+    public void setMapGenerator(String mapGenerator) {
+        this.mapGenerator = mapGenerator;
+    }
+
+    /**
+     * Gets the seed of a generated game. The same seed and settings always
+     * give the same maze, entities, items and inventory.
+     *
+     * @return the seed, or null for a random one
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the seed of a generated game.
+     *
+     * @param seed the seed, or null for a random one
+     */
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Checks if the NPCs and items of a generated game go on random free cells.
+     *
+     * @return true for random cells; false for the default layout
+     */
+    public boolean isRandomPlacement() {
+        return randomPlacement;
+    }
+
+    /**
+     * Sets if the NPCs and items of a generated game go on random free cells.
+     * The default layout only fits maps of at least 21x11.
+     *
+     * @param randomPlacement true for random cells; false for the default layout
+     */
+    public void setRandomPlacement(boolean randomPlacement) {
+        this.randomPlacement = randomPlacement;
+    }
+
+    /**
+     * Gets the number of NPCs of a generated game with random placement.
+     *
+     * @return the number of NPCs
+     */
+    public int getNpcCount() {
+        return npcCount;
+    }
+
+    /**
+     * Sets the number of NPCs of a generated game with random placement.
+     *
+     * @param npcCount the number of NPCs
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public void setNpcCount(int npcCount) {
+        if (npcCount < 0) {
+            throw new IllegalArgumentException("NPC count must not be negative: " + npcCount);
+        }
+        this.npcCount = npcCount;
+    }
+
+    /**
+     * Gets the maximum health of the NPCs of a generated game.
+     *
+     * @return the maximum health
+     */
+    public int getNpcHealth() {
+        return npcHealth;
+    }
+
+    /**
+     * Gets the attack power of the NPCs of a generated game.
+     *
+     * @return the attack power
+     */
+    public int getNpcAttack() {
+        return npcAttack;
+    }
+
+    /**
+     * Sets the strength of the NPCs of a generated game.
+     *
+     * @param npcHealth the maximum health
+     * @param npcAttack the attack power
+     */
+    public void setNpcStrength(int npcHealth, int npcAttack) {
+        this.npcHealth = npcHealth;
+        this.npcAttack = npcAttack;
+    }
+
+    /**
+     * Gets the health every living NPC recovers each time the player moves.
+     *
+     * @return the health, 0 if NPCs do not recover
+     */
+    public int getNpcRegeneration() {
+        return npcRegeneration;
+    }
+
+    /**
+     * Sets the health every living NPC recovers each time the player moves,
+     * up to its maximum health.
+     *
+     * @param npcRegeneration the health, 0 for none
+     * @throws IllegalArgumentException if the health is negative
+     */
+    public void setNpcRegeneration(int npcRegeneration) {
+        if (npcRegeneration < 0) {
+            throw new IllegalArgumentException("NPC regeneration must not be negative: " + npcRegeneration);
+        }
+        this.npcRegeneration = npcRegeneration;
+    }
+
+    /**
+     * Gets the health below which an auto-battle uses a recover.
+     *
+     * @return the health, 0 to never use one
+     */
+    public int getAutoBattleHealBelow() {
+        return autoBattleHealBelow;
+    }
+
+    /**
+     * Sets the health below which an auto-battle uses a recover.
+     *
+     * @param autoBattleHealBelow the health, 0 to never use one
+     */
+    public void setAutoBattleHealBelow(int autoBattleHealBelow) {
+        this.autoBattleHealBelow = autoBattleHealBelow;
+    }
+
+    /**
+     * Gets the number of fights simulated to estimate the outcome of meeting
+     * an NPC.
+     *
+     * @return the number of fights, 0 if there is no estimate
+     */
+    public int getFightEstimateSamples() {
+        return fightEstimateSamples;
+    }
+
+    /**
+     * Sets the number of fights simulated to estimate the outcome of meeting
+     * an NPC.
+     *
+     * @param fightEstimateSamples the number of fights, 0 for no estimate
+     * @throws IllegalArgumentException if the number is negative
+     */
+    public void setFightEstimateSamples(int fightEstimateSamples) {
+        if (fightEstimateSamples < 0) {
+            throw new IllegalArgumentException("Samples must not be negative: " + fightEstimateSamples);
+        }
+        this.fightEstimateSamples = fightEstimateSamples;
+    }
+
+    /**
+     * Gets the directory of the chunk files of a chunked world.
+     *
+     * @return the directory, or null if maps are kept in memory
+     */
+    public String getMapChunkDirectory() {
+        return mapChunkDirectory;
+    }
+
+    /**
+     * Sets the directory of the chunk files of a chunked world.
+     *
+     * @param mapChunkDirectory the directory, or null to keep maps in memory
+     */
+    public void setMapChunkDirectory(String mapChunkDirectory) {
+        this.mapChunkDirectory = mapChunkDirectory;
+    }
+
+    /**
+     * Gets the largest number of chunks of a chunked world kept in memory.
+     *
+     * @return the number of chunks
+     */
+    public int getMapChunkCache() {
+        return mapChunkCache;
+    }
+
+    /**
+     * Sets the largest number of chunks of a chunked world kept in memory.
+     *
+     * @param mapChunkCache the number of chunks
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public void setMapChunkCache(int mapChunkCache) {
+        if (mapChunkCache <= 0) {
+            throw new IllegalArgumentException("Chunk cache must be positive: " + mapChunkCache);
+        }
+        this.mapChunkCache = mapChunkCache;
+    }
+
+    /**
+     * Checks if the map only shows the cells the player sees or has seen.
+     *
+     * @return true if there is fog of war; false otherwise
+     */
+    public boolean isFogOfWar() {
+        return fogOfWar;
+    }
+
+    /**
+     * Sets if the map only shows the cells the player sees or has seen.
+     *
+     * @param fogOfWar true for fog of war; false otherwise
+     */
+    public void setFogOfWar(boolean fogOfWar) {
+        this.fogOfWar = fogOfWar;
+    }
+
+    /**
+     * Gets how far the player sees.
+     *
+     * @return the radius in cells
+     */
+    public int getViewRadius() {
+        return viewRadius;
+    }
+
+    /**
+     * Sets how far the player sees.
+     *
+     * @param viewRadius the radius in cells
+     * @throws IllegalArgumentException if the radius is not positive
+     */
+    public void setViewRadius(int viewRadius) {
+        if (viewRadius <= 0) {
+            throw new IllegalArgumentException("View radius must be positive: " + viewRadius);
+        }
+        this.viewRadius = viewRadius;
+    }
+
+    /**
+     * Gets the width of the largest part of the map drawn around the player.
+     *
+     * @return the width in cells
+     */
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+
+    /**
+     * Gets the height of the largest part of the map drawn around the player.
+     *
+     * @return the height in cells
+     */
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+
+    /**
+     * Sets the largest part of the map drawn around the player.
+     *
+     * @param viewportWidth  the width in cells
+     * @param viewportHeight the height in cells
+     * @throws IllegalArgumentException if the width or height is not positive
+     */
+    public void setViewportSize(int viewportWidth, int viewportHeight) {
+        if (viewportWidth <= 0 || viewportHeight <= 0) {
+            throw new IllegalArgumentException("Invalid viewport size: " + viewportWidth + "x" + viewportHeight);
+        }
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+}
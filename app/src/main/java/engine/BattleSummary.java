@@ -0,0 +1,104 @@
+package engine;
+
+/**
+ * What happened in a fight resolved at once by
+ * {@link GameState#autoBattle(int)}.
+ */
+public class BattleSummary {
+
+    private final boolean npcDefeated;
+    private final long rounds;
+    private final long damageDealt;
+    private final long damageTaken;
+    private final int livesLost;
+    private final int recoversUsed;
+
+    /**
+     * Constructs the summary of a fight.
+     *
+     * @param npcDefeated  whether the NPC was beaten
+     * @param rounds       the number of rounds fought
+     * @param damageDealt  the health the NPC lost
+     * @param damageTaken  the health the player lost
+     * @param livesLost    the number of times the player died
+     * @param recoversUsed the number of recovers used
+     */
+    public BattleSummary(boolean npcDefeated, long rounds, long damageDealt, long damageTaken, int livesLost,
+            int recoversUsed) {
+        this.npcDefeated = npcDefeated;
+        this.rounds = rounds;
+        this.damageDealt = damageDealt;
+        this.damageTaken = damageTaken;
+        this.livesLost = livesLost;
+        this.recoversUsed = recoversUsed;
+    }
+
+    /**
+     * Checks if the NPC was beaten. If not, the game was lost or the player
+     * ran away.
+     *
+     * @return true if the NPC was beaten; false otherwise
+     */
+    public boolean isNpcDefeated() {
+        return npcDefeated;
+    }
+
+    /**
+     * Gets the number of rounds fought, over all lives.
+     *
+     * @return the number of rounds
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Gets the health the NPC lost, over all lives.
+     *
+     * @return the damage dealt
+     */
+    public long getDamageDealt() {
+        return damageDealt;
+    }
+
+    /**
+     * Gets the health the player lost, over all lives.
+     *
+     * @return the damage taken
+     */
+    public long getDamageTaken() {
+        return damageTaken;
+    }
+
+    /**
+     * Gets the number of times the player died.
+     *
+     * @return the number of lives lost
+     */
+    public int getLivesLost() {
+        return livesLost;
+    }
+
+    /**
+     * Gets the number of recovers used.
+     *
+     * @return the number of recovers
+     */
+    public int getRecoversUsed() {
+        return recoversUsed;
+    }
+
+    /**
+     * Returns a one line description of the fight.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        if (!npcDefeated && rounds == 0) {
+            return "ran away";
+        }
+        return (npcDefeated ? "won" : "lost") + " in " + rounds + " rounds, dealt " + damageDealt + ", took "
+                + damageTaken + ", lives lost " + livesLost + ", recovers used " + recoversUsed;
+    }
+}
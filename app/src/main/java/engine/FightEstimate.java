@@ -0,0 +1,64 @@
+package engine;
+
+/**
+ * The estimated outcome of fighting an NPC out, from simulated fights.
+ */
+public class FightEstimate {
+
+    private final int samples;
+    private final int wins;
+    private final double meanHealthLost;
+
+    /**
+     * Constructs an estimate.
+     *
+     * @param samples        the number of fights simulated
+     * @param wins           the number of fights won
+     * @param meanHealthLost the mean health the player lost per fight
+     */
+    public FightEstimate(int samples, int wins, double meanHealthLost) {
+        this.samples = samples;
+        this.wins = wins;
+        this.meanHealthLost = meanHealthLost;
+    }
+
+    /**
+     * Gets the number of fights simulated.
+     *
+     * @return the number of fights
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Gets the share of the simulated fights won.
+     *
+     * @return the win probability, between 0 and 1; 0 without a fight
+     */
+    public double getWinProbability() {
+        return samples == 0 ? 0 : (double) wins / samples;
+    }
+
+    /**
+     * Gets the health the player is expected to lose, over all lives.
+     *
+     * @return the mean health lost
+     */
+    public double getExpectedHealthLost() {
+        return meanHealthLost;
+    }
+
+    /**
+     * Returns a one line description of the estimate.
+     *
+     * @return the description
+     */
+    @Override
+    public String toString() {
+        if (samples == 0) {
+            return "no weapon to fight with";
+        }
+        return String.format("win %.0f%%, expected health lost %.1f", 100 * getWinProbability(), meanHealthLost);
+    }
+}
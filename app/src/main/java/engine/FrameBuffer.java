@@ -0,0 +1,295 @@
+package engine;
+
+import data.DataManager;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static utils.ANSIColors.ANSI_RESET;
+
+/**
+ * A frame of console output built in memory and written with a single call.
+ * Printing a frame piece by piece costs a synchronized write for every cell,
+ * so the displays append their text to one buffer instead, which is kept
+ * between frames and only grows.
+ * Text is stored as UTF-8.
+ * <p>
+ * Colors are set with setColor and only written when a visible character
+ * follows in another color than the one before, so a run of cells of one
+ * color costs a single escape code. Lines end with the color reset. A buffer
+ * without colors, for output which is not a terminal, drops every escape code,
+ * also ones inside appended text.
+ */
+public class FrameBuffer {
+
+    // Capacity of a new buffer in bytes
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+    private static final char ESCAPE = '\u001B';
+
+    private final boolean colors;
+    private byte[] bytes;
+    private int length;
+    // color of the next visible character and color last written, null for none
+    private String color;
+    private String writtenColor;
+
+    /**
+     * Constructs an empty buffer, with colors if the output is a terminal.
+     */
+    public FrameBuffer() {
+        this(DEFAULT_CAPACITY, DataManager.ANSI_OUTPUT);
+    }
+
+    /**
+     * Constructs an empty buffer with room for a number of bytes.
+     *
+     * @param capacity the initial capacity in bytes
+     * @param colors   whether escape codes are written
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public FrameBuffer(int capacity, boolean colors) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.bytes = new byte[capacity];
+        this.colors = colors;
+    }
+
+    /**
+     * Checks if the buffer writes escape codes.
+     *
+     * @return true if colors are written; false if escape codes are dropped
+     */
+    public boolean hasColors() {
+        return colors;
+    }
+
+    /**
+     * Sets the color of the characters appended next.
+     *
+     * @param color an ANSI color code from ANSIColors, ANSI_RESET or null for
+     *              no color
+     */
+    public void setColor(String color) {
+        this.color = ANSI_RESET.equals(color) ? null : color;
+    }
+
+    /**
+     * Appends text to the frame.
+     *
+     * @param text the text to append
+     */
+    public void append(String text) {
+        int count = text.length();
+        ensureCapacity(length + count);
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            if (c == ESCAPE) {
+                int end = skipEscape(text, i);
+                if (colors) {
+                    String code = text.substring(i, end + 1);
+                    appendRaw(code);
+                    if (code.endsWith("m")) {
+                        // a color inside the text is written as it is
+                        color = ANSI_RESET.equals(code) ? null : code;
+                        writtenColor = color;
+                    }
+                }
+                i = end;
+                continue;
+            }
+            if (c != ' ') {
+                writeColor();
+            }
+            if (c >= 0x80) {
+                int codePoint = text.codePointAt(i);
+                appendCodePoint(codePoint);
+                i += Character.charCount(codePoint) - 1;
+                continue;
+            }
+            ensureCapacity(length + 1);
+            bytes[length++] = (byte) c;
+        }
+    }
+
+    /**
+     * Appends a character to the frame.
+     *
+     * @param c the character to append
+     */
+    public void append(char c) {
+        if (c >= 0x80) {
+            append(String.valueOf(c));
+            return;
+        }
+        if (c != ' ') {
+            writeColor();
+        }
+        ensureCapacity(length + 1);
+        bytes[length++] = (byte) c;
+    }
+
+    /**
+     * Appends a character a number of times.
+     *
+     * @param c     the character to append
+     * @param count how often to append it
+     */
+    public void repeat(char c, int count) {
+        if (c >= 0x80) {
+            for (int i = 0; i < count; i++) {
+                append(c);
+            }
+            return;
+        }
+        if (c != ' ' && count > 0) {
+            writeColor();
+        }
+        ensureCapacity(length + count);
+        Arrays.fill(bytes, length, length + count, (byte) c);
+        length += count;
+    }
+
+    /**
+     * Ends the current line of the frame, resetting the color written so
+     * text printed after the frame is not colored.
+     */
+    public void newLine() {
+        if (writtenColor != null) {
+            appendRaw(ANSI_RESET);
+            writtenColor = null;
+        }
+        ensureCapacity(length + LINE_SEPARATOR.length);
+        System.arraycopy(LINE_SEPARATOR, 0, bytes, length, LINE_SEPARATOR.length);
+        length += LINE_SEPARATOR.length;
+    }
+
+    /**
+     * Appends text and ends the line, as println would.
+     *
+     * @param text the text to append
+     */
+    public void appendLine(String text) {
+        append(text);
+        newLine();
+    }
+
+    /**
+     * Gets the size of the frame.
+     *
+     * @return the number of bytes appended since the last reset
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Empties the frame, keeping its memory for the next one.
+     */
+    public void reset() {
+        length = 0;
+        color = null;
+        writtenColor = null;
+    }
+
+    /**
+     * Writes the frame to a stream with a single write and flushes it.
+     *
+     * @param out the stream to write to
+     */
+    public void writeTo(PrintStream out) {
+        out.write(bytes, 0, length);
+        out.flush();
+    }
+
+    /**
+     * Returns the text of the frame.
+     *
+     * @return the frame decoded from UTF-8
+     */
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the color set for the next character if it is not the color
+     * last written.
+     */
+    private void writeColor() {
+        if (!colors || (color == null ? writtenColor == null : color.equals(writtenColor))) {
+            return;
+        }
+        appendRaw(color == null ? ANSI_RESET : color);
+        writtenColor = color;
+    }
+
+    /**
+     * Appends an escape code as it is.
+     *
+     * @param code the escape code, plain ASCII
+     */
+    private void appendRaw(String code) {
+        ensureCapacity(length + code.length());
+        for (int i = 0; i < code.length(); i++) {
+            bytes[length++] = (byte) code.charAt(i);
+        }
+    }
+
+    /**
+     * Appends a character which is not plain ASCII, encoded as UTF-8. A lone
+     * surrogate is written as '?', as the UTF-8 encoder of the JDK does.
+     *
+     * @param codePoint the code point of the character
+     */
+    private void appendCodePoint(int codePoint) {
+        ensureCapacity(length + 4);
+        if (codePoint < 0x800) {
+            bytes[length++] = (byte) (0xC0 | codePoint >> 6);
+        } else if (codePoint < 0x10000) {
+            if (Character.isSurrogate((char) codePoint)) {
+                bytes[length++] = '?';
+                return;
+            }
+            bytes[length++] = (byte) (0xE0 | codePoint >> 12);
+            bytes[length++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+        } else {
+            bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+            bytes[length++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+            bytes[length++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+        }
+        bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+    }
+
+    /**
+     * Finds the end of an escape code inside text.
+     *
+     * @param text  the text
+     * @param start the index of the escape character
+     * @return the index of the last character of the escape code
+     */
+    private static int skipEscape(String text, int start) {
+        int i = start + 1;
+        if (i < text.length() && text.charAt(i) == '[') {
+            // parameters up to the final character of a control sequence
+            i++;
+            while (i < text.length() && (text.charAt(i) < '@' || text.charAt(i) > '~')) {
+                i++;
+            }
+        }
+        return Math.min(i, text.length() - 1);
+    }
+
+    /**
+     * Grows the buffer to hold at least a number of bytes.
+     *
+     * @param capacity the number of bytes needed
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
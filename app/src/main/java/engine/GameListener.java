@@ -0,0 +1,135 @@
+package engine;
+
+import engine.entity.EntityNPC;
+import engine.item.Inventory;
+import engine.item.InventoryError;
+import engine.item.Item;
+import engine.item.ItemType;
+
+/**
+ * Listener of what happens in a game, so the engine itself never prints.
+ * A game without a listener runs headless; the console front end turns the
+ * events into text. Every method does nothing by default.
+ */
+public interface GameListener {
+
+    /**
+     * A listener which ignores every event.
+     */
+    GameListener SILENT = new GameListener() {
+    };
+
+    /**
+     * Called when the entities of a game hold no player.
+     */
+    default void onNoPlayer() {
+    }
+
+    /**
+     * Called when the player tried to move into a cell it can not enter.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    default void onInvalidMove(int x, int y) {
+    }
+
+    /**
+     * Called when the player walked into an NPC.
+     *
+     * @param npc the NPC met
+     */
+    default void onMeetNPC(EntityNPC npc) {
+    }
+
+    /**
+     * Called after meeting an NPC with the estimated outcome of fighting it
+     * out, when the game is configured to estimate fights.
+     *
+     * @param estimate the estimated outcome
+     */
+    default void onFightEstimate(FightEstimate estimate) {
+    }
+
+    /**
+     * Called when the player arrived at the exit.
+     */
+    default void onExit() {
+    }
+
+    /**
+     * Called when the player found a bonus item.
+     *
+     * @param item the item found
+     */
+    default void onFindBonus(Item item) {
+    }
+
+    /**
+     * Called when there is no way to the cell the player was sent to.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    default void onNoPath(int x, int y) {
+    }
+
+    /**
+     * Called after every round of a fight, before the NPC or the player is
+     * found dead. An auto-battle reports the rounds it resolved at once in
+     * one call.
+     *
+     * @param damageDealt the health the NPC lost
+     * @param damageTaken the health the player lost
+     */
+    default void onFightRound(int damageDealt, int damageTaken) {
+    }
+
+    /**
+     * Called when the player beat an NPC.
+     *
+     * @param npc the NPC beaten
+     */
+    default void onNPCDefeated(EntityNPC npc) {
+    }
+
+    /**
+     * Called when an NPC beat the player, before the player resurrects or
+     * loses.
+     *
+     * @param npc the NPC which won
+     */
+    default void onPlayerDied(EntityNPC npc) {
+    }
+
+    /**
+     * Called when the player died with no life left.
+     */
+    default void onGameLost() {
+    }
+
+    /**
+     * Called when the player died and resurrected with one life less.
+     *
+     * @param life the lives left
+     */
+    default void onResurrected(int life) {
+    }
+
+    /**
+     * Called when the inventory was changed or an item of it was used.
+     *
+     * @param inventory the inventory
+     */
+    default void onInventory(Inventory inventory) {
+    }
+
+    /**
+     * Called when an inventory operation failed.
+     *
+     * @param type  the kind of item asked for
+     * @param error why it failed
+     */
+    default void onInventoryError(ItemType type, InventoryError error) {
+    }
+}
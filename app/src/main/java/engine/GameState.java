@@ -1,13 +1,18 @@
 package engine;
 
-import data.DataManager;
+import data.GameConfig;
 import data.ISerializable;
 import engine.entity.Entity;
 import engine.entity.EntityNPC;
 import engine.entity.EntityPlayer;
+import engine.entity.EntityStore;
 import engine.entity.EntityType;
 import engine.item.*;
 import engine.level.GameMap;
+import engine.level.HierarchicalPathFinder;
+import engine.level.PathFinder;
+import engine.simulation.DamageRoll;
+import engine.simulation.FightEstimator;
 import utils.Location;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
@@ -15,7 +20,10 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
 
 import static utils.ANSIColors.*;
 
@@ -28,60 +36,114 @@ import static utils.ANSIColors.*;
  */
 public class GameState implements ISerializable, IDisplayable {
 
-    /**
-     * singleton instance
-     */
-    private static GameState INSTANCE;
-
-    /**
-     * get the singleton instance
-     * if the instance is null, create a new instance
-     *
-     * @return the singleton instance
-     */
-    public static GameState getInstance() {
-        if (INSTANCE == null) {
-            INSTANCE = new GameState();
-        }
-        return INSTANCE;
-    }
+    // Mazes generated for a new game before giving up on reaching everything
+    private static final int MAX_GENERATE_ATTEMPTS = 100;
+    // random cells tried for a free cell before the map is scanned for one
+    private static final int FREE_CELL_TRIES = 64;
 
     // Fields
     private final List<Entity> entities = new ArrayList<>();
+    // state of the entities, the entities are views of it
+    private final EntityStore entityStore = new EntityStore();
     private final List<Item> items = new ArrayList<>();
-    private final GameMap map = new GameMap();
-    private final Inventory inventory = new Inventory();
+    // cells of the entities and items generated so far, packed like the map
+    // packs its occupants, so a free cell is found without scanning them all
+    private final Set<Long> takenCells = new HashSet<>();
+    private final GameConfig config;
+    private final GameMap map;
+    private final PathFinder pathFinder;
+    private final Inventory inventory;
+    // kept between frames so drawing does not allocate a new buffer each time
+    private final FrameBuffer frame = new FrameBuffer();
     private int life;
     private EntityPlayer entityPlayer;
     private GameStatus gameStatus;
     private Item findBonus;
     private EntityNPC meetEntityNPC;
+    // told about what happens, the game itself never prints
+    private GameListener listener = GameListener.SILENT;
 
     /**
-     * Initializes a new GameState instance.
-     * Generates entities and items if configuration is not read from a file.
+     * Initializes a new empty GameState with the default settings, for loading.
      */
     public GameState() {
-        INSTANCE = this;
-        if (!DataManager.READ_CONFIG_FROM_FILE) {
-            generateEntity();
-            generateItem();
+        this(new GameConfig());
+    }
+
+    /**
+     * Initializes a new GameState instance.
+     * Generates entities and items if configuration is not read from a file,
+     * in the default layout or, with random placement, on cells drawn from the
+     * seed of the maze, so a seeded config always gives the same game. A maze
+     * which walls off any of them is generated again.
+     *
+     * @param config the settings of the game, not shared with other games
+     *               while they run
+     * @throws IllegalArgumentException if the map is too small for the default
+     *                                  layout
+     */
+    public GameState(GameConfig config) {
+        this.config = config;
+        this.map = new GameMap(config);
+        this.pathFinder = new PathFinder(map);
+        this.inventory = new Inventory(config);
+        if (!config.isReadConfigFromFile()) {
+            if (!config.isRandomPlacement() && !map.isInBounds(20, 10)) {
+                throw new IllegalArgumentException("The default layout needs a map of at least 21x11, "
+                        + "use random placement for " + map.getWidth() + "x" + map.getHeight());
+            }
+            SplittableRandom random = new SplittableRandom(map.getSeed());
             life = 2;
-            initialize();
+            for (int attempt = 1;; attempt++) {
+                try {
+                    generateEntity(random);
+                    generateItem(random);
+                    initialize();
+                    takenCells.clear();
+                    break;
+                } catch (IllegalArgumentException e) {
+                    if (attempt == MAX_GENERATE_ATTEMPTS) {
+                        throw e;
+                    }
+                    entities.clear();
+                    entityStore.clear();
+                    items.clear();
+                    takenCells.clear();
+                    map.generate(random.nextLong());
+                }
+            }
         }
     }
 
     /**
      * Initializes the game state by putting entities and items on the map,
      * finding the player, and setting the game status to ready to move.
+     *
+     * @throws IllegalArgumentException if the exit, an entity or an item can
+     *                                  not be reached from the start
      */
     public void initialize() {
         map.putOnEntities(entities);
         map.putOnItems(items);
+        map.validateReachability();
         findPlayer();
+        if (entityPlayer != null) {
+            map.updateView(entityPlayer.getLocationX(), entityPlayer.getLocationY());
+        }
         gameStatus = GameStatus.READY_MOVE;
     }
 
+    /**
+     * Sets the listener told about what happens in the game and its inventory.
+     * Without one the game runs headless.
+     *
+     * @param listener the listener, GameListener.SILENT for none
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+        inventory.setListener(listener);
+    }
+
     /**
      * Returns the list of entities in the game.
      *
@@ -101,17 +163,37 @@ public class GameState implements ISerializable, IDisplayable {
     }
 
     /**
-     * Spawns a new entity in the game.
+     * Returns the store holding the state of the entities in the game.
+     *
+     * @return The entity store.
+     */
+    public EntityStore getEntityStore() {
+        return entityStore;
+    }
+
+    /**
+     * Counts the NPCs of the game still alive.
+     *
+     * @return the number of living NPCs
+     */
+    public int getNpcsLeft() {
+        return entityStore.countAlive(EntityType.ENEMY);
+    }
+
+    /**
+     * Spawns a new entity in the game, moving its state to the entity store
+     * of the game.
      *
      * @param entity The entity to be spawned.
      */
     public void spawnEntity(Entity entity) {
+        entity.moveTo(entityStore);
         entities.add(entity);
     }
 
     /**
      * Finds and sets the player entity from the list of entities.
-     * If no player is found, prints an error message.
+     * If no player is found, the listener is told.
      */
     public void findPlayer() {
         for (Entity entity : entities) {
@@ -120,7 +202,7 @@ public class GameState implements ISerializable, IDisplayable {
                 return;
             }
         }
-        System.out.println(ANSI_RED + "no player" + ANSI_RESET);
+        listener.onNoPlayer();
     }
 
     /**
@@ -132,14 +214,14 @@ public class GameState implements ISerializable, IDisplayable {
      * @param deltaY The change in the Y coordinate.
      */
     public void movePlayer(int deltaX, int deltaY) {
-        int currentX = entityPlayer.getLocation().getLocationX();
-        int currentY = entityPlayer.getLocation().getLocationY();
+        int currentX = entityPlayer.getLocationX();
+        int currentY = entityPlayer.getLocationY();
         int nextX = currentX + deltaX;
         int nextY = currentY + deltaY;
 
         // out of range
         if (!map.isTargetPositionCanMove(nextX, nextY)) {
-            System.out.println(ANSI_RED + "invalid move" + ANSI_RESET);
+            listener.onInvalidMove(nextX, nextY);
             return;
         }
 
@@ -147,17 +229,18 @@ public class GameState implements ISerializable, IDisplayable {
         if (map.isEnemy(nextX, nextY)) {
             gameStatus = GameStatus.MEET_NPC;
             meetEntityNPC = (EntityNPC) map.getEntity(nextX, nextY);
-
-            System.out.println(ANSI_RED + "Meet NPC!");
-            System.out.println(ANSI_RED + "NPC: I am very powerful, do you want to fight with me? " + ANSI_RESET);
+            listener.onMeetNPC(meetEntityNPC);
+            if (config.getFightEstimateSamples() > 0) {
+                // the game deals fixed damage, what fighting it out costs
+                listener.onFightEstimate(new FightEstimator(DamageRoll.FIXED, config.getFightEstimateSamples())
+                        .estimate(this, config.getAutoBattleHealBelow(), map.getSeed()));
+            }
             return;
         } else if (map.isExit(nextX, nextY)) {
             gameStatus = GameStatus.WIN;
             // then clear the bonus grid and let it become empty
             map.setGridEmpty(nextX, nextY);
-
-            System.out.println(ANSI_GREEN + "Arrive the exit!" + ANSI_RESET);
-
+            listener.onExit();
         } else if (map.isBonus(nextX, nextY)) {
             // bonus can overlap
             gameStatus = GameStatus.FIND_BONUS;
@@ -165,12 +248,60 @@ public class GameState implements ISerializable, IDisplayable {
             findBonus = map.getBonus(nextX, nextY);
             // then clear the bonus grid and let it become empty
             map.setGridEmpty(nextX, nextY);
-            System.out.println(ANSI_RED + "Find Bonus! -- " + findBonus + ANSI_RESET);
+            listener.onFindBonus(findBonus);
         }
 
         map.exchangeGrid(currentX, currentY, nextX, nextY);
-        entityPlayer.getLocation().setLocationX(nextX);
-        entityPlayer.getLocation().setLocationY(nextY);
+        entityPlayer.setLocation(nextX, nextY);
+        map.updateView(nextX, nextY);
+        if (config.getNpcRegeneration() > 0) {
+            // one pass over the store, however many NPCs there are
+            entityStore.healAll(EntityType.ENEMY, config.getNpcRegeneration());
+        }
+    }
+
+    /**
+     * Walks the player along the shortest path to the given cell, going around
+     * NPCs. The walk stops early when a step meets an NPC, finds a bonus or
+     * arrives at the exit, just as single moves do.
+     * On chunked worlds and maps of at least
+     * {@link HierarchicalPathFinder#MIN_CELLS} cells the path is found
+     * hierarchically, going around walls only.
+     *
+     * @param targetX The x-coordinate of the target cell.
+     * @param targetY The y-coordinate of the target cell.
+     * @return true if a path was found; false otherwise
+     */
+    public boolean goTo(int targetX, int targetY) {
+        Location target = new Location(targetX, targetY);
+        List<Location> path;
+        if (map.isChunked() || (long) map.getWidth() * map.getHeight() >= HierarchicalPathFinder.MIN_CELLS) {
+            path = map.getHierarchicalPathFinder().findPath(entityPlayer.getLocation(), target);
+        } else {
+            path = pathFinder.findPath(entityPlayer.getLocation(), target);
+        }
+        if (path == null) {
+            listener.onNoPath(targetX, targetY);
+            return false;
+        }
+        for (Location step : path) {
+            movePlayer(step.getLocationX() - entityPlayer.getLocationX(),
+                    step.getLocationY() - entityPlayer.getLocationY());
+            if (gameStatus != GameStatus.READY_MOVE) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the player along the shortest path to the exit.
+     *
+     * @return true if a path was found; false otherwise
+     */
+    public boolean goToExit() {
+        Location exit = map.getExitLocation();
+        return goTo(exit.getLocationX(), exit.getLocationY());
     }
 
     /**
@@ -236,35 +367,143 @@ public class GameState implements ISerializable, IDisplayable {
             return;
         }
 
+        int npcHealth = meetEntityNPC.getHealth();
         meetEntityNPC.damage(itemWeapon.getAttributes());
+        int damageDealt = npcHealth - meetEntityNPC.getHealth();
 
         if (meetEntityNPC.isDied()) {
-            System.out.println(ANSI_RED + "NPC: I can't believe you can beat me!" + ANSI_RESET);
-            Location location = meetEntityNPC.getLocation();
-            // clear the NPC grid
-            map.setGridEmpty(location.getLocationX(), location.getLocationY());
-
-            gameStatus = GameStatus.READY_MOVE;
+            listener.onFightRound(damageDealt, 0);
+            defeatNPC();
             return;
         }
 
         // first we fight NPC first, if NPC died we will not get the attack
+        int playerHealth = entityPlayer.getHealth();
         entityPlayer.damage(meetEntityNPC.getAttack());
+        listener.onFightRound(damageDealt, playerHealth - entityPlayer.getHealth());
         if (entityPlayer.isDied()) {
-            System.out.println(ANSI_RED + "NPC: You can't beat me, you are a looser!" + ANSI_RESET);
-            life--;
-            if (life == 0) {
-                System.out.println(ANSI_RED + "You have no life to resurrect, you lose the game!" + ANSI_RESET);
-                gameStatus = GameStatus.LOSS;
-            } else {
-                System.out.println(ANSI_BLUE + "You resurrected!");
-                meetEntityNPC.recover();
-                entityPlayer.recover();
-                gameStatus = GameStatus.READY_MOVE;
+            loseLife();
+        }
+    }
+
+    /**
+     * Resolves the whole encounter with the NPC met in one call, as if the
+     * player fought every round with the strongest weapon and used the
+     * largest recover whenever its health is below the threshold at the start
+     * of a round. A player who dies but resurrects fights again right away,
+     * so the fight ends when the NPC is beaten or the game is lost. Without a
+     * weapon the player runs away.
+     * <p>
+     * The rounds between two recovers or deaths are not played one by one:
+     * the number of hits either side can take is a division, so the fight
+     * costs a few steps however many rounds it lasts.
+     *
+     * @param healBelow the health below which a recover is used, 0 to never
+     *                  use one
+     * @return the summary of the fight
+     * @throws IllegalStateException if the player is not meeting or fighting
+     *                               an NPC
+     */
+    public BattleSummary autoBattle(int healBelow) {
+        if (gameStatus != GameStatus.MEET_NPC && gameStatus != GameStatus.FIGHTING) {
+            throw new IllegalStateException("No NPC to fight: " + gameStatus.name());
+        }
+        if (gameStatus == GameStatus.MEET_NPC) {
+            chooseToFightNPC();
+        }
+        int weaponIndex = inventory.findStrongestWeapon();
+        long weapon = weaponIndex == 0 ? 0 : inventory.getWeapon(weaponIndex).getAttributes();
+        long attack = meetEntityNPC.getAttack();
+        if (weapon <= 0) {
+            // an empty hand never beats the NPC
+            chooseToRunAwayNPC();
+            return new BattleSummary(false, 0, 0, 0, 0, 0);
+        }
+
+        long rounds = 0;
+        long dealt = 0;
+        long taken = 0;
+        int livesLost = 0;
+        int recoversUsed = 0;
+        while (true) {
+            long npcHealth = meetEntityNPC.getHealth();
+            long playerHealth = entityPlayer.getHealth();
+            int recover = healBelow > 0 ? inventory.findLargestRecover() : 0;
+            if (recover != 0 && playerHealth < healBelow) {
+                userRecover(recover);
+                recoversUsed++;
+                continue;
+            }
+
+            // rounds the NPC survives, hits the player survives, and hits
+            // until the player heals, the player strikes first in a round
+            long npcRounds = Math.max(1, (npcHealth + weapon - 1) / weapon);
+            long hitsToDie = attack > 0 ? (playerHealth + attack - 1) / attack : Long.MAX_VALUE;
+            long hitsToHeal = recover != 0 && attack > 0 ? (playerHealth - healBelow) / attack + 1 : Long.MAX_VALUE;
+
+            if (npcRounds - 1 < Math.min(hitsToDie, hitsToHeal)) {
+                long hits = npcRounds - 1;
+                rounds += npcRounds;
+                dealt += npcHealth;
+                taken += hits * attack;
+                entityPlayer.damage((int) (hits * attack));
+                meetEntityNPC.damage((int) npcHealth);
+                listener.onFightRound((int) npcHealth, (int) (hits * attack));
+                defeatNPC();
+                return new BattleSummary(true, rounds, dealt, taken, livesLost, recoversUsed);
+            }
+
+            long hits = Math.min(hitsToDie, hitsToHeal);
+            rounds += hits;
+            dealt += hits * weapon;
+            long damage = Math.min(playerHealth, hits * attack);
+            taken += damage;
+            meetEntityNPC.damage((int) (hits * weapon));
+            entityPlayer.damage((int) damage);
+            listener.onFightRound((int) (hits * weapon), (int) damage);
+            if (entityPlayer.isDied()) {
+                livesLost++;
+                loseLife();
+                if (gameStatus == GameStatus.LOSS) {
+                    return new BattleSummary(false, rounds, dealt, taken, livesLost, recoversUsed);
+                }
+                // resurrected next to the NPC, fight again
+                chooseToFightNPC();
             }
         }
     }
 
+    /**
+     * Removes the beaten NPC from the map and lets the player move on.
+     */
+    private void defeatNPC() {
+        listener.onNPCDefeated(meetEntityNPC);
+        Location location = meetEntityNPC.getLocation();
+        // clear the NPC grid
+        map.setGridEmpty(location.getLocationX(), location.getLocationY());
+
+        gameStatus = GameStatus.READY_MOVE;
+    }
+
+    /**
+     * Takes a life from the player who died in a fight. The game is lost
+     * without one left, otherwise the player and the NPC are back to their
+     * health before the fight.
+     */
+    private void loseLife() {
+        listener.onPlayerDied(meetEntityNPC);
+        life--;
+        if (life == 0) {
+            gameStatus = GameStatus.LOSS;
+            listener.onGameLost();
+        } else {
+            meetEntityNPC.recover();
+            entityPlayer.recover();
+            gameStatus = GameStatus.READY_MOVE;
+            listener.onResurrected(life);
+        }
+    }
+
     /**
      * Removes an item from the inventory based on its type and index.
      *
@@ -287,6 +526,15 @@ public class GameState implements ISerializable, IDisplayable {
         this.life = life;
     }
 
+    /**
+     * Returns the lives left.
+     *
+     * @return The number of lives.
+     */
+    public int getLife() {
+        return life;
+    }
+
     /**
      * Heals the player using a recover item from the inventory.
      *
@@ -299,6 +547,15 @@ public class GameState implements ISerializable, IDisplayable {
         }
     }
 
+    /**
+     * Returns the NPC the player met or fights.
+     *
+     * @return The NPC, or null if none was met yet.
+     */
+    public EntityNPC getMeetEntityNPC() {
+        return meetEntityNPC;
+    }
+
     /**
      * Returns the current game status.
      *
@@ -317,6 +574,15 @@ public class GameState implements ISerializable, IDisplayable {
         return map;
     }
 
+    /**
+     * Returns the settings of the game.
+     *
+     * @return The settings of the game.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
     /**
      * Returns the inventory.
      *
@@ -376,15 +642,15 @@ public class GameState implements ISerializable, IDisplayable {
         for (JsonElement entityElement : entitiesArray) {
             JsonObject entityObject = entityElement.getAsJsonObject();
             if (entityObject.get("type").getAsString().equals(EntityType.PLAYER.getName())) {
-                EntityPlayer entityPlayer = new EntityPlayer(new Location());
+                EntityPlayer entityPlayer = new EntityPlayer(entityStore, new Location());
                 entityPlayer.deserialize(entityElement.toString());
                 entities.add(entityPlayer);
             } else if (entityObject.get("type").getAsString().equals(EntityType.ENEMY.getName())) {
-                EntityNPC enemy = new EntityNPC(0, 0, new Location());
+                EntityNPC enemy = new EntityNPC(entityStore, 0, 0, new Location());
                 enemy.deserialize(entityElement.toString());
                 entities.add(enemy);
             } else {
-                Entity entity = new Entity(0, 0, new Location(), EntityType.NONE);
+                Entity entity = new Entity(entityStore, 0, 0, new Location(), EntityType.NONE);
                 entity.deserialize(entityElement.toString());
                 entities.add(entity);
             }
@@ -414,19 +680,36 @@ public class GameState implements ISerializable, IDisplayable {
 
     /**
      * Displays the current game state to the user, including the map, entities,
-     * player life, and inventory.
+     * player life, and inventory. The whole frame is built first and printed
+     * with a single write.
      */
     @Override
     public void display() {
+        frame.reset();
+        render(frame);
+        frame.writeTo(System.out);
+    }
+
+    /**
+     * Draws the current game state into a frame, including the map, entities,
+     * player life, and inventory.
+     *
+     * @param frame the frame being drawn
+     */
+    @Override
+    public void render(FrameBuffer frame) {
         if (gameStatus == GameStatus.READY_MOVE || gameStatus == GameStatus.WIN) {
-            this.map.display();
+            // the camera follows the player
+            Location center = entityPlayer.getLocation();
+            this.map.render(frame, center.getLocationX(), center.getLocationY(), config.getViewportWidth(),
+                    config.getViewportHeight());
         }
         if (gameStatus == GameStatus.FIGHTING) {
-            meetEntityNPC.display();
+            meetEntityNPC.render(frame);
         }
 
         if (gameStatus == GameStatus.FIND_BONUS) {
-            findBonus.display();
+            findBonus.render(frame);
         }
 
         // debug
@@ -434,27 +717,92 @@ public class GameState implements ISerializable, IDisplayable {
         // System.out.println(ANSI_BLUE + "Current work directory: " +
         // System.getProperty("user.dir") + ANSI_RESET);
 
-        entityPlayer.display();
-        System.out.println(ANSI_BLUE + "   life: " + life + ANSI_RESET);
+        entityPlayer.render(frame);
+        frame.appendLine(ANSI_BLUE + "   life: " + life + ANSI_RESET);
 
-        this.inventory.display();
+        this.inventory.render(frame);
     }
 
     /**
-     * Generates entities and adds them to the game state.
+     * Generates entities and adds them to the game state: two NPCs and the
+     * player in the default layout or, with random placement, the configured
+     * NPCs on random free cells and the player at the start.
+     *
+     * @param random the source of the NPC locations
+     * @throws IllegalArgumentException if the map has no room for the NPCs
      */
-    void generateEntity() {
-        entities.add(new EntityNPC(0, 0, new Location(3, 1)));
-        entities.add(new EntityNPC(0, 0, new Location(8, 2)));
-        entities.add(new EntityPlayer(new Location(20, 6)));
+    void generateEntity(SplittableRandom random) {
+        if (!config.isRandomPlacement()) {
+            entities.add(new EntityNPC(entityStore, config.getNpcHealth(), config.getNpcAttack(), new Location(3, 1)));
+            entities.add(new EntityNPC(entityStore, config.getNpcHealth(), config.getNpcAttack(), new Location(8, 2)));
+            entities.add(new EntityPlayer(entityStore, new Location(20, 6)));
+            return;
+        }
+        for (int i = 0; i < config.getNpcCount(); i++) {
+            entities.add(new EntityNPC(entityStore, config.getNpcHealth(), config.getNpcAttack(), findFreeCell(random)));
+        }
+        Location start = map.getStartLocation();
+        entities.add(new EntityPlayer(entityStore, new Location(start.getLocationX(), start.getLocationY())));
     }
 
     /**
-     * Generates items and adds them to the game state.
+     * Generates items and adds them to the game state, in the default layout
+     * or, with random placement, on random free cells.
+     *
+     * @param random the source of the item locations
+     * @throws IllegalArgumentException if the map has no room for the items
+     */
+    void generateItem(SplittableRandom random) {
+        if (!config.isRandomPlacement()) {
+            items.add(new ItemWeapon(new Location(10, 10), 10));
+            items.add(new ItemRecover(new Location(15, 4), 220));
+            return;
+        }
+        items.add(new ItemWeapon(findFreeCell(random), 10));
+        items.add(new ItemRecover(findFreeCell(random), 220));
+    }
+
+    /**
+     * Picks a random cell which is not a wall, the start, the exit or taken by
+     * an entity or item generated before. After a few random misses the map is
+     * scanned from a random cell on, so a crowded map still finds its last free
+     * cells and a full map fails after one pass.
+     *
+     * @param random the source of the cell
+     * @return the location of the cell
+     * @throws IllegalArgumentException if no free cell is left
+     */
+    private Location findFreeCell(SplittableRandom random) {
+        int width = map.getWidth();
+        long cells = (long) width * map.getHeight();
+        for (int i = 0; i < FREE_CELL_TRIES; i++) {
+            long cell = random.nextLong(cells);
+            if (takeIfFree((int) (cell % width), (int) (cell / width))) {
+                return new Location((int) (cell % width), (int) (cell / width));
+            }
+        }
+        long first = random.nextLong(cells);
+        for (long i = 0; i < cells; i++) {
+            long cell = (first + i) % cells;
+            if (takeIfFree((int) (cell % width), (int) (cell / width))) {
+                return new Location((int) (cell % width), (int) (cell / width));
+            }
+        }
+        throw new IllegalArgumentException("No free cell on the map");
+    }
+
+    /**
+     * Takes a cell for a generated entity or item if it is not a wall, the
+     * start, the exit or taken before.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell was free and is now taken; false otherwise
      */
-    void generateItem() {
-        items.add(new ItemWeapon(new Location(10, 10), 10));
-        items.add(new ItemRecover(new Location(15, 4), 220));
+    private boolean takeIfFree(int x, int y) {
+        Location start = map.getStartLocation();
+        return map.isTargetPositionCanMove(x, y) && !map.isExit(x, y)
+                && (x != start.getLocationX() || y != start.getLocationY()) && takenCells.add(GameMap.key(x, y));
     }
 
     /**
@@ -49,7 +49,7 @@ public enum GameStatus {
                 return "Find NPC press Y or N to fight or run away";
             }
             case FIGHTING -> {
-                return "In Fighting with NPC, choose the weapon (press the index) every time to fight";
+                return "In Fighting with NPC, choose the weapon (press the index) every time to fight, or A to fight it out";
             }
             default -> {
                 return this.toString();
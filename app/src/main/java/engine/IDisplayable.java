@@ -8,5 +8,16 @@ public interface IDisplayable {
     /**
      * print out the display
      */
-    void display();
+    default void display() {
+        FrameBuffer frame = new FrameBuffer();
+        render(frame);
+        frame.writeTo(System.out);
+    }
+
+    /**
+     * append the display to a frame, to be printed with the rest of the frame
+     *
+     * @param frame the frame being drawn
+     */
+    void render(FrameBuffer frame);
 }
@@ -0,0 +1,151 @@
+package engine;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Draws frames on a thread of its own, so a slow terminal never holds up the
+ * game.
+ * The game draws each frame into a back buffer and publishes it; the frame is
+ * then a snapshot which is not changed again until the renderer is done with
+ * it. Publishing swaps buffers and never waits: a frame which was published
+ * but not drawn yet is stale once a newer one arrives, and is dropped.
+ * <p>
+ * Three buffers go around, the one being drawn into, the latest published
+ * frame and the one being written out. With only two, the game could not
+ * start the next frame while the renderer still writes one out and another
+ * waits, so publishing would have to wait for the renderer or throw away the
+ * newest frame instead of the stale one.
+ */
+public class RenderThread implements AutoCloseable {
+
+    private final Consumer<FrameBuffer> sink;
+    private final Thread thread;
+
+    // the frame the game draws into, only used by the game
+    private FrameBuffer back;
+    // the latest published frame not taken by the renderer yet, or null
+    private FrameBuffer ready;
+    // buffers free to become the next back buffer
+    private final ArrayDeque<FrameBuffer> spares = new ArrayDeque<>();
+    private boolean closed;
+    private long published;
+    private long dropped;
+
+    /**
+     * Starts a render thread.
+     *
+     * @param sink writes a frame out, for example to the terminal; called on
+     *             the render thread only
+     */
+    public RenderThread(Consumer<FrameBuffer> sink) {
+        this.sink = sink;
+        this.back = new FrameBuffer();
+        spares.push(new FrameBuffer());
+        spares.push(new FrameBuffer());
+        this.thread = new Thread(this::run, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Gets the empty back buffer to draw the next frame into.
+     *
+     * @return the back buffer, owned by the game until it is published
+     */
+    public FrameBuffer getFrame() {
+        back.reset();
+        return back;
+    }
+
+    /**
+     * Hands the back buffer to the renderer, dropping a frame still waiting
+     * to be drawn.
+     *
+     * @throws IllegalStateException if the thread is closed
+     */
+    public synchronized void publish() {
+        if (closed) {
+            throw new IllegalStateException("Render thread is closed");
+        }
+        published++;
+        FrameBuffer frame = back;
+        if (ready != null) {
+            // the renderer fell behind, reuse the stale frame
+            dropped++;
+            back = ready;
+        } else {
+            back = spares.pop();
+        }
+        ready = frame;
+        notifyAll();
+    }
+
+    /**
+     * Gets the number of frames published.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getPublishedFrames() {
+        return published;
+    }
+
+    /**
+     * Gets the number of frames dropped because a newer one was published
+     * before they were drawn.
+     *
+     * @return the number of frames
+     */
+    public synchronized long getDroppedFrames() {
+        return dropped;
+    }
+
+    /**
+     * Draws the frame still waiting, if any, and stops the thread.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Draws published frames until the thread is closed.
+     */
+    private void run() {
+        while (true) {
+            FrameBuffer frame;
+            synchronized (this) {
+                while (ready == null && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (ready == null) {
+                    return;
+                }
+                frame = ready;
+                ready = null;
+            }
+            try {
+                sink.accept(frame);
+            } finally {
+                synchronized (this) {
+                    spares.push(frame);
+                }
+            }
+        }
+    }
+}
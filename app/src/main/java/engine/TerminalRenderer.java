@@ -0,0 +1,280 @@
+package engine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws frames on the alternate screen of an ANSI terminal, sending only the
+ * cells which changed since the previous frame.
+ * Every frame is read into rows of characters and their colors and compared
+ * with the rows on the screen; changed cells are written after a cursor
+ * positioning sequence, and rows which got shorter are cleared to their end.
+ * <p>
+ * The rows below the frame are a scrolling region for messages, so printing
+ * there never moves the frame. A frame taller than the rows kept for frames
+ * is drawn again in full.
+ * The renderer may be used from a render thread and the game thread at once.
+ */
+public class TerminalRenderer {
+
+    private static final String CSI = "\u001B[";
+    private static final String ENTER_ALTERNATE_SCREEN = CSI + "?1049h";
+    private static final String LEAVE_ALTERNATE_SCREEN = CSI + "?1049l";
+    private static final String CLEAR_SCREEN = CSI + "H" + CSI + "2J";
+    private static final String CLEAR_LINE = CSI + "K";
+    private static final String CLEAR_BELOW = CSI + "J";
+    private static final String RESET_SCROLL_REGION = CSI + "r";
+    private static final String RESET_COLOR = CSI + "0m";
+    private static final String SAVE_CURSOR = "\u001B7";
+    private static final String RESTORE_CURSOR = "\u001B8";
+    private static final int[] EMPTY_ROW = new int[0];
+
+    private final PrintStream out;
+    // the escape codes written to the terminal, kept between frames
+    private final FrameBuffer output = new FrameBuffer(4096, true);
+
+    // characters and colors of the rows on the screen, null for no color
+    private List<int[]> screenChars = new ArrayList<>();
+    private List<String[]> screenColors = new ArrayList<>();
+    // characters and colors of the rows of the frame being drawn
+    private List<int[]> frameChars = new ArrayList<>();
+    private List<String[]> frameColors = new ArrayList<>();
+
+    private boolean open;
+    // rows above the messages
+    private int frameRows;
+    // position and color of the terminal cursor while a frame is written
+    private int cursorRow;
+    private int cursorColumn;
+    private String cursorColor;
+
+    /**
+     * Constructs a renderer writing to a terminal.
+     *
+     * @param out the stream of the terminal
+     */
+    public TerminalRenderer(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Draws a frame, switching to the alternate screen on the first one.
+     *
+     * @param frame the frame, text with ANSI color codes
+     */
+    public synchronized void draw(FrameBuffer frame) {
+        parse(frame.toString());
+        output.reset();
+        cursorRow = -1;
+        cursorColor = null;
+
+        if (!open || frameChars.size() > frameRows) {
+            if (!open) {
+                output.append(ENTER_ALTERNATE_SCREEN);
+                open = true;
+            }
+            frameRows = frameChars.size();
+            output.append(RESET_SCROLL_REGION);
+            output.append(CLEAR_SCREEN);
+            screenChars.clear();
+            screenColors.clear();
+            writeChanges();
+            // setting the scrolling region moves the cursor home
+            output.append(CSI + (frameRows + 1) + "r");
+            cursorRow = -1;
+            moveCursor(frameRows, 0);
+        } else {
+            // messages below the frame stay where they are
+            output.append(SAVE_CURSOR);
+            writeChanges();
+            output.append(RESTORE_CURSOR);
+        }
+
+        List<int[]> chars = screenChars;
+        List<String[]> colors = screenColors;
+        screenChars = frameChars;
+        screenColors = frameColors;
+        frameChars = chars;
+        frameColors = colors;
+        output.writeTo(out);
+    }
+
+    /**
+     * Clears the messages below the frame and moves the cursor to the first
+     * row below it.
+     */
+    public synchronized void clearMessages() {
+        if (!open) {
+            return;
+        }
+        output.reset();
+        output.append(CSI + (frameRows + 1) + ";1H");
+        output.append(CLEAR_BELOW);
+        output.writeTo(out);
+    }
+
+    /**
+     * Makes the next frame be drawn in full.
+     */
+    public synchronized void invalidate() {
+        frameRows = 0;
+    }
+
+    /**
+     * Leaves the alternate screen, back to the text printed before the first
+     * frame.
+     */
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        output.reset();
+        output.append(RESET_SCROLL_REGION);
+        output.append(LEAVE_ALTERNATE_SCREEN);
+        output.writeTo(out);
+        open = false;
+        screenChars.clear();
+        screenColors.clear();
+    }
+
+    /**
+     * Gets the number of bytes written for the last frame or message clearing.
+     *
+     * @return the number of bytes
+     */
+    public synchronized int getLastOutputSize() {
+        return output.length();
+    }
+
+    /**
+     * Writes the cells of the frame which differ from the screen.
+     */
+    private void writeChanges() {
+        int rows = Math.max(screenChars.size(), frameChars.size());
+        for (int row = 0; row < rows; row++) {
+            int[] oldChars = row < screenChars.size() ? screenChars.get(row) : EMPTY_ROW;
+            String[] oldColors = row < screenColors.size() ? screenColors.get(row) : null;
+            int[] newChars = row < frameChars.size() ? frameChars.get(row) : EMPTY_ROW;
+            String[] newColors = row < frameColors.size() ? frameColors.get(row) : null;
+
+            for (int column = 0; column < newChars.length; column++) {
+                if (column < oldChars.length && oldChars[column] == newChars[column]
+                        && sameColor(oldColors[column], newColors[column])) {
+                    continue;
+                }
+                moveCursor(row, column);
+                setColor(newColors[column]);
+                int c = newChars[column];
+                if (c < 0x80) {
+                    output.append((char) c);
+                } else {
+                    output.append(Character.toString(c));
+                }
+                cursorColumn++;
+            }
+            if (oldChars.length > newChars.length) {
+                moveCursor(row, newChars.length);
+                setColor(null);
+                output.append(CLEAR_LINE);
+            }
+        }
+        setColor(null);
+    }
+
+    /**
+     * Moves the cursor to a cell unless it is already there.
+     *
+     * @param row    the row, from 0
+     * @param column the column, from 0
+     */
+    private void moveCursor(int row, int column) {
+        if (row == cursorRow && column == cursorColumn) {
+            return;
+        }
+        output.append(CSI);
+        output.append(String.valueOf(row + 1));
+        output.append(';');
+        output.append(String.valueOf(column + 1));
+        output.append('H');
+        cursorRow = row;
+        cursorColumn = column;
+    }
+
+    /**
+     * Changes the color of the text written next unless it already has it.
+     *
+     * @param color the color escape code, or null for no color
+     */
+    private void setColor(String color) {
+        if (sameColor(color, cursorColor)) {
+            return;
+        }
+        output.append(color == null ? RESET_COLOR : color);
+        cursorColor = color;
+    }
+
+    /**
+     * Reads a frame into rows of characters and colors. Escape codes other
+     * than colors are dropped.
+     *
+     * @param text the frame
+     */
+    private void parse(String text) {
+        frameChars.clear();
+        frameColors.clear();
+        int[] chars = new int[64];
+        String[] colors = new String[64];
+        int length = 0;
+        String color = null;
+        int i = 0;
+        while (i < text.length()) {
+            int c = text.codePointAt(i);
+            i += Character.charCount(c);
+            if (c == '\u001B') {
+                int end = i;
+                if (end < text.length() && text.charAt(end) == '[') {
+                    end++;
+                    while (end < text.length() && (text.charAt(end) < '@' || text.charAt(end) > '~')) {
+                        end++;
+                    }
+                }
+                end = Math.min(end + 1, text.length());
+                String code = text.substring(i - 1, end);
+                if (code.endsWith("m")) {
+                    color = code.equals(RESET_COLOR) || code.equals(CSI + "m") ? null : code;
+                }
+                i = end;
+            } else if (c == '\n') {
+                frameChars.add(Arrays.copyOf(chars, length));
+                frameColors.add(Arrays.copyOf(colors, length));
+                length = 0;
+            } else if (c != '\r') {
+                if (length == chars.length) {
+                    chars = Arrays.copyOf(chars, length * 2);
+                    colors = Arrays.copyOf(colors, length * 2);
+                }
+                chars[length] = c;
+                // spaces look the same in every color
+                colors[length] = c == ' ' ? null : color;
+                length++;
+            }
+        }
+        if (length > 0) {
+            frameChars.add(Arrays.copyOf(chars, length));
+            frameColors.add(Arrays.copyOf(colors, length));
+        }
+    }
+
+    /**
+     * Compares two colors, either of which may be null.
+     *
+     * @param first  the first color
+     * @param second the second color
+     * @return true if they are the same color
+     */
+    private static boolean sameColor(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
@@ -10,26 +10,23 @@ import com.google.gson.JsonParser;
  * Entity class is the base class for all entities in the game.
  * It provides properties and methods to manage an entity's state,
  * such as health, attack, and location.
+ * <p>
+ * An entity is a view of one id of an {@link EntityStore}, which holds its
+ * state. An entity constructed on its own is kept in the store shared by the
+ * loose entities of its thread until it is moved to the store of a game with
+ * {@link #moveTo}, which frees its id there; until then it belongs to the
+ * thread that made it.
  */
 public class Entity implements ISerializable {
 
-    /** The current health of the entity. */
-    private int health;
+    /** The store of the entities constructed on their own, one per thread. */
+    private static final ThreadLocal<EntityStore> LOOSE_STORE = ThreadLocal.withInitial(EntityStore::new);
 
-    /** The maximum health of the entity. */
-    private int maxHealth;
+    /** The store holding the state of the entity. */
+    private EntityStore store;
 
-    /** The attack power of the entity. */
-    private int attack;
-
-    /** The current location of the entity in the game world. */
-    private Location location;
-
-    /** The type of the entity. */
-    private EntityType type;
-
-    /** The health of the entity before a fight. */
-    private int preFightHealth;
+    /** The id of the entity in its store. */
+    private int id;
 
     /**
      * Constructs a new Entity with the specified maximum health, attack, location,
@@ -41,25 +38,71 @@ public class Entity implements ISerializable {
      * @param type      the type of the entity
      */
     public Entity(int maxHealth, int attack, Location location, EntityType type) {
-        this.maxHealth = maxHealth;
-        this.health = this.maxHealth;
-        this.attack = attack;
-        this.location = location;
-        this.type = type;
+        this(LOOSE_STORE.get(), maxHealth, attack, location, type);
+    }
+
+    /**
+     * Constructs a new Entity in the given store.
+     *
+     * @param store     the store holding the entity
+     * @param maxHealth the maximum health of the entity
+     * @param attack    the attack power of the entity
+     * @param location  the initial location of the entity
+     * @param type      the type of the entity
+     */
+    public Entity(EntityStore store, int maxHealth, int attack, Location location, EntityType type) {
+        this.store = store;
+        this.id = store.add(maxHealth, attack, location.getLocationX(), location.getLocationY(), type);
+    }
+
+    /**
+     * Moves the state of the entity to another store, this entity becoming a
+     * view of its new id there. Nothing happens if it is there already.
+     *
+     * @param store the new store of the entity
+     */
+    public void moveTo(EntityStore store) {
+        if (store == this.store) {
+            return;
+        }
+        int newId = store.add(getMaxHealth(), getAttack(), getLocationX(), getLocationY(), getType());
+        store.setHealth(newId, getHealth());
+        store.setPreFightHealth(newId, this.store.getPreFightHealth(id));
+        this.store.remove(id);
+        this.store = store;
+        this.id = newId;
+    }
+
+    /**
+     * Gets the store holding the entity.
+     *
+     * @return the store
+     */
+    public EntityStore getStore() {
+        return store;
+    }
+
+    /**
+     * Gets the id of the entity in its store.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return id;
     }
 
     /**
      * Sets the pre-fight health of the entity.
      */
     public void setPreFightHealth() {
-        this.preFightHealth = health;
+        store.setPreFightHealth(id, getHealth());
     }
 
     /**
      * Recovers the entity's health to its pre-fight health.
      */
     public void recover() {
-        health = preFightHealth;
+        store.setHealth(id, store.getPreFightHealth(id));
     }
 
     /**
@@ -68,7 +111,7 @@ public class Entity implements ISerializable {
      * @return the current health
      */
     public int getHealth() {
-        return health;
+        return store.getHealth(id);
     }
 
     /**
@@ -77,7 +120,7 @@ public class Entity implements ISerializable {
      * @return the maximum health
      */
     public int getMaxHealth() {
-        return maxHealth;
+        return store.getMaxHealth(id);
     }
 
     /**
@@ -86,7 +129,7 @@ public class Entity implements ISerializable {
      * @param health the new health value
      */
     public void setHealth(int health) {
-        this.health = health;
+        store.setHealth(id, health);
     }
 
     /**
@@ -95,7 +138,7 @@ public class Entity implements ISerializable {
      * @return the attack power
      */
     public int getAttack() {
-        return attack;
+        return store.getAttack(id);
     }
 
     /**
@@ -104,7 +147,7 @@ public class Entity implements ISerializable {
      * @param attack the new attack power
      */
     public void setAttack(int attack) {
-        this.attack = attack;
+        store.setAttack(id, attack);
     }
 
     /**
@@ -113,7 +156,7 @@ public class Entity implements ISerializable {
      * @param damage the amount of damage to inflict
      */
     public void damage(int damage) {
-        this.health = Math.max(0, this.health - damage);
+        store.setHealth(id, Math.max(0, getHealth() - damage));
     }
 
     /**
@@ -122,16 +165,46 @@ public class Entity implements ISerializable {
      * @param heal the amount of health to recover
      */
     public void heal(int heal) {
-        this.health = Math.min(this.maxHealth, this.health + heal);
+        store.setHealth(id, Math.min(getMaxHealth(), getHealth() + heal));
     }
 
     /**
-     * Gets the current location of the entity.
+     * Gets the current location of the entity. The location is a snapshot
+     * which does not follow the entity, the entity is moved with
+     * {@link #setLocation}.
      *
      * @return the current location
      */
     public Location getLocation() {
-        return location;
+        return new Location(getLocationX(), getLocationY());
+    }
+
+    /**
+     * Gets the x-coordinate of the entity.
+     *
+     * @return The x-coordinate of the entity.
+     */
+    public int getLocationX() {
+        return store.getLocationX(id);
+    }
+
+    /**
+     * Gets the y-coordinate of the entity.
+     *
+     * @return The y-coordinate of the entity.
+     */
+    public int getLocationY() {
+        return store.getLocationY(id);
+    }
+
+    /**
+     * Moves the entity.
+     *
+     * @param x The new x-coordinate of the entity.
+     * @param y The new y-coordinate of the entity.
+     */
+    public void setLocation(int x, int y) {
+        store.setLocation(id, x, y);
     }
 
     /**
@@ -140,7 +213,7 @@ public class Entity implements ISerializable {
      * @return true if the entity is dead, false otherwise
      */
     public boolean isDied() {
-        return health <= 0;
+        return getHealth() <= 0;
     }
 
     /**
@@ -149,7 +222,7 @@ public class Entity implements ISerializable {
      * @return the entity type
      */
     public EntityType getType() {
-        return type;
+        return store.getType(id);
     }
 
     /**
@@ -160,11 +233,11 @@ public class Entity implements ISerializable {
     @Override
     public String serialize() {
         JsonObject jsonObject = new JsonObject();
-        jsonObject.addProperty("type", this.type.getName());
+        jsonObject.addProperty("type", this.getType().getName());
         jsonObject.addProperty("location", this.getLocation().serialize());
         jsonObject.addProperty("health", this.getHealth());
-        jsonObject.addProperty("max_health", this.maxHealth);
-        jsonObject.addProperty("attack", this.attack);
+        jsonObject.addProperty("max_health", this.getMaxHealth());
+        jsonObject.addProperty("attack", this.getAttack());
         return DataManager.GSON.toJson(jsonObject);
     }
 
@@ -177,12 +250,13 @@ public class Entity implements ISerializable {
     public void deserialize(String data) {
         JsonObject jsonObject = JsonParser.parseString(data).getAsJsonObject();
         String typeName = jsonObject.get("type").getAsString();
-        this.type = EntityType.fromName(typeName);
-        this.location = new Location();
-        this.location.deserialize(jsonObject.get("location").getAsString());
-        this.health = jsonObject.get("health").getAsInt();
-        this.maxHealth = jsonObject.get("max_health").getAsInt();
-        this.attack = jsonObject.get("attack").getAsInt();
+        store.setType(id, EntityType.fromName(typeName));
+        Location location = new Location();
+        location.deserialize(jsonObject.get("location").getAsString());
+        setLocation(location.getLocationX(), location.getLocationY());
+        store.setMaxHealth(id, jsonObject.get("max_health").getAsInt());
+        setHealth(jsonObject.get("health").getAsInt());
+        setAttack(jsonObject.get("attack").getAsInt());
     }
 
     /**
@@ -193,6 +267,6 @@ public class Entity implements ISerializable {
      */
     @Override
     public String toString() {
-        return type + "  health:" + health + "(" + maxHealth + ") A:" + attack;
+        return getType() + "  health:" + getHealth() + "(" + getMaxHealth() + ") A:" + getAttack();
     }
 }
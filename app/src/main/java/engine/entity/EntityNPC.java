@@ -1,5 +1,6 @@
 package engine.entity;
 
+import engine.FrameBuffer;
 import engine.IDisplayable;
 import utils.Location;
 
@@ -24,6 +25,18 @@ public class EntityNPC extends Entity implements IDisplayable {
         super(maxHealth, attack, location, EntityType.ENEMY);
     }
 
+    /**
+     * Constructs a new EntityNPC in the given store.
+     *
+     * @param store     the store holding the NPC
+     * @param maxHealth the maximum health of the NPC
+     * @param attack    the attack power of the NPC
+     * @param location  the initial location of the NPC
+     */
+    public EntityNPC(EntityStore store, int maxHealth, int attack, Location location) {
+        super(store, maxHealth, attack, location, EntityType.ENEMY);
+    }
+
     /**
      * Returns a string representation of the NPC, including its health and attack
      * details.
@@ -36,11 +49,13 @@ public class EntityNPC extends Entity implements IDisplayable {
     }
 
     /**
-     * Displays the NPC's details, including its health and attack power, in a
+     * Draws the NPC's details, including its health and attack power, in a
      * formatted way.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
         int health = getHealth();
         String healthString = String.valueOf(health);
         if (health < 10) {
@@ -51,7 +66,7 @@ public class EntityNPC extends Entity implements IDisplayable {
             healthString = String.valueOf(health);
         }
 
-        System.out.println(ANSI_BLUE + "NPC-----HP:" + healthString + "  Attack:" + getAttack() + ANSI_RESET);
+        frame.appendLine(ANSI_BLUE + "NPC-----HP:" + healthString + "  Attack:" + getAttack() + ANSI_RESET);
 
     }
 }
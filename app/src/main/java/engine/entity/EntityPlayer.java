@@ -1,5 +1,6 @@
 package engine.entity;
 
+import engine.FrameBuffer;
 import engine.IDisplayable;
 import utils.Location;
 
@@ -26,10 +27,23 @@ public class EntityPlayer extends Entity implements IDisplayable {
     }
 
     /**
-     * Displays the player's current health and maximum health in a formatted way.
+     * Constructs a new EntityPlayer in the given store with the maximum
+     * health.
+     *
+     * @param store    the store holding the player
+     * @param location the initial location of the player
+     */
+    public EntityPlayer(EntityStore store, Location location) {
+        super(store, MAX_HEALTH, 0, location, EntityType.PLAYER);
+    }
+
+    /**
+     * Draws the player's current health and maximum health in a formatted way.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
         int health = getHealth();
         String healthString;
         if (health < 10) {
@@ -50,7 +64,7 @@ public class EntityPlayer extends Entity implements IDisplayable {
             maxHealthString = String.valueOf(maxHealth);
         }
 
-        System.out.print(ANSI_BLUE + "Player--HP:" + healthString + "(" + getMaxHealth() + ")" + ANSI_RESET);
+        frame.append(ANSI_BLUE + "Player--HP:" + healthString + "(" + getMaxHealth() + ")" + ANSI_RESET);
     }
 
     /**
@@ -0,0 +1,351 @@
+package engine.entity;
+
+import java.util.Arrays;
+
+/**
+ * Stores the state of many entities in parallel primitive arrays, one array
+ * per field, indexed by the id of the entity.
+ * An {@link Entity} is a view of one id, so updates over all entities, like
+ * {@link #healAll}, walk a few arrays in order without touching the views and
+ * without allocating.
+ * <p>
+ * Ids are stable: an id keeps its entity until it is removed, after which the
+ * id may be given to a new entity. The arrays grow by doubling as entities are
+ * added. The store is not thread-safe.
+ */
+public class EntityStore {
+
+    // Type of a removed entity, not an EntityType ordinal
+    private static final byte REMOVED = -1;
+    private static final EntityType[] TYPES = EntityType.values();
+
+    private int[] health;
+    private int[] maxHealth;
+    private int[] attack;
+    private int[] preFightHealth;
+    private int[] locationX;
+    private int[] locationY;
+    private byte[] type;
+
+    // ids in use or removed, ids at or above it were never given out
+    private int size;
+    private int removed;
+    // removed ids to give out again, the last removed on top
+    private int[] freeIds = new int[0];
+
+    /**
+     * Constructs a store with room for a few entities.
+     */
+    public EntityStore() {
+        this(16);
+    }
+
+    /**
+     * Constructs a store with room for the given number of entities before
+     * growing.
+     *
+     * @param capacity the number of entities
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public EntityStore(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        health = new int[capacity];
+        maxHealth = new int[capacity];
+        attack = new int[capacity];
+        preFightHealth = new int[capacity];
+        locationX = new int[capacity];
+        locationY = new int[capacity];
+        type = new byte[capacity];
+    }
+
+    /**
+     * Adds an entity with full health.
+     *
+     * @param maxHealth the maximum health of the entity
+     * @param attack    the attack power of the entity
+     * @param x         The x-coordinate of the entity.
+     * @param y         The y-coordinate of the entity.
+     * @param type      the type of the entity
+     * @return the id of the entity
+     */
+    public int add(int maxHealth, int attack, int x, int y, EntityType type) {
+        int id;
+        if (removed > 0) {
+            id = freeIds[--removed];
+        } else {
+            if (size == this.type.length) {
+                grow();
+            }
+            id = size++;
+        }
+        this.maxHealth[id] = maxHealth;
+        this.health[id] = maxHealth;
+        this.attack[id] = attack;
+        this.preFightHealth[id] = 0;
+        this.locationX[id] = x;
+        this.locationY[id] = y;
+        this.type[id] = (byte) type.ordinal();
+        return id;
+    }
+
+    /**
+     * Removes an entity, its id may be given to an entity added later.
+     *
+     * @param id the id of the entity
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void remove(int id) {
+        checkId(id);
+        type[id] = REMOVED;
+        if (removed == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, Math.max(16, 2 * freeIds.length));
+        }
+        freeIds[removed++] = id;
+    }
+
+    /**
+     * Removes all entities and forgets their ids.
+     */
+    public void clear() {
+        size = 0;
+        removed = 0;
+    }
+
+    /**
+     * Gets the number of entities in the store.
+     *
+     * @return the number of entities
+     */
+    public int size() {
+        return size - removed;
+    }
+
+    /**
+     * Checks if an id belongs to an entity in the store.
+     *
+     * @param id the id
+     * @return true if the entity was added and not removed; false otherwise
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < size && type[id] != REMOVED;
+    }
+
+    /**
+     * Gets the current health of an entity.
+     *
+     * @param id the id of the entity
+     * @return the current health
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getHealth(int id) {
+        checkId(id);
+        return health[id];
+    }
+
+    /**
+     * Sets the current health of an entity.
+     *
+     * @param id     the id of the entity
+     * @param health the new health value
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setHealth(int id, int health) {
+        checkId(id);
+        this.health[id] = health;
+    }
+
+    /**
+     * Gets the maximum health of an entity.
+     *
+     * @param id the id of the entity
+     * @return the maximum health
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getMaxHealth(int id) {
+        checkId(id);
+        return maxHealth[id];
+    }
+
+    /**
+     * Sets the maximum health of an entity.
+     *
+     * @param id        the id of the entity
+     * @param maxHealth the new maximum health
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setMaxHealth(int id, int maxHealth) {
+        checkId(id);
+        this.maxHealth[id] = maxHealth;
+    }
+
+    /**
+     * Gets the attack power of an entity.
+     *
+     * @param id the id of the entity
+     * @return the attack power
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getAttack(int id) {
+        checkId(id);
+        return attack[id];
+    }
+
+    /**
+     * Sets the attack power of an entity.
+     *
+     * @param id     the id of the entity
+     * @param attack the new attack power
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setAttack(int id, int attack) {
+        checkId(id);
+        this.attack[id] = attack;
+    }
+
+    /**
+     * Gets the health of an entity before its last fight.
+     *
+     * @param id the id of the entity
+     * @return the pre-fight health
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getPreFightHealth(int id) {
+        checkId(id);
+        return preFightHealth[id];
+    }
+
+    /**
+     * Sets the health of an entity before a fight.
+     *
+     * @param id             the id of the entity
+     * @param preFightHealth the pre-fight health
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setPreFightHealth(int id, int preFightHealth) {
+        checkId(id);
+        this.preFightHealth[id] = preFightHealth;
+    }
+
+    /**
+     * Gets the x-coordinate of an entity.
+     *
+     * @param id the id of the entity
+     * @return The x-coordinate of the entity.
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getLocationX(int id) {
+        checkId(id);
+        return locationX[id];
+    }
+
+    /**
+     * Gets the y-coordinate of an entity.
+     *
+     * @param id the id of the entity
+     * @return The y-coordinate of the entity.
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public int getLocationY(int id) {
+        checkId(id);
+        return locationY[id];
+    }
+
+    /**
+     * Moves an entity.
+     *
+     * @param id the id of the entity
+     * @param x  The new x-coordinate of the entity.
+     * @param y  The new y-coordinate of the entity.
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setLocation(int id, int x, int y) {
+        checkId(id);
+        locationX[id] = x;
+        locationY[id] = y;
+    }
+
+    /**
+     * Gets the type of an entity.
+     *
+     * @param id the id of the entity
+     * @return the entity type
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public EntityType getType(int id) {
+        checkId(id);
+        return TYPES[type[id]];
+    }
+
+    /**
+     * Sets the type of an entity.
+     *
+     * @param id   the id of the entity
+     * @param type the new entity type
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    public void setType(int id, EntityType type) {
+        checkId(id);
+        this.type[id] = (byte) type.ordinal();
+    }
+
+    /**
+     * Counts the living entities of a type.
+     *
+     * @param type the entity type
+     * @return the number of entities of the type with health left
+     */
+    public int countAlive(EntityType type) {
+        byte code = (byte) type.ordinal();
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            if (this.type[id] == code && health[id] > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Heals every living entity of a type, up to its maximum health.
+     * Dead entities stay dead.
+     *
+     * @param type the entity type
+     * @param heal the amount of health to recover
+     */
+    public void healAll(EntityType type, int heal) {
+        byte code = (byte) type.ordinal();
+        for (int id = 0; id < size; id++) {
+            if (this.type[id] == code && health[id] > 0) {
+                health[id] = Math.min(maxHealth[id], health[id] + heal);
+            }
+        }
+    }
+
+    /**
+     * Checks that an id belongs to an entity in the store.
+     *
+     * @param id the id
+     * @throws IllegalArgumentException if there is no entity with the id
+     */
+    private void checkId(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("No entity with id " + id);
+        }
+    }
+
+    /**
+     * Doubles the room of every array.
+     */
+    private void grow() {
+        int capacity = Math.max(16, 2 * type.length);
+        health = Arrays.copyOf(health, capacity);
+        maxHealth = Arrays.copyOf(maxHealth, capacity);
+        attack = Arrays.copyOf(attack, capacity);
+        preFightHealth = Arrays.copyOf(preFightHealth, capacity);
+        locationX = Arrays.copyOf(locationX, capacity);
+        locationY = Arrays.copyOf(locationY, capacity);
+        type = Arrays.copyOf(type, capacity);
+    }
+}
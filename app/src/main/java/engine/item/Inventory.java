@@ -1,7 +1,9 @@
 package engine.item;
 
-import data.DataManager;
+import data.GameConfig;
 import data.ISerializable;
+import engine.FrameBuffer;
+import engine.GameListener;
 import engine.IDisplayable;
 import utils.Location;
 import com.google.gson.JsonArray;
@@ -10,6 +12,7 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.Random;
 
 import static utils.ANSIColors.*;
@@ -27,16 +30,37 @@ public class Inventory implements ISerializable, IDisplayable {
     ItemWeapon[] itemWeaponArray = new ItemWeapon[maxWeaponNum];
     ItemRecover[] itemRecoverArray = new ItemRecover[maxRecoverNum];
 
+    // told about every change, the inventory itself never prints
+    private GameListener listener = GameListener.SILENT;
+
+    /**
+     * Constructs an empty Inventory with the default settings, for loading.
+     */
+    public Inventory() {
+        this(new GameConfig());
+    }
+
     /**
      * Constructs an Inventory and initializes it with default items if
      * configuration is not read from a file.
+     *
+     * @param config the settings of the game
      */
-    public Inventory() {
-        if (!DataManager.READ_CONFIG_FROM_FILE) {
-            generalize();
+    public Inventory(GameConfig config) {
+        if (!config.isReadConfigFromFile()) {
+            generalize(config.getSeed() != null ? new Random(config.getSeed()) : new Random());
         }
     }
 
+    /**
+     * Sets the listener told about changes and failed operations.
+     *
+     * @param listener the listener, GameListener.SILENT for none
+     */
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Gets the weapon at the specified index in the inventory.
      *
@@ -46,20 +70,20 @@ public class Inventory implements ISerializable, IDisplayable {
     public ItemWeapon getWeapon(int index) {
         index -= 1;
         if (index < 0) {
-            System.out.println(ANSI_RED + "invalid index" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.INVALID_INDEX);
             return null;
         }
         if (index >= maxWeaponNum) {
-            System.out.println(ANSI_RED + "index out of bounds" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.OUT_OF_BOUNDS);
             return null;
         }
         if (itemWeaponArray[index] == null) {
-            System.out.println(ANSI_RED + "this slot is no weapon" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.EMPTY_SLOT);
             return null;
         }
         // update show the new state
         ItemWeapon ret = itemWeaponArray[index];
-        showInventory();
+        listener.onInventory(this);
         return ret;
     }
 
@@ -73,15 +97,13 @@ public class Inventory implements ISerializable, IDisplayable {
         for (int i = 0; i < maxWeaponNum; i++) {
             if (itemWeaponArray[i] == null) {
                 itemWeaponArray[i] = itemWeapon;
-                showInventory();
+                listener.onInventory(this);
                 return true;
             }
         }
 
         // not find show error
-        System.out.println(ANSI_RED
-                + "xxxx no rest slot for storing weapon, please remove some of the weapon use command  (rm w + index)!"
-                + ANSI_RESET);
+        listener.onInventoryError(ItemType.WEAPON, InventoryError.FULL);
         return false;
     }
 
@@ -94,21 +116,21 @@ public class Inventory implements ISerializable, IDisplayable {
     public ItemWeapon removeWeapon(int index) {
         index -= 1;
         if (index < 0) {
-            System.out.println(ANSI_RED + "invalid index" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.INVALID_INDEX);
             return null;
         }
         if (index >= maxWeaponNum) {
-            System.out.println(ANSI_RED + "index out of bounds" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.OUT_OF_BOUNDS);
             return null;
         }
         if (itemWeaponArray[index] == null) {
-            System.out.println(ANSI_RED + "this slot is no weapon" + ANSI_RESET);
+            listener.onInventoryError(ItemType.WEAPON, InventoryError.EMPTY_SLOT);
             return null;
         }
         // update show the new state
         ItemWeapon ret = itemWeaponArray[index];
         itemWeaponArray[index] = null;
-        showInventory();
+        listener.onInventory(this);
         return ret;
     }
 
@@ -122,15 +144,13 @@ public class Inventory implements ISerializable, IDisplayable {
         for (int i = 0; i < maxRecoverNum; i++) {
             if (itemRecoverArray[i] == null) {
                 itemRecoverArray[i] = itemRecover;
-                showInventory();
+                listener.onInventory(this);
                 return true;
             }
         }
 
         // not find show error
-        System.out.println(ANSI_RED
-                + "xxxx no rest slot for storing recover, please remove some of the recover use command (rm r + index)!"
-                + ANSI_RESET);
+        listener.onInventoryError(ItemType.RECOVER, InventoryError.FULL);
         return false;
     }
 
@@ -144,23 +164,73 @@ public class Inventory implements ISerializable, IDisplayable {
         index -= 1;
 
         if (index < 0) {
-            System.out.println(ANSI_RED + "invalid index (negative)" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.INVALID_INDEX);
             return null;
         }
         if (index >= maxRecoverNum) {
-            System.out.println(ANSI_RED + "index out of bounds" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.OUT_OF_BOUNDS);
             return null;
         }
         if (itemRecoverArray[index] == null) {
-            System.out.println(ANSI_RED + "this slot is no recover" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.EMPTY_SLOT);
             return null;
         }
         // update show the new state
         ItemRecover ret = itemRecoverArray[index];
-        showInventory();
+        listener.onInventory(this);
         return ret;
     }
 
+    /**
+     * Finds the weapon with the largest attack, without telling the listener.
+     *
+     * @return the index of the weapon (1-based), or 0 if there is none
+     */
+    public int findStrongestWeapon() {
+        int best = 0;
+        for (int i = 0; i < maxWeaponNum; i++) {
+            if (itemWeaponArray[i] != null
+                    && (best == 0 || itemWeaponArray[i].getAttributes() > itemWeaponArray[best - 1].getAttributes())) {
+                best = i + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the recover with the largest heal, without telling the listener.
+     *
+     * @return the index of the recover (1-based), or 0 if there is none
+     */
+    public int findLargestRecover() {
+        int best = 0;
+        for (int i = 0; i < maxRecoverNum; i++) {
+            if (itemRecoverArray[i] != null
+                    && (best == 0 || itemRecoverArray[i].getAttributes() > itemRecoverArray[best - 1].getAttributes())) {
+                best = i + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the attack of every weapon held, without telling the listener.
+     *
+     * @return the attacks, in slot order
+     */
+    public int[] getWeaponAttacks() {
+        return Arrays.stream(itemWeaponArray).filter(Objects::nonNull).mapToInt(Item::getAttributes).toArray();
+    }
+
+    /**
+     * Gets the heal of every recover held, without telling the listener.
+     *
+     * @return the heals, in slot order
+     */
+    public int[] getRecoverHeals() {
+        return Arrays.stream(itemRecoverArray).filter(Objects::nonNull).mapToInt(Item::getAttributes).toArray();
+    }
+
     /**
      * Removes the recovery item at the specified index from the inventory.
      *
@@ -171,21 +241,21 @@ public class Inventory implements ISerializable, IDisplayable {
         index -= 1;
 
         if (index < 0) {
-            System.out.println(ANSI_RED + "invalid index (negative)" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.INVALID_INDEX);
             return null;
         }
         if (index >= maxRecoverNum) {
-            System.out.println(ANSI_RED + "index out of bounds" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.OUT_OF_BOUNDS);
             return null;
         }
         if (itemRecoverArray[index] == null) {
-            System.out.println(ANSI_RED + "this slot is no recover" + ANSI_RESET);
+            listener.onInventoryError(ItemType.RECOVER, InventoryError.EMPTY_SLOT);
             return null;
         }
         // update show the new state
         ItemRecover ret = itemRecoverArray[index];
         itemRecoverArray[index] = null;
-        showInventory();
+        listener.onInventory(this);
         return ret;
     }
 
@@ -194,10 +264,21 @@ public class Inventory implements ISerializable, IDisplayable {
      * items.
      */
     public void showInventory() {
-        System.out.println("Inventory: " + ANSI_YELLOW + "only carry  " + maxWeaponNum + "  weapons and   "
+        display();
+    }
+
+    /**
+     * Draws the current state of the inventory into a frame, showing weapons and
+     * recovery items.
+     *
+     * @param frame the frame being drawn
+     */
+    @Override
+    public void render(FrameBuffer frame) {
+        frame.appendLine("Inventory: " + ANSI_YELLOW + "only carry  " + maxWeaponNum + "  weapons and   "
                 + maxRecoverNum + " recovers!" + " use commend (use index) to use the recover" + ANSI_RESET);
 
-        System.out.print(ANSI_GREEN + "    --Weapons(attack): ");
+        frame.append(ANSI_GREEN + "    --Weapons(attack): ");
         for (int i = 0; i < itemWeaponArray.length; i++) {
             ItemWeapon itemWeapon = itemWeaponArray[i];
             String weaponString;
@@ -216,12 +297,12 @@ public class Inventory implements ISerializable, IDisplayable {
                 }
             }
 
-            System.out.print("[" + (i + 1) + "]" + ":" + weaponString + "   ");
+            frame.append("[" + (i + 1) + "]" + ":" + weaponString + "   ");
         }
 
-        System.out.println(ANSI_RESET);
+        frame.appendLine(ANSI_RESET);
 
-        System.out.print(ANSI_GREEN + "    --Recovers ( Hp ): ");
+        frame.append(ANSI_GREEN + "    --Recovers ( Hp ): ");
         for (int i = 0; i < itemRecoverArray.length; i++) {
             ItemRecover itemRecover = itemRecoverArray[i];
             String recoverString;
@@ -240,20 +321,12 @@ public class Inventory implements ISerializable, IDisplayable {
                     recoverString = String.valueOf(recoverAttributes);
                 }
             }
-            System.out.print("[" + (i + 1) + "]" + ":" + recoverString + "   ");
+            frame.append("[" + (i + 1) + "]" + ":" + recoverString + "   ");
         }
-        System.out.println(ANSI_RESET);
+        frame.appendLine(ANSI_RESET);
 
     }
 
-    /**
-     * Displays the inventory.
-     */
-    @Override
-    public void display() {
-        showInventory();
-    }
-
     /**
      * Serializes the inventory to a JSON string.
      *
@@ -317,9 +390,10 @@ public class Inventory implements ISerializable, IDisplayable {
 
     /**
      * Initializes the inventory with default items.
+     *
+     * @param random the source of the item strengths
      */
-    void generalize() {
-        Random random = new Random();
+    void generalize(Random random) {
         int max = 100;
 
         addWeapon(new ItemWeapon(new Location(), random.nextInt(max) + 1));
@@ -0,0 +1,23 @@
+package engine.item;
+
+/**
+ * Enum representing why an inventory operation failed.
+ */
+public enum InventoryError {
+    /**
+     * The index is below the first slot.
+     */
+    INVALID_INDEX,
+    /**
+     * The index is past the last slot.
+     */
+    OUT_OF_BOUNDS,
+    /**
+     * The slot at the index holds no item of the kind asked for.
+     */
+    EMPTY_SLOT,
+    /**
+     * Every slot for the kind of item is taken.
+     */
+    FULL
+}
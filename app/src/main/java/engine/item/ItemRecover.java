@@ -1,6 +1,7 @@
 package engine.item;
 
 import data.DataManager;
+import engine.FrameBuffer;
 import utils.Location;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -66,12 +67,14 @@ public class ItemRecover extends Item {
     }
 
     /**
-     * Displays the item's details in the console.
+     * Draws the item's details into a frame.
      * The output is styled with ANSI color codes.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
         String out = "Bonus: Recover" + "  recover:" + recover;
-        System.out.println(ANSI_BLUE + out + ANSI_RESET);
+        frame.appendLine(ANSI_BLUE + out + ANSI_RESET);
     }
 }
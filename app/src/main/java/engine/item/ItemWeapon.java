@@ -1,6 +1,7 @@
 package engine.item;
 
 import data.DataManager;
+import engine.FrameBuffer;
 import utils.Location;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
@@ -66,11 +67,13 @@ public class ItemWeapon extends Item {
     }
 
     /**
-     * Displays the weapon's information in a formatted output.
+     * Draws the weapon's information into a frame in a formatted output.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
         String out = "Bonus: Weapon" + "  attack:" + attack;
-        System.out.println(ANSI_BLUE + out + ANSI_RESET);
+        frame.appendLine(ANSI_BLUE + out + ANSI_RESET);
     }
 }
@@ -0,0 +1,111 @@
+package engine.level;
+
+import java.util.Arrays;
+
+/**
+ * Keeps all tile codes in memory in a single array, row by row.
+ */
+public class ArrayTileStore implements TileStore {
+
+    // Largest number of cells a single array can hold
+    public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+
+    /**
+     * Constructs a store of empty cells.
+     *
+     * @param width  the width in cells
+     * @param height the height in cells
+     * @throws IllegalArgumentException if the size is not positive or too large
+     */
+    public ArrayTileStore(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid map size: " + width + "x" + height);
+        }
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Map too large: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = new byte[width * height];
+    }
+
+    /**
+     * Gets the width of the stored area.
+     *
+     * @return the width in cells
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the stored area.
+     *
+     * @return the height in cells
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the tile code of a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the tile code
+     */
+    @Override
+    public byte get(int x, int y) {
+        return tiles[y * width + x];
+    }
+
+    /**
+     * Sets the tile code of a cell.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param tile the new tile code
+     */
+    @Override
+    public void set(int x, int y, byte tile) {
+        tiles[y * width + x] = tile;
+    }
+
+    /**
+     * Sets every cell to the given tile code.
+     *
+     * @param tile the tile code
+     */
+    @Override
+    public void fill(byte tile) {
+        Arrays.fill(tiles, tile);
+    }
+
+    /**
+     * Copies a full row of tile codes into the store.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row the tile codes of the row, one per column
+     */
+    @Override
+    public void setRow(int y, byte[] row) {
+        System.arraycopy(row, 0, tiles, y * width, width);
+    }
+
+    /**
+     * Copies a full row of tile codes out of the store.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row receives the tile codes of the row
+     */
+    @Override
+    public void getRow(int y, byte[] row) {
+        System.arraycopy(tiles, y * width, row, 0, width);
+    }
+}
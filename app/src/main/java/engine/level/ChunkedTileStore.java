@@ -0,0 +1,407 @@
+package engine.level;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Keeps the tile codes of a large world in fixed-size chunks which are only
+ * brought into memory when a cell inside them is used.
+ * A missing chunk is read from the chunk directory, or generated from the
+ * world seed if it was never saved. At most a fixed number of chunks stay in
+ * memory; the least recently used one is dropped when another is needed and
+ * written back to the directory first if it was changed.
+ * <p>
+ * Every chunk is a perfect maze of its own with a single passage to either
+ * the chunk on its right or the chunk below, so the chunks form a spanning
+ * tree and the whole world stays a perfect maze while any chunk can be
+ * generated without looking at its neighbours. The start is the top left cell
+ * and the exit the last lattice cell of the world.
+ * <p>
+ * Only terrain is written to the chunk directory, the marks of entities and
+ * items are saved as empty cells. Their owner puts the marks back on a chunk
+ * which is loaded again through the {@link ChunkListener}.
+ */
+public class ChunkedTileStore implements TileStore {
+
+    // Side of a chunk in cells, a power of two so coordinates split with shifts
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final Path directory;
+    private final Map<Long, Chunk> chunks;
+    private ChunkListener listener = (originX, originY, chunkWidth, chunkHeight) -> {
+    };
+
+    // most accesses stay in the chunk used last, which skips the lookup
+    private long lastKey = Long.MIN_VALUE;
+    private Chunk lastChunk;
+
+    /**
+     * Constructs a chunked world.
+     *
+     * @param width        the width of the world in cells
+     * @param height       the height of the world in cells
+     * @param seed         the seed chunks are generated from
+     * @param directory    the directory changed chunks are written to
+     * @param cachedChunks the largest number of chunks kept in memory
+     * @throws IllegalArgumentException if the size or the cache is not positive
+     * @throws UncheckedIOException     if the directory can not be created
+     */
+    public ChunkedTileStore(int width, int height, long seed, Path directory, int cachedChunks) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid map size: " + width + "x" + height);
+        }
+        if (cachedChunks <= 0) {
+            throw new IllegalArgumentException("Invalid chunk cache size: " + cachedChunks);
+        }
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.directory = directory;
+        // access order makes the eldest entry the least recently used chunk
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+                if (size() <= cachedChunks) {
+                    return false;
+                }
+                evict(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating chunk directory " + directory, e);
+        }
+    }
+
+    /**
+     * Gets the width of the stored area.
+     *
+     * @return the width in cells
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the stored area.
+     *
+     * @return the height in cells
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the seed chunks are generated from.
+     *
+     * @return the world seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the directory changed chunks are written to.
+     *
+     * @return the chunk directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Sets the listener told when a chunk is brought into memory.
+     *
+     * @param listener the listener
+     */
+    public void setChunkListener(ChunkListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the number of chunks currently in memory.
+     *
+     * @return the number of cached chunks
+     */
+    public int getCachedChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Gets the x-coordinate of the exit of the world.
+     *
+     * @return the x-coordinate of the exit
+     */
+    public int getExitX() {
+        return ((width + 1) / 2 - 1) * 2;
+    }
+
+    /**
+     * Gets the y-coordinate of the exit of the world.
+     *
+     * @return the y-coordinate of the exit
+     */
+    public int getExitY() {
+        return ((height + 1) / 2 - 1) * 2;
+    }
+
+    /**
+     * Gets the tile code of a cell, loading its chunk if needed.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the tile code
+     */
+    @Override
+    public byte get(int x, int y) {
+        return chunk(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT).tiles[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)];
+    }
+
+    /**
+     * Sets the tile code of a cell, loading its chunk if needed.
+     * Only a change of terrain marks the chunk to be written.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param tile the new tile code
+     */
+    @Override
+    public void set(int x, int y, byte tile) {
+        Chunk chunk = chunk(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT);
+        int index = ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+        if (terrain(chunk.tiles[index]) != terrain(tile)) {
+            chunk.dirty = true;
+        }
+        chunk.tiles[index] = tile;
+    }
+
+    /**
+     * Writes every changed chunk in memory to the chunk directory.
+     *
+     * @throws UncheckedIOException if a chunk can not be written
+     */
+    @Override
+    public void flush() {
+        for (Map.Entry<Long, Chunk> entry : chunks.entrySet()) {
+            if (entry.getValue().dirty) {
+                write(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gets a chunk, loading or generating it if it is not in memory.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @return the chunk
+     */
+    private Chunk chunk(int chunkX, int chunkY) {
+        long key = ((long) chunkX << 32) | chunkY;
+        if (key == lastKey) {
+            return lastChunk;
+        }
+        Chunk chunk = chunks.get(key);
+        boolean loaded = chunk == null;
+        if (loaded) {
+            chunk = load(chunkX, chunkY);
+            chunks.put(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        if (loaded) {
+            int originX = chunkX << CHUNK_SHIFT;
+            int originY = chunkY << CHUNK_SHIFT;
+            listener.onChunkLoaded(originX, originY, Math.min(CHUNK_SIZE, width - originX),
+                    Math.min(CHUNK_SIZE, height - originY));
+        }
+        return chunk;
+    }
+
+    /**
+     * Reads a chunk from the chunk directory, or generates it if it was never
+     * saved.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @return the loaded chunk
+     * @throws UncheckedIOException if the chunk file can not be read
+     */
+    private Chunk load(int chunkX, int chunkY) {
+        Path file = chunkFile(chunkX, chunkY);
+        if (!Files.exists(file)) {
+            return generate(chunkX, chunkY);
+        }
+        try {
+            byte[] tiles = Files.readAllBytes(file);
+            if (tiles.length != CHUNK_SIZE * CHUNK_SIZE) {
+                throw new IllegalStateException("Corrupted chunk file " + file);
+            }
+            // marks of entities and items are not kept once they left memory
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] = terrain(tiles[i]);
+            }
+            return new Chunk(tiles);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading chunk " + file, e);
+        }
+    }
+
+    /**
+     * Generates a chunk from the world seed.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @return the generated chunk
+     */
+    private Chunk generate(int chunkX, int chunkY) {
+        int originX = chunkX << CHUNK_SHIFT;
+        int originY = chunkY << CHUNK_SHIFT;
+        int chunkWidth = Math.min(CHUNK_SIZE, width - originX);
+        int chunkHeight = Math.min(CHUNK_SIZE, height - originY);
+        SplittableRandom random = new SplittableRandom(
+                seed ^ (chunkX * 0x9E3779B97F4A7C15L) ^ (chunkY * 0xC2B2AE3D27D4EB4FL));
+
+        ArrayTileStore area = new ArrayTileStore(chunkWidth, chunkHeight);
+        area.fill(Tile.WALL);
+        DepthFirstMazeGenerator.carveLattice(area, random);
+
+        byte[] tiles = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        Arrays.fill(tiles, Tile.WALL);
+        byte[] row = new byte[chunkWidth];
+        for (int y = 0; y < chunkHeight; y++) {
+            area.getRow(y, row);
+            System.arraycopy(row, 0, tiles, y << CHUNK_SHIFT, chunkWidth);
+        }
+
+        // the last column and row of a full chunk are walls between lattice
+        // cells, open one passage towards the neighbour on the right or below
+        boolean hasRight = originX + CHUNK_SIZE < width;
+        boolean hasBelow = originY + CHUNK_SIZE < height;
+        if (hasRight && (!hasBelow || random.nextBoolean())) {
+            int y = random.nextInt((chunkHeight + 1) / 2) * 2;
+            tiles[(y << CHUNK_SHIFT) | CHUNK_MASK] = Tile.EMPTY;
+        } else if (hasBelow) {
+            int x = random.nextInt((chunkWidth + 1) / 2) * 2;
+            tiles[(CHUNK_MASK << CHUNK_SHIFT) | x] = Tile.EMPTY;
+        }
+
+        int exitX = getExitX();
+        int exitY = getExitY();
+        if (exitX >> CHUNK_SHIFT == chunkX && exitY >> CHUNK_SHIFT == chunkY) {
+            tiles[((exitY & CHUNK_MASK) << CHUNK_SHIFT) | (exitX & CHUNK_MASK)] = Tile.EXIT;
+        }
+        return new Chunk(tiles);
+    }
+
+    /**
+     * Drops a chunk from memory, writing it back first if it was changed.
+     *
+     * @param key   the key of the chunk
+     * @param chunk the chunk to drop
+     */
+    private void evict(long key, Chunk chunk) {
+        if (chunk.dirty) {
+            write(key, chunk);
+        }
+        if (key == lastKey) {
+            lastKey = Long.MIN_VALUE;
+            lastChunk = null;
+        }
+    }
+
+    /**
+     * Writes a chunk to the chunk directory.
+     *
+     * @param key   the key of the chunk
+     * @param chunk the chunk to write
+     * @throws UncheckedIOException if the chunk file can not be written
+     */
+    private void write(long key, Chunk chunk) {
+        Path file = chunkFile((int) (key >> 32), (int) key);
+        byte[] tiles = new byte[chunk.tiles.length];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = terrain(chunk.tiles[i]);
+        }
+        try {
+            Files.write(file, tiles);
+            chunk.dirty = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving chunk " + file, e);
+        }
+    }
+
+    /**
+     * Gets the terrain of a tile code, cells marked by an entity or item
+     * being empty.
+     *
+     * @param tile the tile code
+     * @return the terrain tile code
+     */
+    private static byte terrain(byte tile) {
+        return Tile.isOccupied(tile) ? Tile.EMPTY : tile;
+    }
+
+    /**
+     * Gets the file a chunk is saved in.
+     *
+     * @param chunkX the column of the chunk
+     * @param chunkY the row of the chunk
+     * @return the path of the chunk file
+     */
+    private Path chunkFile(int chunkX, int chunkY) {
+        return directory.resolve(seed + "_" + chunkX + "_" + chunkY + ".chunk");
+    }
+
+    /**
+     * Told when a chunk is brought into memory, so the marks of entities and
+     * items inside it can be put back.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+
+        /**
+         * Called after a chunk was read or generated.
+         *
+         * @param originX     The x-coordinate of the top left cell of the chunk.
+         * @param originY     The y-coordinate of the top left cell of the chunk.
+         * @param chunkWidth  the width of the chunk inside the world
+         * @param chunkHeight the height of the chunk inside the world
+         */
+        void onChunkLoaded(int originX, int originY, int chunkWidth, int chunkHeight);
+    }
+
+    /**
+     * The tile codes of one chunk, row by row, and whether they changed since
+     * the chunk was loaded or written.
+     */
+    private static final class Chunk {
+        final byte[] tiles;
+        boolean dirty;
+
+        /**
+         * Constructs a chunk over the given tile codes.
+         *
+         * @param tiles the tile codes of the chunk
+         */
+        Chunk(byte[] tiles) {
+            this.tiles = tiles;
+        }
+    }
+}
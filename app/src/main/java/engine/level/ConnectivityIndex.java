@@ -0,0 +1,169 @@
+package engine.level;
+
+/**
+ * Labels the regions of connected walkable cells of a map with union-find, so
+ * whether one cell can be reached from another is answered in near constant
+ * time without a search.
+ * Cells which open up are joined to the regions around them as they change.
+ * A new wall may split a region, which union-find can not undo, so the owner
+ * builds the index again instead.
+ * <p>
+ * Entities do not block, the index describes the terrain.
+ */
+public class ConnectivityIndex {
+
+    // Largest number of cells an index is built for, five bytes each
+    public static final int MAX_CELLS = 1 << 26;
+    // Parent of a wall, which belongs to no region
+    private static final int WALL = -1;
+
+    private final int width;
+    private final int height;
+    // parent of every cell in its region tree, roots are their own parent
+    private final int[] parents;
+    // upper bound of the height of every region tree, kept for the roots
+    private final byte[] ranks;
+
+    /**
+     * Builds the index of a map.
+     *
+     * @param walkability the walkable cells of the map
+     * @throws IllegalArgumentException if the map has more than MAX_CELLS cells
+     */
+    public ConnectivityIndex(WalkabilityLayer walkability) {
+        this.width = walkability.getWidth();
+        this.height = walkability.getHeight();
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Map too large for a connectivity index: " + width + "x" + height);
+        }
+        this.parents = new int[width * height];
+        this.ranks = new byte[width * height];
+
+        // joining every cell to its left and upper neighbour covers every pair
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                if (!walkability.isWalkable(x, y)) {
+                    parents[cell] = WALL;
+                    continue;
+                }
+                parents[cell] = cell;
+                if (x > 0 && parents[cell - 1] != WALL) {
+                    union(cell, cell - 1);
+                }
+                if (y > 0 && parents[cell - width] != WALL) {
+                    union(cell, cell - width);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if one cell can be reached from another.
+     *
+     * @param fromX The x-coordinate of the first cell.
+     * @param fromY The y-coordinate of the first cell.
+     * @param toX   The x-coordinate of the second cell.
+     * @param toY   The y-coordinate of the second cell.
+     * @return true if both cells are walkable and in the same region; false
+     *         otherwise
+     */
+    public boolean isConnected(int fromX, int fromY, int toX, int toY) {
+        int from = getRegion(fromX, fromY);
+        return from != WALL && from == getRegion(toX, toY);
+    }
+
+    /**
+     * Gets the region of a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the label of the region, the same for every cell of the region,
+     *         or -1 for walls and cells outside the map
+     */
+    public int getRegion(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height || parents[y * width + x] == WALL) {
+            return WALL;
+        }
+        return find(y * width + x);
+    }
+
+    /**
+     * Counts the regions of the map.
+     *
+     * @return the number of regions
+     */
+    public int getRegionCount() {
+        int count = 0;
+        for (int cell = 0; cell < parents.length; cell++) {
+            if (parents[cell] == cell) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Joins a cell which opened up to the regions around it. The walkability
+     * layer must already hold the new state of the cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public void add(int x, int y) {
+        int cell = y * width + x;
+        if (parents[cell] != WALL) {
+            return;
+        }
+        parents[cell] = cell;
+        ranks[cell] = 0;
+        if (x > 0 && parents[cell - 1] != WALL) {
+            union(cell, cell - 1);
+        }
+        if (x + 1 < width && parents[cell + 1] != WALL) {
+            union(cell, cell + 1);
+        }
+        if (y > 0 && parents[cell - width] != WALL) {
+            union(cell, cell - width);
+        }
+        if (y + 1 < height && parents[cell + width] != WALL) {
+            union(cell, cell + width);
+        }
+    }
+
+    /**
+     * Finds the root of a cell's region, halving the path on the way.
+     *
+     * @param cell the index of the cell
+     * @return the index of the root
+     */
+    private int find(int cell) {
+        while (parents[cell] != cell) {
+            parents[cell] = parents[parents[cell]];
+            cell = parents[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Joins the regions of two cells, hanging the lower tree under the higher.
+     *
+     * @param first  the index of the first cell
+     * @param second the index of the second cell
+     */
+    private void union(int first, int second) {
+        int firstRoot = find(first);
+        int secondRoot = find(second);
+        if (firstRoot == secondRoot) {
+            return;
+        }
+        if (ranks[firstRoot] < ranks[secondRoot]) {
+            parents[firstRoot] = secondRoot;
+        } else if (ranks[firstRoot] > ranks[secondRoot]) {
+            parents[secondRoot] = firstRoot;
+        } else {
+            parents[secondRoot] = firstRoot;
+            ranks[firstRoot]++;
+        }
+    }
+}
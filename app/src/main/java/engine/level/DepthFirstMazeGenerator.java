@@ -0,0 +1,376 @@
+package engine.level;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates a perfect maze on a {@link GameMap} with a randomized depth-first
+ * search.
+ * The search walks back along parent directions stored per cell instead of
+ * recursing, so the map size is only limited by memory and the time grows
+ * linearly with the number of cells. All randomness comes from the given
+ * generator, so the same seed always carves the same maze.
+ * <p>
+ * Large maps are split into rectangular regions which are carved in parallel
+ * on a {@link ForkJoinPool}, then joined along a random spanning tree of the
+ * regions with one passage per tree edge, which keeps the maze perfect.
+ */
+public class DepthFirstMazeGenerator implements MazeGenerator {
+
+    /** The name this strategy is chosen by. */
+    public static final String NAME = "dfs";
+
+    // Possible directions to move (up, right, down, left)
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1 };
+    private static final int[] DIRECTION_Y = { -1, 0, 1, 0 };
+    // parent marker of the first cell, the search ends when it walks back to it
+    private static final byte NO_PARENT = 4;
+
+    // Side of a region in lattice cells, maps up to this size are carved in one go
+    private static final int REGION_SIZE = 256;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a generator carving large maps on the common pool.
+     */
+    public DepthFirstMazeGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a generator carving large maps on the given pool.
+     *
+     * @param pool the pool carving the regions
+     */
+    public DepthFirstMazeGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the name the strategy is chosen by.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Fills the map with walls and carves the maze from a random start cell.
+     * The start location is the first carved cell and the exit is the first
+     * dead end of the search from the start.
+     *
+     * @param map    the map to carve
+     * @param random the source of randomness
+     */
+    @Override
+    public void generate(GameMap map, RandomGenerator random) {
+        map.fill(Tile.WALL);
+
+        int startX = random.nextInt(map.getWidth());
+        int startY = random.nextInt(map.getHeight());
+
+        // cells are carved on the lattice of the start cell, every second cell
+        // in both directions, the cells in between become the walls or passages
+        Lattice lattice = new Lattice(map.getTileStore(), startX % 2, startY % 2);
+        int startI = startX / 2;
+        int startJ = startY / 2;
+
+        int regionsX = (lattice.width + REGION_SIZE - 1) / REGION_SIZE;
+        int regionsY = (lattice.height + REGION_SIZE - 1) / REGION_SIZE;
+        int exitCell;
+
+        if (regionsX * regionsY == 1) {
+            exitCell = carve(lattice, random, 0, 0, lattice.width, lattice.height, startI, startJ);
+        } else {
+            // draw every region seed up front so the maze does not depend on
+            // the order the regions are carved in
+            long[] seeds = new long[regionsX * regionsY];
+            for (int r = 0; r < seeds.length; r++) {
+                seeds[r] = random.nextLong();
+            }
+            int[] exitCells = new int[seeds.length];
+            pool.invoke(new CarveTask(lattice, seeds, exitCells, regionsX, startI, startJ, 0, seeds.length));
+            exitCell = exitCells[(startJ / REGION_SIZE) * regionsX + startI / REGION_SIZE];
+
+            joinRegions(lattice, random, regionsX, regionsY);
+        }
+
+        int exitX = lattice.offsetX + (exitCell % lattice.width) * 2;
+        int exitY = lattice.offsetY + (exitCell / lattice.width) * 2;
+        map.setTile(exitX, exitY, Tile.EXIT);
+        map.setStartLocation(startX, startY);
+        map.setExitLocation(exitX, exitY);
+    }
+
+    /**
+     * Carves a maze over a whole store which is already filled with walls, on
+     * the lattice of the even coordinates and from a random lattice cell.
+     * Used for areas small enough to be carved as a single region.
+     *
+     * @param tiles  the store to carve
+     * @param random the source of randomness
+     */
+    static void carveLattice(TileStore tiles, RandomGenerator random) {
+        Lattice lattice = new Lattice(tiles, 0, 0);
+        carve(lattice, random, 0, 0, lattice.width, lattice.height,
+                random.nextInt(lattice.width), random.nextInt(lattice.height));
+    }
+
+    /**
+     * Carves a spanning tree of the lattice cells inside a rectangle.
+     *
+     * @param lattice the lattice of the map
+     * @param random  the source of randomness
+     * @param fromI   the first lattice column of the rectangle
+     * @param fromJ   the first lattice row of the rectangle
+     * @param toI     the lattice column after the rectangle
+     * @param toJ     the lattice row after the rectangle
+     * @param i       the lattice column to start from
+     * @param j       the lattice row to start from
+     * @return the lattice index of the first dead end
+     */
+    private static int carve(Lattice lattice, RandomGenerator random, int fromI, int fromJ, int toI, int toJ,
+            int i, int j) {
+        TileStore tiles = lattice.tiles;
+        int[] candidates = new int[DIRECTION_X.length];
+        int exitCell = -1;
+
+        lattice.parents[j * lattice.width + i] = NO_PARENT;
+        tiles.set(lattice.x(i), lattice.y(j), Tile.EMPTY);
+
+        while (true) {
+            int x = lattice.x(i);
+            int y = lattice.y(j);
+
+            // collect the neighbours which are still walls
+            int count = 0;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextI = i + DIRECTION_X[d];
+                int nextJ = j + DIRECTION_Y[d];
+                if (nextI >= fromI && nextI < toI && nextJ >= fromJ && nextJ < toJ
+                        && tiles.get(x + DIRECTION_X[d] * 2, y + DIRECTION_Y[d] * 2) == Tile.WALL) {
+                    candidates[count++] = d;
+                }
+            }
+
+            if (count > 0) {
+                // carve the wall in between and step into a random neighbour
+                int d = candidates[random.nextInt(count)];
+                tiles.set(x + DIRECTION_X[d], y + DIRECTION_Y[d], Tile.EMPTY);
+                tiles.set(x + DIRECTION_X[d] * 2, y + DIRECTION_Y[d] * 2, Tile.EMPTY);
+                i += DIRECTION_X[d];
+                j += DIRECTION_Y[d];
+                lattice.parents[j * lattice.width + i] = (byte) ((d + 2) % DIRECTION_X.length);
+                continue;
+            }
+
+            // dead end, the first one becomes the exit
+            if (exitCell < 0) {
+                exitCell = j * lattice.width + i;
+            }
+            byte back = lattice.parents[j * lattice.width + i];
+            if (back == NO_PARENT) {
+                return exitCell;
+            }
+            i += DIRECTION_X[back];
+            j += DIRECTION_Y[back];
+        }
+    }
+
+    /**
+     * Connects the carved regions along a random spanning tree of the region
+     * grid, opening one passage on the border of every tree edge.
+     *
+     * @param lattice  the lattice of the map
+     * @param random   the source of randomness
+     * @param regionsX the number of region columns
+     * @param regionsY the number of region rows
+     */
+    private static void joinRegions(Lattice lattice, RandomGenerator random, int regionsX, int regionsY) {
+        // the same parent walk as the carving, on the much smaller region grid
+        byte[] parents = new byte[regionsX * regionsY];
+        boolean[] visited = new boolean[regionsX * regionsY];
+        int[] candidates = new int[DIRECTION_X.length];
+        int rx = 0;
+        int ry = 0;
+        parents[0] = NO_PARENT;
+        visited[0] = true;
+
+        while (true) {
+            int count = 0;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextX = rx + DIRECTION_X[d];
+                int nextY = ry + DIRECTION_Y[d];
+                if (nextX >= 0 && nextX < regionsX && nextY >= 0 && nextY < regionsY
+                        && !visited[nextY * regionsX + nextX]) {
+                    candidates[count++] = d;
+                }
+            }
+
+            if (count > 0) {
+                int d = candidates[random.nextInt(count)];
+                openBorder(lattice, random, rx, ry, d);
+                rx += DIRECTION_X[d];
+                ry += DIRECTION_Y[d];
+                visited[ry * regionsX + rx] = true;
+                parents[ry * regionsX + rx] = (byte) ((d + 2) % DIRECTION_X.length);
+                continue;
+            }
+
+            byte back = parents[ry * regionsX + rx];
+            if (back == NO_PARENT) {
+                return;
+            }
+            rx += DIRECTION_X[back];
+            ry += DIRECTION_Y[back];
+        }
+    }
+
+    /**
+     * Opens one random passage on the border between a region and its
+     * neighbour.
+     *
+     * @param lattice   the lattice of the map
+     * @param random    the source of randomness
+     * @param rx        the column of the region
+     * @param ry        the row of the region
+     * @param direction the direction of the neighbour
+     */
+    private static void openBorder(Lattice lattice, RandomGenerator random, int rx, int ry, int direction) {
+        int i;
+        int j;
+        if (DIRECTION_X[direction] != 0) {
+            // vertical border, pick a row shared by both regions
+            int fromJ = ry * REGION_SIZE;
+            int toJ = Math.min(fromJ + REGION_SIZE, lattice.height);
+            j = fromJ + random.nextInt(toJ - fromJ);
+            i = DIRECTION_X[direction] > 0 ? Math.min((rx + 1) * REGION_SIZE, lattice.width) - 1 : rx * REGION_SIZE;
+        } else {
+            // horizontal border, pick a column shared by both regions
+            int fromI = rx * REGION_SIZE;
+            int toI = Math.min(fromI + REGION_SIZE, lattice.width);
+            i = fromI + random.nextInt(toI - fromI);
+            j = DIRECTION_Y[direction] > 0 ? Math.min((ry + 1) * REGION_SIZE, lattice.height) - 1 : ry * REGION_SIZE;
+        }
+        lattice.tiles.set(lattice.x(i) + DIRECTION_X[direction], lattice.y(j) + DIRECTION_Y[direction], Tile.EMPTY);
+    }
+
+    /**
+     * The lattice of cells a maze is carved on and the parent direction of
+     * every lattice cell.
+     */
+    private static final class Lattice {
+        final TileStore tiles;
+        final int offsetX;
+        final int offsetY;
+        final int width;
+        final int height;
+        final byte[] parents;
+
+        /**
+         * Constructs the lattice starting at the given offset.
+         *
+         * @param tiles   the tiles to carve
+         * @param offsetX the x-coordinate of the first lattice column
+         * @param offsetY the y-coordinate of the first lattice row
+         */
+        Lattice(TileStore tiles, int offsetX, int offsetY) {
+            this.tiles = tiles;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.width = (tiles.getWidth() - offsetX + 1) / 2;
+            this.height = (tiles.getHeight() - offsetY + 1) / 2;
+            this.parents = new byte[width * height];
+        }
+
+        /**
+         * Gets the map x-coordinate of a lattice column.
+         *
+         * @param i the lattice column
+         * @return the x-coordinate on the map
+         */
+        int x(int i) {
+            return offsetX + i * 2;
+        }
+
+        /**
+         * Gets the map y-coordinate of a lattice row.
+         *
+         * @param j the lattice row
+         * @return the y-coordinate on the map
+         */
+        int y(int j) {
+            return offsetY + j * 2;
+        }
+    }
+
+    /**
+     * Carves a range of regions, splitting the range until one region is left.
+     */
+    private static final class CarveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Lattice lattice;
+        private final long[] seeds;
+        private final int[] exitCells;
+        private final int regionsX;
+        private final int startI;
+        private final int startJ;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a task carving the regions in [from, to).
+         *
+         * @param lattice   the lattice of the map
+         * @param seeds     the seed of every region
+         * @param exitCells receives the first dead end of every region
+         * @param regionsX  the number of region columns
+         * @param startI    the lattice column of the start cell
+         * @param startJ    the lattice row of the start cell
+         * @param from      the first region to carve
+         * @param to        the region after the last one to carve
+         */
+        CarveTask(Lattice lattice, long[] seeds, int[] exitCells, int regionsX, int startI, int startJ,
+                int from, int to) {
+            this.lattice = lattice;
+            this.seeds = seeds;
+            this.exitCells = exitCells;
+            this.regionsX = regionsX;
+            this.startI = startI;
+            this.startJ = startJ;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Carves the regions, forking both halves of the range.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CarveTask(lattice, seeds, exitCells, regionsX, startI, startJ, from, middle),
+                        new CarveTask(lattice, seeds, exitCells, regionsX, startI, startJ, middle, to));
+                return;
+            }
+
+            int fromI = (from % regionsX) * REGION_SIZE;
+            int fromJ = (from / regionsX) * REGION_SIZE;
+            int toI = Math.min(fromI + REGION_SIZE, lattice.width);
+            int toJ = Math.min(fromJ + REGION_SIZE, lattice.height);
+            SplittableRandom random = new SplittableRandom(seeds[from]);
+
+            // the region holding the start cell begins its search there
+            boolean hasStart = startI >= fromI && startI < toI && startJ >= fromJ && startJ < toJ;
+            int i = hasStart ? startI : fromI + random.nextInt(toI - fromI);
+            int j = hasStart ? startJ : fromJ + random.nextInt(toJ - fromJ);
+            exitCells[from] = carve(lattice, random, fromI, fromJ, toI, toJ, i, j);
+        }
+    }
+}
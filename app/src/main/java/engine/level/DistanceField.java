@@ -0,0 +1,288 @@
+package engine.level;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * The number of steps from every walkable cell to a goal cell, usually the
+ * exit, found with a breadth-first search from the goal.
+ * When a cell turns into a wall or opens up only the cells whose distance
+ * depends on it are searched again, so a change costs in the size of the
+ * region it affects instead of the size of the map.
+ * <p>
+ * Entities do not block, the field measures the terrain.
+ */
+public class DistanceField {
+
+    // Largest number of cells a field is built for, four bytes each
+    public static final int MAX_CELLS = 1 << 26;
+    // Distance of a wall or a cell the goal can not be reached from
+    public static final int UNREACHABLE = -1;
+    // Marks a cell which lost its way to the goal while a wall is added
+    private static final int AFFECTED = Integer.MAX_VALUE;
+
+    // Possible directions to move (up, right, down, left)
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1 };
+    private static final int[] DIRECTION_Y = { -1, 0, 1, 0 };
+
+    private final WalkabilityLayer walkability;
+    private final int width;
+    private final int height;
+    private final int goalX;
+    private final int goalY;
+    private final int[] distances;
+
+    /**
+     * Builds the field of a goal cell.
+     *
+     * @param walkability the walkable cells of the map
+     * @param goalX       The x-coordinate of the goal.
+     * @param goalY       The y-coordinate of the goal.
+     * @throws IllegalArgumentException if the map has more than MAX_CELLS cells
+     */
+    public DistanceField(WalkabilityLayer walkability, int goalX, int goalY) {
+        this.walkability = walkability;
+        this.width = walkability.getWidth();
+        this.height = walkability.getHeight();
+        if ((long) width * height > MAX_CELLS) {
+            throw new IllegalArgumentException("Map too large for a distance field: " + width + "x" + height);
+        }
+        this.goalX = goalX;
+        this.goalY = goalY;
+        this.distances = new int[width * height];
+        build();
+    }
+
+    /**
+     * Gets the number of steps from a cell to the goal.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the number of steps, or UNREACHABLE for walls, cells cut off from
+     *         the goal and cells outside the map
+     */
+    public int get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return UNREACHABLE;
+        }
+        return distances[y * width + x];
+    }
+
+    /**
+     * Updates the field after a cell turned into a wall or opened up.
+     * The walkability layer must already hold the new state of the cell.
+     *
+     * @param x The x-coordinate of the changed cell.
+     * @param y The y-coordinate of the changed cell.
+     * @return the number of cells whose distance was searched again, besides
+     *         the changed cell
+     */
+    public int update(int x, int y) {
+        int cell = y * width + x;
+        if (walkability.isWalkable(x, y)) {
+            if (distances[cell] != UNREACHABLE) {
+                return 0;
+            }
+            // an opened cell can only shorten paths, spread from it
+            int best = x == goalX && y == goalY ? 0 : nearestNeighbour(x, y);
+            if (best == UNREACHABLE) {
+                return 0;
+            }
+            PriorityQueue<Long> queue = new PriorityQueue<>();
+            queue.add(entry(best, cell));
+            return spread(queue) - 1;
+        }
+
+        int old = distances[cell];
+        if (old == UNREACHABLE) {
+            return 0;
+        }
+        if (x == goalX && y == goalY) {
+            // nothing can reach a walled goal
+            Arrays.fill(distances, UNREACHABLE);
+            return distances.length - 1;
+        }
+        distances[cell] = UNREACHABLE;
+        int[] affected = collectAffected(x, y, old);
+        repair(affected);
+        return affected[0];
+    }
+
+    /**
+     * Runs the breadth-first search from the goal over the whole map.
+     */
+    private void build() {
+        Arrays.fill(distances, UNREACHABLE);
+        if (!walkability.isWalkable(goalX, goalY)) {
+            return;
+        }
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        distances[goalY * width + goalX] = 0;
+        queue[tail++] = goalY * width + goalX;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextX = x + DIRECTION_X[d];
+                int nextY = y + DIRECTION_Y[d];
+                if (walkability.isWalkable(nextX, nextY) && distances[nextY * width + nextX] == UNREACHABLE) {
+                    distances[nextY * width + nextX] = distances[cell] + 1;
+                    queue[tail++] = nextY * width + nextX;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the cells which lost their shortest way to the goal when a cell
+     * turned into a wall, and marks them AFFECTED.
+     * Candidates are visited a distance level at a time from the wall; a cell
+     * keeps its distance if a neighbour one step closer to the goal was not
+     * affected, that is its best neighbour still gives it the same distance.
+     *
+     * @param x        The x-coordinate of the new wall.
+     * @param y        The y-coordinate of the new wall.
+     * @param distance the distance the wall had
+     * @return the affected cells, the first entry is their count
+     */
+    private int[] collectAffected(int x, int y, int distance) {
+        int[] affected = new int[16];
+        int count = 0;
+        // pairs of cell and its distance, in the order they were found
+        ArrayDeque<long[]> candidates = new ArrayDeque<>();
+        addChildren(candidates, x, y, distance);
+
+        while (!candidates.isEmpty()) {
+            long[] candidate = candidates.poll();
+            int cell = (int) candidate[0];
+            int level = (int) candidate[1];
+            if (distances[cell] != level) {
+                continue;
+            }
+            int cellX = cell % width;
+            int cellY = cell / width;
+            if (nearestNeighbour(cellX, cellY) == level) {
+                continue;
+            }
+            distances[cell] = AFFECTED;
+            if (count + 1 == affected.length) {
+                affected = Arrays.copyOf(affected, affected.length * 2);
+            }
+            affected[++count] = cell;
+            addChildren(candidates, cellX, cellY, level);
+        }
+        affected[0] = count;
+        return affected;
+    }
+
+    /**
+     * Adds the neighbours one step farther from the goal than a cell as
+     * candidates.
+     *
+     * @param candidates the candidates, pairs of cell and distance
+     * @param x          The x-coordinate of the cell.
+     * @param y          The y-coordinate of the cell.
+     * @param distance   the distance of the cell
+     */
+    private void addChildren(ArrayDeque<long[]> candidates, int x, int y, int distance) {
+        for (int d = 0; d < DIRECTION_X.length; d++) {
+            int nextX = x + DIRECTION_X[d];
+            int nextY = y + DIRECTION_Y[d];
+            if (get(nextX, nextY) == distance + 1) {
+                candidates.add(new long[] { nextY * width + nextX, distance + 1 });
+            }
+        }
+    }
+
+    /**
+     * Gives the affected cells their new distances, spreading inwards from the
+     * unaffected cells around them.
+     *
+     * @param affected the affected cells, the first entry is their count
+     */
+    private void repair(int[] affected) {
+        int count = affected[0];
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int i = 1; i <= count; i++) {
+            distances[affected[i]] = UNREACHABLE;
+        }
+        for (int i = 1; i <= count; i++) {
+            int cell = affected[i];
+            int best = nearestNeighbour(cell % width, cell / width);
+            if (best != UNREACHABLE) {
+                queue.add(entry(best, cell));
+            }
+        }
+        spread(queue);
+    }
+
+    /**
+     * Lowers distances from the queued cells outwards, closest first.
+     *
+     * @param queue the cells with their new distances, see entry
+     * @return the number of cells given a new distance
+     */
+    private int spread(PriorityQueue<Long> queue) {
+        int count = 0;
+        while (!queue.isEmpty()) {
+            long entry = queue.poll();
+            int distance = (int) (entry >>> 32);
+            int cell = (int) entry;
+            int current = distances[cell];
+            if (current != UNREACHABLE && current <= distance) {
+                continue;
+            }
+            distances[cell] = distance;
+            count++;
+            int x = cell % width;
+            int y = cell / width;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextX = x + DIRECTION_X[d];
+                int nextY = y + DIRECTION_Y[d];
+                if (!walkability.isWalkable(nextX, nextY)) {
+                    continue;
+                }
+                int next = distances[nextY * width + nextX];
+                if (next == UNREACHABLE || next > distance + 1) {
+                    queue.add(entry(distance + 1, nextY * width + nextX));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets one more than the smallest distance among the walkable neighbours
+     * of a cell, ignoring affected cells.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the distance the cell would get through its best neighbour, or
+     *         UNREACHABLE if no neighbour reaches the goal
+     */
+    private int nearestNeighbour(int x, int y) {
+        int best = UNREACHABLE;
+        for (int d = 0; d < DIRECTION_X.length; d++) {
+            int distance = get(x + DIRECTION_X[d], y + DIRECTION_Y[d]);
+            if (distance != UNREACHABLE && distance != AFFECTED && (best == UNREACHABLE || distance + 1 < best)) {
+                best = distance + 1;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Packs a distance and a cell into a queue entry ordered by distance.
+     *
+     * @param distance the distance
+     * @param cell     the index of the cell
+     * @return the queue entry
+     */
+    private static long entry(int distance, int cell) {
+        return ((long) distance << 32) | cell;
+    }
+}
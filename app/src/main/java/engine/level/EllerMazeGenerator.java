@@ -0,0 +1,191 @@
+package engine.level;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates a perfect maze one row at a time with Eller's algorithm.
+ * Only the current row and the set of every cell in it are kept, so the
+ * working memory grows with the width of the map and not with its area. The
+ * rows can be streamed to any {@link RowConsumer} without ever holding the
+ * whole map, {@link MapFile#generate} streams them into a map file.
+ * <p>
+ * Cells are carved on the even coordinates, the start is the top left cell
+ * and the exit is the last cell of the bottom lattice row.
+ */
+public class EllerMazeGenerator implements MazeGenerator {
+
+    /** The name this strategy is chosen by. */
+    public static final String NAME = "eller";
+
+    /**
+     * Receives the rows of a streamed maze in order from the top.
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+
+        /**
+         * Accepts one row of tile codes.
+         * The array is reused for the next row, so it must be copied if kept.
+         *
+         * @param y   the y-coordinate of the row
+         * @param row the tile codes of the row
+         */
+        void accept(int y, byte[] row);
+    }
+
+    /**
+     * Gets the name the strategy is chosen by.
+     *
+     * @return the name of the strategy
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Streams the maze into the tile store of the map row by row and sets its
+     * start and exit. The map drops its derived data once, after the maze is
+     * carved.
+     *
+     * @param map    the map to carve
+     * @param random the source of randomness
+     */
+    @Override
+    public void generate(GameMap map, RandomGenerator random) {
+        stream(map.getWidth(), map.getHeight(), random, map.getTileStore()::setRow);
+        map.setStartLocation(0, 0);
+        map.setExitLocation(exitX(map.getWidth()), exitY(map.getHeight()));
+    }
+
+    /**
+     * Gets the x-coordinate of the exit of a maze with the given width.
+     *
+     * @param width the width of the map
+     * @return the x-coordinate of the exit
+     */
+    public static int exitX(int width) {
+        return ((width + 1) / 2 - 1) * 2;
+    }
+
+    /**
+     * Gets the y-coordinate of the exit of a maze with the given height.
+     *
+     * @param height the height of the map
+     * @return the y-coordinate of the exit
+     */
+    public static int exitY(int height) {
+        return ((height + 1) / 2 - 1) * 2;
+    }
+
+    /**
+     * Generates the maze and hands every row to the consumer, top to bottom.
+     *
+     * @param width    the width of the map
+     * @param height   the height of the map
+     * @param random   the source of randomness
+     * @param consumer receives the rows
+     */
+    public void stream(int width, int height, RandomGenerator random, RowConsumer consumer) {
+        int latticeWidth = (width + 1) / 2;
+        int latticeHeight = (height + 1) / 2;
+
+        byte[] row = new byte[width];
+        // sets of the current lattice row, as a union-find over the columns
+        int[] parents = new int[latticeWidth];
+        int[] nextParents = new int[latticeWidth];
+        boolean[] down = new boolean[latticeWidth];
+        boolean[] setHasDown = new boolean[latticeWidth];
+        int[] lastOfSet = new int[latticeWidth];
+        int[] nextRoot = new int[latticeWidth];
+
+        for (int i = 0; i < latticeWidth; i++) {
+            parents[i] = i;
+        }
+
+        for (int j = 0; j < latticeHeight; j++) {
+            boolean lastRow = j == latticeHeight - 1;
+
+            // the cell row, joining neighbours of different sets at random and
+            // all of them on the last row
+            Arrays.fill(row, Tile.WALL);
+            for (int i = 0; i < latticeWidth; i++) {
+                row[i * 2] = Tile.EMPTY;
+            }
+            for (int i = 0; i + 1 < latticeWidth; i++) {
+                int left = find(parents, i);
+                int right = find(parents, i + 1);
+                if (left != right && (lastRow || random.nextBoolean())) {
+                    parents[right] = left;
+                    row[i * 2 + 1] = Tile.EMPTY;
+                }
+            }
+            if (lastRow) {
+                row[exitX(width)] = Tile.EXIT;
+                consumer.accept(j * 2, row);
+                break;
+            }
+            consumer.accept(j * 2, row);
+
+            // every set goes down at least once, the last cell of a set is
+            // forced down if no other cell was picked
+            Arrays.fill(setHasDown, false);
+            for (int i = 0; i < latticeWidth; i++) {
+                int root = find(parents, i);
+                down[i] = random.nextBoolean();
+                setHasDown[root] |= down[i];
+                lastOfSet[root] = i;
+            }
+            for (int i = 0; i < latticeWidth; i++) {
+                int root = find(parents, i);
+                if (!setHasDown[root] && lastOfSet[root] == i) {
+                    down[i] = true;
+                }
+            }
+
+            // the passage row, and the sets of the next row: cells going down
+            // stay in their set, the others start a new one
+            Arrays.fill(row, Tile.WALL);
+            Arrays.fill(nextRoot, -1);
+            for (int i = 0; i < latticeWidth; i++) {
+                if (!down[i]) {
+                    nextParents[i] = i;
+                    continue;
+                }
+                row[i * 2] = Tile.EMPTY;
+                int root = find(parents, i);
+                if (nextRoot[root] < 0) {
+                    nextRoot[root] = i;
+                }
+                nextParents[i] = nextRoot[root];
+            }
+            consumer.accept(j * 2 + 1, row);
+
+            int[] temp = parents;
+            parents = nextParents;
+            nextParents = temp;
+        }
+
+        // an even height leaves a last row of walls below the lattice
+        if (height % 2 == 0) {
+            Arrays.fill(row, Tile.WALL);
+            consumer.accept(height - 1, row);
+        }
+    }
+
+    /**
+     * Finds the set of a column, halving the path on the way.
+     *
+     * @param parents the union-find parents
+     * @param i       the column
+     * @return the root column of the set
+     */
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+}
@@ -1,5 +1,7 @@
 package engine.level;
 
+import engine.FrameBuffer;
+
 /**
  * Represents an empty grid cell in the game.
  * The EmptyGrid is non-solid, indicating that it can be passed through.
@@ -39,12 +41,14 @@ public class EmptyGrid implements Grid {
     }
 
     /**
-     * Displays the empty grid on the console.
-     * It prints a space character to represent an empty cell.
+     * Draws the empty grid into a frame.
+     * It appends a space character to represent an empty cell.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
-        System.out.print(" ");
+    public void render(FrameBuffer frame) {
+        frame.append(' ');
     }
 
     /**
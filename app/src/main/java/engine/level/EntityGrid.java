@@ -1,6 +1,7 @@
 package engine.level;
 
 import data.DataManager;
+import engine.FrameBuffer;
 import engine.entity.Entity;
 import engine.entity.EntityType;
 import com.google.gson.reflect.TypeToken;
@@ -74,18 +75,20 @@ public class EntityGrid implements Grid {
     }
 
     /**
-     * Displays the entity contained in the grid on the console.
+     * Draws the entity contained in the grid into a frame.
      * The display color depends on the type of the entity.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
 
         if (entity.getType() == EntityType.ENEMY) {
-            System.out.print(ANSI_YELLOW);
+            frame.setColor(ANSI_YELLOW);
         }
-        System.out.print(entity.getType().getDisplayName());
+        frame.append(entity.getType().getDisplayName());
         // reset the color
-        System.out.print(ANSI_RESET);
+        frame.setColor(ANSI_RESET);
     }
 
     /**
@@ -1,5 +1,7 @@
 package engine.level;
 
+import engine.FrameBuffer;
+
 import static utils.ANSIColors.ANSI_RED;
 import static utils.ANSIColors.ANSI_RESET;
 
@@ -42,13 +44,17 @@ public class ExitGrid implements Grid {
     }
 
     /**
-     * Displays the exit grid on the console.
+     * Draws the exit grid into a frame.
      * The exit grid is displayed using a red "@" character.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
-        String WALL_CHAR = "@";
-        System.out.print(ANSI_RED + WALL_CHAR + ANSI_RESET);
+    public void render(FrameBuffer frame) {
+        final char WALL_CHAR = '@';
+        frame.setColor(ANSI_RED);
+        frame.append(WALL_CHAR);
+        frame.setColor(ANSI_RESET);
     }
 
     /**
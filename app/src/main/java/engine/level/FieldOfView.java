@@ -0,0 +1,344 @@
+package engine.level;
+
+import data.ISerializable;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The cells the player can see and the cells seen so far.
+ * Visibility is found with symmetric shadowcasting: every octant around the
+ * viewer is scanned row by row, and walls narrow the range of slopes the next
+ * rows are scanned in. A cell is visible from another exactly when the other
+ * is visible from it, and walls are seen but not seen through.
+ * <p>
+ * The view only depends on the cells within the radius, so it is computed
+ * again only when the viewer moves or a wall in view changes, and never costs
+ * more than the square around the viewer. Cells once seen stay explored, in
+ * blocks of 64 by 64 cells created as they are first seen, and are saved with
+ * the map.
+ */
+public class FieldOfView implements ISerializable {
+
+    // Largest radius, a row of the view fits into a word
+    public static final int MAX_RADIUS = 31;
+
+    // Side of an explored block in cells, the number of bits of a word
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final GameMap map;
+    private final int radius;
+    // one word per row of the square around the viewer
+    private final long[] visible;
+    // one word per row of every explored block, by packed block coordinates
+    private final Map<Long, long[]> explored = new HashMap<>();
+
+    private boolean hasOrigin;
+    private int originX;
+    private int originY;
+    // whether a wall in view changed since the view was computed
+    private boolean dirty;
+
+    /**
+     * Constructs the view of a map.
+     *
+     * @param map    the map looked at
+     * @param radius how far the viewer sees
+     * @throws IllegalArgumentException if the radius is negative or larger than
+     *                                  MAX_RADIUS
+     */
+    public FieldOfView(GameMap map, int radius) {
+        if (radius < 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("View radius must be between 0 and " + MAX_RADIUS + ": " + radius);
+        }
+        this.map = map;
+        this.radius = radius;
+        this.visible = new long[2 * radius + 1];
+    }
+
+    /**
+     * Gets how far the viewer sees.
+     *
+     * @return the radius in cells
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Checks if the view has been computed for a viewer.
+     *
+     * @return true if there is a viewer; false otherwise
+     */
+    public boolean hasOrigin() {
+        return hasOrigin;
+    }
+
+    /**
+     * Moves the viewer, computing the view again if it moved or a wall in
+     * view changed.
+     *
+     * @param x The x-coordinate of the viewer.
+     * @param y The y-coordinate of the viewer.
+     * @return true if the view was computed again; false if it was still valid
+     */
+    public boolean update(int x, int y) {
+        if (hasOrigin && !dirty && x == originX && y == originY) {
+            return false;
+        }
+        hasOrigin = true;
+        originX = x;
+        originY = y;
+        dirty = false;
+        compute();
+        return true;
+    }
+
+    /**
+     * Computes the view again if a wall in view changed.
+     */
+    public void refresh() {
+        if (hasOrigin && dirty) {
+            update(originX, originY);
+        }
+    }
+
+    /**
+     * Notes that a cell turned into a wall or opened up. Cells out of view do
+     * not change the view.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    public void invalidate(int x, int y) {
+        if (Math.abs(x - originX) <= radius && Math.abs(y - originY) <= radius) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Notes that any cell may have changed.
+     */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Forgets the viewer and every explored cell, for a new map.
+     */
+    public void clear() {
+        hasOrigin = false;
+        dirty = false;
+        Arrays.fill(visible, 0);
+        explored.clear();
+    }
+
+    /**
+     * Checks if a cell is visible to the viewer.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is visible; false otherwise
+     */
+    public boolean isVisible(int x, int y) {
+        int column = x - originX + radius;
+        int row = y - originY + radius;
+        if (!hasOrigin || column < 0 || column >= visible.length || row < 0 || row >= visible.length) {
+            return false;
+        }
+        return (visible[row] & (1L << column)) != 0;
+    }
+
+    /**
+     * Checks if a cell has ever been visible.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell has been seen; false otherwise
+     */
+    public boolean isExplored(int x, int y) {
+        long[] block = explored.get(key(x >> BLOCK_SHIFT, y >> BLOCK_SHIFT));
+        return block != null && (block[y & BLOCK_MASK] & (1L << (x & BLOCK_MASK))) != 0;
+    }
+
+    /**
+     * Counts the explored cells.
+     *
+     * @return the number of cells seen so far
+     */
+    public long getExploredCount() {
+        long count = 0;
+        for (long[] block : explored.values()) {
+            for (long word : block) {
+                count += Long.bitCount(word);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Computes the view around the viewer, one quadrant at a time.
+     */
+    private void compute() {
+        Arrays.fill(visible, 0);
+        reveal(originX, originY);
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            scan(quadrant, 1, -1, 1, 1, 1);
+        }
+    }
+
+    /**
+     * Scans a row of a quadrant between two slopes and the rows behind it.
+     * A slope is a fraction of a column over a depth, kept as numerator and
+     * positive denominator so it stays exact.
+     *
+     * @param quadrant the quadrant, 0 up, 1 down, 2 right, 3 left
+     * @param depth    the distance of the row from the viewer
+     * @param startNum the numerator of the first slope
+     * @param startDen the denominator of the first slope
+     * @param endNum   the numerator of the last slope
+     * @param endDen   the denominator of the last slope
+     */
+    private void scan(int quadrant, int depth, long startNum, long startDen, long endNum, long endDen) {
+        if (depth > radius) {
+            return;
+        }
+        // the columns whose centers lie between the slopes, ties rounded inwards
+        long minColumn = Math.floorDiv(2 * depth * startNum + startDen, 2 * startDen);
+        long maxColumn = -Math.floorDiv(-(2 * depth * endNum - endDen), 2 * endDen);
+        // 0 before the first cell, then 1 for a wall and 2 for a floor
+        int previous = 0;
+        for (long column = minColumn; column <= maxColumn; column++) {
+            int x = cellX(quadrant, depth, (int) column);
+            int y = cellY(quadrant, depth, (int) column);
+            boolean wall = !map.getWalkability().isWalkable(x, y);
+            boolean symmetric = column * startDen >= depth * startNum && column * endDen <= depth * endNum;
+            if ((wall || symmetric) && column * column + (long) depth * depth <= (long) radius * (radius + 1)) {
+                reveal(x, y);
+            }
+            if (previous == 1 && !wall) {
+                // a floor after a wall narrows the start of the next rows
+                startNum = 2 * column - 1;
+                startDen = 2L * depth;
+            }
+            if (previous == 2 && wall) {
+                scan(quadrant, depth + 1, startNum, startDen, 2 * column - 1, 2L * depth);
+            }
+            previous = wall ? 1 : 2;
+        }
+        if (previous == 2) {
+            scan(quadrant, depth + 1, startNum, startDen, endNum, endDen);
+        }
+    }
+
+    /**
+     * Gets the x-coordinate of a cell of a quadrant.
+     *
+     * @param quadrant the quadrant, 0 up, 1 down, 2 right, 3 left
+     * @param depth    the distance of the row from the viewer
+     * @param column   the column in the row
+     * @return the x-coordinate on the map
+     */
+    private int cellX(int quadrant, int depth, int column) {
+        return switch (quadrant) {
+            case 0, 1 -> originX + column;
+            case 2 -> originX + depth;
+            default -> originX - depth;
+        };
+    }
+
+    /**
+     * Gets the y-coordinate of a cell of a quadrant.
+     *
+     * @param quadrant the quadrant, 0 up, 1 down, 2 right, 3 left
+     * @param depth    the distance of the row from the viewer
+     * @param column   the column in the row
+     * @return the y-coordinate on the map
+     */
+    private int cellY(int quadrant, int depth, int column) {
+        return switch (quadrant) {
+            case 0 -> originY - depth;
+            case 1 -> originY + depth;
+            default -> originY + column;
+        };
+    }
+
+    /**
+     * Marks a cell visible and explored, cells outside the map are skipped.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     */
+    private void reveal(int x, int y) {
+        if (!map.isInBounds(x, y)) {
+            return;
+        }
+        visible[y - originY + radius] |= 1L << (x - originX + radius);
+        explored.computeIfAbsent(key(x >> BLOCK_SHIFT, y >> BLOCK_SHIFT), k -> new long[BLOCK_SIZE])[y
+                & BLOCK_MASK] |= 1L << (x & BLOCK_MASK);
+    }
+
+    /**
+     * Serializes the explored cells as a JSON array with one entry per block,
+     * its column, row and Base64 encoded words.
+     *
+     * @return the JSON string
+     */
+    @Override
+    public String serialize() {
+        JsonArray blocks = new JsonArray();
+        ByteBuffer buffer = ByteBuffer.allocate(BLOCK_SIZE * Long.BYTES);
+        for (Map.Entry<Long, long[]> entry : explored.entrySet()) {
+            buffer.clear();
+            buffer.asLongBuffer().put(entry.getValue());
+            long key = entry.getKey();
+            blocks.add((int) (key >> 32) + "," + (int) key + ","
+                    + Base64.getEncoder().encodeToString(buffer.array()));
+        }
+        return blocks.toString();
+    }
+
+    /**
+     * Deserializes explored cells written by serialize, adding them to the
+     * cells explored so far.
+     *
+     * @param data the JSON string
+     * @throws IllegalArgumentException if a block is malformed
+     */
+    @Override
+    public void deserialize(String data) {
+        for (JsonElement element : JsonParser.parseString(data).getAsJsonArray()) {
+            String[] parts = element.getAsString().split(",");
+            byte[] bytes = parts.length == 3 ? Base64.getDecoder().decode(parts[2]) : new byte[0];
+            if (bytes.length != BLOCK_SIZE * Long.BYTES) {
+                throw new IllegalArgumentException("Malformed explored block: " + element);
+            }
+            long[] block = explored.computeIfAbsent(key(Integer.parseInt(parts[0]), Integer.parseInt(parts[1])),
+                    k -> new long[BLOCK_SIZE]);
+            long[] words = new long[BLOCK_SIZE];
+            ByteBuffer.wrap(bytes).asLongBuffer().get(words);
+            for (int i = 0; i < BLOCK_SIZE; i++) {
+                block[i] |= words[i];
+            }
+        }
+    }
+
+    /**
+     * Packs block coordinates into a single key.
+     *
+     * @param blockX the block column
+     * @param blockY the block row
+     * @return the packed key
+     */
+    private static long key(int blockX, int blockY) {
+        return ((long) blockX << 32) | (blockY & 0xFFFFFFFFL);
+    }
+}
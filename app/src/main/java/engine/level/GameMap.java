@@ -1,7 +1,9 @@
 package engine.level;
 
 import data.DataManager;
+import data.GameConfig;
 import data.ISerializable;
+import engine.FrameBuffer;
 import engine.IDisplayable;
 import engine.entity.Entity;
 import engine.item.Item;
@@ -10,7 +12,17 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static utils.ANSIColors.ANSI_RESET;
 import static utils.ANSIColors.ANSI_YELLOW;
@@ -18,99 +30,622 @@ import static utils.ANSIColors.ANSI_YELLOW;
 /**
  * Represents the game map, which consists of a grid of cells.
  * The map can be generated randomly or loaded from a configuration.
+ * Its size comes from the {@link GameConfig} of its game or from the save
+ * file.
+ * <p>
+ * When the config names a chunk directory the map is a chunked
+ * world: its tiles are generated and loaded a chunk at a time by a
+ * {@link ChunkedTileStore} and only the recently used chunks stay in memory.
+ * A map can also be saved to and opened from a binary {@link MapFile}, whose
+ * tiles are mapped into memory instead of read.
  */
 public class GameMap implements ISerializable, IDisplayable {
 
+    // Largest number of cells a map can hold in memory
+    public static final int MAX_CELLS = ArrayTileStore.MAX_CELLS;
+
+    // Cells a reachability search visits at most on maps without a
+    // connectivity index
+    private static final int REACHABILITY_SEARCH_CELLS = 1 << 16;
+
     // Width of the game map
-    private static final int WIDTH = 35;
+    private int width;
     // Height of the game map
-    private static final int HEIGHT = 12;
+    private int height;
 
-    // 2D array representing the grid of the
-    private final Grid[][] grids;
+    // tile code of every cell (see Tile)
+    private TileStore tiles;
+    // entities and items on the map, keyed by packed coordinates
+    private final Map<Long, Grid> occupants = new HashMap<>();
+    // positions of the entities and items, for searches around a position
+    private final SpatialIndex<Entity> entityIndex = new SpatialIndex<>();
+    private final SpatialIndex<Item> itemIndex = new SpatialIndex<>();
+    // which cells are not walls, one bit per cell
+    private WalkabilityLayer walkability;
+    // steps from every cell to the exit, null until built or after a reload
+    private DistanceField distanceField;
+    // regions of connected cells, null until used or after a wall was added
+    private ConnectivityIndex connectivity;
+    // clusters of the hierarchical path finder, dropped around changed cells
+    private final HierarchicalPathFinder hierarchy = new HierarchicalPathFinder(this);
+    // what the player sees and has seen, drawn instead of the whole map
+    private final FieldOfView fieldOfView;
+    // Seed the maze was generated from
+    private long seed;
+    // Strategy carving the maze
+    private MazeGenerator generator;
     // Location of the exit on the map
     private Location exitLocation;
     // Starting location of the playe
     private Location startLocation;
+    // Directory of the chunk files, null if the map is kept in memory
+    private String chunkDirectory;
+    // Map file the tiles are mapped from, null if they are not
+    private String mapFile;
+    // Settings of the game the map belongs to
+    private final GameConfig config;
 
     /**
-     * Constructs a GameMap object and generates the map if not loading from a file.
+     * Constructs a GameMap object with the default settings, which is left
+     * empty for loading.
      */
     public GameMap() {
-        this.grids = new Grid[WIDTH][HEIGHT];
+        this(new GameConfig());
+    }
+
+    /**
+     * Constructs a GameMap object of the given size with the default settings,
+     * which is left empty for loading.
+     *
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @throws IllegalArgumentException if the size is not positive or too large
+     */
+    public GameMap(int width, int height) {
+        this(new GameConfig(), width, height);
+    }
 
-        if (!DataManager.READ_CONFIG_FROM_FILE) {
-            generate();
+    /**
+     * Constructs a GameMap object with the configured size and generates the map
+     * if not loading from a file.
+     *
+     * @param config the settings of the game
+     */
+    public GameMap(GameConfig config) {
+        this(config, config.getMapWidth(), config.getMapHeight());
+    }
+
+    /**
+     * Constructs a GameMap object with the given size and generates the map if
+     * not loading from a file.
+     *
+     * @param config the settings of the game
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @throws IllegalArgumentException if the size is not positive or too large
+     */
+    public GameMap(GameConfig config, int width, int height) {
+        this.config = config;
+        this.fieldOfView = new FieldOfView(this, config.getViewRadius());
+        this.generator = MazeGenerator.fromName(config.getMapGenerator());
+        this.chunkDirectory = config.getMapChunkDirectory();
+        resize(width, height);
+
+        if (!config.isReadConfigFromFile()) {
+            if (config.getSeed() != null) {
+                generate(config.getSeed());
+            } else {
+                generate();
+            }
         }
     }
 
     /**
-     * Generates the game map with walls and random paths.
+     * Gets the width of the map.
+     *
+     * @return the width of the map
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the map.
+     *
+     * @return the height of the map
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if the map is a chunked world.
+     *
+     * @return true if the tiles are kept in chunk files; false otherwise
+     */
+    public boolean isChunked() {
+        return chunkDirectory != null;
+    }
+
+    /**
+     * Reallocates the tiles for the given size. All cells of an in-memory map
+     * become empty, a chunked world is the one generated from the current seed.
+     *
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @throws IllegalArgumentException if the size is not positive or too large
+     */
+    private void resize(int width, int height) {
+        if (isChunked()) {
+            ChunkedTileStore chunks = new ChunkedTileStore(width, height, seed, Path.of(chunkDirectory),
+                    config.getMapChunkCache());
+            chunks.setChunkListener(this::markOccupants);
+            this.tiles = chunks;
+            // blocks and chunks are both 64 cells wide, keep as many of each
+            this.walkability = new WalkabilityLayer(tiles, config.getMapChunkCache());
+        } else {
+            this.tiles = new ArrayTileStore(width, height);
+            this.walkability = new WalkabilityLayer(tiles);
+        }
+        dropDerivedData();
+        fieldOfView.clear();
+        this.width = width;
+        this.height = height;
+        this.mapFile = null;
+        clearOccupants();
+    }
+
+    /**
+     * Gets the number of chunks of a chunked world currently in memory.
+     *
+     * @return the number of cached chunks, 0 if the map is not chunked
+     */
+    public int getCachedChunkCount() {
+        return isChunked() ? ((ChunkedTileStore) tiles).getCachedChunkCount() : 0;
+    }
+
+    /**
+     * Writes the map to a binary map file.
+     *
+     * @param file the map file
+     * @throws java.io.UncheckedIOException if the file can not be written
+     */
+    public void saveMapFile(Path file) {
+        MapFile.write(file, this);
+    }
+
+    /**
+     * Opens a binary map file, mapping its tiles into memory.
+     * Changes to the map stay in memory, the file is left as it is.
+     *
+     * @param file the map file
+     * @throws IllegalArgumentException     if the file is not a valid map file
+     * @throws java.io.UncheckedIOException if the file can not be read
+     */
+    public void loadMapFile(Path file) {
+        MapFile opened = MapFile.open(file);
+        this.chunkDirectory = null;
+        this.width = opened.getWidth();
+        this.height = opened.getHeight();
+        this.tiles = opened.getTiles();
+        // a map too large to keep derived data for keeps only some blocks, it
+        // may be larger than the heap
+        this.walkability = (long) width * height <= DistanceField.MAX_CELLS ? new WalkabilityLayer(tiles)
+                : new WalkabilityLayer(tiles, config.getMapChunkCache());
+        // built on the first query, so opening stays as cheap as mapping
+        dropDerivedData();
+        fieldOfView.clear();
+        this.seed = opened.getSeed();
+        this.startLocation = opened.getStartLocation();
+        this.exitLocation = opened.getExitLocation();
+        this.mapFile = file.toString();
+        clearOccupants();
+    }
+
+    /**
+     * Gets the start location of the map.
+     *
+     * @return the start location
+     */
+    public Location getStartLocation() {
+        return startLocation;
+    }
+
+    /**
+     * Gets the exit location of the map.
+     *
+     * @return the exit location
+     */
+    public Location getExitLocation() {
+        return exitLocation;
+    }
+
+    /**
+     * Gets the seed the maze was generated from.
+     *
+     * @return the seed of the maze, 0 if the map was loaded without one
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the strategy carving the maze.
+     *
+     * @return the maze generator
+     */
+    public MazeGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Sets the strategy carving the maze on the next generation.
+     *
+     * @param generator the maze generator
+     */
+    public void setGenerator(MazeGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Generates the game map with walls and random paths from a random seed.
      */
     public void generate() {
-        startLocation = new Location();
-        exitLocation = new Location();
+        generate(ThreadLocalRandom.current().nextLong());
+    }
 
-        // Initialize the grid with walls
-        for (int x = 0; x < WIDTH; x++) {
-            for (int y = 0; y < HEIGHT; y++) {
-                grids[x][y] = new WallGrid();
-            }
+    /**
+     * Generates the game map with walls and random paths.
+     * The same seed and size always give the same map, and its exit is
+     * checked to be reachable from the start.
+     *
+     * @param seed the seed of the maze
+     */
+    public void generate(long seed) {
+        this.seed = seed;
+        clearOccupants();
+        dropDerivedData();
+        fieldOfView.clear();
+        if (mapFile != null) {
+            // a new maze no longer matches the map file
+            resize(width, height);
+        }
+        if (isChunked()) {
+            // chunks carve themselves from the seed when they are first used
+            resize(width, height);
+            ChunkedTileStore chunks = (ChunkedTileStore) tiles;
+            setStartLocation(0, 0);
+            setExitLocation(chunks.getExitX(), chunks.getExitY());
+            return;
+        }
+        generator.generate(this, new SplittableRandom(seed));
+        // the generator carves the tile store directly
+        walkability.invalidate();
+        buildDistanceField();
+        validateReachability();
+    }
+
+    /**
+     * Gets the number of steps from a cell to the exit, walking around walls
+     * but not around entities.
+     * Maps small enough for a {@link DistanceField} answer from the field,
+     * chunked worlds and larger maps search a path instead.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the number of steps, or -1 if the exit can not be reached
+     */
+    public int getStepsToExit(int x, int y) {
+        if (exitLocation == null || !walkability.isWalkable(x, y)) {
+            return DistanceField.UNREACHABLE;
+        }
+        if (distanceField == null && hasDistanceField()) {
+            buildDistanceField();
         }
+        if (distanceField != null) {
+            return distanceField.get(x, y);
+        }
+        List<Location> path = new PathFinder(this).findPath(new Location(x, y), exitLocation, false);
+        return path == null ? DistanceField.UNREACHABLE : path.size();
+    }
 
-        int startX = (int) (Math.random() * WIDTH);
-        int startY = (int) (Math.random() * HEIGHT);
+    /**
+     * Checks if the map is small enough to keep a distance field.
+     *
+     * @return true if a distance field can be built; false otherwise
+     */
+    private boolean hasDistanceField() {
+        return !isChunked() && (long) width * height <= DistanceField.MAX_CELLS;
+    }
 
-        generateMaze(startX, startY);
+    /**
+     * Builds the distance field of the exit, or drops it if the map has no exit
+     * or is too large.
+     */
+    private void buildDistanceField() {
+        distanceField = null;
+        if (exitLocation != null && hasDistanceField()) {
+            distanceField = new DistanceField(walkability, exitLocation.getLocationX(),
+                    exitLocation.getLocationY());
+        }
     }
 
     /**
-     * Recursively generates the maze using a randomized depth-first search
-     * algorithm.
+     * Checks if one cell can be reached from another, walking around walls
+     * but not around entities.
+     * Maps small enough for a {@link ConnectivityIndex} answer from the index,
+     * chunked worlds and larger maps search a path instead.
      *
-     * @param x The x-coordinate of the current cell.
-     * @param y The y-coordinate of the current cell.
+     * @param fromX The x-coordinate of the first cell.
+     * @param fromY The y-coordinate of the first cell.
+     * @param toX   The x-coordinate of the second cell.
+     * @param toY   The y-coordinate of the second cell.
+     * @return true if both cells are walkable and connected; false otherwise
      */
-    private void generateMaze(int x, int y) {
-        // Set start location if it hasn't been set yet
-        if (!startLocation.validLocation()) {
-            startLocation.setLocationX(x);
-            startLocation.setLocationY(y);
+    public boolean isReachable(int fromX, int fromY, int toX, int toY) {
+        if (hasConnectivityIndex()) {
+            return getConnectivity().isConnected(fromX, fromY, toX, toY);
         }
+        return hierarchy.findPath(new Location(fromX, fromY), new Location(toX, toY)) != null;
+    }
 
-        // Mark the current cell as em
-        grids[x][y] = new EmptyGrid();
+    /**
+     * Finds the exit, entities and items which can not be reached from the
+     * start location.
+     * Maps small enough for a {@link ConnectivityIndex} answer from the index.
+     * Chunked worlds, larger maps and maps opened from a map file, which would
+     * cost a pass over the whole map, search from the start instead, over at
+     * most {@value #REACHABILITY_SEARCH_CELLS} cells. Only what that search
+     * proves unreachable is reported: a target it does not get to before the
+     * limit, like the far exit of a large map, is taken as reachable.
+     *
+     * @return the locations which can not be reached, empty if there are none
+     */
+    public List<Location> findUnreachable() {
+        List<Location> unreachable = new ArrayList<>();
+        if (startLocation == null) {
+            return unreachable;
+        }
+        if (mapFile != null || !hasConnectivityIndex()) {
+            return searchUnreachable();
+        }
+        ConnectivityIndex index = getConnectivity();
+        int region = index.getRegion(startLocation.getLocationX(), startLocation.getLocationY());
+        if (exitLocation != null
+                && index.getRegion(exitLocation.getLocationX(), exitLocation.getLocationY()) != region) {
+            unreachable.add(exitLocation);
+        }
+        for (Long key : occupants.keySet()) {
+            int x = (int) (key >> 32);
+            int y = (int) (long) key;
+            if (index.getRegion(x, y) != region) {
+                unreachable.add(new Location(x, y));
+            }
+        }
+        return unreachable;
+    }
 
-        // Possible directions to move (up, right, down, left)
+    /**
+     * Finds the exit, entities and items which can not be reached from the
+     * start location by a search from the start over a limited number of cells.
+     *
+     * @return the locations the search proves unreachable
+     */
+    private List<Location> searchUnreachable() {
+        Map<Long, Location> targets = new HashMap<>();
+        if (exitLocation != null) {
+            targets.put(key(exitLocation.getLocationX(), exitLocation.getLocationY()), exitLocation);
+        }
+        for (Long key : occupants.keySet()) {
+            targets.put(key, new Location((int) (key >> 32), (int) (long) key));
+        }
         int[][] directions = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
-
-        // Shuffle the directions to randomize the path generation
-        for (int i = 0; i < directions.length; i++) {
-            int j = (int) (Math.random() * directions.length);
-            int[] temp = directions[i];
-            directions[i] = directions[j];
-            directions[j] = temp;
-        }
-
-        // Explore each direction
-        for (int[] dir : directions) {
-            int newX = x + dir[0] * 2;
-            int newY = y + dir[1] * 2;
-            // Check if the new position is within bounds and is a wal
-            if (newX >= 0 && newX < WIDTH && newY >= 0 && newY < HEIGHT && grids[newX][newY] instanceof WallGrid) {
-                grids[x + dir[0]][y + dir[1]] = new EmptyGrid();
-                generateMaze(newX, newY);
+        Set<Long> visited = new HashSet<>();
+        ArrayDeque<Long> queue = new ArrayDeque<>();
+        long start = key(startLocation.getLocationX(), startLocation.getLocationY());
+        visited.add(start);
+        queue.add(start);
+        while (!queue.isEmpty() && !targets.isEmpty()) {
+            if (visited.size() >= REACHABILITY_SEARCH_CELLS) {
+                // what is left can not be proven unreachable
+                return new ArrayList<>();
+            }
+            long cell = queue.poll();
+            targets.remove(cell);
+            int x = (int) (cell >> 32);
+            int y = (int) cell;
+            for (int[] dir : directions) {
+                int nextX = x + dir[0];
+                int nextY = y + dir[1];
+                if (walkability.isWalkable(nextX, nextY) && visited.add(key(nextX, nextY))) {
+                    queue.add(key(nextX, nextY));
+                }
             }
         }
+        return new ArrayList<>(targets.values());
+    }
+
+    /**
+     * Checks that the exit, entities and items can all be reached from the
+     * start location. A map checked before its entities and items are put on
+     * it, as after generating or loading it, only checks its exit; the game
+     * checks again once they are placed.
+     *
+     * @throws IllegalArgumentException if any of them can not be reached
+     */
+    public void validateReachability() {
+        List<Location> unreachable = findUnreachable();
+        if (!unreachable.isEmpty()) {
+            throw new IllegalArgumentException("Not reachable from start " + startLocation + ": " + unreachable);
+        }
+    }
+
+    /**
+     * Checks if the map is small enough to keep a connectivity index.
+     *
+     * @return true if a connectivity index can be built; false otherwise
+     */
+    private boolean hasConnectivityIndex() {
+        return !isChunked() && (long) width * height <= ConnectivityIndex.MAX_CELLS;
+    }
+
+    /**
+     * Gets the connectivity index, building it if it was dropped.
+     *
+     * @return the connectivity index
+     */
+    private ConnectivityIndex getConnectivity() {
+        if (connectivity == null) {
+            connectivity = new ConnectivityIndex(walkability);
+        }
+        return connectivity;
+    }
+
+    /**
+     * Moves the viewer of the field of view, usually the player.
+     * Without fog of war nothing is hidden, and the view is not computed.
+     *
+     * @param x The x-coordinate of the viewer.
+     * @param y The y-coordinate of the viewer.
+     */
+    public void updateView(int x, int y) {
+        if (config.isFogOfWar()) {
+            fieldOfView.update(x, y);
+        }
+    }
+
+    /**
+     * Gets the field of view of the map, kept in sync with its tiles.
+     *
+     * @return the field of view
+     */
+    public FieldOfView getFieldOfView() {
+        return fieldOfView;
+    }
 
-        // Set exit location if it hasn't been set yet
-        if (!exitLocation.validLocation()) {
-            exitLocation.setLocationX(x);
-            exitLocation.setLocationY(y);
-            grids[x][y] = new ExitGrid();
+    /**
+     * Gets the walkability layer of the map, kept in sync with its tiles.
+     *
+     * @return the walkability layer
+     */
+    public WalkabilityLayer getWalkability() {
+        return walkability;
+    }
+
+    /**
+     * Gets the hierarchical path finder of the map, whose clusters the map
+     * keeps in sync with its tiles.
+     *
+     * @return the hierarchical path finder
+     */
+    public HierarchicalPathFinder getHierarchicalPathFinder() {
+        return hierarchy;
+    }
+
+    /**
+     * Gets the store holding the tile codes.
+     *
+     * @return the tile store
+     */
+    TileStore getTileStore() {
+        return tiles;
+    }
+
+    /**
+     * Gets the tile code of a cell, the caller checks the bounds.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the tile code of the cell
+     */
+    byte getTile(int x, int y) {
+        return tiles.get(x, y);
+    }
+
+    /**
+     * Sets the tile code of a cell, the caller checks the bounds.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param tile the new tile code
+     */
+    void setTile(int x, int y, byte tile) {
+        boolean wasWall = tiles.get(x, y) == Tile.WALL;
+        tiles.set(x, y, tile);
+        walkability.set(x, y, tile != Tile.WALL);
+        if (wasWall != (tile == Tile.WALL)) {
+            hierarchy.invalidate(x, y);
+            fieldOfView.invalidate(x, y);
+            if (distanceField != null) {
+                distanceField.update(x, y);
+            }
+            // union-find can join regions but not split them
+            if (tile == Tile.WALL) {
+                connectivity = null;
+            } else if (connectivity != null) {
+                connectivity.add(x, y);
+            }
         }
     }
 
+    /**
+     * Marks the cells of the entities and items inside a chunk which was
+     * brought into memory, chunks keep only the terrain once they leave it.
+     *
+     * @param originX     The x-coordinate of the top left cell of the chunk.
+     * @param originY     The y-coordinate of the top left cell of the chunk.
+     * @param chunkWidth  the width of the chunk
+     * @param chunkHeight the height of the chunk
+     */
+    private void markOccupants(int originX, int originY, int chunkWidth, int chunkHeight) {
+        int maxX = originX + chunkWidth - 1;
+        int maxY = originY + chunkHeight - 1;
+        entityIndex.forEachInRect(originX, originY, maxX, maxY, (entity, x, y) -> tiles.set(x, y, Tile.ENTITY));
+        itemIndex.forEachInRect(originX, originY, maxX, maxY, (item, x, y) -> tiles.set(x, y, Tile.ITEM));
+    }
+
+    /**
+     * Drops what the map derives from its tiles after a bulk change, it is
+     * built again when used.
+     */
+    private void dropDerivedData() {
+        distanceField = null;
+        connectivity = null;
+        hierarchy.clear();
+        fieldOfView.invalidate();
+    }
+
+    /**
+     * Sets every cell of the map to the given tile code.
+     *
+     * @param tile the tile code
+     */
+    void fill(byte tile) {
+        tiles.fill(tile);
+        walkability.invalidate();
+        dropDerivedData();
+    }
+
+    /**
+     * Sets the start location of the map.
+     *
+     * @param x The x-coordinate of the start.
+     * @param y The y-coordinate of the start.
+     */
+    void setStartLocation(int x, int y) {
+        startLocation = new Location(x, y);
+    }
+
+    /**
+     * Sets the exit location of the map.
+     *
+     * @param x The x-coordinate of the exit.
+     * @param y The y-coordinate of the exit.
+     */
+    void setExitLocation(int x, int y) {
+        exitLocation = new Location(x, y);
+    }
+
     /**
      * Places the specified entities on the map.
      *
@@ -122,7 +657,7 @@ public class GameMap implements ISerializable, IDisplayable {
             int X = location.getLocationX();
             int Y = location.getLocationY();
 
-            grids[X][Y] = new EntityGrid(entity);
+            setGrid(X, Y, new EntityGrid(entity));
         }
     }
 
@@ -137,7 +672,7 @@ public class GameMap implements ISerializable, IDisplayable {
             int X = location.getLocationX();
             int Y = location.getLocationY();
 
-            grids[X][Y] = new ItemGrid(item);
+            setGrid(X, Y, new ItemGrid(item));
         }
     }
 
@@ -149,7 +684,7 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return true if the coordinates are within bounds; false otherwise.
      */
     public boolean isInBounds(int x, int y) {
-        return x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT;
+        return x >= 0 && x < width && y >= 0 && y < height;
     }
 
     /**
@@ -160,10 +695,7 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return true if the position can be moved to; false otherwise.
      */
     public boolean isTargetPositionCanMove(int x, int y) {
-        if (!isInBounds(x, y)) {
-            return false;
-        }
-        return !(grids[x][y] instanceof WallGrid);
+        return walkability.isWalkable(x, y);
     }
 
     /**
@@ -174,7 +706,7 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return true if the coordinates are the exit; false otherwise.
      */
     public boolean isExit(int x, int y) {
-        return grids[x][y] instanceof ExitGrid;
+        return isInBounds(x, y) && tiles.get(x, y) == Tile.EXIT;
     }
 
     /**
@@ -185,7 +717,7 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return true if the coordinates contain an enemy; false otherwise.
      */
     public boolean isEnemy(int x, int y) {
-        return grids[x][y] instanceof EntityGrid;
+        return isInBounds(x, y) && tiles.get(x, y) == Tile.ENTITY;
     }
 
     /**
@@ -196,7 +728,7 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return true if the coordinates contain a bonus; false otherwise.
      */
     public boolean isBonus(int x, int y) {
-        return grids[x][y] instanceof ItemGrid;
+        return isInBounds(x, y) && tiles.get(x, y) == Tile.ITEM;
     }
 
     /**
@@ -207,8 +739,8 @@ public class GameMap implements ISerializable, IDisplayable {
      * @return The entity at the specified coordinates, or null if there is none.
      */
     public Entity getEntity(int x, int y) {
-        if (grids[x][y] instanceof EntityGrid) {
-            return ((EntityGrid) grids[x][y]).getEntity();
+        if (isEnemy(x, y) && occupants.get(key(x, y)) instanceof EntityGrid entityGrid) {
+            return entityGrid.getEntity();
         }
         return null;
     }
@@ -222,8 +754,8 @@ public class GameMap implements ISerializable, IDisplayable {
      *         none.
      */
     public Item getBonus(int x, int y) {
-        if (grids[x][y] instanceof ItemGrid) {
-            return ((ItemGrid) grids[x][y]).getItem();
+        if (isBonus(x, y) && occupants.get(key(x, y)) instanceof ItemGrid itemGrid) {
+            return itemGrid.getItem();
         }
         return null;
     }
@@ -241,9 +773,18 @@ public class GameMap implements ISerializable, IDisplayable {
             return;
         }
 
-        Grid temp = grids[firstX][firstY];
-        grids[firstX][firstY] = grids[secondX][secondY];
-        grids[secondX][secondY] = temp;
+        byte tempTile = tiles.get(firstX, firstY);
+        setTile(firstX, firstY, tiles.get(secondX, secondY));
+        setTile(secondX, secondY, tempTile);
+
+        Grid firstOccupant = removeOccupant(firstX, firstY);
+        Grid secondOccupant = removeOccupant(secondX, secondY);
+        if (secondOccupant != null) {
+            putOccupant(firstX, firstY, secondOccupant);
+        }
+        if (firstOccupant != null) {
+            putOccupant(secondX, secondY, firstOccupant);
+        }
     }
 
     /**
@@ -256,7 +797,8 @@ public class GameMap implements ISerializable, IDisplayable {
         if (!isInBounds(X, Y)) {
             return;
         }
-        grids[X][Y] = new EmptyGrid();
+        setTile(X, Y, Tile.EMPTY);
+        removeOccupant(X, Y);
     }
 
     /**
@@ -273,11 +815,116 @@ public class GameMap implements ISerializable, IDisplayable {
         if (grid == null) {
             return;
         }
-        grids[X][Y] = grid;
+        byte tile = Tile.of(grid);
+        setTile(X, Y, tile);
+        if (Tile.isOccupied(tile)) {
+            putOccupant(X, Y, grid);
+        } else {
+            removeOccupant(X, Y);
+        }
+    }
+
+    /**
+     * Gets the grid at the specified coordinates.
+     * Terrain grids are shared instances, entity and item grids come from the
+     * occupant map.
+     *
+     * @param x The x-coordinate of the grid.
+     * @param y The y-coordinate of the grid.
+     * @return the grid at the coordinates, or null if out of bounds
+     */
+    public Grid getGrid(int x, int y) {
+        if (!isInBounds(x, y)) {
+            return null;
+        }
+        byte tile = tiles.get(x, y);
+        if (Tile.isOccupied(tile)) {
+            return occupants.get(key(x, y));
+        }
+        return Tile.terrainGrid(tile);
+    }
+
+    /**
+     * Gets the index of the entity positions, kept up to date as entities are
+     * placed, moved and removed.
+     *
+     * @return the entity index, which must not be changed
+     */
+    public SpatialIndex<Entity> getEntityIndex() {
+        return entityIndex;
+    }
+
+    /**
+     * Gets the index of the item positions, kept up to date as items are
+     * placed and picked up.
+     *
+     * @return the item index, which must not be changed
+     */
+    public SpatialIndex<Item> getItemIndex() {
+        return itemIndex;
+    }
+
+    /**
+     * Puts an entity or item grid on a cell, replacing the one there.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param grid the entity or item grid
+     */
+    private void putOccupant(int x, int y, Grid grid) {
+        removeOccupant(x, y);
+        occupants.put(key(x, y), grid);
+        if (grid instanceof EntityGrid entityGrid) {
+            entityIndex.add(entityGrid.getEntity(), x, y);
+        } else if (grid instanceof ItemGrid itemGrid) {
+            itemIndex.add(itemGrid.getItem(), x, y);
+        }
+    }
+
+    /**
+     * Removes the entity or item grid of a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the removed grid, or null if the cell had none
+     */
+    private Grid removeOccupant(int x, int y) {
+        Grid grid = occupants.remove(key(x, y));
+        if (grid instanceof EntityGrid entityGrid) {
+            entityIndex.remove(entityGrid.getEntity(), x, y);
+        } else if (grid instanceof ItemGrid itemGrid) {
+            itemIndex.remove(itemGrid.getItem(), x, y);
+        }
+        return grid;
+    }
+
+    /**
+     * Removes all entity and item grids.
+     */
+    private void clearOccupants() {
+        occupants.clear();
+        entityIndex.clear();
+        itemIndex.clear();
+    }
+
+    /**
+     * Packs the coordinates of a cell into a single key, as used for the
+     * occupant map.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the packed key
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
     }
 
     /**
      * Serializes the game grid into a JSON string format.
+     * The walls are packed one bit per cell, row by row, and Base64 encoded so
+     * the save stays small for large maps. A chunked world writes its changed
+     * chunks to the chunk directory and only saves where they are, a map opened
+     * from a map file only saves the path of the file.
      *
      * @return A JSON string representation of the game grid, including the start
      *         and exit locations.
@@ -285,67 +932,155 @@ public class GameMap implements ISerializable, IDisplayable {
     @Override
     public String serialize() {
         JsonObject jsonObject = new JsonObject();
-        JsonArray gridsArray = new JsonArray();
 
         jsonObject.addProperty("start", this.startLocation.serialize());
         jsonObject.addProperty("exit", this.exitLocation.serialize());
+        jsonObject.addProperty("width", width);
+        jsonObject.addProperty("height", height);
+        jsonObject.addProperty("seed", seed);
+        jsonObject.addProperty("generator", generator.getName());
+        jsonObject.addProperty("explored", fieldOfView.serialize());
 
-        for (int x = 0; x < WIDTH; x++) {
-            JsonArray column = new JsonArray();
-            for (int y = 0; y < HEIGHT; y++) {
-                JsonObject gridObject = new JsonObject();
+        if (mapFile != null) {
+            jsonObject.addProperty("file", mapFile);
+            return DataManager.GSON.toJson(jsonObject);
+        }
+        if (isChunked()) {
+            tiles.flush();
+            jsonObject.addProperty("chunks", chunkDirectory);
+            return DataManager.GSON.toJson(jsonObject);
+        }
 
-                // entity and item will not save in the map--data from other source
-                if (grids[x][y] instanceof EntityGrid || grids[x][y] instanceof ItemGrid
-                        || grids[x][y] instanceof ExitGrid) {
-                    gridObject.addProperty("type", EmptyGrid.class.getSimpleName());
-                } else {
-                    gridObject.addProperty("type", grids[x][y].getClass().getSimpleName());
+        // entity and item will not save in the map--data from other source
+        byte[] walls = new byte[(int) (((long) width * height + 7) / 8)];
+        byte[] row = new byte[width];
+        for (int y = 0; y < height; y++) {
+            tiles.getRow(y, row);
+            int i = y * width;
+            for (int x = 0; x < width; x++, i++) {
+                if (row[x] == Tile.WALL) {
+                    walls[i >> 3] |= (byte) (1 << (i & 7));
                 }
-
-                column.add(gridObject);
             }
-            gridsArray.add(column);
         }
+        jsonObject.addProperty("walls", Base64.getEncoder().encodeToString(walls));
 
-        jsonObject.add("grids", gridsArray);
         return DataManager.GSON.toJson(jsonObject);
     }
 
     /**
      * Deserializes the given JSON string into the game grid, populating grids and
      * locations.
+     * Both the packed wall format and the older per-cell "grids" format are
+     * accepted. A map saved with only its size and seed is generated again from
+     * the seed, a chunked world is reopened on its chunk directory and a map
+     * file is mapped again.
      *
      * @param data The JSON string representation of the game grid to be
      *             deserialized.
      * @throws IllegalArgumentException if an unknown grid type is encountered
-     *                                  during deserialization.
+     *                                  during deserialization, or if the exit
+     *                                  can not be reached from the start.
      */
     @Override
     public void deserialize(String data) {
         JsonObject jsonObject = JsonParser.parseString(data).getAsJsonObject();
+        this.seed = jsonObject.has("seed") ? jsonObject.get("seed").getAsLong() : 0;
+        if (jsonObject.has("generator")) {
+            this.generator = MazeGenerator.fromName(jsonObject.get("generator").getAsString());
+        }
+
+        if (jsonObject.has("file")) {
+            loadMapFile(Path.of(jsonObject.get("file").getAsString()));
+            deserializeExplored(jsonObject);
+            return;
+        }
+        this.chunkDirectory = jsonObject.has("chunks") ? jsonObject.get("chunks").getAsString() : null;
+
+        if (!jsonObject.has("walls") && !jsonObject.has("grids") && !isChunked()) {
+            resize(jsonObject.get("width").getAsInt(), jsonObject.get("height").getAsInt());
+            generate(seed);
+            deserializeExplored(jsonObject);
+            return;
+        }
 
-        JsonArray gridsArray = jsonObject.getAsJsonArray("grids");
+        if (isChunked()) {
+            resize(jsonObject.get("width").getAsInt(), jsonObject.get("height").getAsInt());
+        } else if (jsonObject.has("walls")) {
+            resize(jsonObject.get("width").getAsInt(), jsonObject.get("height").getAsInt());
+
+            byte[] walls = Base64.getDecoder().decode(jsonObject.get("walls").getAsString());
+            if (walls.length * 8L < (long) width * height) {
+                throw new IllegalArgumentException("Wall data does not match map size " + width + "x" + height);
+            }
+            byte[] row = new byte[width];
+            for (int y = 0; y < height; y++) {
+                int i = y * width;
+                for (int x = 0; x < width; x++, i++) {
+                    row[x] = (walls[i >> 3] & (1 << (i & 7))) != 0 ? Tile.WALL : Tile.EMPTY;
+                }
+                tiles.setRow(y, row);
+            }
+            // the rows went straight to the tile store, so the derived data
+            // is dropped once for all of them
+            walkability.invalidate();
+            dropDerivedData();
+        } else {
+            deserializeGrids(jsonObject.getAsJsonArray("grids"));
+        }
+
+        // start Location will not show, just put the player on it
+        this.startLocation = new Location();
+        this.startLocation.deserialize(jsonObject.get("start").getAsString());
 
-        for (int x = 0; x < WIDTH; x++) {
+        this.exitLocation = new Location();
+        this.exitLocation.deserialize(jsonObject.get("exit").getAsString());
+        setTile(exitLocation.getLocationX(), exitLocation.getLocationY(), Tile.EXIT);
+        buildDistanceField();
+        deserializeExplored(jsonObject);
+        validateReachability();
+    }
+
+    /**
+     * Restores the explored cells of a save, older saves have none.
+     *
+     * @param jsonObject the saved map
+     */
+    private void deserializeExplored(JsonObject jsonObject) {
+        if (jsonObject.has("explored")) {
+            fieldOfView.deserialize(jsonObject.get("explored").getAsString());
+        }
+    }
+
+    /**
+     * Deserializes the older save format, which stores one JSON object per cell
+     * in columns.
+     *
+     * @param gridsArray the columns of grid objects
+     * @throws IllegalArgumentException if an unknown grid type is encountered
+     */
+    private void deserializeGrids(JsonArray gridsArray) {
+        resize(gridsArray.size(), gridsArray.get(0).getAsJsonArray().size());
+
+        for (int x = 0; x < width; x++) {
             JsonArray column = gridsArray.get(x).getAsJsonArray();
-            for (int y = 0; y < HEIGHT; y++) {
+            for (int y = 0; y < height; y++) {
                 JsonObject gridObject = column.get(y).getAsJsonObject();
                 String gridType = gridObject.get("type").getAsString();
 
                 switch (gridType) {
                     case "EmptyGrid":
-                        grids[x][y] = new EmptyGrid();
+                        setTile(x, y, Tile.EMPTY);
                         break;
                     case "WallGrid":
-                        grids[x][y] = new WallGrid();
+                        setTile(x, y, Tile.WALL);
                         break;
 
                     // first for empty grid
                     case "OutGrid":
                     case "EntityGrid":
                     case "ItemGrid":
-                        grids[x][y] = new EmptyGrid();
+                        setTile(x, y, Tile.EMPTY);
                         continue;
 
                     // other grid will use entity or item to put on the map
@@ -354,56 +1089,107 @@ public class GameMap implements ISerializable, IDisplayable {
                 }
             }
         }
+    }
 
-        // start Location will not show, just put the player on it
-        this.startLocation = new Location();
-        this.startLocation.deserialize(jsonObject.get("start").getAsString());
+    /**
+     * Draws the current state of the grid into a frame.
+     *
+     * @param frame the frame being drawn
+     */
+    @Override
+    public void render(FrameBuffer frame) {
+        renderWindow(frame, 0, 0, width, height);
+    }
 
-        this.exitLocation = new Location();
-        this.exitLocation.deserialize(jsonObject.get("exit").getAsString());
-        grids[exitLocation.getLocationX()][exitLocation.getLocationY()] = new ExitGrid();
+    /**
+     * Draws the part of the grid seen by a camera centered on a cell, moved
+     * inwards where the center is near the edge of the map. Only the cells
+     * in view are read, so a chunked world only loads the chunks on screen.
+     *
+     * @param frame   the frame being drawn
+     * @param centerX The x-coordinate of the cell the camera looks at.
+     * @param centerY The y-coordinate of the cell the camera looks at.
+     * @param columns the number of columns in view
+     * @param rows    the number of rows in view
+     * @throws IllegalArgumentException if the view is not at least one cell
+     */
+    public void render(FrameBuffer frame, int centerX, int centerY, int columns, int rows) {
+        if (columns <= 0 || rows <= 0) {
+            throw new IllegalArgumentException("View must be at least one cell: " + columns + "x" + rows);
+        }
+        columns = Math.min(columns, width);
+        rows = Math.min(rows, height);
+        int left = Math.max(0, Math.min(centerX - columns / 2, width - columns));
+        int top = Math.max(0, Math.min(centerY - rows / 2, height - rows));
+        renderWindow(frame, left, top, columns, rows);
     }
 
     /**
-     * Displays the game instructions and the current state of the grid.
+     * Draws a rectangle of the grid into a frame.
+     *
+     * @param frame   the frame being drawn
+     * @param left    The x-coordinate of the first column.
+     * @param top     The y-coordinate of the first row.
+     * @param columns the number of columns
+     * @param rows    the number of rows
      */
-    @Override
-    public void display() {
+    private void renderWindow(FrameBuffer frame, int left, int top, int columns, int rows) {
 
         // Unicode box drawing characters
-        final String TOP_LEFT = "+";
-        final String TOP_RIGHT = "+";
-        final String BOTTOM_LEFT = "+";
-        final String BOTTOM_RIGHT = "+";
-        final String HORIZONTAL = "-";
-        final String VERTICAL = "|";
+        final char TOP_LEFT = '+';
+        final char TOP_RIGHT = '+';
+        final char BOTTOM_LEFT = '+';
+        final char BOTTOM_RIGHT = '+';
+        final char HORIZONTAL = '-';
+        final char VERTICAL = '|';
 
         // Top border
-        System.out.print(ANSI_YELLOW + TOP_LEFT);
-        for (int x = 0; x < WIDTH; x++) {
-            System.out.print(HORIZONTAL);
-        }
-        System.out.println(TOP_RIGHT + ANSI_RESET);
+        frame.setColor(ANSI_YELLOW);
+        frame.append(TOP_LEFT);
+        frame.repeat(HORIZONTAL, columns);
+        frame.append(TOP_RIGHT);
+        frame.setColor(ANSI_RESET);
+        frame.newLine();
+
+        // with fog of war only what the player sees or remembers is drawn
+        boolean fog = config.isFogOfWar() && fieldOfView.hasOrigin();
+        fieldOfView.refresh();
 
         // Map content with side borders
-        for (int y = 0; y < HEIGHT; y++) {
-            System.out.print(ANSI_YELLOW + VERTICAL + ANSI_RESET);
-            for (int x = 0; x < WIDTH; x++) {
-                if (grids[x][y] != null) {
-                    grids[x][y].display();
+        for (int y = top; y < top + rows; y++) {
+            frame.setColor(ANSI_YELLOW);
+            frame.append(VERTICAL);
+            frame.setColor(ANSI_RESET);
+            for (int x = left; x < left + columns; x++) {
+                Grid grid;
+                if (!fog || fieldOfView.isVisible(x, y)) {
+                    grid = getGrid(x, y);
+                } else if (fieldOfView.isExplored(x, y)) {
+                    // remembered terrain, entities and items out of sight are not shown
+                    byte tile = tiles.get(x, y);
+                    grid = Tile.terrainGrid(Tile.isOccupied(tile) ? Tile.EMPTY : tile);
+                } else {
+                    grid = null;
+                }
+                if (grid != null) {
+                    grid.render(frame);
                 } else {
-                    System.out.print(" "); // Print space for null grids
+                    frame.append(' '); // Print space for missing occupants
                 }
             }
-            System.out.println(ANSI_YELLOW + VERTICAL + ANSI_RESET);
+            frame.setColor(ANSI_YELLOW);
+            frame.append(VERTICAL);
+            frame.setColor(ANSI_RESET);
+            frame.newLine();
         }
 
         // Bottom border
-        System.out.print(ANSI_YELLOW + BOTTOM_LEFT);
-        for (int x = 0; x < WIDTH; x++) {
-            System.out.print(HORIZONTAL);
-        }
-        System.out.println(BOTTOM_RIGHT + ANSI_RESET);
+        frame.setColor(ANSI_YELLOW);
+        frame.append(BOTTOM_LEFT);
+        frame.repeat(HORIZONTAL, columns);
+        frame.append(BOTTOM_RIGHT);
+        frame.setColor(ANSI_RESET);
+        frame.newLine();
     }
 
     /**
@@ -417,10 +1203,11 @@ public class GameMap implements ISerializable, IDisplayable {
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("start:").append(startLocation).append("\n");
         stringBuilder.append("exit:").append(exitLocation).append("\n");
-        for (int y = 0; y < HEIGHT; y++) {
-            for (int x = 0; x < WIDTH; x++) {
-                if (grids[x][y] != null) {
-                    stringBuilder.append(grids[x][y]);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Grid grid = getGrid(x, y);
+                if (grid != null) {
+                    stringBuilder.append(grid);
                 } else {
                     stringBuilder.append(" ");
                 }
@@ -0,0 +1,610 @@
+package engine.level;
+
+import utils.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Finds paths on huge maps with hierarchical path-finding (HPA*).
+ * The map is split into square clusters. Where open cells meet across the
+ * border of two clusters there are entrances, and the steps between the
+ * entrances of a cluster are found once with a search inside the cluster.
+ * A query first searches the small graph of entrances and then fills in the
+ * steps inside every cluster the route passes, so it never looks at the
+ * cells of clusters off the route.
+ * <p>
+ * Clusters are built when a search first reaches them, which keeps the finder
+ * cheap for chunked worlds, and the map drops the clusters around a cell
+ * whenever the cell turns into a wall or opens up. Paths go around walls but
+ * not around entities, and they are close to but not always the shortest.
+ */
+public class HierarchicalPathFinder {
+
+    // Side of a cluster in cells, the same as a walkability block and a chunk
+    public static final int CLUSTER_SHIFT = 6;
+    public static final int CLUSTER_SIZE = 1 << CLUSTER_SHIFT;
+    // Maps with at least this many cells are worth searching hierarchically
+    public static final int MIN_CELLS = 1 << 22;
+    // Largest number of clusters kept, the least recently used are dropped
+    public static final int MAX_CLUSTERS = 1 << 16;
+    // Open border segments at least this long get an entrance at both ends
+    private static final int LONG_ENTRANCE = 6;
+
+    // Abstract nodes of the start and goal cells of a query
+    private static final long START = -1L;
+    private static final long GOAL = -2L;
+
+    // Possible directions to move (up, right, down, left)
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1 };
+    private static final int[] DIRECTION_Y = { -1, 0, 1, 0 };
+
+    private final GameMap map;
+    // clusters by packed cluster coordinates, in access order
+    private final Map<Long, Cluster> clusters = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cluster> eldest) {
+            return !searching && size() > MAX_CLUSTERS;
+        }
+    };
+
+    // scratch space of the searches inside a cluster
+    private final int[] distances = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+    private final int[] queue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+    private final long[] rows = new long[CLUSTER_SIZE];
+    // number of the running search, and whether one is running
+    private int search;
+    private boolean searching;
+
+    /**
+     * Constructs a path finder for a map.
+     *
+     * @param map the map to search on
+     */
+    public HierarchicalPathFinder(GameMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Drops every cluster, they are built again when a search reaches them.
+     */
+    public void clear() {
+        clusters.clear();
+    }
+
+    /**
+     * Drops the clusters whose entrances or steps may change with a cell.
+     *
+     * @param x The x-coordinate of the changed cell.
+     * @param y The y-coordinate of the changed cell.
+     */
+    public void invalidate(int x, int y) {
+        clusters.remove(key(x >> CLUSTER_SHIFT, y >> CLUSTER_SHIFT));
+        for (int d = 0; d < DIRECTION_X.length; d++) {
+            int nextX = x + DIRECTION_X[d];
+            int nextY = y + DIRECTION_Y[d];
+            if (nextX >= 0 && nextY >= 0) {
+                clusters.remove(key(nextX >> CLUSTER_SHIFT, nextY >> CLUSTER_SHIFT));
+            }
+        }
+    }
+
+    /**
+     * Gets the number of clusters built and kept.
+     *
+     * @return the number of clusters
+     */
+    public int getClusterCount() {
+        return clusters.size();
+    }
+
+    /**
+     * Finds a path between two cells.
+     *
+     * @param start the cell to start from
+     * @param goal  the cell to reach
+     * @return the cells after the start up to and including the goal, empty if
+     *         the start is the goal, or null if the goal can not be reached
+     */
+    public List<Location> findPath(Location start, Location goal) {
+        WalkabilityLayer walkability = map.getWalkability();
+        int startX = start.getLocationX();
+        int startY = start.getLocationY();
+        int goalX = goal.getLocationX();
+        int goalY = goal.getLocationY();
+        if (!walkability.isWalkable(startX, startY) || !walkability.isWalkable(goalX, goalY)) {
+            return null;
+        }
+        if (startX == goalX && startY == goalY) {
+            return new ArrayList<>();
+        }
+
+        List<Long> route = searchAbstract(startX, startY, goalX, goalY);
+        if (route == null) {
+            return null;
+        }
+        return refine(route, cell(startX, startY), cell(goalX, goalY));
+    }
+
+    /**
+     * Searches the graph of entrances with A*, the start and goal linked to
+     * the entrances of their clusters.
+     *
+     * @param startX The x-coordinate of the start.
+     * @param startY The y-coordinate of the start.
+     * @param goalX  The x-coordinate of the goal.
+     * @param goalY  The y-coordinate of the goal.
+     * @return the abstract nodes from START to GOAL, or null if there is no
+     *         route
+     */
+    private List<Long> searchAbstract(int startX, int startY, int goalX, int goalY) {
+        search++;
+        searching = true;
+        try {
+            Cluster startCluster = cluster(startX >> CLUSTER_SHIFT, startY >> CLUSTER_SHIFT);
+            Cluster goalCluster = cluster(goalX >> CLUSTER_SHIFT, goalY >> CLUSTER_SHIFT);
+            // steps from the goal to the entrances of its cluster
+            searchCluster(goalCluster, goalX, goalY, -1);
+            int[] goalLinks = new int[goalCluster.count];
+            for (int i = 0; i < goalCluster.count; i++) {
+                goalLinks[i] = distances[goalCluster.local(goalCluster.nodes[i])];
+            }
+            int direct = startCluster == goalCluster ? distances[goalCluster.local(cell(startX, startY))] : -1;
+
+            // entries are estimate, cost and node
+            PriorityQueue<long[]> open = new PriorityQueue<>((first, second) -> Long.compare(first[0], second[0]));
+            int goalCost = Integer.MAX_VALUE;
+            long goalParent = START;
+            if (direct >= 0) {
+                goalCost = direct;
+                open.add(new long[] { direct, direct, GOAL });
+            }
+            searchCluster(startCluster, startX, startY, -1);
+            for (int i = 0; i < startCluster.count; i++) {
+                int steps = distances[startCluster.local(startCluster.nodes[i])];
+                if (steps >= 0) {
+                    relax(open, startCluster, i, START, steps, goalX, goalY);
+                }
+            }
+
+            while (!open.isEmpty()) {
+                long[] entry = open.poll();
+                long node = entry[2];
+                int cost = (int) entry[1];
+                if (node == GOAL) {
+                    if (cost > goalCost) {
+                        continue;
+                    }
+                    List<Long> route = new ArrayList<>();
+                    route.add(GOAL);
+                    for (long step = goalParent; step != START; step = parentOf(step)) {
+                        route.add(step);
+                    }
+                    route.add(START);
+                    Collections.reverse(route);
+                    return route;
+                }
+
+                Cluster cluster = clusterOf(node);
+                int index = cluster.indices.get(node);
+                if (cost > cluster.searchCosts[index]) {
+                    continue;
+                }
+                for (int j = 0; j < cluster.count; j++) {
+                    if (j != index && cluster.costs[index][j] >= 0) {
+                        relax(open, cluster, j, node, cost + cluster.costs[index][j], goalX, goalY);
+                    }
+                }
+                for (int l = 0; l < cluster.linkCount; l++) {
+                    if (cluster.linkFrom[l] == index) {
+                        Cluster next = clusterOf(cluster.links[l]);
+                        relax(open, next, next.indices.get(cluster.links[l]), node, cost + 1, goalX, goalY);
+                    }
+                }
+                if (cluster == goalCluster && goalLinks[index] >= 0 && cost + goalLinks[index] < goalCost) {
+                    goalCost = cost + goalLinks[index];
+                    goalParent = node;
+                    open.add(new long[] { goalCost, goalCost, GOAL });
+                }
+            }
+            return null;
+        } finally {
+            searching = false;
+            trim();
+        }
+    }
+
+    /**
+     * Queues an entrance if the new way to it is cheaper than the known one.
+     *
+     * @param open    the queue of the search
+     * @param cluster the cluster of the entrance
+     * @param index   the index of the entrance in its cluster
+     * @param from    the node the way comes from
+     * @param cost    the cost of the way from the start
+     * @param goalX   The x-coordinate of the goal.
+     * @param goalY   The y-coordinate of the goal.
+     */
+    private void relax(PriorityQueue<long[]> open, Cluster cluster, int index, long from, int cost, int goalX,
+            int goalY) {
+        if (cluster.search != search) {
+            // the costs are left over from an earlier search
+            cluster.search = search;
+            Arrays.fill(cluster.searchCosts, Integer.MAX_VALUE);
+        }
+        if (cost >= cluster.searchCosts[index]) {
+            return;
+        }
+        long node = cluster.nodes[index];
+        cluster.searchCosts[index] = cost;
+        cluster.searchParents[index] = from;
+        long estimate = Math.abs(x(node) - goalX) + Math.abs(y(node) - goalY);
+        open.add(new long[] { cost + estimate, cost, node });
+    }
+
+    /**
+     * Gets the node the current search reached an entrance from.
+     *
+     * @param node the entrance
+     * @return the node before it
+     */
+    private long parentOf(long node) {
+        Cluster cluster = clusterOf(node);
+        return cluster.searchParents[cluster.indices.get(node)];
+    }
+
+    /**
+     * Drops the least recently used clusters above MAX_CLUSTERS. Clusters are
+     * kept while a search runs, which stores its costs in them.
+     */
+    private void trim() {
+        Iterator<Long> keys = clusters.keySet().iterator();
+        while (clusters.size() > MAX_CLUSTERS && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    /**
+     * Turns a route of abstract nodes into cells, searching inside the
+     * clusters between entrances.
+     *
+     * @param route the abstract nodes from START to GOAL
+     * @param start the packed start cell
+     * @param goal  the packed goal cell
+     * @return the cells after the start up to and including the goal
+     */
+    private List<Location> refine(List<Long> route, long start, long goal) {
+        List<Location> path = new ArrayList<>();
+        long previous = start;
+        for (int i = 1; i < route.size(); i++) {
+            long next = route.get(i) == GOAL ? goal : route.get(i);
+            Cluster cluster = clusterOf(previous);
+            if (cluster.contains(next)) {
+                appendLocalPath(path, cluster, previous, next);
+            } else {
+                // a step across the border into the next cluster
+                path.add(new Location(x(next), y(next)));
+            }
+            previous = next;
+        }
+        return path;
+    }
+
+    /**
+     * Appends the steps between two cells of a cluster, searching from the
+     * target and walking back down the distances.
+     *
+     * @param path    receives the cells after from up to and including to
+     * @param cluster the cluster holding both cells
+     * @param from    the packed cell to start from
+     * @param to      the packed cell to reach
+     */
+    private void appendLocalPath(List<Location> path, Cluster cluster, long from, long to) {
+        searchCluster(cluster, x(to), y(to), cluster.local(from));
+        int x = x(from);
+        int y = y(from);
+        int steps = distances[cluster.local(from)];
+        while (steps > 0) {
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextX = x + DIRECTION_X[d];
+                int nextY = y + DIRECTION_Y[d];
+                if (cluster.contains(nextX, nextY) && distances[cluster.local(nextX, nextY)] == steps - 1) {
+                    x = nextX;
+                    y = nextY;
+                    break;
+                }
+            }
+            path.add(new Location(x, y));
+            steps--;
+        }
+    }
+
+    /**
+     * Runs a breadth-first search from a cell, staying inside its cluster.
+     * The steps to every cell of the cluster are left in distances, -1 for
+     * cells which can not be reached. A search with a stop cell ends as soon
+     * as it reaches the cell, the cells closer than it are complete.
+     *
+     * @param cluster the cluster to search
+     * @param x       The x-coordinate of the cell to search from.
+     * @param y       The y-coordinate of the cell to search from.
+     * @param stop    the local index of the cell to stop at, or -1
+     */
+    private void searchCluster(Cluster cluster, int x, int y, int stop) {
+        // the clusters line up with the words of the walkability layer
+        WalkabilityLayer walkability = map.getWalkability();
+        for (int row = 0; row < CLUSTER_SIZE; row++) {
+            rows[row] = walkability.rowWord(cluster.fromX >> CLUSTER_SHIFT, cluster.fromY + row);
+        }
+        Arrays.fill(distances, -1);
+        int head = 0;
+        int tail = 0;
+        distances[cluster.local(x, y)] = 0;
+        queue[tail++] = cluster.local(x, y);
+        while (head < tail) {
+            int local = queue[head++];
+            int localX = local & (CLUSTER_SIZE - 1);
+            int localY = local >> CLUSTER_SHIFT;
+            for (int d = 0; d < DIRECTION_X.length; d++) {
+                int nextX = localX + DIRECTION_X[d];
+                int nextY = localY + DIRECTION_Y[d];
+                if (nextX < 0 || nextX >= CLUSTER_SIZE || nextY < 0 || nextY >= CLUSTER_SIZE
+                        || (rows[nextY] & (1L << nextX)) == 0) {
+                    continue;
+                }
+                int next = (nextY << CLUSTER_SHIFT) + nextX;
+                if (distances[next] == -1) {
+                    distances[next] = distances[local] + 1;
+                    if (next == stop) {
+                        return;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cluster holding a packed cell.
+     *
+     * @param cell the packed cell
+     * @return the cluster, built if needed
+     */
+    private Cluster clusterOf(long cell) {
+        return cluster(x(cell) >> CLUSTER_SHIFT, y(cell) >> CLUSTER_SHIFT);
+    }
+
+    /**
+     * Gets a cluster, building its entrances and the steps between them the
+     * first time it is used.
+     *
+     * @param clusterX the column of the cluster
+     * @param clusterY the row of the cluster
+     * @return the cluster
+     */
+    private Cluster cluster(int clusterX, int clusterY) {
+        Cluster cluster = clusters.get(key(clusterX, clusterY));
+        if (cluster != null) {
+            return cluster;
+        }
+        cluster = new Cluster(clusterX, clusterY);
+        int length = cluster.toX - cluster.fromX;
+        int height = cluster.toY - cluster.fromY;
+        // entrances on the top, right, bottom and left border
+        addEntrances(cluster, cluster.fromX, cluster.fromY, 1, 0, 0, -1, length);
+        addEntrances(cluster, cluster.toX - 1, cluster.fromY, 0, 1, 1, 0, height);
+        addEntrances(cluster, cluster.fromX, cluster.toY - 1, 1, 0, 0, 1, length);
+        addEntrances(cluster, cluster.fromX, cluster.fromY, 0, 1, -1, 0, height);
+
+        cluster.costs = new int[cluster.count][cluster.count];
+        cluster.searchCosts = new int[cluster.count];
+        cluster.searchParents = new long[cluster.count];
+        cluster.search = search - 1;
+        for (int i = 0; i < cluster.count; i++) {
+            searchCluster(cluster, x(cluster.nodes[i]), y(cluster.nodes[i]), -1);
+            for (int j = 0; j < cluster.count; j++) {
+                cluster.costs[i][j] = distances[cluster.local(cluster.nodes[j])];
+            }
+        }
+        clusters.put(key(clusterX, clusterY), cluster);
+        return cluster;
+    }
+
+    /**
+     * Adds the entrances along one border of a cluster. Every segment of open
+     * cells facing open cells of the neighbour cluster gets an entrance in its
+     * middle, long segments one at each end. The neighbour finds the same
+     * segments from its side, so the entrances pair up.
+     *
+     * @param cluster the cluster
+     * @param x       The x-coordinate of the first border cell.
+     * @param y       The y-coordinate of the first border cell.
+     * @param stepX   the step along the border in x
+     * @param stepY   the step along the border in y
+     * @param outX    the offset to the neighbour cluster in x
+     * @param outY    the offset to the neighbour cluster in y
+     * @param length  the number of border cells
+     */
+    private void addEntrances(Cluster cluster, int x, int y, int stepX, int stepY, int outX, int outY,
+            int length) {
+        WalkabilityLayer walkability = map.getWalkability();
+        int segmentStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int cellX = x + i * stepX;
+            int cellY = y + i * stepY;
+            boolean open = i < length && walkability.isWalkable(cellX, cellY)
+                    && walkability.isWalkable(cellX + outX, cellY + outY);
+            if (open && segmentStart < 0) {
+                segmentStart = i;
+            } else if (!open && segmentStart >= 0) {
+                int end = i - 1;
+                if (end - segmentStart + 1 >= LONG_ENTRANCE) {
+                    addLink(cluster, x + segmentStart * stepX, y + segmentStart * stepY, outX, outY);
+                    addLink(cluster, x + end * stepX, y + end * stepY, outX, outY);
+                } else {
+                    int middle = (segmentStart + end) / 2;
+                    addLink(cluster, x + middle * stepX, y + middle * stepY, outX, outY);
+                }
+                segmentStart = -1;
+            }
+        }
+    }
+
+    /**
+     * Adds an entrance cell and its step into the neighbour cluster.
+     *
+     * @param cluster the cluster
+     * @param x       The x-coordinate of the entrance.
+     * @param y       The y-coordinate of the entrance.
+     * @param outX    the offset to the neighbour cluster in x
+     * @param outY    the offset to the neighbour cluster in y
+     */
+    private void addLink(Cluster cluster, int x, int y, int outX, int outY) {
+        long node = cell(x, y);
+        Integer index = cluster.indices.get(node);
+        if (index == null) {
+            index = cluster.count;
+            if (cluster.count == cluster.nodes.length) {
+                cluster.nodes = Arrays.copyOf(cluster.nodes, cluster.count * 2);
+            }
+            cluster.nodes[cluster.count++] = node;
+            cluster.indices.put(node, index);
+        }
+        if (cluster.linkCount == cluster.links.length) {
+            cluster.links = Arrays.copyOf(cluster.links, cluster.linkCount * 2);
+            cluster.linkFrom = Arrays.copyOf(cluster.linkFrom, cluster.linkCount * 2);
+        }
+        cluster.links[cluster.linkCount] = cell(x + outX, y + outY);
+        cluster.linkFrom[cluster.linkCount++] = index;
+    }
+
+    /**
+     * Packs a cell into a single key.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the packed cell
+     */
+    private long cell(int x, int y) {
+        return (long) y * map.getWidth() + x;
+    }
+
+    /**
+     * Gets the x-coordinate of a packed cell.
+     *
+     * @param cell the packed cell
+     * @return the x-coordinate
+     */
+    private int x(long cell) {
+        return (int) (cell % map.getWidth());
+    }
+
+    /**
+     * Gets the y-coordinate of a packed cell.
+     *
+     * @param cell the packed cell
+     * @return the y-coordinate
+     */
+    private int y(long cell) {
+        return (int) (cell / map.getWidth());
+    }
+
+    /**
+     * Packs cluster coordinates into a single key.
+     *
+     * @param clusterX the cluster column
+     * @param clusterY the cluster row
+     * @return the packed key
+     */
+    private static long key(int clusterX, int clusterY) {
+        return ((long) clusterX << 32) | (clusterY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The entrances of one cluster and the steps between them.
+     */
+    private final class Cluster {
+        // cells of the cluster, the end coordinates excluded
+        final int fromX;
+        final int fromY;
+        final int toX;
+        final int toY;
+        // entrance cells and their index
+        long[] nodes = new long[8];
+        int count;
+        final Map<Long, Integer> indices = new HashMap<>();
+        // steps into neighbour clusters, the cell reached and the entrance left
+        long[] links = new long[8];
+        int[] linkFrom = new int[8];
+        int linkCount;
+        // steps between every two entrances, -1 if not connected inside
+        int[][] costs;
+        // cost and parent of every entrance in the search numbered search
+        int search;
+        int[] searchCosts;
+        long[] searchParents;
+
+        /**
+         * Constructs an empty cluster.
+         *
+         * @param clusterX the column of the cluster
+         * @param clusterY the row of the cluster
+         */
+        Cluster(int clusterX, int clusterY) {
+            this.fromX = clusterX << CLUSTER_SHIFT;
+            this.fromY = clusterY << CLUSTER_SHIFT;
+            this.toX = Math.min(fromX + CLUSTER_SIZE, map.getWidth());
+            this.toY = Math.min(fromY + CLUSTER_SIZE, map.getHeight());
+        }
+
+        /**
+         * Checks if a cell is inside the cluster.
+         *
+         * @param x The x-coordinate of the cell.
+         * @param y The y-coordinate of the cell.
+         * @return true if the cell is inside; false otherwise
+         */
+        boolean contains(int x, int y) {
+            return x >= fromX && x < toX && y >= fromY && y < toY;
+        }
+
+        /**
+         * Checks if a packed cell is inside the cluster.
+         *
+         * @param cell the packed cell
+         * @return true if the cell is inside; false otherwise
+         */
+        boolean contains(long cell) {
+            return contains(x(cell), y(cell));
+        }
+
+        /**
+         * Gets the index of a cell in the scratch arrays.
+         *
+         * @param x The x-coordinate of the cell.
+         * @param y The y-coordinate of the cell.
+         * @return the local index
+         */
+        int local(int x, int y) {
+            return ((y - fromY) << CLUSTER_SHIFT) + x - fromX;
+        }
+
+        /**
+         * Gets the index of a packed cell in the scratch arrays.
+         *
+         * @param cell the packed cell
+         * @return the local index
+         */
+        int local(long cell) {
+            return local(x(cell), y(cell));
+        }
+    }
+}
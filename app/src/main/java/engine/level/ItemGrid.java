@@ -1,6 +1,7 @@
 package engine.level;
 
 import data.DataManager;
+import engine.FrameBuffer;
 import engine.item.Item;
 
 import java.util.HashMap;
@@ -70,11 +71,15 @@ public class ItemGrid implements Grid {
     }
 
     /**
-     * Displays the item grid on the console using a green color.
+     * Draws the item grid into a frame using a green color.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
-        System.out.print(ANSI_GREEN + "?" + ANSI_RESET);
+    public void render(FrameBuffer frame) {
+        frame.setColor(ANSI_GREEN);
+        frame.append('?');
+        frame.setColor(ANSI_RESET);
     }
 
     /**
@@ -0,0 +1,267 @@
+package engine.level;
+
+import utils.Location;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * The binary map file format.
+ * A fixed header holds the size, start, exit and seed of the map and is
+ * followed by the tile code of every cell, one byte per cell row by row, so the
+ * tiles can be mapped into memory as they are and opening a map takes the same
+ * time whatever its size.
+ * <p>
+ * Header, big-endian: magic "FGMP", version, width, height, start x, start y,
+ * exit x, exit y as ints, then the seed as a long. Entities and items are not
+ * part of the map and their cells are written empty.
+ */
+public class MapFile {
+
+    // "FGMP", marks a map file
+    public static final int MAGIC = 0x46474D50;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 8 * Integer.BYTES + Long.BYTES;
+
+    private final int width;
+    private final int height;
+    private final Location startLocation;
+    private final Location exitLocation;
+    private final long seed;
+    private final MappedTileStore tiles;
+
+    /**
+     * Constructs an opened map file.
+     *
+     * @param width         the width of the map
+     * @param height        the height of the map
+     * @param startLocation the start location of the map
+     * @param exitLocation  the exit location of the map
+     * @param seed          the seed the map was generated from
+     * @param tiles         the mapped tiles
+     */
+    private MapFile(int width, int height, Location startLocation, Location exitLocation, long seed,
+            MappedTileStore tiles) {
+        this.width = width;
+        this.height = height;
+        this.startLocation = startLocation;
+        this.exitLocation = exitLocation;
+        this.seed = seed;
+        this.tiles = tiles;
+    }
+
+    /**
+     * Opens a map file, reading its header and mapping its tiles.
+     *
+     * @param file the map file
+     * @return the opened map file
+     * @throws IllegalArgumentException if the file is not a valid map file
+     * @throws UncheckedIOException     if the file can not be read
+     */
+    public static MapFile open(Path file) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening map file " + file, e);
+        }
+        if (header.hasRemaining()) {
+            throw new IllegalArgumentException("Not a map file: " + file);
+        }
+        header.flip();
+
+        if (header.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a map file: " + file);
+        }
+        int version = header.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported map file version " + version + ": " + file);
+        }
+        int width = header.getInt();
+        int height = header.getInt();
+        if (width <= 0 || height <= 0 || fileSize - HEADER_SIZE < (long) width * height) {
+            throw new IllegalArgumentException("Map file does not match map size " + width + "x" + height);
+        }
+        Location startLocation = readLocation(header, width, height);
+        Location exitLocation = readLocation(header, width, height);
+        long seed = header.getLong();
+
+        return new MapFile(width, height, startLocation, exitLocation, seed,
+                new MappedTileStore(file, HEADER_SIZE, width, height));
+    }
+
+    /**
+     * Reads a location from the header and checks that it is on the map.
+     *
+     * @param header the header, at the location
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @return the location
+     * @throws IllegalArgumentException if the location is off the map
+     */
+    private static Location readLocation(ByteBuffer header, int width, int height) {
+        int x = header.getInt();
+        int y = header.getInt();
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IllegalArgumentException("Map file location (" + x + ", " + y + ") is off the "
+                    + width + "x" + height + " map");
+        }
+        return new Location(x, y);
+    }
+
+    /**
+     * Writes a map to a map file, replacing the file if it exists.
+     *
+     * @param file the map file
+     * @param map  the map to write
+     * @throws UncheckedIOException if the file can not be written
+     */
+    public static void write(Path file, GameMap map) {
+        int width = map.getWidth();
+        int height = map.getHeight();
+        TileStore tiles = map.getTileStore();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        header.putInt(map.getStartLocation().getLocationX()).putInt(map.getStartLocation().getLocationY());
+        header.putInt(map.getExitLocation().getLocationX()).putInt(map.getExitLocation().getLocationY());
+        header.putLong(map.getSeed());
+        header.flip();
+
+        byte[] row = new byte[width];
+        ByteBuffer rowBuffer = ByteBuffer.wrap(row);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (int y = 0; y < height; y++) {
+                tiles.getRow(y, row);
+                for (int x = 0; x < width; x++) {
+                    if (Tile.isOccupied(row[x])) {
+                        row[x] = Tile.EMPTY;
+                    }
+                }
+                rowBuffer.clear();
+                writeFully(channel, rowBuffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing map file " + file, e);
+        }
+    }
+
+    /**
+     * Generates a maze with {@link EllerMazeGenerator} straight into a map
+     * file, replacing the file if it exists.
+     * The rows are written as they are streamed, so the map is never held in
+     * memory and may be larger than the heap or than {@link GameMap#MAX_CELLS}.
+     * The same seed and size give the maze {@link GameMap#generate(long)}
+     * carves with that generator.
+     *
+     * @param file   the map file
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @param seed   the seed of the maze
+     * @throws IllegalArgumentException if the size is not positive
+     * @throws UncheckedIOException     if the file can not be written
+     */
+    public static void generate(Path file, int width, int height, long seed) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Invalid map size: " + width + "x" + height);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        header.putInt(0).putInt(0);
+        header.putInt(EllerMazeGenerator.exitX(width)).putInt(EllerMazeGenerator.exitY(height));
+        header.putLong(seed);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            new EllerMazeGenerator().stream(width, height, new SplittableRandom(seed), (y, row) -> {
+                try {
+                    writeFully(channel, ByteBuffer.wrap(row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error writing map file " + file, e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing map file " + file, e);
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer to a channel.
+     *
+     * @param channel the channel to write to
+     * @param buffer  the bytes to write
+     * @throws IOException if the channel fails
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Gets the width of the map.
+     *
+     * @return the width of the map
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the map.
+     *
+     * @return the height of the map
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the start location of the map.
+     *
+     * @return the start location
+     */
+    public Location getStartLocation() {
+        return startLocation;
+    }
+
+    /**
+     * Gets the exit location of the map.
+     *
+     * @return the exit location
+     */
+    public Location getExitLocation() {
+        return exitLocation;
+    }
+
+    /**
+     * Gets the seed the map was generated from.
+     *
+     * @return the seed of the map
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the tiles mapped from the file.
+     *
+     * @return the mapped tiles
+     */
+    public MappedTileStore getTiles() {
+        return tiles;
+    }
+}
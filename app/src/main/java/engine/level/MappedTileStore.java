@@ -0,0 +1,152 @@
+package engine.level;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the tile codes of a map straight from a file mapped into memory, one
+ * byte per cell row by row.
+ * Nothing is read when the store is opened, the operating system pages the
+ * tiles in as they are used. The file is opened and mapped read-only, so a
+ * read-only map file can be played. A row changed while playing is copied to
+ * the heap first, so changes stay in memory and never touch the file.
+ * <p>
+ * A single mapping is limited to 2 GB, larger maps are mapped in segments.
+ */
+public class MappedTileStore implements TileStore {
+
+    // Size of a mapped segment, a power of two so indices split with shifts
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+    private final int width;
+    private final int height;
+    private final MappedByteBuffer[] segments;
+    // rows changed while playing, by their y-coordinate
+    private final Map<Integer, byte[]> changedRows = new HashMap<>();
+
+    /**
+     * Maps the tiles of a map file.
+     *
+     * @param file   the map file
+     * @param offset the position of the first tile in the file
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @throws UncheckedIOException if the file can not be mapped
+     */
+    public MappedTileStore(Path file, long offset, int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        long size = (long) width * height;
+        this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >> SEGMENT_SHIFT)];
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int s = 0; s < segments.length; s++) {
+                long position = (long) s << SEGMENT_SHIFT;
+                long length = Math.min(1L << SEGMENT_SHIFT, size - position);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, offset + position, length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping map file " + file, e);
+        }
+    }
+
+    /**
+     * Gets the width of the stored area.
+     *
+     * @return the width in cells
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the stored area.
+     *
+     * @return the height in cells
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the tile code of a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the tile code
+     */
+    @Override
+    public byte get(int x, int y) {
+        if (!changedRows.isEmpty()) {
+            byte[] changed = changedRows.get(y);
+            if (changed != null) {
+                return changed[x];
+            }
+        }
+        long index = (long) y * width + x;
+        return segments[(int) (index >> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    /**
+     * Sets the tile code of a cell, in memory only.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param tile the new tile code
+     */
+    @Override
+    public void set(int x, int y, byte tile) {
+        byte[] changed = changedRows.get(y);
+        if (changed == null) {
+            changed = new byte[width];
+            getRow(y, changed);
+            changedRows.put(y, changed);
+        }
+        changed[x] = tile;
+    }
+
+    /**
+     * Copies a full row of tile codes out of the store, in one bulk copy
+     * unless the row crosses a segment.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row receives the tile codes of the row
+     */
+    @Override
+    public void getRow(int y, byte[] row) {
+        byte[] changed = changedRows.get(y);
+        if (changed != null) {
+            System.arraycopy(changed, 0, row, 0, width);
+            return;
+        }
+        long index = (long) y * width;
+        int position = (int) (index & SEGMENT_MASK);
+        if (position + (long) width <= 1L << SEGMENT_SHIFT) {
+            segments[(int) (index >> SEGMENT_SHIFT)].get(position, row, 0, width);
+        } else {
+            TileStore.super.getRow(y, row);
+        }
+    }
+
+    /**
+     * Copies a full row of tile codes into the store, in memory only.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row the tile codes of the row, one per column
+     */
+    @Override
+    public void setRow(int y, byte[] row) {
+        changedRows.put(y, Arrays.copyOf(row, width));
+    }
+}
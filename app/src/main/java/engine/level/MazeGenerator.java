@@ -0,0 +1,46 @@
+package engine.level;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A strategy carving a maze on a {@link GameMap}.
+ * Strategies are chosen by name, see {@link #fromName(String)}, and draw all
+ * their randomness from the given generator so a seed always gives the same
+ * maze.
+ */
+public interface MazeGenerator {
+
+    /**
+     * Gets the name the strategy is chosen by.
+     *
+     * @return the lowercase name of the strategy
+     */
+    String getName();
+
+    /**
+     * Carves a maze over the whole map and sets its start and exit locations.
+     *
+     * @param map    the map to carve
+     * @param random the source of randomness
+     */
+    void generate(GameMap map, RandomGenerator random);
+
+    /**
+     * Gets the strategy with the given name.
+     *
+     * @param name the name of the strategy (case-insensitive)
+     * @return a new instance of the strategy
+     * @throws IllegalArgumentException if no strategy has that name
+     */
+    static MazeGenerator fromName(String name) {
+        switch (name.toLowerCase()) {
+            case DepthFirstMazeGenerator.NAME -> {
+                return new DepthFirstMazeGenerator();
+            }
+            case EllerMazeGenerator.NAME -> {
+                return new EllerMazeGenerator();
+            }
+            default -> throw new IllegalArgumentException("Unknown maze generator: " + name);
+        }
+    }
+}
@@ -0,0 +1,547 @@
+package engine.level;
+
+import engine.entity.Entity;
+import utils.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds shortest walkable paths on a {@link GameMap} with jump point search,
+ * an A* search which only stops at cells where a path may turn.
+ * Steps are up, down, left and right with the same cost. A horizontal jump
+ * runs until a cell beside the row opens up behind a wall; a vertical jump
+ * stops where it could branch off sideways. The cells in between are never
+ * put on the open list, so corridors and the rows of open rooms cost one node
+ * each.
+ * <p>
+ * Horizontal jumps read the {@link WalkabilityLayer} a word at a time and
+ * skip 64 cells per step. Walls always block; the exit can be walked through;
+ * cells holding an entity can be treated as blocked, except the goal. The
+ * entities of a word are looked up in the map's entity index the first time
+ * the search reads the word, so a search costs in the area it covers and not
+ * in the number of entities on the map.
+ */
+public class PathFinder {
+
+    // Bits of a row word
+    private static final int WORD_SHIFT = 6;
+    private static final int WORD_MASK = (1 << WORD_SHIFT) - 1;
+    // Result of a jump which hit a wall or the border
+    private static final int NONE = Integer.MIN_VALUE;
+    // Parent of the start, the key of a cell outside every map
+    private static final long NO_PARENT = -1L;
+
+    private final GameMap map;
+    // adds the entity cells of a row word to blockedBits, made once
+    private final SpatialIndex.Visitor<Entity> blockCollector = this::collectBlocked;
+
+    // state of the running search
+    private WalkabilityLayer walkability;
+    // the entities blocking the way, or null if none do
+    private SpatialIndex<Entity> entities;
+    // blocked bits of the row words read so far
+    private Map<Long, Long> blockedWords;
+    private long blockedBits;
+    private int goalX;
+    private int goalY;
+    // jump points closed by the last search
+    private int closedCount;
+
+    /**
+     * Constructs a path finder for a map.
+     *
+     * @param map the map to search
+     */
+    public PathFinder(GameMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Gets the number of jump points the last search closed, the work it did.
+     *
+     * @return the number of closed jump points, 0 if the last search did not
+     *         run
+     */
+    public int getClosedCount() {
+        return closedCount;
+    }
+
+    /**
+     * Finds a shortest path between two cells, walking around entities.
+     *
+     * @param start the cell to start from
+     * @param goal  the cell to reach
+     * @return the cells of the path after the start up to the goal, or null if
+     *         the goal can not be reached
+     */
+    public List<Location> findPath(Location start, Location goal) {
+        return findPath(start, goal, true);
+    }
+
+    /**
+     * Finds a shortest path between two cells.
+     *
+     * @param start         the cell to start from
+     * @param goal          the cell to reach
+     * @param avoidEntities whether cells holding an entity are blocked
+     * @return the cells of the path after the start up to the goal, empty if
+     *         the start is the goal, or null if the goal can not be reached
+     */
+    public List<Location> findPath(Location start, Location goal, boolean avoidEntities) {
+        int startX = start.getLocationX();
+        int startY = start.getLocationY();
+        walkability = map.getWalkability();
+        goalX = goal.getLocationX();
+        goalY = goal.getLocationY();
+        entities = avoidEntities && map.getEntityIndex().size() > 0 ? map.getEntityIndex() : null;
+        blockedWords = new HashMap<>();
+        closedCount = 0;
+        try {
+            if (!isOpen(goalX, goalY) || !walkability.isWalkable(startX, startY)) {
+                return null;
+            }
+            if (startX == goalX && startY == goalY) {
+                return new ArrayList<>();
+            }
+            Nodes nodes = search(startX, startY);
+            return nodes == null ? null : unfold(nodes, key(goalX, goalY));
+        } finally {
+            walkability = null;
+            entities = null;
+            blockedWords = null;
+        }
+    }
+
+    /**
+     * Runs A* over the jump points from the start to the goal.
+     *
+     * @param startX The x-coordinate of the start.
+     * @param startY The y-coordinate of the start.
+     * @return the reached jump points if the goal was reached, or null if not
+     */
+    private Nodes search(int startX, int startY) {
+        Nodes nodes = new Nodes();
+        long goal = key(goalX, goalY);
+        int start = nodes.insert(key(startX, startY));
+        nodes.costs[start] = 0;
+        nodes.parents[start] = NO_PARENT;
+        nodes.push(key(startX, startY), distance(startX, startY, goalX, goalY), 0);
+
+        while (nodes.heapSize > 0) {
+            long key = nodes.pop();
+            int slot = nodes.find(key);
+            if (nodes.closed[slot]) {
+                continue;
+            }
+            nodes.closed[slot] = true;
+            closedCount++;
+            if (key == goal) {
+                return nodes;
+            }
+
+            int nodeX = (int) (key >> 32);
+            int nodeY = (int) key;
+            int cost = nodes.costs[slot];
+            long parent = nodes.parents[slot];
+            // keep going the same way or turn, never straight back
+            int fromX = parent == NO_PARENT ? 0 : Integer.signum(nodeX - (int) (parent >> 32));
+            int fromY = parent == NO_PARENT ? 0 : Integer.signum(nodeY - (int) parent);
+            for (int d = 0; d < 4; d++) {
+                int directionX = d == 0 ? 1 : d == 1 ? -1 : 0;
+                int directionY = d == 2 ? 1 : d == 3 ? -1 : 0;
+                if (parent != NO_PARENT && directionX == -fromX && directionY == -fromY) {
+                    continue;
+                }
+
+                int x = nodeX;
+                int y = nodeY;
+                if (directionX != 0) {
+                    x = jumpHorizontal(nodeX + directionX, nodeY, directionX);
+                    if (x == NONE) {
+                        continue;
+                    }
+                } else {
+                    y = jumpVertical(nodeX, nodeY + directionY, directionY);
+                    if (y == NONE) {
+                        continue;
+                    }
+                }
+
+                int nextCost = cost + Math.abs(x - nodeX) + Math.abs(y - nodeY);
+                long next = key(x, y);
+                int nextSlot = nodes.insert(next);
+                if (nodes.closed[nextSlot] || nodes.costs[nextSlot] <= nextCost) {
+                    continue;
+                }
+                nodes.costs[nextSlot] = nextCost;
+                nodes.parents[nextSlot] = key;
+                nodes.push(next, nextCost + distance(x, y, goalX, goalY), nextCost);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Jumps along a row until a cell where the path may turn.
+     * A cell is a jump point if it is the goal, or if the cell above or below
+     * it is open while the one before that is not, since no shorter path can
+     * reach that side cell through the row before.
+     *
+     * @param x         The x-coordinate of the first cell of the jump.
+     * @param y         The y-coordinate of the row.
+     * @param direction 1 to jump right, -1 to jump left
+     * @return the x-coordinate of the jump point, or NONE if a wall comes first
+     */
+    private int jumpHorizontal(int x, int y, int direction) {
+        if (y < 0 || y >= walkability.getHeight()) {
+            return NONE;
+        }
+        int wordX = x >> WORD_SHIFT;
+        while (wordX >= 0 && x >= 0 && x < walkability.getWidth()) {
+            long row = word(wordX, y);
+            long up = word(wordX, y - 1);
+            long down = word(wordX, y + 1);
+            long forced;
+            long remaining;
+            if (direction > 0) {
+                // side cells open where the cell before them is closed
+                forced = (up & ~((up << 1) | (word(wordX - 1, y - 1) >>> WORD_MASK)))
+                        | (down & ~((down << 1) | (word(wordX - 1, y + 1) >>> WORD_MASK)));
+                remaining = -1L << (x & WORD_MASK);
+            } else {
+                forced = (up & ~((up >>> 1) | (word(wordX + 1, y - 1) << WORD_MASK)))
+                        | (down & ~((down >>> 1) | (word(wordX + 1, y + 1) << WORD_MASK)));
+                remaining = -1L >>> (WORD_MASK - (x & WORD_MASK));
+            }
+            if (goalY == y && goalX >> WORD_SHIFT == wordX) {
+                forced |= 1L << (goalX & WORD_MASK);
+            }
+
+            long stops = forced & row & remaining;
+            long walls = ~row & remaining;
+            if (direction > 0) {
+                int stop = Long.numberOfTrailingZeros(stops);
+                int wall = Long.numberOfTrailingZeros(walls);
+                if (stop < wall) {
+                    return (wordX << WORD_SHIFT) + stop;
+                }
+                if (walls != 0) {
+                    return NONE;
+                }
+                wordX++;
+                x = wordX << WORD_SHIFT;
+            } else {
+                int stop = Long.numberOfLeadingZeros(stops);
+                int wall = Long.numberOfLeadingZeros(walls);
+                if (stop < wall) {
+                    return (wordX << WORD_SHIFT) + WORD_MASK - stop;
+                }
+                if (walls != 0) {
+                    return NONE;
+                }
+                wordX--;
+                x = (wordX << WORD_SHIFT) + WORD_MASK;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Jumps along a column until a cell where the path may turn: the goal or a
+     * cell with an open cell beside it. Shortest paths are searched in the
+     * order that turns from a row into a column as early as possible, so a
+     * column may turn into a row anywhere, while a row only turns into a
+     * column where that was not possible one cell earlier.
+     *
+     * @param x         The x-coordinate of the column.
+     * @param y         The y-coordinate of the first cell of the jump.
+     * @param direction 1 to jump down, -1 to jump up
+     * @return the y-coordinate of the jump point, or NONE if a wall comes first
+     */
+    private int jumpVertical(int x, int y, int direction) {
+        for (; isOpen(x, y); y += direction) {
+            if (x == goalX && y == goalY) {
+                return y;
+            }
+            if (isOpen(x - 1, y) || isOpen(x + 1, y)) {
+                return y;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Checks if a cell can be stepped on during this search.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is open; false otherwise
+     */
+    private boolean isOpen(int x, int y) {
+        return (word(x >> WORD_SHIFT, y) & (1L << (x & WORD_MASK))) != 0;
+    }
+
+    /**
+     * Gets 64 cells of a row which can be stepped on during this search.
+     *
+     * @param wordX the index of the word in the row
+     * @param y     The y-coordinate of the row.
+     * @return the open bits of the cells
+     */
+    private long word(int wordX, int y) {
+        long word = walkability.rowWord(wordX, y);
+        if (entities != null && word != 0) {
+            word &= ~blockedWord(wordX, y);
+        }
+        return word;
+    }
+
+    /**
+     * Gets the cells of a row word holding an entity, the goal excepted,
+     * looking them up in the entity index the first time the word is read.
+     *
+     * @param wordX the index of the word in the row
+     * @param y     The y-coordinate of the row.
+     * @return the blocked bits of the cells
+     */
+    private long blockedWord(int wordX, int y) {
+        long key = key(wordX, y);
+        Long blocked = blockedWords.get(key);
+        if (blocked == null) {
+            blockedBits = 0;
+            int fromX = wordX << WORD_SHIFT;
+            entities.forEachInRect(fromX, y, fromX + WORD_MASK, y, blockCollector);
+            blocked = blockedBits;
+            blockedWords.put(key, blocked);
+        }
+        return blocked;
+    }
+
+    /**
+     * Adds the cell of an entity found in a row word to the blocked bits.
+     *
+     * @param entity the entity
+     * @param x      The x-coordinate of the entity.
+     * @param y      The y-coordinate of the entity.
+     */
+    private void collectBlocked(Entity entity, int x, int y) {
+        if (x != goalX || y != goalY) {
+            blockedBits |= 1L << (x & WORD_MASK);
+        }
+    }
+
+    /**
+     * Turns the jump points of a path into every cell along it.
+     *
+     * @param nodes the reached jump points
+     * @param end   the key of the goal
+     * @return the cells after the start up to the goal
+     */
+    private static List<Location> unfold(Nodes nodes, long end) {
+        List<Location> path = new ArrayList<>();
+        for (long key = end, parent = nodes.parents[nodes.find(key)]; parent != NO_PARENT;
+                key = parent, parent = nodes.parents[nodes.find(key)]) {
+            int x = (int) (key >> 32);
+            int y = (int) key;
+            int toX = (int) (parent >> 32);
+            int toY = (int) parent;
+            int stepX = Integer.signum(toX - x);
+            int stepY = Integer.signum(toY - y);
+            for (; x != toX || y != toY; x += stepX, y += stepY) {
+                path.add(new Location(x, y));
+            }
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Gets the number of steps between two cells on an open grid.
+     *
+     * @param fromX The x-coordinate of the first cell.
+     * @param fromY The y-coordinate of the first cell.
+     * @param toX   The x-coordinate of the second cell.
+     * @param toY   The y-coordinate of the second cell.
+     * @return the Manhattan distance
+     */
+    private static int distance(int fromX, int fromY, int toX, int toY) {
+        return Math.abs(toX - fromX) + Math.abs(toY - fromY);
+    }
+
+    /**
+     * Packs two coordinates into a single key.
+     *
+     * @param x the first coordinate
+     * @param y the second coordinate
+     * @return the packed key
+     */
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The jump points reached by a search: an open addressing hash table from
+     * packed coordinates to the cost and parent of each, and a binary heap of
+     * the open ones ordered by estimated length, longer cost first on ties.
+     * Kept in primitive arrays since a search on a large maze reaches hundreds
+     * of thousands of them.
+     */
+    private static final class Nodes {
+        long[] keys = new long[1024];
+        boolean[] used = new boolean[1024];
+        int[] costs = new int[1024];
+        long[] parents = new long[1024];
+        boolean[] closed = new boolean[1024];
+        int size;
+
+        long[] heapPriorities = new long[1024];
+        long[] heapKeys = new long[1024];
+        int heapSize;
+
+        /**
+         * Finds the slot of a reached cell.
+         *
+         * @param key the packed coordinates
+         * @return the slot of the cell, or -1 if it was not reached
+         */
+        int find(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds the slot of a cell, adding it unreached if it is new.
+         *
+         * @param key the packed coordinates
+         * @return the slot of the cell
+         */
+        int insert(long key) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            costs[slot] = Integer.MAX_VALUE;
+            size++;
+            return slot;
+        }
+
+        /**
+         * Doubles the table, moving every cell to its new slot.
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            int[] oldCosts = costs;
+            long[] oldParents = parents;
+            boolean[] oldClosed = closed;
+            int capacity = oldKeys.length * 2;
+            keys = new long[capacity];
+            used = new boolean[capacity];
+            costs = new int[capacity];
+            parents = new long[capacity];
+            closed = new boolean[capacity];
+            int mask = capacity - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (!oldUsed[i]) {
+                    continue;
+                }
+                int slot = hash(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                costs[slot] = oldCosts[i];
+                parents[slot] = oldParents[i];
+                closed[slot] = oldClosed[i];
+            }
+        }
+
+        /**
+         * Adds a cell to the open heap.
+         *
+         * @param key      the packed coordinates
+         * @param estimate the estimated length of a path through the cell
+         * @param cost     the number of steps from the start
+         */
+        void push(long key, int estimate, int cost) {
+            if (heapSize == heapKeys.length) {
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+                heapPriorities = Arrays.copyOf(heapPriorities, heapSize * 2);
+            }
+            long priority = ((long) estimate << 31) | (Integer.MAX_VALUE - cost);
+            int i = heapSize++;
+            while (i > 0) {
+                int up = (i - 1) >> 1;
+                if (heapPriorities[up] <= priority) {
+                    break;
+                }
+                heapPriorities[i] = heapPriorities[up];
+                heapKeys[i] = heapKeys[up];
+                i = up;
+            }
+            heapPriorities[i] = priority;
+            heapKeys[i] = key;
+        }
+
+        /**
+         * Removes the cell with the lowest estimate from the open heap.
+         *
+         * @return the packed coordinates of the cell
+         */
+        long pop() {
+            long top = heapKeys[0];
+            heapSize--;
+            long priority = heapPriorities[heapSize];
+            long key = heapKeys[heapSize];
+            int i = 0;
+            while (true) {
+                int child = i * 2 + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapPriorities[child + 1] < heapPriorities[child]) {
+                    child++;
+                }
+                if (priority <= heapPriorities[child]) {
+                    break;
+                }
+                heapPriorities[i] = heapPriorities[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            heapPriorities[i] = priority;
+            heapKeys[i] = key;
+            return top;
+        }
+
+        /**
+         * Spreads the bits of packed coordinates over a slot index.
+         *
+         * @param key the packed coordinates
+         * @return the hash of the key
+         */
+        private static int hash(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
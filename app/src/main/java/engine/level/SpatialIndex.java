@@ -0,0 +1,417 @@
+package engine.level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the objects on the map near a position without scanning all of them.
+ * Positions are hashed into square buckets of {@link #CELL_SIZE} cells and
+ * only the buckets a query touches are visited, so queries cost in the number
+ * of objects near the position and not the number of objects on the map.
+ * Distances are Euclidean.
+ * <p>
+ * Objects are told apart by identity and are stored with the position they
+ * were added at, which the owner keeps up to date with {@link #move}.
+ *
+ * @param <T> the type of the indexed objects
+ */
+public class SpatialIndex<T> {
+
+    // Side of a bucket in cells, a power of two so positions split with shifts
+    public static final int CELL_SHIFT = 4;
+    public static final int CELL_SIZE = 1 << CELL_SHIFT;
+
+    private final Map<Long, Bucket> buckets = new HashMap<>();
+    private int size;
+
+    // bounds of the buckets ever used, nearest searches stop outside them
+    private int minBucketX = Integer.MAX_VALUE;
+    private int minBucketY = Integer.MAX_VALUE;
+    private int maxBucketX = Integer.MIN_VALUE;
+    private int maxBucketY = Integer.MIN_VALUE;
+
+    /**
+     * Gets the number of indexed objects.
+     *
+     * @return the number of objects
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all objects.
+     */
+    public void clear() {
+        buckets.clear();
+        size = 0;
+        minBucketX = Integer.MAX_VALUE;
+        minBucketY = Integer.MAX_VALUE;
+        maxBucketX = Integer.MIN_VALUE;
+        maxBucketY = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Adds an object at a position.
+     *
+     * @param value the object to add
+     * @param x     The x-coordinate of the object.
+     * @param y     The y-coordinate of the object.
+     */
+    public void add(T value, int x, int y) {
+        int bucketX = x >> CELL_SHIFT;
+        int bucketY = y >> CELL_SHIFT;
+        buckets.computeIfAbsent(key(bucketX, bucketY), k -> new Bucket()).add(value, x, y);
+        size++;
+
+        minBucketX = Math.min(minBucketX, bucketX);
+        minBucketY = Math.min(minBucketY, bucketY);
+        maxBucketX = Math.max(maxBucketX, bucketX);
+        maxBucketY = Math.max(maxBucketY, bucketY);
+    }
+
+    /**
+     * Removes an object from a position.
+     *
+     * @param value the object to remove
+     * @param x     The x-coordinate the object was added at.
+     * @param y     The y-coordinate the object was added at.
+     * @return true if the object was found; false otherwise
+     */
+    public boolean remove(T value, int x, int y) {
+        long key = key(x >> CELL_SHIFT, y >> CELL_SHIFT);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null || !bucket.remove(value, x, y)) {
+            return false;
+        }
+        if (bucket.size == 0) {
+            buckets.remove(key);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves an object to another position.
+     *
+     * @param value the object to move
+     * @param fromX The x-coordinate the object was at.
+     * @param fromY The y-coordinate the object was at.
+     * @param toX   The x-coordinate the object moves to.
+     * @param toY   The y-coordinate the object moves to.
+     * @return true if the object was found; false otherwise
+     */
+    public boolean move(T value, int fromX, int fromY, int toX, int toY) {
+        if (!remove(value, fromX, fromY)) {
+            return false;
+        }
+        add(value, toX, toY);
+        return true;
+    }
+
+    /**
+     * Finds the objects inside a rectangle, borders included.
+     *
+     * @param minX The x-coordinate of the left border.
+     * @param minY The y-coordinate of the top border.
+     * @param maxX The x-coordinate of the right border.
+     * @param maxY The y-coordinate of the bottom border.
+     * @return the objects inside the rectangle, in no particular order
+     */
+    public List<T> findInRect(int minX, int minY, int maxX, int maxY) {
+        List<T> found = new ArrayList<>();
+        for (Bucket bucket : bucketsIn(minX >> CELL_SHIFT, minY >> CELL_SHIFT, maxX >> CELL_SHIFT,
+                maxY >> CELL_SHIFT)) {
+            for (int i = 0; i < bucket.size; i++) {
+                int x = bucket.xs[i];
+                int y = bucket.ys[i];
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    found.add(bucket.value(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Visits the objects inside a rectangle with their positions, borders
+     * included.
+     *
+     * @param minX    The x-coordinate of the left border.
+     * @param minY    The y-coordinate of the top border.
+     * @param maxX    The x-coordinate of the right border.
+     * @param maxY    The y-coordinate of the bottom border.
+     * @param visitor called for every object inside, in no particular order
+     */
+    public void forEachInRect(int minX, int minY, int maxX, int maxY, Visitor<T> visitor) {
+        for (Bucket bucket : bucketsIn(minX >> CELL_SHIFT, minY >> CELL_SHIFT, maxX >> CELL_SHIFT,
+                maxY >> CELL_SHIFT)) {
+            for (int i = 0; i < bucket.size; i++) {
+                int x = bucket.xs[i];
+                int y = bucket.ys[i];
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    visitor.visit(bucket.value(i), x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the objects within a distance of a position, the border included.
+     *
+     * @param x      The x-coordinate of the position.
+     * @param y      The y-coordinate of the position.
+     * @param radius the largest distance
+     * @return the objects within the distance, in no particular order
+     */
+    public List<T> findInRadius(int x, int y, int radius) {
+        long limit = (long) radius * radius;
+        List<T> found = new ArrayList<>();
+        for (Bucket bucket : bucketsIn((x - radius) >> CELL_SHIFT, (y - radius) >> CELL_SHIFT,
+                (x + radius) >> CELL_SHIFT, (y + radius) >> CELL_SHIFT)) {
+            for (int i = 0; i < bucket.size; i++) {
+                if (distance(x, y, bucket.xs[i], bucket.ys[i]) <= limit) {
+                    found.add(bucket.value(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the objects closest to a position.
+     * Buckets are searched in growing rings around the position until no
+     * unvisited bucket can hold anything closer than the objects found.
+     *
+     * @param x     The x-coordinate of the position.
+     * @param y     The y-coordinate of the position.
+     * @param count the number of objects to find
+     * @return up to count objects, closest first
+     */
+    public List<T> findNearest(int x, int y, int count) {
+        if (count <= 0 || size == 0) {
+            return new ArrayList<>();
+        }
+        // the farthest of the best objects so far is at the head
+        PriorityQueue<Neighbour> best = new PriorityQueue<>(
+                (first, second) -> Long.compare(second.distance, first.distance));
+
+        int centerX = x >> CELL_SHIFT;
+        int centerY = y >> CELL_SHIFT;
+        int lastRing = Math.max(Math.max(centerX - minBucketX, maxBucketX - centerX),
+                Math.max(centerY - minBucketY, maxBucketY - centerY));
+
+        for (int ring = 0; ring <= lastRing; ring++) {
+            // every bucket of this ring is at least this far away
+            long nearest = ring == 0 ? 0 : (long) (ring - 1) * CELL_SIZE + 1;
+            if (best.size() == count && nearest * nearest > best.peek().distance) {
+                break;
+            }
+            // on a sparse map the rings hold mostly empty buckets, visiting
+            // every bucket once is cheaper
+            if ((2L * ring + 1) * (2L * ring + 1) > 4L * buckets.size()) {
+                best.clear();
+                for (Bucket bucket : buckets.values()) {
+                    collect(bucket, x, y, count, best);
+                }
+                break;
+            }
+            for (int bucketX = centerX - ring; bucketX <= centerX + ring; bucketX++) {
+                boolean side = bucketX == centerX - ring || bucketX == centerX + ring;
+                int step = side || ring == 0 ? 1 : 2 * ring;
+                for (int bucketY = centerY - ring; bucketY <= centerY + ring; bucketY += step) {
+                    Bucket bucket = buckets.get(key(bucketX, bucketY));
+                    if (bucket != null) {
+                        collect(bucket, x, y, count, best);
+                    }
+                }
+            }
+        }
+
+        List<T> found = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            found.add(best.poll().value);
+        }
+        // the queue gives the farthest first
+        Collections.reverse(found);
+        return found;
+    }
+
+    /**
+     * Keeps the closest objects of a bucket among the best ones.
+     *
+     * @param bucket the bucket to look at
+     * @param x      The x-coordinate of the position.
+     * @param y      The y-coordinate of the position.
+     * @param count  the number of objects to keep
+     * @param best   the best objects so far, farthest at the head
+     */
+    private void collect(Bucket bucket, int x, int y, int count, PriorityQueue<Neighbour> best) {
+        for (int i = 0; i < bucket.size; i++) {
+            long distance = distance(x, y, bucket.xs[i], bucket.ys[i]);
+            if (best.size() < count) {
+                best.add(new Neighbour(bucket.value(i), distance));
+            } else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Neighbour(bucket.value(i), distance));
+            }
+        }
+    }
+
+    /**
+     * Gets the buckets inside a range of bucket coordinates. A range with more
+     * buckets than are in use visits the used buckets instead.
+     *
+     * @param fromX the first bucket column
+     * @param fromY the first bucket row
+     * @param toX   the last bucket column
+     * @param toY   the last bucket row
+     * @return the buckets which may hold objects in the range
+     */
+    private Collection<Bucket> bucketsIn(int fromX, int fromY, int toX, int toY) {
+        if ((long) (toX - fromX + 1) * (toY - fromY + 1) > buckets.size()) {
+            return buckets.values();
+        }
+        List<Bucket> found = new ArrayList<>();
+        for (int bucketY = fromY; bucketY <= toY; bucketY++) {
+            for (int bucketX = fromX; bucketX <= toX; bucketX++) {
+                Bucket bucket = buckets.get(key(bucketX, bucketY));
+                if (bucket != null) {
+                    found.add(bucket);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the squared distance between two positions.
+     *
+     * @param fromX The x-coordinate of the first position.
+     * @param fromY The y-coordinate of the first position.
+     * @param toX   The x-coordinate of the second position.
+     * @param toY   The y-coordinate of the second position.
+     * @return the squared distance
+     */
+    private static long distance(int fromX, int fromY, int toX, int toY) {
+        long deltaX = toX - fromX;
+        long deltaY = toY - fromY;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+
+    /**
+     * Packs bucket coordinates into a single key.
+     *
+     * @param bucketX the bucket column
+     * @param bucketY the bucket row
+     * @return the packed key
+     */
+    private static long key(int bucketX, int bucketY) {
+        return ((long) bucketX << 32) | (bucketY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Receives the objects of a search with their positions.
+     *
+     * @param <T> the type of the indexed objects
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+
+        /**
+         * Called for an object found.
+         *
+         * @param value the object
+         * @param x     The x-coordinate of the object.
+         * @param y     The y-coordinate of the object.
+         */
+        void visit(T value, int x, int y);
+    }
+
+    /**
+     * An object found by a nearest search and its squared distance.
+     */
+    private final class Neighbour {
+        final T value;
+        final long distance;
+
+        /**
+         * Constructs a found object.
+         *
+         * @param value    the object
+         * @param distance the squared distance to the position
+         */
+        Neighbour(T value, long distance) {
+            this.value = value;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * The objects of one bucket with their positions, in parallel arrays.
+     */
+    private final class Bucket {
+        Object[] values = new Object[4];
+        int[] xs = new int[4];
+        int[] ys = new int[4];
+        int size;
+
+        /**
+         * Gets an object of the bucket.
+         *
+         * @param i the index of the object
+         * @return the object
+         */
+        @SuppressWarnings("unchecked")
+        T value(int i) {
+            return (T) values[i];
+        }
+
+        /**
+         * Adds an object, growing the arrays when they are full.
+         *
+         * @param value the object
+         * @param x     The x-coordinate of the object.
+         * @param y     The y-coordinate of the object.
+         */
+        void add(T value, int x, int y) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            values[size] = value;
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+
+        /**
+         * Removes an object, moving the last object into its place.
+         *
+         * @param value the object
+         * @param x     The x-coordinate of the object.
+         * @param y     The y-coordinate of the object.
+         * @return true if the object was found; false otherwise
+         */
+        boolean remove(T value, int x, int y) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value && xs[i] == x && ys[i] == y) {
+                    size--;
+                    values[i] = values[size];
+                    xs[i] = xs[size];
+                    ys[i] = ys[size];
+                    values[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package engine.level;
+
+/**
+ * Tile codes used by {@link GameMap} to store every cell in a single byte.
+ * Terrain (empty, wall, exit) is fully described by the code, entities and
+ * items only mark their cell here and live in the sparse occupant map of the
+ * {@link GameMap}.
+ */
+public final class Tile {
+
+    /** An empty cell that can be walked on. */
+    public static final byte EMPTY = 0;
+    /** A solid wall. */
+    public static final byte WALL = 1;
+    /** The exit of the map. */
+    public static final byte EXIT = 2;
+    /** A cell occupied by an entity. */
+    public static final byte ENTITY = 3;
+    /** A cell occupied by an item. */
+    public static final byte ITEM = 4;
+
+    // terrain grids hold no state, so one shared instance per type is enough
+    private static final Grid EMPTY_GRID = new EmptyGrid();
+    private static final Grid WALL_GRID = new WallGrid();
+    private static final Grid EXIT_GRID = new ExitGrid();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Tile() {
+    }
+
+    /**
+     * Gets the tile code of the given grid.
+     *
+     * @param grid the grid to convert
+     * @return the tile code representing the grid
+     * @throws IllegalArgumentException if the grid type is unknown
+     */
+    public static byte of(Grid grid) {
+        if (grid instanceof EmptyGrid) {
+            return EMPTY;
+        } else if (grid instanceof WallGrid) {
+            return WALL;
+        } else if (grid instanceof ExitGrid) {
+            return EXIT;
+        } else if (grid instanceof EntityGrid) {
+            return ENTITY;
+        } else if (grid instanceof ItemGrid) {
+            return ITEM;
+        }
+        throw new IllegalArgumentException("Unknown grid type: " + grid.getClass().getSimpleName());
+    }
+
+    /**
+     * Gets the shared grid instance of a terrain tile code.
+     *
+     * @param tile the terrain tile code
+     * @return the shared grid, or null if the code is not a terrain code
+     */
+    public static Grid terrainGrid(byte tile) {
+        switch (tile) {
+            case EMPTY -> {
+                return EMPTY_GRID;
+            }
+            case WALL -> {
+                return WALL_GRID;
+            }
+            case EXIT -> {
+                return EXIT_GRID;
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Checks if the tile code holds an occupant (entity or item).
+     *
+     * @param tile the tile code
+     * @return true if the tile is occupied by an entity or an item
+     */
+    public static boolean isOccupied(byte tile) {
+        return tile == ENTITY || tile == ITEM;
+    }
+}
@@ -0,0 +1,83 @@
+package engine.level;
+
+/**
+ * Storage of the tile codes of a {@link GameMap}, one byte per cell.
+ * The map checks the coordinates, so a store may assume they are in bounds.
+ */
+public interface TileStore {
+
+    /**
+     * Gets the width of the stored area.
+     *
+     * @return the width in cells
+     */
+    int getWidth();
+
+    /**
+     * Gets the height of the stored area.
+     *
+     * @return the height in cells
+     */
+    int getHeight();
+
+    /**
+     * Gets the tile code of a cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return the tile code
+     */
+    byte get(int x, int y);
+
+    /**
+     * Sets the tile code of a cell.
+     *
+     * @param x    The x-coordinate of the cell.
+     * @param y    The y-coordinate of the cell.
+     * @param tile the new tile code
+     */
+    void set(int x, int y, byte tile);
+
+    /**
+     * Sets every cell to the given tile code.
+     *
+     * @param tile the tile code
+     */
+    default void fill(byte tile) {
+        for (int y = 0; y < getHeight(); y++) {
+            for (int x = 0; x < getWidth(); x++) {
+                set(x, y, tile);
+            }
+        }
+    }
+
+    /**
+     * Copies a full row of tile codes into the store.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row the tile codes of the row, one per column
+     */
+    default void setRow(int y, byte[] row) {
+        for (int x = 0; x < getWidth(); x++) {
+            set(x, y, row[x]);
+        }
+    }
+
+    /**
+     * Copies a full row of tile codes out of the store.
+     *
+     * @param y   The y-coordinate of the row.
+     * @param row receives the tile codes of the row
+     */
+    default void getRow(int y, byte[] row) {
+        for (int x = 0; x < getWidth(); x++) {
+            row[x] = get(x, y);
+        }
+    }
+
+    /**
+     * Writes pending changes to the backing storage, if there is one.
+     */
+    default void flush() {
+    }
+}
@@ -0,0 +1,396 @@
+package engine.level;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One bit per cell telling whether the cell can be walked on, that is whether
+ * it is not a wall.
+ * The bits are kept in blocks of 64 by 64 cells with one long per block row,
+ * so 64 neighbouring cells of a row are read in one word and a search can
+ * skip a whole word of walls or open cells at once. Blocks are filled from the
+ * tile store the first time they are used, which keeps the layer cheap for
+ * chunked worlds where only a small part of the map is ever visited. A layer
+ * with a block cache keeps only the most recently used blocks, like the chunks
+ * of a chunked world, so its memory does not grow with the area visited.
+ * <p>
+ * The map keeps the layer in sync with its tiles; cells outside the map are
+ * never walkable.
+ */
+public class WalkabilityLayer {
+
+    // Side of a block in cells, the number of bits of a word
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    private final TileStore tiles;
+    private final int width;
+    private final int height;
+    private final int blocksX;
+    // one word per row of every block, null until the block is used, or
+    // null for a layer with a block cache
+    private final long[][] blocks;
+    // the blocks in use by key, least recently used first, or null
+    private final Map<Long, long[]> cachedBlocks;
+
+    // most reads stay in the block used last, which skips the lookup
+    private long lastKey = Long.MIN_VALUE;
+    private long[] lastBlock;
+
+    /**
+     * Constructs the layer of a tile store.
+     *
+     * @param tiles the tiles the layer is filled from
+     */
+    public WalkabilityLayer(TileStore tiles) {
+        this.tiles = tiles;
+        this.width = tiles.getWidth();
+        this.height = tiles.getHeight();
+        this.blocksX = (width + BLOCK_MASK) >> BLOCK_SHIFT;
+        int blocksY = (height + BLOCK_MASK) >> BLOCK_SHIFT;
+        this.blocks = new long[blocksX * blocksY][];
+        this.cachedBlocks = null;
+    }
+
+    /**
+     * Constructs the layer of a tile store keeping at most the given number
+     * of blocks, the least recently used one being dropped when another is
+     * needed.
+     *
+     * @param tiles        the tiles the layer is filled from
+     * @param cachedBlocks the largest number of blocks kept
+     * @throws IllegalArgumentException if the cache is not positive
+     */
+    public WalkabilityLayer(TileStore tiles, int cachedBlocks) {
+        if (cachedBlocks <= 0) {
+            throw new IllegalArgumentException("Invalid block cache size: " + cachedBlocks);
+        }
+        this.tiles = tiles;
+        this.width = tiles.getWidth();
+        this.height = tiles.getHeight();
+        this.blocksX = (width + BLOCK_MASK) >> BLOCK_SHIFT;
+        this.blocks = null;
+        // access order makes the eldest entry the least recently used block
+        this.cachedBlocks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                if (size() <= cachedBlocks) {
+                    return false;
+                }
+                if (eldest.getKey() == lastKey) {
+                    lastKey = Long.MIN_VALUE;
+                    lastBlock = null;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the number of blocks currently filled.
+     *
+     * @return the number of blocks in memory
+     */
+    public int getBlockCount() {
+        if (blocks == null) {
+            return cachedBlocks.size();
+        }
+        int count = 0;
+        for (long[] block : blocks) {
+            if (block != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the width of the layer.
+     *
+     * @return the width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the layer.
+     *
+     * @return the height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if a cell can be walked on.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return true if the cell is inside the map and not a wall; false otherwise
+     */
+    public boolean isWalkable(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (block(x >> BLOCK_SHIFT, y >> BLOCK_SHIFT)[y & BLOCK_MASK] & (1L << (x & BLOCK_MASK))) != 0;
+    }
+
+    /**
+     * Updates a cell after its tile changed. Blocks which were never used are
+     * left alone, they read the new tile when they are filled.
+     *
+     * @param x        The x-coordinate of the cell.
+     * @param y        The y-coordinate of the cell.
+     * @param walkable whether the cell can now be walked on
+     */
+    public void set(int x, int y, boolean walkable) {
+        long[] block = blocks != null ? blocks[(y >> BLOCK_SHIFT) * blocksX + (x >> BLOCK_SHIFT)]
+                : cachedBlocks.get(key(x >> BLOCK_SHIFT, y >> BLOCK_SHIFT));
+        if (block == null) {
+            return;
+        }
+        if (walkable) {
+            block[y & BLOCK_MASK] |= 1L << (x & BLOCK_MASK);
+        } else {
+            block[y & BLOCK_MASK] &= ~(1L << (x & BLOCK_MASK));
+        }
+    }
+
+    /**
+     * Forgets every block, they are filled again from the tiles when used.
+     */
+    public void invalidate() {
+        if (blocks != null) {
+            Arrays.fill(blocks, null);
+        } else {
+            cachedBlocks.clear();
+            lastKey = Long.MIN_VALUE;
+            lastBlock = null;
+        }
+    }
+
+    /**
+     * Forgets the blocks holding a row, they are filled again when used.
+     *
+     * @param y The y-coordinate of the row.
+     */
+    public void invalidateRow(int y) {
+        int blockY = y >> BLOCK_SHIFT;
+        if (blocks != null) {
+            Arrays.fill(blocks, blockY * blocksX, (blockY + 1) * blocksX, null);
+        } else {
+            cachedBlocks.keySet().removeIf(key -> (int) (long) key == blockY);
+            lastKey = Long.MIN_VALUE;
+            lastBlock = null;
+        }
+    }
+
+    /**
+     * Gets 64 cells of a row as one word.
+     * Bit i is the cell at x = wordX * 64 + i, cells outside the map are 0.
+     *
+     * @param wordX the index of the word in the row
+     * @param y     The y-coordinate of the row.
+     * @return the walkable bits of the cells
+     */
+    public long rowWord(int wordX, int y) {
+        if (wordX < 0 || wordX >= blocksX || y < 0 || y >= height) {
+            return 0;
+        }
+        return block(wordX, y >> BLOCK_SHIFT)[y & BLOCK_MASK];
+    }
+
+    /**
+     * Gets 64 cells of a column as one word.
+     * Bit i is the cell at y = wordY * 64 + i, cells outside the map are 0.
+     *
+     * @param x     The x-coordinate of the column.
+     * @param wordY the index of the word in the column
+     * @return the walkable bits of the cells
+     */
+    public long columnWord(int x, int wordY) {
+        if (x < 0 || x >= width || wordY < 0 || wordY << BLOCK_SHIFT >= height) {
+            return 0;
+        }
+        long[] block = block(x >> BLOCK_SHIFT, wordY);
+        int shift = x & BLOCK_MASK;
+        long word = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            word |= ((block[i] >>> shift) & 1L) << i;
+        }
+        return word;
+    }
+
+    /**
+     * Finds the first cell of a row at or right of x which can not be walked
+     * on.
+     *
+     * @param x The x-coordinate to start at.
+     * @param y The y-coordinate of the row.
+     * @return the x-coordinate of the cell, or the width if the row is open up
+     *         to the border
+     */
+    public int nextBlockedInRow(int x, int y) {
+        int wordX = x >> BLOCK_SHIFT;
+        long blocked = ~rowWord(wordX, y) & (-1L << (x & BLOCK_MASK));
+        while (blocked == 0) {
+            wordX++;
+            if (wordX >= blocksX) {
+                return width;
+            }
+            blocked = ~rowWord(wordX, y);
+        }
+        return Math.min(width, (wordX << BLOCK_SHIFT) + Long.numberOfTrailingZeros(blocked));
+    }
+
+    /**
+     * Finds the first cell of a row at or left of x which can not be walked on.
+     *
+     * @param x The x-coordinate to start at.
+     * @param y The y-coordinate of the row.
+     * @return the x-coordinate of the cell, or -1 if the row is open up to the
+     *         border
+     */
+    public int previousBlockedInRow(int x, int y) {
+        int wordX = x >> BLOCK_SHIFT;
+        long blocked = ~rowWord(wordX, y) & (-1L >>> (BLOCK_MASK - (x & BLOCK_MASK)));
+        while (blocked == 0) {
+            wordX--;
+            if (wordX < 0) {
+                return -1;
+            }
+            blocked = ~rowWord(wordX, y);
+        }
+        return (wordX << BLOCK_SHIFT) + BLOCK_MASK - Long.numberOfLeadingZeros(blocked);
+    }
+
+    /**
+     * Finds the first cell of a column at or below y which can not be walked
+     * on.
+     *
+     * @param x The x-coordinate of the column.
+     * @param y The y-coordinate to start at.
+     * @return the y-coordinate of the cell, or the height if the column is open
+     *         up to the border
+     */
+    public int nextBlockedInColumn(int x, int y) {
+        int wordY = y >> BLOCK_SHIFT;
+        int wordsY = (height + BLOCK_MASK) >> BLOCK_SHIFT;
+        long blocked = ~columnWord(x, wordY) & (-1L << (y & BLOCK_MASK));
+        while (blocked == 0) {
+            wordY++;
+            if (wordY >= wordsY) {
+                return height;
+            }
+            blocked = ~columnWord(x, wordY);
+        }
+        return Math.min(height, (wordY << BLOCK_SHIFT) + Long.numberOfTrailingZeros(blocked));
+    }
+
+    /**
+     * Finds the first cell of a column at or above y which can not be walked
+     * on.
+     *
+     * @param x The x-coordinate of the column.
+     * @param y The y-coordinate to start at.
+     * @return the y-coordinate of the cell, or -1 if the column is open up to
+     *         the border
+     */
+    public int previousBlockedInColumn(int x, int y) {
+        int wordY = y >> BLOCK_SHIFT;
+        long blocked = ~columnWord(x, wordY) & (-1L >>> (BLOCK_MASK - (y & BLOCK_MASK)));
+        while (blocked == 0) {
+            wordY--;
+            if (wordY < 0) {
+                return -1;
+            }
+            blocked = ~columnWord(x, wordY);
+        }
+        return (wordY << BLOCK_SHIFT) + BLOCK_MASK - Long.numberOfLeadingZeros(blocked);
+    }
+
+    /**
+     * Counts the cells of the map which can be walked on.
+     *
+     * @return the number of walkable cells
+     */
+    public long countWalkable() {
+        long count = 0;
+        for (int y = 0; y < height; y++) {
+            for (int wordX = 0; wordX < blocksX; wordX++) {
+                count += Long.bitCount(rowWord(wordX, y));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets a block, filling it from the tiles the first time it is used, or
+     * again after it was dropped from the cache.
+     *
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @return the words of the block rows
+     */
+    private long[] block(int blockX, int blockY) {
+        if (blocks == null) {
+            long key = key(blockX, blockY);
+            if (key != lastKey) {
+                long[] block = cachedBlocks.get(key);
+                if (block == null) {
+                    block = fill(blockX, blockY);
+                    cachedBlocks.put(key, block);
+                }
+                lastKey = key;
+                lastBlock = block;
+            }
+            return lastBlock;
+        }
+        int index = blockY * blocksX + blockX;
+        long[] block = blocks[index];
+        if (block == null) {
+            block = fill(blockX, blockY);
+            blocks[index] = block;
+        }
+        return block;
+    }
+
+    /**
+     * Reads a block from the tiles.
+     *
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @return the words of the block rows
+     */
+    private long[] fill(int blockX, int blockY) {
+        long[] block = new long[BLOCK_SIZE];
+        int fromX = blockX << BLOCK_SHIFT;
+        int fromY = blockY << BLOCK_SHIFT;
+        int toX = Math.min(fromX + BLOCK_SIZE, width);
+        int toY = Math.min(fromY + BLOCK_SIZE, height);
+        for (int y = fromY; y < toY; y++) {
+            long word = 0;
+            for (int x = fromX; x < toX; x++) {
+                if (tiles.get(x, y) != Tile.WALL) {
+                    word |= 1L << (x - fromX);
+                }
+            }
+            block[y - fromY] = word;
+        }
+        return block;
+    }
+
+    /**
+     * Packs block coordinates into a single key.
+     *
+     * @param blockX the column of the block
+     * @param blockY the row of the block
+     * @return the packed key
+     */
+    private static long key(int blockX, int blockY) {
+        return ((long) blockX << 32) | blockY;
+    }
+}
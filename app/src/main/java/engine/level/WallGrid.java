@@ -1,5 +1,7 @@
 package engine.level;
 
+import engine.FrameBuffer;
+
 import static utils.ANSIColors.ANSI_BLUE;
 import static utils.ANSIColors.ANSI_RESET;
 
@@ -40,13 +42,17 @@ public class WallGrid implements Grid {
     }
 
     /**
-     * Displays the WallGrid on the console using a blue color.
+     * Draws the WallGrid into a frame using a blue color.
+     *
+     * @param frame the frame being drawn
      */
     @Override
-    public void display() {
+    public void render(FrameBuffer frame) {
         // Unicode character for a solid block
-        String WALL_CHAR = "#";
-        System.out.print(ANSI_BLUE + WALL_CHAR + ANSI_RESET);
+        final char WALL_CHAR = '#';
+        frame.setColor(ANSI_BLUE);
+        frame.append(WALL_CHAR);
+        frame.setColor(ANSI_RESET);
     }
 
     /**
@@ -0,0 +1,49 @@
+package engine.simulation;
+
+import engine.GameState;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A bot playing a game in place of the player, one action at a time.
+ * Bots are chosen by name, see {@link #fromName(String)}, keep no state of
+ * their own and draw all their randomness from the given generator, so one bot
+ * can play many games at once and a seed always gives the same game.
+ */
+public interface BotPolicy {
+
+    /**
+     * Gets the name the bot is chosen by.
+     *
+     * @return the lowercase name of the bot
+     */
+    String getName();
+
+    /**
+     * Takes one action for the current status of the game, such as a move,
+     * the choice to fight or a round of a fight.
+     *
+     * @param gameState the game played, neither won nor lost
+     * @param random    the source of randomness
+     */
+    void act(GameState gameState, RandomGenerator random);
+
+    /**
+     * Gets the bot with the given name.
+     *
+     * @param name the name of the bot (case-insensitive)
+     * @return a new instance of the bot
+     * @throws IllegalArgumentException if no bot has that name
+     */
+    static BotPolicy fromName(String name) {
+        switch (name.toLowerCase()) {
+            case ExitSeekingBot.NAME -> {
+                return new ExitSeekingBot();
+            }
+            case RandomBot.NAME -> {
+                return new RandomBot();
+            }
+            default -> throw new IllegalArgumentException("Unknown bot: " + name);
+        }
+    }
+}
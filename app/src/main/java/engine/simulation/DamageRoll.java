@@ -0,0 +1,44 @@
+package engine.simulation;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The damage of one hit of a simulated fight, rolled from the attack of the
+ * weapon or NPC. The game itself always deals the attack, see {@link #FIXED};
+ * other rolls model variable damage and critical hits.
+ */
+public interface DamageRoll {
+
+    /**
+     * Damage as the game deals it, always the attack.
+     */
+    DamageRoll FIXED = (attack, random) -> attack;
+
+    /**
+     * Rolls the damage of a hit.
+     *
+     * @param attack the attack of the weapon or NPC
+     * @param random the source of randomness
+     * @return the damage, at least 1 for a positive attack
+     */
+    int roll(int attack, RandomGenerator random);
+
+    /**
+     * Gets a roll spreading the damage evenly around the attack.
+     *
+     * @param percent how far the damage may be from the attack, in percent
+     * @return the roll
+     * @throws IllegalArgumentException if the percent is not between 0 and
+     *                                  100
+     */
+    static DamageRoll spread(int percent) {
+        if (percent < 0 || percent > 100) {
+            throw new IllegalArgumentException("Spread must be between 0 and 100: " + percent);
+        }
+        return (attack, random) -> {
+            int range = attack * percent / 100;
+            int damage = attack - range + random.nextInt(2 * range + 1);
+            return attack > 0 ? Math.max(1, damage) : 0;
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package engine.simulation;
+
+import engine.GameState;
+import engine.GameStatus;
+import engine.entity.EntityPlayer;
+import engine.item.Inventory;
+import engine.level.DistanceField;
+import engine.level.GameMap;
+import utils.Location;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A bot walking the shortest way to the exit, which fights every NPC in its
+ * way out in one auto-battle with its strongest weapon, takes every bonus it
+ * has room for and heals with its largest recover when its health drops below
+ * half.
+ * It plays the way a careful player would, so its results show how hard the
+ * NPCs are.
+ */
+public class ExitSeekingBot implements BotPolicy {
+
+    /** The name this bot is chosen by. */
+    public static final String NAME = "exit";
+
+    // Possible directions to move (up, right, down, left)
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1 };
+    private static final int[] DIRECTION_Y = { -1, 0, 1, 0 };
+
+    /**
+     * Gets the name the bot is chosen by.
+     *
+     * @return the lowercase name of the bot
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Takes one action for the current status of the game.
+     *
+     * @param gameState the game played, neither won nor lost
+     * @param random    the source of randomness, not used
+     */
+    @Override
+    public void act(GameState gameState, RandomGenerator random) {
+        Inventory inventory = gameState.getInventory();
+        EntityPlayer player = gameState.getEntityPlayer();
+        switch (gameState.getGameStatus()) {
+            case MEET_NPC, FIGHTING -> gameState.autoBattle(player.getMaxHealth() / 2);
+            case FIND_BONUS -> {
+                gameState.fetchBonus();
+                if (gameState.getGameStatus() == GameStatus.FIND_BONUS) {
+                    // no room left, leave the bonus
+                    gameState.dropBonus();
+                }
+            }
+            default -> {
+                int recover = inventory.findLargestRecover();
+                if (player.getHealth() < player.getMaxHealth() / 2 && recover != 0) {
+                    gameState.userRecover(recover);
+                } else {
+                    stepToExit(gameState);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the player to the neighbouring cell closest to the exit.
+     *
+     * @param gameState the game played
+     */
+    private void stepToExit(GameState gameState) {
+        GameMap map = gameState.getMap();
+        Location location = gameState.getEntityPlayer().getLocation();
+        int bestDirection = -1;
+        int bestSteps = Integer.MAX_VALUE;
+        for (int direction = 0; direction < DIRECTION_X.length; direction++) {
+            int steps = map.getStepsToExit(location.getLocationX() + DIRECTION_X[direction],
+                    location.getLocationY() + DIRECTION_Y[direction]);
+            if (steps != DistanceField.UNREACHABLE && steps < bestSteps) {
+                bestSteps = steps;
+                bestDirection = direction;
+            }
+        }
+        if (bestDirection >= 0) {
+            gameState.movePlayer(DIRECTION_X[bestDirection], DIRECTION_Y[bestDirection]);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package engine.simulation;
+
+import engine.FightEstimate;
+import engine.GameState;
+import engine.entity.EntityNPC;
+import engine.entity.EntityPlayer;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates the outcome of fighting an NPC out, before the player decides to
+ * fight, by simulating the fight many times.
+ * The fights are played the way {@link GameState#autoBattle(int)} plays them,
+ * strongest weapon, largest recover below the threshold and fighting again
+ * after a resurrection, on a copy of the numbers only, so the game is not
+ * touched. Batches of fights run in parallel on the common pool, each with its
+ * own generator split from the seed, so an estimate is repeatable.
+ * <p>
+ * With {@link DamageRoll#FIXED} every fight goes the same way, so a single one
+ * is worked out in closed form the way the auto-battle does, and a fight of
+ * billions of rounds costs no more than a short one. Other rolls are sampled
+ * round by round.
+ */
+public class FightEstimator {
+
+    // Fights simulated by one task
+    private static final int BATCH_SIZE = 1024;
+
+    private final DamageRoll roll;
+    private final int samples;
+
+    /**
+     * Constructs an estimator.
+     *
+     * @param roll    the damage of a hit
+     * @param samples the number of fights simulated
+     * @throws IllegalArgumentException if samples is not positive
+     */
+    public FightEstimator(DamageRoll roll, int samples) {
+        if (samples <= 0) {
+            throw new IllegalArgumentException("Samples must be positive: " + samples);
+        }
+        this.roll = roll;
+        this.samples = samples;
+    }
+
+    /**
+     * Estimates the fight with the NPC the player met.
+     *
+     * @param gameState the game, meeting or fighting an NPC
+     * @param healBelow the health below which a recover is used, 0 to never
+     *                  use one
+     * @param seed      the seed of the simulated fights
+     * @return the estimate, of no fights if the player has no weapon
+     */
+    public FightEstimate estimate(GameState gameState, int healBelow, long seed) {
+        EntityPlayer player = gameState.getEntityPlayer();
+        EntityNPC npc = gameState.getMeetEntityNPC();
+        int weapon = Arrays.stream(gameState.getInventory().getWeaponAttacks()).max().orElse(0);
+        if (weapon <= 0) {
+            return new FightEstimate(0, 0, 0);
+        }
+        // the largest recover is used first
+        int[] recovers = gameState.getInventory().getRecoverHeals();
+        Arrays.sort(recovers);
+        Fight fight = new Fight(player.getHealth(), player.getMaxHealth(), gameState.getLife(), weapon, recovers,
+                npc.getHealth(), npc.getAttack(), healBelow);
+
+        if (roll == DamageRoll.FIXED) {
+            long lost = fight.playFixed();
+            return lost >= 0 ? new FightEstimate(1, 1, lost) : new FightEstimate(1, 0, -lost - 1);
+        }
+
+        int batches = (samples + BATCH_SIZE - 1) / BATCH_SIZE;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[batches];
+        for (int i = 0; i < batches; i++) {
+            randoms[i] = root.split();
+        }
+        long[] totals = IntStream.range(0, batches).parallel()
+                .mapToObj(batch -> {
+                    int count = Math.min(BATCH_SIZE, samples - batch * BATCH_SIZE);
+                    long wins = 0;
+                    long healthLost = 0;
+                    for (int i = 0; i < count; i++) {
+                        long lost = fight.play(roll, randoms[batch]);
+                        // a lost fight is returned as the health lost minus one
+                        if (lost >= 0) {
+                            wins++;
+                            healthLost += lost;
+                        } else {
+                            healthLost += -lost - 1;
+                        }
+                    }
+                    return new long[]{wins, healthLost};
+                })
+                .reduce(new long[2], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1]});
+        return new FightEstimate(samples, (int) totals[0], (double) totals[1] / samples);
+    }
+
+    /**
+     * The numbers a fight starts from.
+     */
+    private static class Fight {
+        private final int playerHealth;
+        private final int maxHealth;
+        private final int life;
+        private final int weapon;
+        // heals of the recovers, smallest first
+        private final int[] recovers;
+        private final int npcHealth;
+        private final int npcAttack;
+        private final int healBelow;
+
+        /**
+         * Constructs the start of a fight.
+         *
+         * @param playerHealth the health of the player
+         * @param maxHealth    the maximum health of the player
+         * @param life         the lives of the player
+         * @param weapon       the attack of the strongest weapon
+         * @param recovers     the heals of the recovers, smallest first
+         * @param npcHealth    the health of the NPC
+         * @param npcAttack    the attack of the NPC
+         * @param healBelow    the health below which a recover is used
+         */
+        Fight(int playerHealth, int maxHealth, int life, int weapon, int[] recovers, int npcHealth, int npcAttack,
+                int healBelow) {
+            this.playerHealth = playerHealth;
+            this.maxHealth = maxHealth;
+            this.life = life;
+            this.weapon = weapon;
+            this.recovers = recovers;
+            this.npcHealth = npcHealth;
+            this.npcAttack = npcAttack;
+            this.healBelow = healBelow;
+        }
+
+        /**
+         * Works out the fight with fixed damage a stretch of rounds at a time,
+         * the stretches ending when the NPC or the player dies or the player
+         * heals, like {@link GameState#autoBattle(int)}.
+         *
+         * @return the health the player lost if the fight was won, otherwise
+         *         minus one minus the health lost
+         */
+        long playFixed() {
+            long health = playerHealth;
+            long enemy = npcHealth;
+            int lives = life;
+            int nextRecover = recovers.length - 1;
+            long lost = 0;
+            while (true) {
+                boolean canHeal = healBelow > 0 && nextRecover >= 0;
+                if (canHeal && health < healBelow) {
+                    health = Math.min(maxHealth, health + recovers[nextRecover--]);
+                    continue;
+                }
+
+                // rounds the NPC survives, hits the player survives, and hits
+                // until the player heals, the player strikes first in a round
+                long npcRounds = Math.max(1, (enemy + weapon - 1) / weapon);
+                long hitsToDie = npcAttack > 0 ? (health + npcAttack - 1) / npcAttack : Long.MAX_VALUE;
+                long hitsToHeal = canHeal && npcAttack > 0 ? (health - healBelow) / npcAttack + 1 : Long.MAX_VALUE;
+                if (npcRounds - 1 < Math.min(hitsToDie, hitsToHeal)) {
+                    return lost + (npcRounds - 1) * npcAttack;
+                }
+
+                long hits = Math.min(hitsToDie, hitsToHeal);
+                long damage = Math.min(health, hits * npcAttack);
+                lost += damage;
+                health -= damage;
+                enemy -= hits * weapon;
+                if (health == 0) {
+                    if (--lives == 0) {
+                        return -lost - 1;
+                    }
+                    // resurrected, both back to their health before the fight
+                    health = playerHealth;
+                    enemy = npcHealth;
+                }
+            }
+        }
+
+        /**
+         * Plays the fight round by round.
+         *
+         * @param roll   the damage of a hit
+         * @param random the source of randomness
+         * @return the health the player lost if the fight was won, otherwise
+         *         minus one minus the health lost
+         */
+        long play(DamageRoll roll, SplittableRandom random) {
+            int health = playerHealth;
+            int enemy = npcHealth;
+            int lives = life;
+            int nextRecover = recovers.length - 1;
+            long lost = 0;
+            while (true) {
+                if (healBelow > 0 && nextRecover >= 0 && health < healBelow) {
+                    health = Math.min(maxHealth, health + recovers[nextRecover--]);
+                    continue;
+                }
+                enemy -= roll.roll(weapon, random);
+                if (enemy <= 0) {
+                    return lost;
+                }
+                int damage = Math.min(health, roll.roll(npcAttack, random));
+                lost += damage;
+                health -= damage;
+                if (health == 0) {
+                    if (--lives == 0) {
+                        return -lost - 1;
+                    }
+                    // resurrected, both back to their health before the fight
+                    health = playerHealth;
+                    enemy = npcHealth;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package engine.simulation;
+
+import engine.GameStatus;
+
+/**
+ * The outcome of one simulated game.
+ */
+public class GameResult {
+
+    /** Header of the CSV lines of results, see {@link #toCsv()}. */
+    public static final String CSV_HEADER = "seed,outcome,turns,life,health,damage_dealt,damage_taken,npcs_defeated";
+
+    private final long seed;
+    private final GameStatus status;
+    private final int turns;
+    private final int life;
+    private final int health;
+    private final long damageDealt;
+    private final long damageTaken;
+    private final int npcsDefeated;
+
+    /**
+     * Constructs the result of a game.
+     *
+     * @param seed         the seed of the game
+     * @param status       the status the game ended in
+     * @param turns        the number of actions taken
+     * @param life         the lives left
+     * @param health       the health of the player left
+     * @param damageDealt  the health the NPCs lost
+     * @param damageTaken  the health the player lost
+     * @param npcsDefeated the number of NPCs beaten
+     */
+    public GameResult(long seed, GameStatus status, int turns, int life, int health, long damageDealt,
+            long damageTaken, int npcsDefeated) {
+        this.seed = seed;
+        this.status = status;
+        this.turns = turns;
+        this.life = life;
+        this.health = health;
+        this.damageDealt = damageDealt;
+        this.damageTaken = damageTaken;
+        this.npcsDefeated = npcsDefeated;
+    }
+
+    /**
+     * Gets the seed of the game.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the status the game ended in, neither won nor lost if it ran out
+     * of turns.
+     *
+     * @return the status
+     */
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Checks if the game was won.
+     *
+     * @return true if the player arrived at the exit; false otherwise
+     */
+    public boolean isWon() {
+        return status == GameStatus.WIN;
+    }
+
+    /**
+     * Checks if the game was lost.
+     *
+     * @return true if the player ran out of lives; false otherwise
+     */
+    public boolean isLost() {
+        return status == GameStatus.LOSS;
+    }
+
+    /**
+     * Gets the number of actions taken.
+     *
+     * @return the number of turns
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Gets the lives left.
+     *
+     * @return the number of lives
+     */
+    public int getLife() {
+        return life;
+    }
+
+    /**
+     * Gets the health of the player left.
+     *
+     * @return the health
+     */
+    public int getHealth() {
+        return health;
+    }
+
+    /**
+     * Gets the health the NPCs lost.
+     *
+     * @return the damage dealt
+     */
+    public long getDamageDealt() {
+        return damageDealt;
+    }
+
+    /**
+     * Gets the health the player lost.
+     *
+     * @return the damage taken
+     */
+    public long getDamageTaken() {
+        return damageTaken;
+    }
+
+    /**
+     * Gets the number of NPCs beaten.
+     *
+     * @return the number of NPCs
+     */
+    public int getNpcsDefeated() {
+        return npcsDefeated;
+    }
+
+    /**
+     * Gets the outcome as a word.
+     *
+     * @return "win", "loss" or "unfinished"
+     */
+    public String getOutcome() {
+        if (isWon()) {
+            return "win";
+        }
+        return isLost() ? "loss" : "unfinished";
+    }
+
+    /**
+     * Formats the result as a CSV line, in the columns of {@link #CSV_HEADER}.
+     *
+     * @return the CSV line, without a line separator
+     */
+    public String toCsv() {
+        return seed + "," + getOutcome() + "," + turns + "," + life + "," + health + "," + damageDealt + ","
+                + damageTaken + "," + npcsDefeated;
+    }
+
+    /**
+     * Returns a string representation of the result.
+     *
+     * @return the result as a CSV line
+     */
+    @Override
+    public String toString() {
+        return toCsv();
+    }
+}
@@ -0,0 +1,65 @@
+package engine.simulation;
+
+import engine.GameState;
+import engine.GameStatus;
+import engine.item.Inventory;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A bot pressing random keys: it walks in random directions, fights or runs
+ * away from an NPC at random, picks a random weapon slot every round and takes
+ * every bonus it has room for.
+ * It plays the way a new player would, and finds states no careful player
+ * reaches.
+ */
+public class RandomBot implements BotPolicy {
+
+    /** The name this bot is chosen by. */
+    public static final String NAME = "random";
+
+    // Possible directions to move (up, right, down, left)
+    private static final int[] DIRECTION_X = { 0, 1, 0, -1 };
+    private static final int[] DIRECTION_Y = { -1, 0, 1, 0 };
+
+    /**
+     * Gets the name the bot is chosen by.
+     *
+     * @return the lowercase name of the bot
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Takes one random action for the current status of the game.
+     *
+     * @param gameState the game played, neither won nor lost
+     * @param random    the source of randomness
+     */
+    @Override
+    public void act(GameState gameState, RandomGenerator random) {
+        switch (gameState.getGameStatus()) {
+            case MEET_NPC -> {
+                if (random.nextBoolean()) {
+                    gameState.chooseToFightNPC();
+                } else {
+                    gameState.chooseToRunAwayNPC();
+                }
+            }
+            case FIGHTING -> gameState.fightNPC(random.nextInt(Inventory.maxWeaponNum) + 1);
+            case FIND_BONUS -> {
+                gameState.fetchBonus();
+                if (gameState.getGameStatus() == GameStatus.FIND_BONUS) {
+                    // no room left, leave the bonus
+                    gameState.dropBonus();
+                }
+            }
+            default -> {
+                int direction = random.nextInt(DIRECTION_X.length);
+                gameState.movePlayer(DIRECTION_X[direction], DIRECTION_Y[direction]);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package engine.simulation;
+
+import data.GameConfig;
+import engine.GameListener;
+import engine.GameState;
+import engine.GameStatus;
+import com.google.gson.JsonObject;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays complete games headless with a bot, for balancing the NPCs and for
+ * load testing.
+ * Every game is generated from its own seed and a copy of the same settings,
+ * and played by the bot until it is won, lost or runs out of turns. Games
+ * share nothing, so a batch spreads over a thread pool and the games per
+ * second grow with the number of cores.
+ */
+public class Simulator {
+
+    /** Turns a game is played for at most unless told otherwise. */
+    public static final int DEFAULT_MAX_TURNS = 100000;
+
+    private final GameConfig config;
+    private final BotPolicy bot;
+    private final int maxTurns;
+
+    /**
+     * Constructs a simulator.
+     *
+     * @param config   the settings of the games; each game gets a copy with
+     *                 its own seed
+     * @param bot      the bot playing the games
+     * @param maxTurns the number of actions after which a game is given up
+     * @throws IllegalArgumentException if maxTurns is not positive
+     */
+    public Simulator(GameConfig config, BotPolicy bot, int maxTurns) {
+        if (maxTurns <= 0) {
+            throw new IllegalArgumentException("Turns must be positive: " + maxTurns);
+        }
+        this.config = new GameConfig(config);
+        this.config.setReadConfigFromFile(false);
+        this.bot = bot;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @param seed the seed of the game and of the bot
+     * @return the result of the game
+     */
+    public GameResult play(long seed) {
+        GameConfig gameConfig = new GameConfig(config);
+        gameConfig.setSeed(seed);
+        GameState gameState = new GameState(gameConfig);
+        Recorder recorder = new Recorder();
+        gameState.setListener(recorder);
+        SplittableRandom random = new SplittableRandom(seed);
+        int npcs = gameState.getNpcsLeft();
+
+        int turns = 0;
+        while (turns < maxTurns && gameState.getGameStatus() != GameStatus.WIN
+                && gameState.getGameStatus() != GameStatus.LOSS) {
+            bot.act(gameState, random);
+            turns++;
+        }
+        return new GameResult(seed, gameState.getGameStatus(), turns, gameState.getLife(),
+                gameState.getEntityPlayer().getHealth(), recorder.damageDealt, recorder.damageTaken,
+                npcs - gameState.getNpcsLeft());
+    }
+
+    /**
+     * Plays a batch of games on a thread pool, the games numbered from the
+     * first seed on.
+     *
+     * @param games     the number of games
+     * @param firstSeed the seed of the first game
+     * @param threads   the number of threads
+     * @return the results in the order of the seeds
+     * @throws IllegalArgumentException if games is negative or threads is not
+     *                                  positive
+     * @throws IllegalStateException    if a game fails or the batch is
+     *                                  interrupted
+     */
+    public List<GameResult> run(int games, long firstSeed, int threads) {
+        if (games < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Invalid batch of " + games + " games on " + threads + " threads");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>(games);
+            for (int i = 0; i < games; i++) {
+                long seed = firstSeed + i;
+                futures.add(pool.submit(() -> play(seed)));
+            }
+            List<GameResult> results = new ArrayList<>(games);
+            for (Future<GameResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulated game failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Sums up a batch of results.
+     *
+     * @param results the results
+     * @return the number of games, wins, losses and unfinished games, the win
+     *         rate and the mean of every other column
+     */
+    public static JsonObject summarize(List<GameResult> results) {
+        int wins = 0;
+        int losses = 0;
+        long turns = 0;
+        long life = 0;
+        long health = 0;
+        long damageDealt = 0;
+        long damageTaken = 0;
+        long npcsDefeated = 0;
+        for (GameResult result : results) {
+            wins += result.isWon() ? 1 : 0;
+            losses += result.isLost() ? 1 : 0;
+            turns += result.getTurns();
+            life += result.getLife();
+            health += result.getHealth();
+            damageDealt += result.getDamageDealt();
+            damageTaken += result.getDamageTaken();
+            npcsDefeated += result.getNpcsDefeated();
+        }
+        int games = results.size();
+        double count = Math.max(1, games);
+
+        JsonObject summary = new JsonObject();
+        summary.addProperty("games", games);
+        summary.addProperty("wins", wins);
+        summary.addProperty("losses", losses);
+        summary.addProperty("unfinished", games - wins - losses);
+        summary.addProperty("win_rate", wins / count);
+        summary.addProperty("mean_turns", turns / count);
+        summary.addProperty("mean_life", life / count);
+        summary.addProperty("mean_health", health / count);
+        summary.addProperty("mean_damage_dealt", damageDealt / count);
+        summary.addProperty("mean_damage_taken", damageTaken / count);
+        summary.addProperty("mean_npcs_defeated", npcsDefeated / count);
+        return summary;
+    }
+
+    /**
+     * Writes a batch of results as CSV, a header and a line per game.
+     *
+     * @param results the results
+     * @param out     the stream written to
+     */
+    public static void writeCsv(List<GameResult> results, PrintStream out) {
+        out.println(GameResult.CSV_HEADER);
+        for (GameResult result : results) {
+            out.println(result.toCsv());
+        }
+        out.flush();
+    }
+
+    /**
+     * Adds up the fights of one game.
+     */
+    private static class Recorder implements GameListener {
+        long damageDealt;
+        long damageTaken;
+
+        /**
+         * Adds up the damage of a round.
+         *
+         * @param damageDealt the health the NPC lost
+         * @param damageTaken the health the player lost
+         */
+        @Override
+        public void onFightRound(int damageDealt, int damageTaken) {
+            this.damageDealt += damageDealt;
+            this.damageTaken += damageTaken;
+        }
+    }
+}
@@ -6,7 +6,9 @@ import data.ISerializable;
 /**
  * Represents a location with X and Y coordinates.
  * This class implements the ISerializable interface to provide serialization
- * and deserialization functionality.
+ * and deserialization functionality. The coordinates have no setters: a
+ * location handed out, like the one of an entity, is a snapshot, and things
+ * are moved through their owner.
  */
 public class Location implements ISerializable {
 
@@ -50,24 +52,6 @@ public class Location implements ISerializable {
         return locationY;
     }
 
-    /**
-     * Sets the X coordinate of the location.
-     *
-     * @param locationX the new X coordinate
-     */
-    public void setLocationX(int locationX) {
-        this.locationX = locationX;
-    }
-
-    /**
-     * Sets the Y coordinate of the location.
-     *
-     * @param locationY the new Y coordinate
-     */
-    public void setLocationY(int locationY) {
-        this.locationY = locationY;
-    }
-
     /**
      * Checks if the location is valid (i.e., not equal to the default invalid
      * coordinates).
@@ -0,0 +1,94 @@
+package utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An output stream which drops ANSI escape codes, for output which is piped
+ * or redirected instead of shown on a terminal.
+ * An escape code split over several writes is still dropped whole.
+ */
+public class PlainTextOutputStream extends FilterOutputStream {
+
+    private static final int ESCAPE = 0x1B;
+
+    // 0 in text, 1 after the escape character, 2 inside a control sequence
+    private int state;
+
+    /**
+     * Constructs a stream writing plain text to another stream.
+     *
+     * @param out the stream to write to
+     */
+    public PlainTextOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Writes a byte unless it belongs to an escape code.
+     *
+     * @param b the byte
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void write(int b) throws IOException {
+        if (keep(b & 0xFF)) {
+            out.write(b);
+        }
+    }
+
+    /**
+     * Writes the bytes which do not belong to escape codes, a run of text at a
+     * time.
+     *
+     * @param b   the bytes
+     * @param off the index of the first byte
+     * @param len the number of bytes
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off; i < off + len; i++) {
+            if (!keep(b[i] & 0xFF)) {
+                if (i > start) {
+                    out.write(b, start, i - start);
+                }
+                start = i + 1;
+            }
+        }
+        if (off + len > start) {
+            out.write(b, start, off + len - start);
+        }
+    }
+
+    /**
+     * Moves through an escape code.
+     *
+     * @param b the next byte
+     * @return true if the byte is text; false if it belongs to an escape code
+     */
+    private boolean keep(int b) {
+        switch (state) {
+            case 0 -> {
+                if (b == ESCAPE) {
+                    state = 1;
+                    return false;
+                }
+                return true;
+            }
+            case 1 -> {
+                state = b == '[' ? 2 : 0;
+                return false;
+            }
+            default -> {
+                // a control sequence ends with a byte from @ to ~
+                if (b >= '@' && b <= '~') {
+                    state = 0;
+                }
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import engine.BattleSummary;
+import engine.GameState;
+import engine.GameStatus;
+import engine.entity.EntityNPC;
+import engine.entity.EntityPlayer;
+import engine.item.Inventory;
+import engine.item.ItemRecover;
+import engine.item.ItemWeapon;
+import engine.level.EntityGrid;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the auto-battle of the GameState.
+ * It validates that a fight resolved at once ends exactly like the same fight
+ * played round by round, and that long fights are not played round by round.
+ */
+public class AutoBattleTest {
+
+    /**
+     * Builds a game whose player just met an NPC.
+     *
+     * @param npc      the NPC, placed right of the player
+     * @param weapons  the attack of the weapons in the inventory
+     * @param recovers the heal of the recovers in the inventory
+     * @param life     the lives of the player
+     * @return the game, meeting the NPC
+     */
+    private static GameState meet(EntityNPC npc, int[] weapons, int[] recovers, int life) {
+        GameState gameState = new GameState();
+        gameState.initialize();
+        gameState.spawnEntity(new EntityPlayer(new Location(0, 0)));
+        gameState.findPlayer();
+        gameState.setLife(life);
+        gameState.getMap().setGrid(1, 0, new EntityGrid(npc));
+        for (int weapon : weapons) {
+            gameState.getInventory().addWeapon(new ItemWeapon(new Location(), weapon));
+        }
+        for (int recover : recovers) {
+            gameState.getInventory().addRecover(new ItemRecover(new Location(), recover));
+        }
+        gameState.movePlayer(1, 0);
+        Assertions.assertEquals(GameStatus.MEET_NPC, gameState.getGameStatus());
+        return gameState;
+    }
+
+    /**
+     * Fights round by round the way the auto-battle does.
+     *
+     * @param gameState the game, meeting the NPC
+     * @param npc       the NPC met
+     * @param healBelow the health below which a recover is used
+     * @return the number of rounds fought
+     */
+    private static long fightByHand(GameState gameState, EntityNPC npc, int healBelow) {
+        Inventory inventory = gameState.getInventory();
+        long rounds = 0;
+        gameState.chooseToFightNPC();
+        while (true) {
+            int recover = inventory.findLargestRecover();
+            if (healBelow > 0 && recover != 0 && gameState.getEntityPlayer().getHealth() < healBelow) {
+                gameState.userRecover(recover);
+                continue;
+            }
+            gameState.fightNPC(inventory.findStrongestWeapon());
+            rounds++;
+            if (gameState.getGameStatus() == GameStatus.LOSS || npc.isDied()) {
+                return rounds;
+            }
+            if (gameState.getGameStatus() == GameStatus.READY_MOVE) {
+                // resurrected, fight again
+                gameState.chooseToFightNPC();
+            }
+        }
+    }
+
+    /**
+     * Test that the auto-battle ends every fight like fighting by hand: same
+     * rounds, winner, health, lives and recovers left.
+     */
+    @Test
+    void testSameAsFightingByHand() {
+        int[][] weaponSets = {{9}, {40, 25}, {100}};
+        int[][] recoverSets = {{}, {30}, {50, 80, 100}};
+        for (int npcHealth : new int[]{1, 50, 100, 250}) {
+            for (int npcAttack : new int[]{0, 7, 30, 120}) {
+                for (int[] weapons : weaponSets) {
+                    for (int[] recovers : recoverSets) {
+                        for (int life = 1; life <= 3; life++) {
+                            for (int healBelow : new int[]{0, 50}) {
+                                EntityNPC autoNPC = new EntityNPC(npcHealth, npcAttack, new Location(1, 0));
+                                GameState auto = meet(autoNPC, weapons, recovers, life);
+                                BattleSummary summary = auto.autoBattle(healBelow);
+
+                                EntityNPC handNPC = new EntityNPC(npcHealth, npcAttack, new Location(1, 0));
+                                GameState hand = meet(handNPC, weapons, recovers, life);
+                                long rounds = fightByHand(hand, handNPC, healBelow);
+
+                                String fight = npcHealth + "/" + npcAttack + " life " + life + " heal " + healBelow
+                                        + ": " + summary;
+                                Assertions.assertEquals(rounds, summary.getRounds(), fight);
+                                Assertions.assertEquals(hand.getGameStatus(), auto.getGameStatus(), fight);
+                                Assertions.assertEquals(handNPC.isDied(), summary.isNpcDefeated(), fight);
+                                Assertions.assertEquals(handNPC.getHealth(), autoNPC.getHealth(), fight);
+                                Assertions.assertEquals(hand.getEntityPlayer().getHealth(),
+                                        auto.getEntityPlayer().getHealth(), fight);
+                                Assertions.assertEquals(hand.getLife(), auto.getLife(), fight);
+                                Assertions.assertEquals(life - auto.getLife(), summary.getLivesLost(), fight);
+                                Assertions.assertEquals(hand.getInventory().serialize(),
+                                        auto.getInventory().serialize(), fight);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that a fight of billions of rounds is resolved at once, its rounds
+     * counted without being played.
+     */
+    @Test
+    void testLongFight() {
+        // two billion rounds to win against an NPC which never hurts
+        GameState won = meet(new EntityNPC(Integer.MAX_VALUE, 0, new Location(1, 0)), new int[]{1}, new int[]{}, 1);
+        BattleSummary winning = won.autoBattle(50);
+        Assertions.assertTrue(winning.isNpcDefeated());
+        Assertions.assertEquals(Integer.MAX_VALUE, winning.getRounds());
+        Assertions.assertEquals(Integer.MAX_VALUE, winning.getDamageDealt());
+        Assertions.assertEquals(0, winning.getDamageTaken());
+
+        EntityNPC npc = new EntityNPC(Integer.MAX_VALUE, 1, new Location(1, 0));
+        GameState gameState = meet(npc, new int[]{1}, new int[]{100, 100}, 1);
+        BattleSummary summary = gameState.autoBattle(50);
+
+        Assertions.assertFalse(summary.isNpcDefeated());
+        Assertions.assertEquals(GameStatus.LOSS, gameState.getGameStatus());
+        // 100 health, then two recovers taking it back to 100 at 49
+        Assertions.assertEquals(100 + 51 + 51, summary.getRounds());
+        Assertions.assertEquals(2, summary.getRecoversUsed());
+    }
+
+    /**
+     * Test that the player runs away without a weapon, and that there is no
+     * auto-battle without an NPC.
+     */
+    @Test
+    void testNoFight() {
+        EntityNPC npc = new EntityNPC(100, 10, new Location(1, 0));
+        GameState gameState = meet(npc, new int[]{}, new int[]{}, 1);
+        Assertions.assertEquals("ran away", gameState.autoBattle(0).toString());
+        Assertions.assertEquals(GameStatus.READY_MOVE, gameState.getGameStatus());
+        Assertions.assertThrows(IllegalStateException.class, () -> gameState.autoBattle(0));
+    }
+}
@@ -0,0 +1,186 @@
+import data.GameConfig;
+import engine.FrameBuffer;
+import engine.entity.EntityNPC;
+import engine.level.ChunkedTileStore;
+import engine.level.EntityGrid;
+import engine.level.GameMap;
+import engine.level.Tile;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+
+/**
+ * Test class for chunked worlds.
+ * It validates that chunks join into one maze, that evicted chunks keep their
+ * changes and that a GameMap far larger than memory can be used, saved and
+ * drawn.
+ */
+public class ChunkedMapTest {
+
+    /**
+     * Test that the chunks of a world form one perfect maze reaching the exit,
+     * also when the size is not a multiple of the chunk size.
+     */
+    @Test
+    void testChunksFormOneMaze() throws IOException {
+        ChunkedTileStore tiles = new ChunkedTileStore(300, 200, 11, Files.createTempDirectory("chunks"), 4);
+        int width = tiles.getWidth();
+        int height = tiles.getHeight();
+
+        boolean[] visited = new boolean[width * height];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        visited[0] = true;
+        queue.add(0);
+        int reached = 0;
+        int edges = 0;
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int x = cell % width;
+            int y = cell / width;
+            reached++;
+            int[][] neighbours = { { x + 1, y }, { x, y + 1 }, { x - 1, y }, { x, y - 1 } };
+            for (int[] next : neighbours) {
+                if (next[0] < 0 || next[0] >= width || next[1] < 0 || next[1] >= height
+                        || tiles.get(next[0], next[1]) == Tile.WALL) {
+                    continue;
+                }
+                edges++;
+                int index = next[1] * width + next[0];
+                if (!visited[index]) {
+                    visited[index] = true;
+                    queue.add(index);
+                }
+            }
+        }
+
+        int open = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (tiles.get(x, y) != Tile.WALL) {
+                    open++;
+                }
+            }
+        }
+        Assertions.assertEquals(open, reached, "every open cell should be reachable from the start");
+        Assertions.assertEquals(reached - 1, edges / 2, "the world should have no loops");
+        Assertions.assertTrue(visited[tiles.getExitY() * width + tiles.getExitX()], "exit should be reachable");
+        Assertions.assertEquals(Tile.EXIT, tiles.get(tiles.getExitX(), tiles.getExitY()));
+        Assertions.assertTrue(tiles.getCachedChunkCount() <= 4, "cache should stay within its size");
+    }
+
+    /**
+     * Test that a changed chunk is written when it is evicted and read back
+     * with the change, that the marks of entities and items are not written,
+     * and that unchanged chunks are generated again the same.
+     */
+    @Test
+    void testEvictedChunkKeepsChanges() throws IOException {
+        Path directory = Files.createTempDirectory("chunks");
+        ChunkedTileStore tiles = new ChunkedTileStore(640, 640, 3, directory, 2);
+        byte untouched = tiles.get(300, 300);
+
+        // a wall between lattice cells opened, and an item on the start
+        tiles.set(1, 1, Tile.EMPTY);
+        tiles.set(0, 0, Tile.ITEM);
+        tiles.get(100, 0);
+        tiles.get(200, 0);
+        tiles.get(300, 0);
+        Assertions.assertEquals(2, tiles.getCachedChunkCount(), "old chunks should be evicted");
+        Assertions.assertTrue(Files.exists(directory.resolve("3_0_0.chunk")), "changed chunk should be written");
+        Assertions.assertEquals(Tile.EMPTY, tiles.get(1, 1), "change should be read back");
+        Assertions.assertEquals(Tile.EMPTY, tiles.get(0, 0), "item mark should not be written");
+
+        ChunkedTileStore reopened = new ChunkedTileStore(640, 640, 3, directory, 2);
+        Assertions.assertEquals(Tile.EMPTY, reopened.get(1, 1), "change should survive reopening");
+        Assertions.assertEquals(Tile.EMPTY, reopened.get(0, 0), "item mark should not survive reopening");
+        Assertions.assertEquals(untouched, reopened.get(300, 300), "unchanged chunks should regenerate the same");
+    }
+
+    /**
+     * Test that an NPC on a chunked map is still met after its chunk was
+     * evicted and loaded again, and that a map reopened from the chunks
+     * without a save has no NPC mark left.
+     */
+    @Test
+    void testOccupantsSurviveEviction() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setMapChunkDirectory(Files.createTempDirectory("chunks").toString());
+        config.setMapChunkCache(2);
+        GameMap gameMap = new GameMap(config, 1000, 1000);
+        gameMap.generate(9);
+        EntityNPC npc = new EntityNPC(100, 10, new Location(2, 0));
+        gameMap.setGrid(2, 0, new EntityGrid(npc));
+        // a wall change in the same chunk, so it is written when evicted
+        gameMap.setGridEmpty(1, 1);
+
+        for (int x = 100; x < 1000; x += 100) {
+            gameMap.isTargetPositionCanMove(x, 500);
+        }
+        Assertions.assertTrue(gameMap.isEnemy(2, 0), "NPC should be marked again");
+        Assertions.assertSame(npc, gameMap.getEntity(2, 0));
+        Assertions.assertTrue(gameMap.isTargetPositionCanMove(1, 1), "wall change should be kept");
+
+        GameMap reopened = new GameMap(config, 1000, 1000);
+        reopened.generate(9);
+        Assertions.assertFalse(reopened.isEnemy(2, 0), "no NPC mark without its NPC");
+        Assertions.assertNull(reopened.getEntity(2, 0));
+        Assertions.assertTrue(reopened.isTargetPositionCanMove(1, 1));
+    }
+
+    /**
+     * Test that a chunked GameMap larger than an array can hold is generated,
+     * changed and saved, and that the save reopens it with the change.
+     */
+    @Test
+    void testChunkedGameMap() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setMapChunkDirectory(Files.createTempDirectory("chunks").toString());
+        GameMap gameMap = new GameMap(config, 100000, 100000);
+        gameMap.generate(5);
+        Assertions.assertTrue(gameMap.isChunked());
+        Assertions.assertEquals(0, gameMap.getStartLocation().getLocationX());
+        Assertions.assertTrue(gameMap.isExit(99998, 99998), "exit should be the last lattice cell");
+
+        // a wall between lattice cells in a far chunk
+        int x = 50001;
+        int y = 50001;
+        Assertions.assertFalse(gameMap.isTargetPositionCanMove(x, y));
+        gameMap.setGridEmpty(x, y);
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.deserialize(gameMap.serialize());
+        Assertions.assertEquals(100000, newGameMap.getWidth());
+        Assertions.assertTrue(newGameMap.isTargetPositionCanMove(x, y), "saved change should be loaded");
+        Assertions.assertTrue(newGameMap.isExit(99998, 99998));
+    }
+
+    /**
+     * Test that a camera on a chunked world draws only its view, loading just
+     * the chunks under it whatever the size of the world.
+     */
+    @Test
+    void testCameraOnChunkedWorld() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setMapChunkDirectory(Files.createTempDirectory("chunks").toString());
+        GameMap gameMap = new GameMap(config, 100000, 100000);
+        gameMap.generate(5);
+        FrameBuffer frame = new FrameBuffer();
+        int cached = gameMap.getCachedChunkCount();
+        gameMap.render(frame, 50001, 50001, 60, 20);
+        // the view and its border span two chunks across and one down
+        Assertions.assertEquals(cached + 2, gameMap.getCachedChunkCount());
+
+        String[] lines = frame.toString().replaceAll("\u001B\\[[0-9;]*m", "").split(System.lineSeparator());
+        Assertions.assertEquals(22, lines.length, "view and borders");
+        for (String line : lines) {
+            Assertions.assertEquals(62, line.length());
+        }
+        // the view starts 30 columns and 10 rows before the center
+        Assertions.assertEquals(gameMap.isTargetPositionCanMove(49971, 49991) ? ' ' : '#', lines[1].charAt(1));
+    }
+}
@@ -0,0 +1,161 @@
+import engine.item.ItemWeapon;
+import engine.level.ConnectivityIndex;
+import engine.level.GameMap;
+import engine.level.ItemGrid;
+import engine.level.WallGrid;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the ConnectivityIndex and the reachability checks of the
+ * GameMap.
+ * It validates the regions against a flood fill, also while cells change,
+ * and that maps with unreachable cells are reported, also without an index.
+ */
+public class ConnectivityIndexTest {
+
+    /**
+     * Test that cells share a region exactly when a flood fill connects them,
+     * while walls are added and removed.
+     */
+    @Test
+    void testRegionsMatchFloodFill() {
+        SplittableRandom random = new SplittableRandom(9);
+        GameMap gameMap = new GameMap(80, 50);
+        for (int i = 0; i < 80 * 50 * 2 / 5; i++) {
+            gameMap.setGrid(random.nextInt(80), random.nextInt(50), new WallGrid());
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int query = 0; query < 50; query++) {
+                int fromX = random.nextInt(80);
+                int fromY = random.nextInt(50);
+                int toX = random.nextInt(80);
+                int toY = random.nextInt(50);
+                Assertions.assertEquals(floodFill(gameMap, fromX, fromY, toX, toY),
+                        gameMap.isReachable(fromX, fromY, toX, toY), fromX + "," + fromY + " to " + toX + "," + toY);
+            }
+            for (int i = 0; i < 200; i++) {
+                int x = random.nextInt(80);
+                int y = random.nextInt(50);
+                if (round % 2 == 0) {
+                    gameMap.setGridEmpty(x, y);
+                } else {
+                    gameMap.setGrid(x, y, new WallGrid());
+                }
+            }
+        }
+
+        ConnectivityIndex index = new ConnectivityIndex(gameMap.getWalkability());
+        Assertions.assertTrue(index.getRegionCount() > 1, "scattered walls should leave closed pockets");
+        Assertions.assertEquals(-1, index.getRegion(-1, 0), "outside the map is no region");
+    }
+
+    /**
+     * Test that a map opened from a map file, which keeps no connectivity
+     * index, still reports an exit and an item walled off from the start.
+     */
+    @Test
+    void testUnreachableOnMapFile() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        GameMap written = new GameMap(501, 501);
+        written.generate(3);
+        written.saveMapFile(file);
+        GameMap gameMap = new GameMap();
+        gameMap.loadMapFile(file);
+        Files.delete(file);
+        Assertions.assertTrue(gameMap.findUnreachable().isEmpty(), "a generated maze reaches its exit");
+
+        Location start = gameMap.getStartLocation();
+        Location exit = gameMap.getExitLocation();
+        for (int y = 0; y < 501; y++) {
+            for (int x = 0; x < 501; x++) {
+                if (Math.abs(x - start.getLocationX()) + Math.abs(y - start.getLocationY()) == 3) {
+                    gameMap.setGrid(x, y, new WallGrid());
+                }
+            }
+        }
+        gameMap.setGrid(250, 250, new ItemGrid(new ItemWeapon(new Location(250, 250), 10)));
+
+        List<Location> unreachable = gameMap.findUnreachable();
+        Assertions.assertTrue(unreachable.contains(exit));
+        Assertions.assertTrue(unreachable.contains(new Location(250, 250)));
+    }
+
+    /**
+     * Test that an exit and an item walled off from the start are reported,
+     * and that a save with an unreachable exit is rejected.
+     */
+    @Test
+    void testUnreachableCellsReported() {
+        GameMap gameMap = new GameMap(10, 10);
+        gameMap.generate(2);
+        Assertions.assertTrue(gameMap.findUnreachable().isEmpty(), "a generated maze reaches its exit");
+
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                gameMap.setGrid(x, y, new WallGrid());
+            }
+        }
+        Location start = gameMap.getStartLocation();
+        Location exit = gameMap.getExitLocation();
+        gameMap.setGridEmpty(start.getLocationX(), start.getLocationY());
+        gameMap.setGridEmpty(exit.getLocationX(), exit.getLocationY());
+        gameMap.setGrid(0, 9, new ItemGrid(new ItemWeapon(new Location(0, 9), 10)));
+
+        List<Location> unreachable = gameMap.findUnreachable();
+        Assertions.assertTrue(unreachable.contains(exit));
+        Assertions.assertTrue(unreachable.contains(new Location(0, 9)));
+        Assertions.assertThrows(IllegalArgumentException.class, gameMap::validateReachability);
+
+        String data = "{\"width\": 3, \"height\": 1, \"walls\": \"Ag==\","
+                + "\"start\": \"{\\\"locationX\\\": 0, \\\"locationY\\\": 0}\","
+                + "\"exit\": \"{\\\"locationX\\\": 2, \\\"locationY\\\": 0}\"}";
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameMap().deserialize(data),
+                "a wall between start and exit should be rejected");
+    }
+
+    /**
+     * Checks with a flood fill whether one cell can be reached from another.
+     *
+     * @param gameMap the map
+     * @param fromX   The x-coordinate of the first cell.
+     * @param fromY   The y-coordinate of the first cell.
+     * @param toX     The x-coordinate of the second cell.
+     * @param toY     The y-coordinate of the second cell.
+     * @return true if both cells are walkable and connected; false otherwise
+     */
+    private static boolean floodFill(GameMap gameMap, int fromX, int fromY, int toX, int toY) {
+        if (!gameMap.isTargetPositionCanMove(fromX, fromY) || !gameMap.isTargetPositionCanMove(toX, toY)) {
+            return false;
+        }
+        int width = gameMap.getWidth();
+        boolean[] visited = new boolean[width * gameMap.getHeight()];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        visited[fromY * width + fromX] = true;
+        queue.add(new int[] { fromX, fromY });
+        int[][] directions = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            if (cell[0] == toX && cell[1] == toY) {
+                return true;
+            }
+            for (int[] direction : directions) {
+                int x = cell[0] + direction[0];
+                int y = cell[1] + direction[1];
+                if (gameMap.isTargetPositionCanMove(x, y) && !visited[y * width + x]) {
+                    visited[y * width + x] = true;
+                    queue.add(new int[] { x, y });
+                }
+            }
+        }
+        return false;
+    }
+}
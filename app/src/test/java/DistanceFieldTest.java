@@ -0,0 +1,165 @@
+import engine.level.ArrayTileStore;
+import engine.level.DistanceField;
+import engine.level.GameMap;
+import engine.level.Tile;
+import engine.level.WalkabilityLayer;
+import engine.level.WallGrid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for the distance field of the GameMap.
+ * It validates the steps to the exit against a breadth-first search, also
+ * after walls are added and removed.
+ */
+public class DistanceFieldTest {
+
+    /**
+     * Test that the steps to the exit stay equal to a fresh search while walls
+     * are added and removed at random.
+     */
+    @Test
+    void testFieldFollowsEdits() {
+        GameMap gameMap = new GameMap(61, 41);
+        gameMap.generate(21);
+        assertMatchesSearch(gameMap);
+
+        Random random = new Random(4);
+        int exitX = gameMap.getExitLocation().getLocationX();
+        int exitY = gameMap.getExitLocation().getLocationY();
+        for (int edit = 0; edit < 300; edit++) {
+            int x = random.nextInt(61);
+            int y = random.nextInt(41);
+            if (x == exitX && y == exitY) {
+                continue;
+            }
+            if (gameMap.isTargetPositionCanMove(x, y)) {
+                gameMap.setGrid(x, y, new WallGrid());
+            } else {
+                gameMap.setGridEmpty(x, y);
+            }
+            if (edit % 30 == 0) {
+                assertMatchesSearch(gameMap);
+            }
+        }
+        assertMatchesSearch(gameMap);
+    }
+
+    /**
+     * Test that a region walled off from the exit becomes unreachable and is
+     * reached again once the wall opens.
+     */
+    @Test
+    void testWalledOffRegion() {
+        GameMap gameMap = new GameMap(10, 10);
+        gameMap.generate(3);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                gameMap.setGridEmpty(x, y);
+            }
+        }
+        int exitX = gameMap.getExitLocation().getLocationX();
+        int exitY = gameMap.getExitLocation().getLocationY();
+        Assertions.assertEquals(Math.abs(exitX) + Math.abs(exitY), gameMap.getStepsToExit(0, 0));
+
+        // a wall around the far corner cell
+        gameMap.setGrid(8, 9, new WallGrid());
+        gameMap.setGrid(9, 8, new WallGrid());
+        gameMap.setGrid(8, 8, new WallGrid());
+        Assertions.assertEquals(-1, gameMap.getStepsToExit(9, 9));
+        Assertions.assertEquals(-1, gameMap.getStepsToExit(8, 8), "a wall should be unreachable");
+        assertMatchesSearch(gameMap);
+
+        gameMap.setGridEmpty(9, 8);
+        assertMatchesSearch(gameMap);
+        Assertions.assertNotEquals(-1, gameMap.getStepsToExit(9, 9));
+    }
+
+    /**
+     * Test that a wall added to an open map only searches again the cells
+     * which lost their shortest way, not everything behind the wall.
+     */
+    @Test
+    void testEditOnOpenMapStaysLocal() {
+        int size = 1000;
+        ArrayTileStore tiles = new ArrayTileStore(size, size);
+        WalkabilityLayer walkability = new WalkabilityLayer(tiles);
+        DistanceField field = new DistanceField(walkability, 0, 0);
+
+        // every cell keeps its distance around a single wall
+        Assertions.assertEquals(0, wall(tiles, walkability, field, 500, 500));
+        Assertions.assertEquals(1001, field.get(500, 501));
+
+        // scattered walls leave the other ways to the goal open
+        Random random = new Random(5);
+        int recomputed = 0;
+        for (int edit = 0; edit < 200; edit++) {
+            recomputed += wall(tiles, walkability, field, 1 + random.nextInt(size - 1), 1 + random.nextInt(size - 1));
+        }
+        Assertions.assertTrue(recomputed < 1000, "recomputed " + recomputed + " cells");
+
+        DistanceField rebuilt = new DistanceField(walkability, 0, 0);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                Assertions.assertEquals(rebuilt.get(x, y), field.get(x, y), "steps at " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * Turns a cell into a wall and updates the field.
+     *
+     * @param tiles       the tiles of the map
+     * @param walkability the walkable cells of the map
+     * @param field       the field to update
+     * @param x           The x-coordinate of the cell.
+     * @param y           The y-coordinate of the cell.
+     * @return the number of cells searched again
+     */
+    private static int wall(ArrayTileStore tiles, WalkabilityLayer walkability, DistanceField field, int x, int y) {
+        tiles.set(x, y, Tile.WALL);
+        walkability.set(x, y, false);
+        return field.update(x, y);
+    }
+
+    /**
+     * Asserts that the steps to the exit of every cell match a breadth-first
+     * search from the exit.
+     *
+     * @param gameMap the map to check
+     */
+    private static void assertMatchesSearch(GameMap gameMap) {
+        int width = gameMap.getWidth();
+        int height = gameMap.getHeight();
+        int[] distances = new int[width * height];
+        Arrays.fill(distances, -1);
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        int exitX = gameMap.getExitLocation().getLocationX();
+        int exitY = gameMap.getExitLocation().getLocationY();
+        distances[exitY * width + exitX] = 0;
+        queue.add(new int[] { exitX, exitY });
+        int[][] directions = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+        while (!queue.isEmpty()) {
+            int[] cell = queue.poll();
+            for (int[] direction : directions) {
+                int x = cell[0] + direction[0];
+                int y = cell[1] + direction[1];
+                if (x >= 0 && x < width && y >= 0 && y < height && gameMap.isTargetPositionCanMove(x, y)
+                        && distances[y * width + x] == -1) {
+                    distances[y * width + x] = distances[cell[1] * width + cell[0]] + 1;
+                    queue.add(new int[] { x, y });
+                }
+            }
+        }
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Assertions.assertEquals(distances[y * width + x], gameMap.getStepsToExit(x, y),
+                        "steps to exit at " + x + "," + y);
+            }
+        }
+    }
+}
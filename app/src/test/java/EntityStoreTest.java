@@ -0,0 +1,179 @@
+import data.GameConfig;
+import engine.GameState;
+import engine.entity.Entity;
+import engine.entity.EntityNPC;
+import engine.entity.EntityPlayer;
+import engine.entity.EntityStore;
+import engine.entity.EntityType;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Test class for the EntityStore.
+ * It validates that entity ids stay stable as entities come and go, that
+ * entities are views of the store, and that many NPCs are generated and
+ * updated at once.
+ */
+public class EntityStoreTest {
+
+    /**
+     * Test that ids keep their entity when others are added and removed, that
+     * a removed id is given out again and that unknown ids are rejected.
+     */
+    @Test
+    void testStableIds() {
+        EntityStore store = new EntityStore(1);
+        int first = store.add(100, 10, 1, 2, EntityType.ENEMY);
+        int second = store.add(50, 5, 3, 4, EntityType.PLAYER);
+        int third = store.add(30, 3, 5, 6, EntityType.ENEMY);
+        Assertions.assertEquals(3, store.size());
+
+        store.remove(second);
+        Assertions.assertFalse(store.contains(second));
+        Assertions.assertEquals(2, store.size());
+        Assertions.assertEquals(100, store.getHealth(first));
+        Assertions.assertEquals(5, store.getLocationX(third));
+        Assertions.assertEquals(6, store.getLocationY(third));
+
+        int fourth = store.add(70, 7, 7, 8, EntityType.NONE);
+        Assertions.assertEquals(second, fourth);
+        Assertions.assertEquals(EntityType.NONE, store.getType(fourth));
+        Assertions.assertEquals(70, store.getHealth(fourth));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.remove(42));
+        store.remove(third);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.getType(third));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.getHealth(third));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.setLocation(third, 0, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> store.getAttack(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new EntityStore(-1));
+    }
+
+    /**
+     * Test that an entity reads and writes the store, and keeps its state when
+     * moved to another store.
+     */
+    @Test
+    void testEntityIsView() {
+        EntityStore store = new EntityStore();
+        EntityNPC npc = new EntityNPC(store, 100, 10, new Location(4, 1));
+        npc.damage(30);
+        npc.setLocation(5, 1);
+        Assertions.assertEquals(70, store.getHealth(npc.getId()));
+        Assertions.assertEquals(new Location(5, 1), npc.getLocation());
+
+        Entity loose = new Entity(50, 5, new Location(0, 0), EntityType.ENEMY);
+        loose.damage(20);
+        loose.setPreFightHealth();
+        EntityStore oldStore = loose.getStore();
+        int oldId = loose.getId();
+        Assertions.assertSame(oldStore, new EntityNPC(1, 1, new Location()).getStore(), "loose entities share");
+        loose.moveTo(store);
+        Assertions.assertSame(store, loose.getStore());
+        Assertions.assertFalse(oldStore.contains(oldId));
+        Assertions.assertEquals(2, store.size());
+        loose.damage(30);
+        loose.recover();
+        Assertions.assertEquals(30, loose.getHealth());
+        Assertions.assertEquals(50, loose.getMaxHealth());
+        Assertions.assertEquals(new Location(0, 0), loose.getLocation());
+    }
+
+    /**
+     * Test that the entities of a game, generated or spawned, share its store.
+     */
+    @Test
+    void testGameSharesStore() {
+        GameConfig config = new GameConfig();
+        config.setReadConfigFromFile(false);
+        config.setSeed(7L);
+        config.setRandomPlacement(true);
+        config.setNpcCount(10);
+        config.setNpcStrength(100, 10);
+        GameState gameState = new GameState(config);
+        EntityStore store = gameState.getEntityStore();
+        Assertions.assertEquals(gameState.getEntities().size(), store.size());
+        for (Entity entity : gameState.getEntities()) {
+            Assertions.assertSame(store, entity.getStore());
+        }
+        Assertions.assertEquals(10, store.countAlive(EntityType.ENEMY));
+
+        gameState.spawnEntity(new EntityNPC(1, 1, new Location(0, 0)));
+        Assertions.assertEquals(11, store.countAlive(EntityType.ENEMY));
+    }
+
+    /**
+     * Test that the living NPCs of a game recover health each time the player
+     * moves, and that the NPCs left are counted from the store.
+     */
+    @Test
+    void testNpcsRegenerate() {
+        GameConfig config = new GameConfig();
+        config.setNpcRegeneration(5);
+        GameState gameState = new GameState(config);
+        gameState.initialize();
+        gameState.spawnEntity(new EntityPlayer(new Location(0, 0)));
+        gameState.findPlayer();
+        EntityNPC hurt = new EntityNPC(100, 10, new Location(5, 5));
+        EntityNPC dead = new EntityNPC(100, 10, new Location(6, 5));
+        gameState.spawnEntity(hurt);
+        gameState.spawnEntity(dead);
+        hurt.damage(50);
+        dead.damage(100);
+        Assertions.assertEquals(1, gameState.getNpcsLeft());
+
+        gameState.movePlayer(1, 0);
+        Assertions.assertEquals(55, hurt.getHealth());
+        Assertions.assertEquals(0, dead.getHealth());
+        Assertions.assertEquals(100, gameState.getEntityPlayer().getHealth());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setNpcRegeneration(-1));
+    }
+
+    /**
+     * Test that a game with a hundred thousand NPCs puts each on its own free
+     * cell, checking the cells taken without going over every NPC.
+     */
+    @Test
+    void testGenerateManyNPCs() {
+        GameConfig config = new GameConfig();
+        config.setReadConfigFromFile(false);
+        config.setSeed(11L);
+        config.setMapSize(1001, 1001);
+        config.setRandomPlacement(true);
+        config.setNpcCount(100_000);
+        config.setNpcStrength(100, 10);
+        GameState gameState = new GameState(config);
+
+        Set<Long> cells = new HashSet<>();
+        for (Entity entity : gameState.getEntities()) {
+            long cell = ((long) entity.getLocationX() << 32) | entity.getLocationY();
+            Assertions.assertTrue(cells.add(cell), entity.getLocation().toString());
+            Assertions.assertFalse(gameState.getMap().isExit(entity.getLocationX(), entity.getLocationY()));
+        }
+        Assertions.assertEquals(100_000, gameState.getEntityStore().countAlive(EntityType.ENEMY));
+    }
+
+    /**
+     * Test that healing a million NPCs at once heals every living one, leaves
+     * the dead dead and stops at the maximum health.
+     */
+    @Test
+    void testHealMillionNPCs() {
+        int count = 1_000_000;
+        EntityStore store = new EntityStore(count);
+        for (int i = 0; i < count; i++) {
+            int id = store.add(100, 10, i % 1000, i / 1000, EntityType.ENEMY);
+            store.setHealth(id, i % 100);
+        }
+        store.healAll(EntityType.ENEMY, 5);
+
+        for (int id = 0; id < count; id++) {
+            int health = id % 100;
+            Assertions.assertEquals(health == 0 ? 0 : Math.min(100, health + 5), store.getHealth(id));
+        }
+        Assertions.assertEquals(count - count / 100, store.countAlive(EntityType.ENEMY));
+    }
+}
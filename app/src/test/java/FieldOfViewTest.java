@@ -0,0 +1,95 @@
+import engine.level.FieldOfView;
+import engine.level.GameMap;
+import engine.level.WallGrid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the FieldOfView.
+ * It validates that the view is symmetric and blocked by walls, that it is
+ * only computed again when needed and that explored cells are saved with the
+ * map.
+ */
+public class FieldOfViewTest {
+
+    /**
+     * Test that on an open map the viewer sees the whole circle, and that a
+     * wall hides the cells behind it but not itself.
+     */
+    @Test
+    void testOpenMapAndWall() {
+        GameMap gameMap = new GameMap(40, 40);
+        FieldOfView view = new FieldOfView(gameMap, 8);
+        view.update(20, 20);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 40; x++) {
+                int distance = (x - 20) * (x - 20) + (y - 20) * (y - 20);
+                Assertions.assertEquals(distance <= 8 * 9, view.isVisible(x, y), x + "," + y);
+            }
+        }
+
+        gameMap.setGrid(23, 20, new WallGrid());
+        view.invalidate(23, 20);
+        Assertions.assertTrue(view.isVisible(25, 20), "the view is kept until asked again");
+        view.refresh();
+        Assertions.assertTrue(view.isVisible(23, 20), "the wall itself should be seen");
+        Assertions.assertFalse(view.isVisible(25, 20), "the wall should hide the cells behind it");
+        Assertions.assertTrue(view.isExplored(25, 20), "seen cells stay explored");
+        Assertions.assertFalse(view.update(20, 20), "an unchanged view should not be computed again");
+        Assertions.assertTrue(view.update(21, 20));
+    }
+
+    /**
+     * Test that a floor cell sees another exactly when the other sees it.
+     */
+    @Test
+    void testSymmetry() {
+        SplittableRandom random = new SplittableRandom(5);
+        GameMap gameMap = new GameMap(30, 30);
+        for (int i = 0; i < 30 * 30 / 4; i++) {
+            gameMap.setGrid(random.nextInt(30), random.nextInt(30), new WallGrid());
+        }
+        FieldOfView first = new FieldOfView(gameMap, 10);
+        FieldOfView second = new FieldOfView(gameMap, 10);
+        for (int pair = 0; pair < 2000; pair++) {
+            int fromX = random.nextInt(30);
+            int fromY = random.nextInt(30);
+            int toX = fromX + random.nextInt(13) - 6;
+            int toY = fromY + random.nextInt(13) - 6;
+            if (!gameMap.isTargetPositionCanMove(fromX, fromY) || !gameMap.isTargetPositionCanMove(toX, toY)) {
+                continue;
+            }
+            first.update(fromX, fromY);
+            second.update(toX, toY);
+            Assertions.assertEquals(first.isVisible(toX, toY), second.isVisible(fromX, fromY),
+                    fromX + "," + fromY + " and " + toX + "," + toY);
+        }
+    }
+
+    /**
+     * Test that the cells explored by the player follow changes of the map
+     * and are saved with it.
+     */
+    @Test
+    void testExploredIsSaved() {
+        GameMap gameMap = new GameMap(100, 80);
+        gameMap.generate(4);
+        gameMap.updateView(gameMap.getStartLocation().getLocationX(), gameMap.getStartLocation().getLocationY());
+        gameMap.updateView(gameMap.getExitLocation().getLocationX(), gameMap.getExitLocation().getLocationY());
+        long explored = gameMap.getFieldOfView().getExploredCount();
+        Assertions.assertTrue(explored > 0);
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.deserialize(gameMap.serialize());
+        Assertions.assertEquals(explored, newGameMap.getFieldOfView().getExploredCount());
+        for (int y = 0; y < 80; y++) {
+            for (int x = 0; x < 100; x++) {
+                Assertions.assertEquals(gameMap.getFieldOfView().isExplored(x, y),
+                        newGameMap.getFieldOfView().isExplored(x, y));
+            }
+        }
+        Assertions.assertFalse(newGameMap.getFieldOfView().hasOrigin(), "the player is placed after loading");
+    }
+}
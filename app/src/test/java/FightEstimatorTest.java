@@ -0,0 +1,135 @@
+import engine.BattleSummary;
+import engine.FightEstimate;
+import engine.GameState;
+import engine.GameStatus;
+import engine.entity.EntityNPC;
+import engine.entity.EntityPlayer;
+import engine.item.ItemRecover;
+import engine.item.ItemWeapon;
+import engine.level.EntityGrid;
+import engine.simulation.DamageRoll;
+import engine.simulation.FightEstimator;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the FightEstimator.
+ * It validates that the estimate of a fight with fixed damage is the fight the
+ * auto-battle plays, and that estimates from variable damage are repeatable.
+ */
+public class FightEstimatorTest {
+
+    /**
+     * Builds a game whose player just met an NPC.
+     *
+     * @param npc      the NPC, placed right of the player
+     * @param weapons  the attack of the weapons in the inventory
+     * @param recovers the heal of the recovers in the inventory
+     * @param life     the lives of the player
+     * @return the game, meeting the NPC
+     */
+    private static GameState meet(EntityNPC npc, int[] weapons, int[] recovers, int life) {
+        GameState gameState = new GameState();
+        gameState.initialize();
+        gameState.spawnEntity(new EntityPlayer(new Location(0, 0)));
+        gameState.findPlayer();
+        gameState.setLife(life);
+        gameState.getMap().setGrid(1, 0, new EntityGrid(npc));
+        for (int weapon : weapons) {
+            gameState.getInventory().addWeapon(new ItemWeapon(new Location(), weapon));
+        }
+        for (int recover : recovers) {
+            gameState.getInventory().addRecover(new ItemRecover(new Location(), recover));
+        }
+        gameState.movePlayer(1, 0);
+        Assertions.assertEquals(GameStatus.MEET_NPC, gameState.getGameStatus());
+        return gameState;
+    }
+
+    /**
+     * Test that with fixed damage the estimate is the outcome of the
+     * auto-battle, won or lost with the same health lost.
+     */
+    @Test
+    void testFixedDamageMatchesAutoBattle() {
+        FightEstimator estimator = new FightEstimator(DamageRoll.FIXED, 1000);
+        for (int npcHealth : new int[]{1, 50, 250}) {
+            for (int npcAttack : new int[]{0, 7, 30, 120}) {
+                for (int life = 1; life <= 3; life++) {
+                    for (int healBelow : new int[]{0, 50}) {
+                        GameState gameState = meet(new EntityNPC(npcHealth, npcAttack, new Location(1, 0)),
+                                new int[]{9, 40}, new int[]{30, 100}, life);
+                        FightEstimate estimate = estimator.estimate(gameState, healBelow, 0);
+                        BattleSummary summary = gameState.autoBattle(healBelow);
+
+                        String fight = npcHealth + "/" + npcAttack + " life " + life + " heal " + healBelow + ": "
+                                + summary;
+                        Assertions.assertEquals(1, estimate.getSamples(), fight);
+                        Assertions.assertEquals(summary.isNpcDefeated() ? 1.0 : 0.0, estimate.getWinProbability(),
+                                fight);
+                        Assertions.assertEquals((double) summary.getDamageTaken(), estimate.getExpectedHealthLost(),
+                                fight);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that variable damage makes a close fight uncertain, and that the
+     * same seed gives the same estimate.
+     */
+    @Test
+    void testSpreadDamage() {
+        FightEstimator estimator = new FightEstimator(DamageRoll.spread(50), 5000);
+        // 10 hits each way, the player strikes first
+        GameState gameState = meet(new EntityNPC(100, 10, new Location(1, 0)), new int[]{10}, new int[]{}, 1);
+        FightEstimate estimate = estimator.estimate(gameState, 0, 42);
+
+        Assertions.assertEquals(5000, estimate.getSamples());
+        Assertions.assertTrue(estimate.getWinProbability() > 0.2 && estimate.getWinProbability() < 0.9,
+                estimate.toString());
+        Assertions.assertTrue(estimate.getExpectedHealthLost() > 0, estimate.toString());
+        Assertions.assertEquals(estimate.toString(), estimator.estimate(gameState, 0, 42).toString());
+        // the estimate leaves the game alone
+        Assertions.assertEquals(GameStatus.MEET_NPC, gameState.getGameStatus());
+        Assertions.assertEquals(100, gameState.getEntityPlayer().getHealth());
+    }
+
+    /**
+     * Test that a fixed damage fight of billions of rounds is worked out at
+     * once, and that every sample of a spread damage estimate is played.
+     */
+    @Test
+    void testLongFight() {
+        // two billion rounds to win against an NPC which never hurts
+        GameState gameState = meet(new EntityNPC(Integer.MAX_VALUE, 0, new Location(1, 0)), new int[]{1},
+                new int[]{}, 1);
+        FightEstimate estimate = new FightEstimator(DamageRoll.FIXED, 20000).estimate(gameState, 50, 0);
+        Assertions.assertEquals(1, estimate.getSamples());
+        Assertions.assertEquals(1.0, estimate.getWinProbability());
+        Assertions.assertEquals(0.0, estimate.getExpectedHealthLost());
+
+        // samples spread over several batches
+        gameState = meet(new EntityNPC(300, 20, new Location(1, 0)), new int[]{25}, new int[]{50, 80}, 3);
+        FightEstimator estimator = new FightEstimator(DamageRoll.spread(30), 20000);
+        estimate = estimator.estimate(gameState, 50, 1);
+        Assertions.assertEquals(20000, estimate.getSamples());
+        Assertions.assertEquals(estimate.toString(), estimator.estimate(gameState, 50, 1).toString());
+    }
+
+    /**
+     * Test that there is no estimate without a weapon, and that the samples
+     * and spread are checked.
+     */
+    @Test
+    void testNoWeapon() {
+        GameState gameState = meet(new EntityNPC(100, 10, new Location(1, 0)), new int[]{}, new int[]{50}, 1);
+        FightEstimate estimate = new FightEstimator(DamageRoll.FIXED, 100).estimate(gameState, 50, 0);
+        Assertions.assertEquals(0, estimate.getSamples());
+        Assertions.assertEquals("no weapon to fight with", estimate.toString());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FightEstimator(DamageRoll.FIXED, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DamageRoll.spread(101));
+    }
+}
@@ -0,0 +1,125 @@
+import engine.FrameBuffer;
+import engine.level.ExitGrid;
+import engine.level.GameMap;
+import engine.level.WallGrid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.PlainTextOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static utils.ANSIColors.*;
+
+/**
+ * Test class for the FrameBuffer.
+ * It validates that text is kept as written, that the buffer is reused and
+ * that the map draws the same frame it used to print, whole or around a
+ * camera, with as few color codes as possible or none at all.
+ */
+public class FrameBufferTest {
+
+    /**
+     * Test that plain and non-ASCII text is appended as written and that a
+     * reset empties the frame.
+     */
+    @Test
+    void testAppendAndReset() {
+        FrameBuffer frame = new FrameBuffer(4, true);
+        frame.append("ab");
+        frame.append('c');
+        frame.repeat('-', 3);
+        frame.append("\u00e9\u2588");
+        frame.appendLine("!");
+        Assertions.assertEquals("abc---\u00e9\u2588!" + System.lineSeparator(), frame.toString());
+
+        frame.reset();
+        Assertions.assertEquals(0, frame.length());
+        frame.append("x");
+        Assertions.assertEquals("x", frame.toString());
+    }
+
+    /**
+     * Test that the map is drawn with its borders and colored cells.
+     */
+    @Test
+    void testRenderMap() {
+        GameMap gameMap = new GameMap(3, 2);
+        gameMap.setGrid(0, 0, new WallGrid());
+        gameMap.setGrid(2, 1, new ExitGrid());
+        FrameBuffer frame = new FrameBuffer(256, true);
+        gameMap.render(frame);
+
+        // a color is only written when the next visible character changes it
+        String newLine = System.lineSeparator();
+        String expected = ANSI_YELLOW + "+---+" + ANSI_RESET + newLine
+                + ANSI_YELLOW + "|" + ANSI_BLUE + "#  " + ANSI_YELLOW + "|" + ANSI_RESET + newLine
+                + ANSI_YELLOW + "|  " + ANSI_RED + "@" + ANSI_YELLOW + "|" + ANSI_RESET + newLine
+                + ANSI_YELLOW + "+---+" + ANSI_RESET + newLine;
+        Assertions.assertEquals(expected, frame.toString());
+    }
+
+    /**
+     * Test that without colors no escape code is written, neither by the
+     * frame nor by the plain text stream.
+     */
+    @Test
+    void testWithoutColors() {
+        GameMap gameMap = new GameMap(3, 1);
+        gameMap.setGrid(0, 0, new WallGrid());
+        FrameBuffer frame = new FrameBuffer(256, false);
+        gameMap.render(frame);
+        frame.appendLine(ANSI_RED + "text" + ANSI_RESET);
+        String newLine = System.lineSeparator();
+        Assertions.assertEquals("+---+" + newLine + "|#  |" + newLine + "+---+" + newLine + "text" + newLine,
+                frame.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(new PlainTextOutputStream(bytes), true);
+        out.print(ANSI_GREEN + "a" + ANSI_RESET.substring(0, 2));
+        out.print(ANSI_RESET.substring(2) + "b\u001B7c");
+        Assertions.assertEquals("abc", bytes.toString(StandardCharsets.UTF_8), "escape codes split over writes");
+    }
+
+    /**
+     * Test that escape codes after non-ASCII text are still dropped without
+     * colors and tracked with them, and that every character is encoded.
+     */
+    @Test
+    void testEscapeAfterNonAscii() {
+        FrameBuffer plain = new FrameBuffer(4, false);
+        plain.append("\u2588" + ANSI_RED + "a\uD83D\uDE00" + ANSI_RESET + "\u00e9\uD800b");
+        Assertions.assertEquals("\u2588a\uD83D\uDE00\u00e9?b", plain.toString());
+
+        FrameBuffer colored = new FrameBuffer(4, true);
+        colored.append("\u2588" + ANSI_RED + "x");
+        colored.setColor(ANSI_RED);
+        colored.append("y");
+        colored.newLine();
+        Assertions.assertEquals("\u2588" + ANSI_RED + "xy" + ANSI_RESET + System.lineSeparator(), colored.toString(),
+                "the color inside the text should be known to the buffer");
+    }
+
+    /**
+     * Test that a camera near the edge of the map moves inwards, so the view
+     * stays filled with the map.
+     */
+    @Test
+    void testRenderView() {
+        GameMap gameMap = new GameMap(50, 30);
+        gameMap.setGrid(49, 29, new WallGrid());
+        FrameBuffer frame = new FrameBuffer(256, false);
+        gameMap.render(frame, 48, 28, 10, 4);
+
+        String[] lines = frame.toString().replaceAll("\u001B\\[[0-9;]*m", "").split(System.lineSeparator());
+        Assertions.assertEquals(6, lines.length);
+        Assertions.assertEquals("+----------+", lines[0]);
+        Assertions.assertEquals("|         #|", lines[4], "the corner of the map is the corner of the view");
+
+        frame.reset();
+        gameMap.render(frame, 0, 0, 100, 100);
+        Assertions.assertEquals(32, frame.toString().split(System.lineSeparator()).length,
+                "a view larger than the map shows the whole map");
+    }
+}
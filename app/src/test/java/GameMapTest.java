@@ -0,0 +1,144 @@
+import engine.entity.EntityNPC;
+import engine.item.ItemWeapon;
+import engine.level.EntityGrid;
+import engine.level.ExitGrid;
+import engine.level.GameMap;
+import engine.level.ItemGrid;
+import engine.level.WallGrid;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the GameMap class in the game engine.
+ * It validates the tile storage of the map, the occupant lookup and the
+ * serialization of the terrain.
+ */
+public class GameMapTest {
+
+    private GameMap gameMap;
+
+    /**
+     * Set up an empty map before each test.
+     */
+    @BeforeEach
+    void setUp() {
+        gameMap = new GameMap();
+    }
+
+    /**
+     * Test that the tile queries follow the grids put on the map.
+     */
+    @Test
+    void testTileQueries() {
+        gameMap.setGrid(1, 0, new WallGrid());
+        gameMap.setGrid(2, 0, new ExitGrid());
+
+        Assertions.assertFalse(gameMap.isTargetPositionCanMove(1, 0), "wall should block the move");
+        Assertions.assertTrue(gameMap.isTargetPositionCanMove(3, 0), "empty cell should be walkable");
+        Assertions.assertFalse(gameMap.isTargetPositionCanMove(-1, 0), "out of bounds should block the move");
+        Assertions.assertTrue(gameMap.isExit(2, 0), "exit should be found");
+        Assertions.assertFalse(gameMap.isExit(-1, 0), "out of bounds is never the exit");
+    }
+
+    /**
+     * Test that entities and items are kept with their cell and can be fetched
+     * back.
+     */
+    @Test
+    void testOccupants() {
+        EntityNPC entityNPC = new EntityNPC(100, 10, new Location(4, 1));
+        ItemWeapon itemWeapon = new ItemWeapon(new Location(5, 1), 20);
+        gameMap.setGrid(4, 1, new EntityGrid(entityNPC));
+        gameMap.setGrid(5, 1, new ItemGrid(itemWeapon));
+
+        Assertions.assertTrue(gameMap.isEnemy(4, 1));
+        Assertions.assertEquals(entityNPC, gameMap.getEntity(4, 1));
+        Assertions.assertTrue(gameMap.isBonus(5, 1));
+        Assertions.assertEquals(itemWeapon, gameMap.getBonus(5, 1));
+        Assertions.assertNull(gameMap.getEntity(5, 1), "item cell holds no entity");
+
+        gameMap.setGridEmpty(5, 1);
+        Assertions.assertFalse(gameMap.isBonus(5, 1), "cleared cell should not be a bonus");
+        Assertions.assertNull(gameMap.getBonus(5, 1), "cleared cell should hold no item");
+    }
+
+    /**
+     * Test that exchanging two cells moves the occupant with the tile.
+     */
+    @Test
+    void testExchangeGrid() {
+        EntityNPC entityNPC = new EntityNPC(100, 10, new Location(4, 1));
+        gameMap.setGrid(4, 1, new EntityGrid(entityNPC));
+
+        gameMap.exchangeGrid(4, 1, 4, 2);
+
+        Assertions.assertFalse(gameMap.isEnemy(4, 1), "old cell should be empty");
+        Assertions.assertTrue(gameMap.isEnemy(4, 2), "entity should move to the new cell");
+        Assertions.assertEquals(entityNPC, gameMap.getEntity(4, 2));
+    }
+
+    /**
+     * Test that walls survive a serialization round trip while entities and
+     * items are left out of the map data.
+     */
+    @Test
+    void testSerializeAndDeserialize() {
+        gameMap.generate();
+        String serialized = gameMap.serialize();
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.deserialize(serialized);
+
+        Assertions.assertEquals(gameMap.toString(), newGameMap.toString(), "map should be the same after reload");
+        Assertions.assertEquals(gameMap.serialize(), newGameMap.serialize(), "serialized data should be stable");
+    }
+
+    /**
+     * Test that a map of any size keeps its size through a save and reload.
+     */
+    @Test
+    void testCustomSize() {
+        GameMap largeMap = new GameMap(201, 99);
+        largeMap.generate();
+        String serialized = largeMap.serialize();
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.deserialize(serialized);
+
+        Assertions.assertEquals(201, newGameMap.getWidth());
+        Assertions.assertEquals(99, newGameMap.getHeight());
+        Assertions.assertEquals(largeMap.toString(), newGameMap.toString(), "map should be the same after reload");
+    }
+
+    /**
+     * Test that an invalid size is rejected.
+     */
+    @Test
+    void testInvalidSize() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameMap(0, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameMap(100000, 100000));
+    }
+
+    /**
+     * Test that the older per-cell save format can still be loaded.
+     */
+    @Test
+    void testDeserializeGridsFormat() {
+        String data = "{\"start\": \"{\\\"locationX\\\": 0, \\\"locationY\\\": 0}\","
+                + "\"exit\": \"{\\\"locationX\\\": 1, \\\"locationY\\\": 1}\","
+                + "\"grids\": ["
+                + "[{\"type\": \"EmptyGrid\"}, {\"type\": \"EmptyGrid\"}],"
+                + "[{\"type\": \"WallGrid\"}, {\"type\": \"EmptyGrid\"}],"
+                + "[{\"type\": \"ItemGrid\"}, {\"type\": \"WallGrid\"}]]}";
+        gameMap.deserialize(data);
+
+        Assertions.assertEquals(3, gameMap.getWidth());
+        Assertions.assertEquals(2, gameMap.getHeight());
+        Assertions.assertTrue(gameMap.isTargetPositionCanMove(0, 0));
+        Assertions.assertFalse(gameMap.isTargetPositionCanMove(1, 0));
+        Assertions.assertTrue(gameMap.isTargetPositionCanMove(2, 0), "item cell should load as empty");
+        Assertions.assertTrue(gameMap.isExit(1, 1));
+    }
+}
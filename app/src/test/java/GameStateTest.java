@@ -1,5 +1,7 @@
+import data.GameConfig;
 import engine.GameState;
 import engine.GameStatus;
+import engine.entity.Entity;
 import engine.entity.EntityNPC;
 import engine.entity.EntityPlayer;
 import engine.item.ItemRecover;
@@ -9,9 +11,13 @@ import engine.level.ExitGrid;
 import engine.level.GameMap;
 import engine.level.ItemGrid;
 import utils.Location;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -144,4 +150,54 @@ public class GameStateTest {
         gameState.movePlayer(1, 0);
         assertEquals(GameStatus.FIND_BONUS, gameState.getGameStatus(), "find the bonus");
     }
+
+    /**
+     * Tests that a generated game keeps the default layout unless random
+     * placement is asked for.
+     */
+    @Test
+    public void testDefaultLayout() {
+        GameConfig config = new GameConfig();
+        config.setReadConfigFromFile(false);
+        config.setSeed(3L);
+        GameState generated = new GameState(config);
+        List<String> entities = new ArrayList<>();
+        for (Entity entity : generated.getEntities()) {
+            entities.add(entity.getLocationX() + "," + entity.getLocationY());
+        }
+        assertEquals(List.of("3,1", "8,2", "20,6"), entities);
+        Assertions.assertTrue(generated.getMap().getGrid(10, 10) instanceof ItemGrid);
+        Assertions.assertTrue(generated.getMap().getGrid(15, 4) instanceof ItemGrid);
+
+        config.setMapSize(10, 10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameState(config));
+    }
+
+    /**
+     * Tests that random placement fills a crowded map and fails on a full one.
+     */
+    @Test
+    public void testRandomPlacementFillsMap() {
+        GameConfig config = new GameConfig();
+        config.setReadConfigFromFile(false);
+        config.setRandomPlacement(true);
+        config.setSeed(5L);
+        config.setMapSize(9, 9);
+        config.setNpcCount(0);
+        GameState empty = new GameState(config);
+        // every free cell but the start, the exit and the two items
+        int free = -4;
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 9; y++) {
+                if (empty.getMap().isTargetPositionCanMove(x, y) || empty.getMap().isExit(x, y)) {
+                    free++;
+                }
+            }
+        }
+
+        config.setNpcCount(free);
+        Assertions.assertEquals(free + 1, new GameState(config).getEntities().size());
+        config.setNpcCount(9 * 9);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameState(config));
+    }
 }
@@ -0,0 +1,159 @@
+import data.GameConfig;
+import engine.GameListener;
+import engine.GameState;
+import engine.GameStatus;
+import engine.item.InventoryError;
+import engine.item.ItemType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Test class for running a game without a console.
+ * It validates that the engine never prints, that what happens reaches the
+ * listener instead and that invalid settings are rejected.
+ */
+public class HeadlessGameTest {
+
+    /**
+     * Counts the events of a game.
+     */
+    private static class CountingListener implements GameListener {
+        int invalidMoves;
+        int exits;
+        int inventoryErrors;
+
+        @Override
+        public void onInvalidMove(int x, int y) {
+            invalidMoves++;
+        }
+
+        @Override
+        public void onExit() {
+            exits++;
+        }
+
+        @Override
+        public void onInventoryError(ItemType type, InventoryError error) {
+            inventoryErrors++;
+        }
+    }
+
+    /**
+     * Test that random games played by a bot print nothing and report their
+     * events to the listener.
+     */
+    @Test
+    void testRandomGamesPrintNothing() {
+        GameConfig config = new GameConfig();
+        config.setReadConfigFromFile(false);
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        CountingListener listener = new CountingListener();
+        try {
+            System.setOut(new PrintStream(printed));
+            play(config, listener, new Random(42), 20000);
+        } finally {
+            System.setOut(out);
+        }
+
+        Assertions.assertEquals(0, printed.size(), "a headless game should print nothing");
+        Assertions.assertTrue(listener.invalidMoves > 0, "walls should be reported");
+        Assertions.assertTrue(listener.exits > 0, "exits should be reported");
+        Assertions.assertTrue(listener.inventoryErrors > 0, "bad weapon indexes should be reported");
+    }
+
+    /**
+     * Test that games with different settings run at the same time without
+     * seeing each other's settings or events.
+     */
+    @Test
+    void testGamesRunInParallel() {
+        List<CountingListener> listeners = IntStream.range(0, 16).parallel().mapToObj(game -> {
+            GameConfig config = new GameConfig();
+            config.setReadConfigFromFile(false);
+            config.setMapSize(35 + 2 * game, 12 + game);
+            config.setFogOfWar(game % 2 == 0);
+            CountingListener listener = new CountingListener();
+            GameState gameState = play(config, listener, new Random(game), 5000);
+            Assertions.assertEquals(35 + 2 * game, gameState.getMap().getWidth());
+            Assertions.assertEquals(12 + game, gameState.getMap().getHeight());
+            return listener;
+        }).toList();
+
+        for (CountingListener listener : listeners) {
+            Assertions.assertTrue(listener.invalidMoves > 0, "every game should report its own walls");
+            Assertions.assertTrue(listener.inventoryErrors > 0, "every game should report its own errors");
+        }
+    }
+
+    /**
+     * Test that settings without a meaning are rejected when set, before any
+     * game uses them.
+     */
+    @Test
+    void testInvalidSettingsRejected() {
+        GameConfig config = new GameConfig();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setMapSize(0, 12));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setMapSize(35, -1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setMapChunkCache(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setViewRadius(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setViewportSize(78, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> config.setViewportSize(-78, 20));
+        Assertions.assertEquals(35, config.getMapWidth());
+        Assertions.assertEquals(1024, config.getMapChunkCache());
+        Assertions.assertEquals(8, config.getViewRadius());
+        Assertions.assertEquals(20, config.getViewportHeight());
+    }
+
+    /**
+     * Plays random games with a bot, starting a new game when one ends. The
+     * bot mostly walks at random and now and then heads for the exit. Games
+     * are seeded from the bot's random, so a run is repeatable.
+     *
+     * @param config   the settings of the games
+     * @param listener the listener of the games
+     * @param random   the moves of the bot
+     * @param steps    the number of actions of the bot
+     * @return the last game played
+     */
+    private static GameState play(GameConfig config, GameListener listener, Random random, int steps) {
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        GameState gameState = null;
+        for (int step = 0; step < steps; step++) {
+            if (gameState == null || gameState.getGameStatus() == GameStatus.WIN
+                    || gameState.getGameStatus() == GameStatus.LOSS) {
+                GameConfig gameConfig = new GameConfig(config);
+                gameConfig.setSeed(random.nextLong());
+                gameState = new GameState(gameConfig);
+                gameState.setListener(listener);
+                gameState.removeInventory(ItemType.WEAPON, 0);
+            }
+            switch (gameState.getGameStatus()) {
+                case MEET_NPC -> gameState.chooseToFightNPC();
+                case FIGHTING -> gameState.fightNPC(random.nextInt(3) - 1);
+                case FIND_BONUS -> {
+                    gameState.fetchBonus();
+                    if (gameState.getGameStatus() == GameStatus.FIND_BONUS) {
+                        // a full inventory keeps the bonus waiting
+                        gameState.dropBonus();
+                    }
+                }
+                default -> {
+                    if (random.nextInt(100) == 0) {
+                        gameState.goToExit();
+                    } else {
+                        int[] direction = directions[random.nextInt(directions.length)];
+                        gameState.movePlayer(direction[0], direction[1]);
+                    }
+                }
+            }
+        }
+        return gameState;
+    }
+}
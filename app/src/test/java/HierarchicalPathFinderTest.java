@@ -0,0 +1,144 @@
+import data.GameConfig;
+import engine.level.GameMap;
+import engine.level.HierarchicalPathFinder;
+import engine.level.PathFinder;
+import engine.level.WallGrid;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the HierarchicalPathFinder.
+ * It validates the paths against the PathFinder, that changed cells drop the
+ * clusters around them and that long paths on a chunked world build only the
+ * clusters near the route.
+ */
+public class HierarchicalPathFinderTest {
+
+    /**
+     * Test that paths are valid and close to the shortest, and as short as the
+     * shortest on a perfect maze where there is only one way.
+     */
+    @Test
+    void testPathsMatchPathFinder() {
+        SplittableRandom random = new SplittableRandom(6);
+        GameMap maze = new GameMap(301, 201);
+        maze.generate(13);
+        GameMap open = new GameMap(300, 200);
+        for (int i = 0; i < 300 * 200 / 5; i++) {
+            open.setGrid(random.nextInt(300), random.nextInt(200), new WallGrid());
+        }
+
+        for (int query = 0; query < 20; query++) {
+            for (GameMap gameMap : new GameMap[] { maze, open }) {
+                Location start = randomOpenCell(gameMap, random);
+                Location goal = randomOpenCell(gameMap, random);
+                List<Location> shortest = new PathFinder(gameMap).findPath(start, goal, false);
+                List<Location> path = gameMap.getHierarchicalPathFinder().findPath(start, goal);
+                if (shortest == null) {
+                    Assertions.assertNull(path);
+                    continue;
+                }
+                assertValidPath(gameMap, start, goal, path);
+                if (gameMap == maze) {
+                    Assertions.assertEquals(shortest.size(), path.size(), "a maze has only one way");
+                } else {
+                    Assertions.assertTrue(path.size() <= shortest.size() * 1.2 + 4,
+                            path.size() + " steps where " + shortest.size() + " are enough");
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that walls added and removed on the map change the paths found.
+     */
+    @Test
+    void testChangedCellsDropClusters() {
+        GameMap gameMap = new GameMap(200, 10);
+        HierarchicalPathFinder finder = gameMap.getHierarchicalPathFinder();
+        Location start = new Location(0, 5);
+        Location goal = new Location(199, 5);
+        assertValidPath(gameMap, start, goal, finder.findPath(start, goal));
+        Assertions.assertTrue(finder.getClusterCount() > 0);
+
+        // a wall across the map in the middle of a cluster, then one on a border
+        for (int y = 0; y < 10; y++) {
+            gameMap.setGrid(100, y, new WallGrid());
+        }
+        Assertions.assertNull(finder.findPath(start, goal), "the wall should cut the map");
+        gameMap.setGridEmpty(100, 9);
+        List<Location> path = finder.findPath(start, goal);
+        assertValidPath(gameMap, start, goal, path);
+        Assertions.assertTrue(path.contains(new Location(100, 9)), "the path should use the gap");
+
+        for (int y = 0; y < 10; y++) {
+            gameMap.setGrid(128, y, new WallGrid());
+        }
+        Assertions.assertNull(finder.findPath(start, goal), "the wall should cut the map");
+    }
+
+    /**
+     * Test that a long path on a huge chunked world is found building only the
+     * clusters near the route.
+     */
+    @Test
+    void testLongPathOnChunkedWorld() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setMapChunkDirectory(Files.createTempDirectory("chunks").toString());
+        GameMap gameMap = new GameMap(config, 10000, 10000);
+        gameMap.generate(7);
+        Location start = gameMap.getStartLocation();
+        Location goal = new Location(2000, 2000);
+        List<Location> path = gameMap.getHierarchicalPathFinder().findPath(start, goal);
+        assertValidPath(gameMap, start, goal, path);
+        // fewer than the clusters of the square spanned by start and goal, of
+        // the 157 * 157 of the world
+        int clusters = gameMap.getHierarchicalPathFinder().getClusterCount();
+        Assertions.assertTrue(clusters < 32 * 32, clusters + " clusters built");
+    }
+
+    /**
+     * Picks a random cell which is not a wall.
+     *
+     * @param gameMap the map
+     * @param random  the random source
+     * @return the cell
+     */
+    private static Location randomOpenCell(GameMap gameMap, SplittableRandom random) {
+        while (true) {
+            int x = random.nextInt(gameMap.getWidth());
+            int y = random.nextInt(gameMap.getHeight());
+            if (gameMap.isTargetPositionCanMove(x, y)) {
+                return new Location(x, y);
+            }
+        }
+    }
+
+    /**
+     * Asserts that a path walks single steps over open cells to the goal.
+     *
+     * @param gameMap the map
+     * @param start   the cell the path starts from
+     * @param goal    the cell the path should reach
+     * @param path    the cells after the start
+     */
+    private static void assertValidPath(GameMap gameMap, Location start, Location goal, List<Location> path) {
+        Assertions.assertNotNull(path);
+        int x = start.getLocationX();
+        int y = start.getLocationY();
+        for (Location step : path) {
+            Assertions.assertEquals(1, Math.abs(step.getLocationX() - x) + Math.abs(step.getLocationY() - y));
+            x = step.getLocationX();
+            y = step.getLocationY();
+            Assertions.assertTrue(gameMap.isTargetPositionCanMove(x, y), "path should not cross walls");
+        }
+        Assertions.assertEquals(goal.getLocationX(), x);
+        Assertions.assertEquals(goal.getLocationY(), y);
+    }
+}
@@ -0,0 +1,160 @@
+import engine.level.EllerMazeGenerator;
+import engine.level.GameMap;
+import engine.level.MapFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test class for the binary map file.
+ * It validates that a map survives the file, that changes to an opened map
+ * stay in memory, also for a read-only file, that a maze larger than the heap
+ * is generated into a file and that invalid files are rejected.
+ */
+public class MapFileTest {
+
+    /**
+     * Test that a map written to a map file opens as the same map.
+     */
+    @Test
+    void testWriteAndOpen() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        GameMap gameMap = new GameMap(301, 151);
+        gameMap.generate(21);
+        gameMap.saveMapFile(file);
+        Assertions.assertEquals(MapFile.HEADER_SIZE + 301L * 151, Files.size(file));
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.loadMapFile(file);
+        Assertions.assertEquals(gameMap.toString(), newGameMap.toString(), "map should survive the file");
+        Assertions.assertEquals(21, newGameMap.getSeed());
+        Assertions.assertEquals(301, newGameMap.getWidth());
+    }
+
+    /**
+     * Test that changes to an opened map do not touch the file and that a save
+     * refers to the file.
+     */
+    @Test
+    void testChangesStayInMemory() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        GameMap gameMap = new GameMap(35, 12);
+        gameMap.generate(4);
+        gameMap.saveMapFile(file);
+
+        GameMap opened = new GameMap();
+        opened.loadMapFile(file);
+        int x = opened.getExitLocation().getLocationX();
+        int y = opened.getExitLocation().getLocationY();
+        opened.setGridEmpty(x, y);
+        Assertions.assertFalse(opened.isExit(x, y));
+
+        GameMap reopened = new GameMap();
+        reopened.deserialize(opened.serialize());
+        Assertions.assertTrue(reopened.isExit(x, y), "file should be left as it is");
+    }
+
+    /**
+     * Test that a maze generated into a map file is the maze the map generates
+     * with the same seed.
+     */
+    @Test
+    void testGenerateMatchesMap() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        MapFile.generate(file, 41, 20, 11);
+
+        GameMap gameMap = new GameMap(41, 20);
+        gameMap.setGenerator(new EllerMazeGenerator());
+        gameMap.generate(11);
+        GameMap opened = new GameMap();
+        opened.loadMapFile(file);
+        Assertions.assertEquals(gameMap.toString(), opened.toString());
+        Assertions.assertEquals(gameMap.getExitLocation(), opened.getExitLocation());
+        Assertions.assertEquals(11, opened.getSeed());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MapFile.generate(file, 0, 20, 11));
+    }
+
+    /**
+     * Test that a maze with more cells than the heap has bytes is generated
+     * into a map file and opened.
+     */
+    @Test
+    void testGenerateLargerThanHeap() throws IOException {
+        int width = 40_001;
+        int height = (int) (Runtime.getRuntime().maxMemory() / width) + 3 | 1;
+        Path file = Files.createTempFile("map", ".bin");
+        try {
+            MapFile.generate(file, width, height, 5);
+            Assertions.assertTrue((long) width * height > Runtime.getRuntime().maxMemory());
+            Assertions.assertEquals(MapFile.HEADER_SIZE + (long) width * height, Files.size(file));
+
+            GameMap gameMap = new GameMap();
+            gameMap.loadMapFile(file);
+            Assertions.assertEquals(height, gameMap.getHeight());
+            Assertions.assertTrue(gameMap.isExit(width - 1, height - 1));
+            // every lattice cell of the last and a middle row is carved
+            for (int x = 0; x < width; x += 2) {
+                Assertions.assertTrue(gameMap.isTargetPositionCanMove(x, height - 1), "cell " + x);
+                Assertions.assertTrue(gameMap.isTargetPositionCanMove(x, height / 2 & ~1), "cell " + x);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a file which is not a map file is rejected.
+     */
+    @Test
+    void testInvalidFile() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        Files.writeString(file, "{\"grids\": []}");
+
+        GameMap gameMap = new GameMap();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> gameMap.loadMapFile(file));
+    }
+
+    /**
+     * Test that a read-only map file opens and is played in memory.
+     */
+    @Test
+    void testReadOnlyFile() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        GameMap gameMap = new GameMap(35, 12);
+        gameMap.generate(6);
+        gameMap.saveMapFile(file);
+        Assertions.assertTrue(file.toFile().setReadOnly());
+        try {
+            GameMap opened = new GameMap();
+            opened.loadMapFile(file);
+            int x = opened.getExitLocation().getLocationX();
+            int y = opened.getExitLocation().getLocationY();
+            opened.setGridEmpty(x, y);
+            Assertions.assertFalse(opened.isExit(x, y));
+            Assertions.assertEquals(gameMap.getStartLocation(), opened.getStartLocation());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that a map file whose start or exit is off the map is rejected.
+     */
+    @Test
+    void testLocationOffMap() throws IOException {
+        Path file = Files.createTempFile("map", ".bin");
+        GameMap gameMap = new GameMap(35, 12);
+        gameMap.generate(8);
+        gameMap.saveMapFile(file);
+        byte[] bytes = Files.readAllBytes(file);
+        // the x-coordinate of the exit follows magic, version, size and start
+        ByteBuffer.wrap(bytes).putInt(24, 35);
+        Files.write(file, bytes);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new GameMap().loadMapFile(file));
+    }
+}
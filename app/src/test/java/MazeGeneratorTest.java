@@ -0,0 +1,179 @@
+import engine.level.EllerMazeGenerator;
+import engine.level.GameMap;
+import engine.level.MazeGenerator;
+import engine.level.Tile;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the maze generation of the GameMap.
+ * It validates that generation is reproducible from a seed, that the maze is
+ * perfect and that large maps can be generated.
+ */
+public class MazeGeneratorTest {
+
+    /**
+     * Test that the same seed always gives the same maze.
+     */
+    @Test
+    void testSameSeedSameMaze() {
+        GameMap first = new GameMap(61, 31);
+        GameMap second = new GameMap(61, 31);
+        first.generate(42);
+        second.generate(42);
+
+        Assertions.assertEquals(first.toString(), second.toString(), "same seed should give the same maze");
+        Assertions.assertEquals(42, first.getSeed());
+
+        second.generate(43);
+        Assertions.assertNotEquals(first.toString(), second.toString(), "other seed should give another maze");
+    }
+
+    /**
+     * Test that a saved seed regenerates the same map.
+     */
+    @Test
+    void testRegenerateFromSeed() {
+        GameMap gameMap = new GameMap(35, 12);
+        gameMap.generate(7);
+
+        GameMap newGameMap = new GameMap();
+        newGameMap.deserialize("{\"width\": 35, \"height\": 12, \"seed\": 7}");
+
+        Assertions.assertEquals(gameMap.toString(), newGameMap.toString(), "seed should regenerate the map");
+    }
+
+    /**
+     * Test that every open cell is reachable from the start and that the maze
+     * has no loops, with the exit among the reachable cells.
+     */
+    @Test
+    void testPerfectMaze() {
+        for (long seed = 0; seed < 20; seed++) {
+            GameMap gameMap = new GameMap(35 + (int) seed, 12 + (int) seed);
+            gameMap.generate(seed);
+            assertPerfect(gameMap);
+        }
+    }
+
+    /**
+     * Test that a map carved in parallel regions is still a perfect maze and
+     * does not depend on the scheduling of the regions.
+     */
+    @Test
+    void testParallelRegions() {
+        GameMap gameMap = new GameMap(1201, 700);
+        gameMap.generate(3);
+        assertPerfect(gameMap);
+
+        GameMap sameSeed = new GameMap(1201, 700);
+        sameSeed.generate(3);
+        Assertions.assertEquals(gameMap.serialize(), sameSeed.serialize(), "same seed should give the same maze");
+    }
+
+    /**
+     * Test that the row by row generator builds a perfect maze and is chosen by
+     * name.
+     */
+    @Test
+    void testEllerMaze() {
+        for (long seed = 0; seed < 20; seed++) {
+            GameMap gameMap = new GameMap(35 + (int) seed, 12 + (int) seed);
+            gameMap.setGenerator(MazeGenerator.fromName("eller"));
+            gameMap.generate(seed);
+            assertPerfect(gameMap);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MazeGenerator.fromName("unknown"));
+    }
+
+    /**
+     * Test that streamed rows arrive in order and match the generated map.
+     */
+    @Test
+    void testEllerStream() {
+        GameMap gameMap = new GameMap(41, 20);
+        gameMap.setGenerator(new EllerMazeGenerator());
+        gameMap.generate(11);
+
+        StringBuilder streamed = new StringBuilder();
+        int[] nextRow = { 0 };
+        new EllerMazeGenerator().stream(41, 20, new SplittableRandom(11), (y, row) -> {
+            Assertions.assertEquals(nextRow[0]++, y, "rows should arrive in order");
+            for (byte tile : row) {
+                streamed.append(tile == Tile.WALL ? '#' : tile == Tile.EXIT ? '@' : ' ');
+            }
+            streamed.append('\n');
+        });
+
+        Assertions.assertEquals(20, nextRow[0], "every row should be streamed");
+        String map = gameMap.toString();
+        Assertions.assertEquals(map.substring(map.indexOf('\n', map.indexOf("exit:")) + 1), streamed.toString());
+    }
+
+    /**
+     * Test that a large map generates without running out of stack.
+     */
+    @Test
+    void testLargeMaze() {
+        GameMap gameMap = new GameMap(4000, 4000);
+        gameMap.generate(1);
+        Location exit = gameMap.getExitLocation();
+        Assertions.assertTrue(gameMap.isExit(exit.getLocationX(), exit.getLocationY()));
+    }
+
+    /**
+     * Checks that the open cells of the map form a tree containing the start
+     * and the exit.
+     *
+     * @param gameMap the generated map
+     */
+    static void assertPerfect(GameMap gameMap) {
+        int width = gameMap.getWidth();
+        int height = gameMap.getHeight();
+        int openCells = 0;
+        int passages = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!gameMap.isTargetPositionCanMove(x, y)) {
+                    continue;
+                }
+                openCells++;
+                if (gameMap.isTargetPositionCanMove(x + 1, y)) {
+                    passages++;
+                }
+                if (gameMap.isTargetPositionCanMove(x, y + 1)) {
+                    passages++;
+                }
+            }
+        }
+        Assertions.assertEquals(openCells - 1, passages, "a perfect maze is a tree");
+
+        Location start = gameMap.getStartLocation();
+        boolean[] visited = new boolean[width * height];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start.getLocationY() * width + start.getLocationX());
+        visited[queue.peek()] = true;
+        int reached = 0;
+        int[][] directions = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            reached++;
+            for (int[] dir : directions) {
+                int x = cell % width + dir[0];
+                int y = cell / width + dir[1];
+                if (gameMap.isTargetPositionCanMove(x, y) && !visited[y * width + x]) {
+                    visited[y * width + x] = true;
+                    queue.add(y * width + x);
+                }
+            }
+        }
+        Assertions.assertEquals(openCells, reached, "every open cell should be reachable from the start");
+
+        Location exit = gameMap.getExitLocation();
+        Assertions.assertTrue(visited[exit.getLocationY() * width + exit.getLocationX()], "exit should be reachable");
+    }
+}
@@ -0,0 +1,165 @@
+import engine.entity.EntityNPC;
+import engine.level.EntityGrid;
+import engine.level.GameMap;
+import engine.level.PathFinder;
+import engine.level.WallGrid;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the PathFinder.
+ * It validates the paths against a breadth-first search on mazes and on open
+ * maps with scattered walls, and that large mazes are searched closing few
+ * jump points.
+ */
+public class PathFinderTest {
+
+    /**
+     * Test that paths on open maps with scattered walls are valid and as short
+     * as a breadth-first search finds.
+     */
+    @Test
+    void testShortestOnOpenMaps() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int round = 0; round < 40; round++) {
+            int width = 10 + random.nextInt(130);
+            int height = 5 + random.nextInt(60);
+            GameMap gameMap = new GameMap(width, height);
+            for (int i = 0; i < width * height * (1 + round % 4) / 10; i++) {
+                gameMap.setGrid(random.nextInt(width), random.nextInt(height), new WallGrid());
+            }
+            for (int query = 0; query < 10; query++) {
+                assertShortest(gameMap, new Location(random.nextInt(width), random.nextInt(height)),
+                        new Location(random.nextInt(width), random.nextInt(height)), false);
+            }
+        }
+    }
+
+    /**
+     * Test that paths through generated mazes are as short as a breadth-first
+     * search finds and end at the exit.
+     */
+    @Test
+    void testShortestInMazes() {
+        for (long seed = 0; seed < 10; seed++) {
+            GameMap gameMap = new GameMap(81 + (int) seed, 41);
+            gameMap.generate(seed);
+            List<Location> path = assertShortest(gameMap, gameMap.getStartLocation(), gameMap.getExitLocation(),
+                    false);
+            Assertions.assertEquals(gameMap.getExitLocation(), path.get(path.size() - 1));
+        }
+    }
+
+    /**
+     * Test that entities block the path unless they are the goal or ignored.
+     */
+    @Test
+    void testEntitiesBlock() {
+        GameMap gameMap = new GameMap(9, 3);
+        for (int x = 0; x < 9; x++) {
+            gameMap.setGrid(x, 0, new WallGrid());
+            gameMap.setGrid(x, 2, new WallGrid());
+        }
+        gameMap.setGrid(4, 1, new EntityGrid(new EntityNPC(0, 0, new Location(4, 1))));
+        PathFinder pathFinder = new PathFinder(gameMap);
+
+        Assertions.assertNull(pathFinder.findPath(new Location(0, 1), new Location(8, 1)), "NPC blocks the way");
+        Assertions.assertEquals(8, pathFinder.findPath(new Location(0, 1), new Location(8, 1), false).size());
+        Assertions.assertEquals(4, pathFinder.findPath(new Location(0, 1), new Location(4, 1)).size(),
+                "NPC can be the goal");
+        Assertions.assertTrue(pathFinder.findPath(new Location(2, 1), new Location(2, 1)).isEmpty());
+        Assertions.assertNull(pathFinder.findPath(new Location(0, 1), new Location(0, 0)), "wall is no goal");
+
+        // a corridor over several row words, the NPC in the third
+        GameMap corridor = new GameMap(200, 3);
+        for (int x = 0; x < 200; x++) {
+            corridor.setGrid(x, 0, new WallGrid());
+            corridor.setGrid(x, 2, new WallGrid());
+        }
+        corridor.setGrid(130, 1, new EntityGrid(new EntityNPC(0, 0, new Location(130, 1))));
+        PathFinder corridorFinder = new PathFinder(corridor);
+        Assertions.assertNull(corridorFinder.findPath(new Location(0, 1), new Location(199, 1)));
+        Assertions.assertEquals(130, corridorFinder.findPath(new Location(0, 1), new Location(130, 1)).size());
+        Assertions.assertEquals(129, corridorFinder.findPath(new Location(0, 1), new Location(129, 1)).size());
+    }
+
+    /**
+     * Test that a path from corner to corner of a 1000x1000 maze is as short as
+     * a breadth-first search finds, closing few jump points.
+     */
+    @Test
+    void testLargeMaze() {
+        GameMap gameMap = new GameMap(1000, 1000);
+        gameMap.generate(1);
+        PathFinder pathFinder = new PathFinder(gameMap);
+        // the open cells closest to two opposite corners
+        int startX = gameMap.isTargetPositionCanMove(0, 0) ? 0 : 1;
+        Location start = new Location(startX, gameMap.isTargetPositionCanMove(startX, 0) ? 0 : 1);
+        int goalX = gameMap.isTargetPositionCanMove(999, 999) ? 999 : 998;
+        Location goal = new Location(goalX, gameMap.isTargetPositionCanMove(goalX, 999) ? 999 : 998);
+
+        assertShortest(gameMap, start, goal, true);
+        List<Location> path = pathFinder.findPath(start, goal);
+        Assertions.assertNotNull(path);
+        // a cell by cell search would close nearly every open cell of the maze
+        long open = gameMap.getWalkability().countWalkable();
+        Assertions.assertTrue(pathFinder.getClosedCount() < open / 4,
+                pathFinder.getClosedCount() + " jump points closed of " + open + " open cells");
+    }
+
+    /**
+     * Checks a path against a breadth-first search from the start.
+     *
+     * @param gameMap       the map searched
+     * @param start         the cell to start from
+     * @param goal          the cell to reach
+     * @param avoidEntities whether entities block
+     * @return the checked path
+     */
+    private static List<Location> assertShortest(GameMap gameMap, Location start, Location goal,
+            boolean avoidEntities) {
+        int width = gameMap.getWidth();
+        int height = gameMap.getHeight();
+        int[] steps = new int[width * height];
+        Arrays.fill(steps, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        if (gameMap.isTargetPositionCanMove(start.getLocationX(), start.getLocationY())) {
+            steps[start.getLocationY() * width + start.getLocationX()] = 0;
+            queue.add(start.getLocationY() * width + start.getLocationX());
+        }
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            int[][] neighbours = { { cell % width + 1, cell / width }, { cell % width - 1, cell / width },
+                    { cell % width, cell / width + 1 }, { cell % width, cell / width - 1 } };
+            for (int[] next : neighbours) {
+                if (gameMap.isTargetPositionCanMove(next[0], next[1]) && steps[next[1] * width + next[0]] < 0) {
+                    steps[next[1] * width + next[0]] = steps[cell] + 1;
+                    queue.add(next[1] * width + next[0]);
+                }
+            }
+        }
+
+        List<Location> path = new PathFinder(gameMap).findPath(start, goal, avoidEntities);
+        int expected = steps[goal.getLocationY() * width + goal.getLocationX()];
+        if (expected < 0) {
+            Assertions.assertNull(path, "unreachable goal should give no path");
+            return null;
+        }
+        Assertions.assertNotNull(path, "reachable goal should give a path from " + start + " to " + goal);
+        Assertions.assertEquals(expected, path.size(), "path should be shortest from " + start + " to " + goal);
+        Location previous = start;
+        for (Location step : path) {
+            Assertions.assertEquals(1, Math.abs(step.getLocationX() - previous.getLocationX())
+                    + Math.abs(step.getLocationY() - previous.getLocationY()), "path should move one cell a step");
+            Assertions.assertTrue(gameMap.isTargetPositionCanMove(step.getLocationX(), step.getLocationY()));
+            previous = step;
+        }
+        return path;
+    }
+}
@@ -1,11 +1,14 @@
 import engine.GameState;
 import engine.entity.EntityPlayer;
 import engine.level.GameMap;
+import engine.level.WallGrid;
 import utils.Location;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * This class contains unit tests for player movement in the game. It tests
@@ -156,4 +159,21 @@ public class PlayerMovementTest {
         assertEquals(initialLocation.getLocationX(), newLocation.getLocationX());
         assertEquals(initialLocation.getLocationY(), newLocation.getLocationY());
     }
+
+    /**
+     * Tests that the go to command walks the player to the target cell, and
+     * leaves the player in place if the target can not be reached.
+     */
+    @Test
+    public void testGoTo() {
+        assertTrue(gameState.goTo(locationX + 5, locationY + 3));
+        assertEquals(locationX + 5, gameState.getEntityPlayer().getLocation().getLocationX());
+        assertEquals(locationY + 3, gameState.getEntityPlayer().getLocation().getLocationY());
+
+        GameMap gameMap = gameState.getMap();
+        gameMap.setGrid(1, 0, new WallGrid());
+        gameMap.setGrid(0, 1, new WallGrid());
+        assertFalse(gameState.goTo(0, 0));
+        assertEquals(locationX + 5, gameState.getEntityPlayer().getLocation().getLocationX());
+    }
 }
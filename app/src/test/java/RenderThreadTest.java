@@ -0,0 +1,66 @@
+import engine.FrameBuffer;
+import engine.RenderThread;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Test class for the RenderThread.
+ * It validates that publishing frames does not wait for a stalled renderer,
+ * that stale frames are dropped and that the last frame is always drawn.
+ */
+public class RenderThreadTest {
+
+    /**
+     * Test that publishing does not wait for a stalled renderer, that every
+     * frame published while it is stalled but the last is dropped, and that
+     * the last one is drawn once it is done.
+     */
+    @Test
+    void testStalledRendererDropsStaleFrames() throws InterruptedException {
+        List<String> drawn = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch drawing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RenderThread renderThread = new RenderThread(frame -> {
+            drawn.add(frame.toString());
+            drawing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        renderThread.getFrame().append("frame 0");
+        renderThread.publish();
+        drawing.await();
+        // the renderer is stuck on frame 0, every publish returns regardless
+        for (int i = 1; i < 100; i++) {
+            renderThread.getFrame().append("frame " + i);
+            renderThread.publish();
+        }
+        Assertions.assertEquals(100, renderThread.getPublishedFrames());
+        Assertions.assertEquals(98, renderThread.getDroppedFrames(), "only the latest frame should wait");
+
+        release.countDown();
+        renderThread.close();
+        Assertions.assertEquals(List.of("frame 0", "frame 99"), drawn);
+    }
+
+    /**
+     * Test that nothing can be published once the thread is closed.
+     */
+    @Test
+    void testClosed() {
+        RenderThread renderThread = new RenderThread(frame -> {
+        });
+        renderThread.getFrame().append("frame");
+        renderThread.publish();
+        renderThread.close();
+        Assertions.assertThrows(IllegalStateException.class, renderThread::publish);
+    }
+}
@@ -0,0 +1,107 @@
+import data.GameConfig;
+import engine.GameState;
+import engine.simulation.BotPolicy;
+import engine.simulation.ExitSeekingBot;
+import engine.simulation.GameResult;
+import engine.simulation.RandomBot;
+import engine.simulation.Simulator;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Test class for the Simulator.
+ * It validates that seeded games are repeatable on any number of threads, that
+ * the bots finish their games and that the summary adds up.
+ */
+public class SimulatorTest {
+
+    /**
+     * Builds the settings of the simulated games.
+     *
+     * @param npcAttack the attack power of the NPCs
+     * @return the settings
+     */
+    private static GameConfig config(int npcAttack) {
+        GameConfig config = new GameConfig();
+        config.setRandomPlacement(true);
+        config.setNpcCount(3);
+        config.setNpcStrength(100, npcAttack);
+        config.setFogOfWar(false);
+        return config;
+    }
+
+    /**
+     * Test that a seed always generates the same game.
+     */
+    @Test
+    void testSeededGame() {
+        GameConfig config = config(30);
+        config.setReadConfigFromFile(false);
+        config.setSeed(7L);
+        Assertions.assertEquals(new GameState(config).serialize(), new GameState(config).serialize());
+    }
+
+    /**
+     * Test that a batch gives the same results on one thread and on several.
+     */
+    @Test
+    void testRepeatableOnThreads() {
+        Simulator simulator = new Simulator(config(30), new ExitSeekingBot(), Simulator.DEFAULT_MAX_TURNS);
+        List<GameResult> single = simulator.run(40, 100, 1);
+        List<GameResult> parallel = simulator.run(40, 100, 4);
+        Assertions.assertEquals(40, single.size());
+        for (int i = 0; i < single.size(); i++) {
+            Assertions.assertEquals(100 + i, single.get(i).getSeed());
+            Assertions.assertEquals(single.get(i).toCsv(), parallel.get(i).toCsv());
+        }
+    }
+
+    /**
+     * Test that the exit seeking bot finishes every game, and loses more of
+     * them against stronger NPCs.
+     */
+    @Test
+    void testStrongerNPCsWinMore() {
+        List<GameResult> weak = new Simulator(config(0), new ExitSeekingBot(), Simulator.DEFAULT_MAX_TURNS)
+                .run(100, 0, 2);
+        List<GameResult> strong = new Simulator(config(90), new ExitSeekingBot(), Simulator.DEFAULT_MAX_TURNS)
+                .run(100, 0, 2);
+
+        JsonObject weakSummary = Simulator.summarize(weak);
+        JsonObject strongSummary = Simulator.summarize(strong);
+        Assertions.assertEquals(100, weakSummary.get("wins").getAsInt(), "harmless NPCs should never win");
+        Assertions.assertEquals(0.0, weakSummary.get("mean_damage_taken").getAsDouble());
+        Assertions.assertEquals(0, strongSummary.get("unfinished").getAsInt());
+        Assertions.assertTrue(strongSummary.get("losses").getAsInt() > 0, "strong NPCs should win some games");
+        Assertions.assertTrue(strongSummary.get("mean_damage_taken").getAsDouble() > 0);
+    }
+
+    /**
+     * Test that a game running out of turns is reported unfinished, and that
+     * the summary counts it.
+     */
+    @Test
+    void testUnfinishedGames() {
+        List<GameResult> results = new Simulator(config(30), new RandomBot(), 5).run(10, 0, 1);
+        for (GameResult result : results) {
+            Assertions.assertEquals(5, result.getTurns());
+            Assertions.assertEquals("unfinished", result.getOutcome());
+        }
+        JsonObject summary = Simulator.summarize(results);
+        Assertions.assertEquals(10, summary.get("unfinished").getAsInt());
+        Assertions.assertEquals(5.0, summary.get("mean_turns").getAsDouble());
+    }
+
+    /**
+     * Test that bots are chosen by name, and unknown names are rejected.
+     */
+    @Test
+    void testBotNames() {
+        Assertions.assertEquals(RandomBot.NAME, BotPolicy.fromName("Random").getName());
+        Assertions.assertEquals(ExitSeekingBot.NAME, BotPolicy.fromName("exit").getName());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BotPolicy.fromName("cheat"));
+    }
+}
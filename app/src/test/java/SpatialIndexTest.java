@@ -0,0 +1,135 @@
+import engine.GameState;
+import engine.entity.Entity;
+import engine.entity.EntityNPC;
+import engine.item.Item;
+import engine.item.ItemWeapon;
+import engine.level.EntityGrid;
+import engine.level.GameMap;
+import engine.level.ItemGrid;
+import engine.level.SpatialIndex;
+import utils.Location;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Test class for the SpatialIndex.
+ * It validates the rectangle, radius and nearest searches against a scan of
+ * all objects, and that the map keeps its indexes in sync.
+ */
+public class SpatialIndexTest {
+
+    /**
+     * Test the searches against a scan of all objects, also after objects are
+     * moved and removed.
+     */
+    @Test
+    void testSearchesMatchScan() {
+        SplittableRandom random = new SplittableRandom(5);
+        SpatialIndex<int[]> index = new SpatialIndex<>();
+        List<int[]> points = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int[] point = { random.nextInt(2000), random.nextInt(1000) };
+            points.add(point);
+            index.add(point, point[0], point[1]);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int[] point = points.get(i);
+            Assertions.assertTrue(index.move(point, point[0], point[1], point[0] + 7, point[1] + 3));
+            point[0] += 7;
+            point[1] += 3;
+        }
+        for (int i = 0; i < 500; i++) {
+            int[] point = points.remove(points.size() - 1);
+            Assertions.assertTrue(index.remove(point, point[0], point[1]));
+        }
+        Assertions.assertEquals(points.size(), index.size());
+
+        for (int query = 0; query < 50; query++) {
+            int x = random.nextInt(2000);
+            int y = random.nextInt(1000);
+            int radius = random.nextInt(300);
+
+            List<int[]> inRect = new ArrayList<>();
+            List<int[]> inRadius = new ArrayList<>();
+            for (int[] point : points) {
+                if (Math.abs(point[0] - x) <= radius && Math.abs(point[1] - y) <= radius) {
+                    inRect.add(point);
+                }
+                if (distance(point, x, y) <= (long) radius * radius) {
+                    inRadius.add(point);
+                }
+            }
+            Assertions.assertEquals(new HashSet<>(inRect),
+                    new HashSet<>(index.findInRect(x - radius, y - radius, x + radius, y + radius)));
+            Assertions.assertEquals(new HashSet<>(inRadius), new HashSet<>(index.findInRadius(x, y, radius)));
+
+            int count = 1 + random.nextInt(20);
+            List<int[]> nearest = index.findNearest(x, y, count);
+            points.sort(Comparator.comparingLong(point -> distance(point, x, y)));
+            Assertions.assertEquals(count, nearest.size());
+            for (int i = 0; i < count; i++) {
+                Assertions.assertEquals(distance(points.get(i), x, y), distance(nearest.get(i), x, y),
+                        "nearest objects should come closest first");
+            }
+        }
+    }
+
+    /**
+     * Test that a nearest search finds far objects on an almost empty index.
+     */
+    @Test
+    void testNearestOnSparseIndex() {
+        SpatialIndex<String> index = new SpatialIndex<>();
+        index.add("far", 1000000, 1000000);
+        index.add("farther", 0, 2000000);
+
+        Assertions.assertEquals(List.of("far", "farther"), index.findNearest(0, 0, 5));
+        Assertions.assertTrue(index.findInRadius(0, 0, 1000).isEmpty());
+    }
+
+    /**
+     * Test that the map keeps its indexes in sync when the player moves, picks
+     * up a bonus and defeats an NPC.
+     */
+    @Test
+    void testMapKeepsIndexInSync() {
+        GameState gameState = new GameState();
+        GameMap gameMap = gameState.getMap();
+        Entity npc = new EntityNPC(0, 0, new Location(5, 1));
+        Item item = new ItemWeapon(new Location(2, 2), 10);
+        gameMap.setGrid(5, 1, new EntityGrid(npc));
+        gameMap.setGrid(2, 2, new ItemGrid(item));
+
+        Assertions.assertEquals(List.of(npc), gameMap.getEntityIndex().findInRadius(4, 1, 1));
+        Assertions.assertEquals(List.of(item), gameMap.getItemIndex().findNearest(0, 0, 1));
+
+        gameMap.exchangeGrid(5, 1, 6, 1);
+        Assertions.assertTrue(gameMap.getEntityIndex().findInRadius(4, 1, 1).isEmpty(), "NPC should have moved");
+        Assertions.assertEquals(List.of(npc), gameMap.getEntityIndex().findInRect(6, 1, 6, 1));
+
+        gameMap.setGridEmpty(6, 1);
+        gameMap.setGridEmpty(2, 2);
+        Assertions.assertEquals(0, gameMap.getEntityIndex().size());
+        Assertions.assertEquals(0, gameMap.getItemIndex().size());
+    }
+
+    /**
+     * Gets the squared distance of a point to a position.
+     *
+     * @param point the point
+     * @param x     The x-coordinate of the position.
+     * @param y     The y-coordinate of the position.
+     * @return the squared distance
+     */
+    private static long distance(int[] point, int x, int y) {
+        long deltaX = point[0] - x;
+        long deltaY = point[1] - y;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+}
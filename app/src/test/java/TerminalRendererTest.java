@@ -0,0 +1,178 @@
+import engine.FrameBuffer;
+import engine.TerminalRenderer;
+import engine.level.GameMap;
+import engine.level.WallGrid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static utils.ANSIColors.*;
+
+/**
+ * Test class for the TerminalRenderer.
+ * The output is played on a small terminal emulator to check that the screen
+ * shows each frame, while only changed cells are sent.
+ */
+public class TerminalRendererTest {
+
+    private static final int ROWS = 40;
+    private static final int COLUMNS = 80;
+
+    private final char[][] screen = new char[ROWS][COLUMNS];
+    private final String[][] colors = new String[ROWS][COLUMNS];
+    private int row;
+    private int column;
+    private String color;
+
+    /**
+     * Test that after a change of one cell the screen shows the new frame and
+     * only a few bytes were sent.
+     */
+    @Test
+    void testOnlyChangedCellsAreSent() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TerminalRenderer renderer = new TerminalRenderer(new PrintStream(bytes));
+        GameMap gameMap = new GameMap(30, 10);
+        FrameBuffer frame = new FrameBuffer(256, true);
+
+        gameMap.render(frame);
+        renderer.draw(frame);
+        play(bytes);
+        assertScreen(frame, ROWS);
+
+        gameMap.setGrid(5, 4, new WallGrid());
+        frame.reset();
+        gameMap.render(frame);
+        renderer.draw(frame);
+        Assertions.assertTrue(renderer.getLastOutputSize() < 30, "sent " + renderer.getLastOutputSize());
+        play(bytes);
+        assertScreen(frame, ROWS);
+        Assertions.assertEquals(ANSI_BLUE, colors[5][6], "the wall is blue");
+    }
+
+    /**
+     * Test that rows which got shorter or went away are cleared, and that
+     * messages below the frame are cleared on request.
+     */
+    @Test
+    void testShorterFrame() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TerminalRenderer renderer = new TerminalRenderer(new PrintStream(bytes));
+        FrameBuffer frame = new FrameBuffer(256, true);
+        frame.appendLine("first row");
+        frame.appendLine(ANSI_RED + "second" + ANSI_RESET + " row");
+        frame.appendLine("third row");
+        renderer.draw(frame);
+        play(bytes);
+        assertScreen(frame, ROWS);
+
+        bytes.writeBytes("a message".getBytes(StandardCharsets.UTF_8));
+        play(bytes);
+        Assertions.assertEquals("a message", new String(screen[3]).trim());
+
+        frame.reset();
+        frame.appendLine("first");
+        frame.appendLine("second row");
+        renderer.draw(frame);
+        play(bytes);
+        assertScreen(frame, 3);
+        Assertions.assertEquals("a message", new String(screen[3]).trim(), "messages stay below the frame");
+
+        renderer.clearMessages();
+        play(bytes);
+        Assertions.assertEquals("", new String(screen[3]).trim());
+    }
+
+    /**
+     * Checks that the top rows of the screen show the text of a frame.
+     *
+     * @param frame the frame
+     * @param rows  the number of rows to check
+     */
+    private void assertScreen(FrameBuffer frame, int rows) {
+        String[] lines = frame.toString().replaceAll("\u001B\\[[0-9;]*m", "").split(System.lineSeparator(), -1);
+        for (int y = 0; y < rows; y++) {
+            String expected = y < lines.length ? lines[y] : "";
+            Assertions.assertEquals(expected.stripTrailing(), new String(screen[y]).stripTrailing(), "row " + y);
+        }
+    }
+
+    /**
+     * Plays the output sent so far on the emulated screen.
+     *
+     * @param bytes the output, emptied afterwards
+     */
+    private void play(ByteArrayOutputStream bytes) {
+        String text = bytes.toString(StandardCharsets.UTF_8);
+        bytes.reset();
+        int savedRow = 0;
+        int savedColumn = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i++);
+            if (c == '\u001B' && text.charAt(i) != '[') {
+                if (text.charAt(i) == '7') {
+                    savedRow = row;
+                    savedColumn = column;
+                } else {
+                    row = savedRow;
+                    column = savedColumn;
+                }
+                i++;
+            } else if (c == '\u001B') {
+                int end = i + 1;
+                while (!Character.isLetter(text.charAt(end))) {
+                    end++;
+                }
+                String parameters = text.substring(i + 1, end);
+                char command = text.charAt(end);
+                i = end + 1;
+                switch (command) {
+                    case 'H' -> {
+                        String[] position = parameters.isEmpty() ? new String[] { "1", "1" } : parameters.split(";");
+                        row = Integer.parseInt(position[0]) - 1;
+                        column = Integer.parseInt(position[1]) - 1;
+                    }
+                    case 'J' -> {
+                        clear(row, column, COLUMNS);
+                        for (int y = parameters.equals("2") ? 0 : row + 1; y < ROWS; y++) {
+                            clear(y, 0, COLUMNS);
+                        }
+                    }
+                    case 'K' -> clear(row, column, COLUMNS);
+                    case 'm' -> color = parameters.equals("0") ? null : "\u001B[" + parameters + "m";
+                    case 'r' -> {
+                        row = 0;
+                        column = 0;
+                    }
+                    default -> {
+                        // switching screens keeps this emulator on a single one
+                    }
+                }
+            } else if (c == '\n') {
+                row++;
+                column = 0;
+            } else if (c != '\r') {
+                screen[row][column] = c;
+                colors[row][column] = color;
+                column++;
+            }
+        }
+    }
+
+    /**
+     * Clears part of a row of the emulated screen.
+     *
+     * @param y    the row
+     * @param from the first column
+     * @param to   the column after the last
+     */
+    private void clear(int y, int from, int to) {
+        Arrays.fill(screen[y], from, to, ' ');
+        Arrays.fill(colors[y], from, to, null);
+    }
+}
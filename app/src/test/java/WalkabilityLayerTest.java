@@ -0,0 +1,107 @@
+import data.GameConfig;
+import engine.level.GameMap;
+import engine.level.WalkabilityLayer;
+import engine.level.WallGrid;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Test class for the WalkabilityLayer.
+ * It validates the layer and its row and column scans against the map, and
+ * that the map keeps the layer in sync.
+ */
+public class WalkabilityLayerTest {
+
+    /**
+     * Test that the layer and its scans agree with the cells of the map, on a
+     * size which is not a multiple of the word size.
+     */
+    @Test
+    void testLayerMatchesMap() {
+        GameMap gameMap = new GameMap(150, 70);
+        gameMap.generate(8);
+        WalkabilityLayer walkability = gameMap.getWalkability();
+
+        long walkable = 0;
+        for (int y = 0; y < 70; y++) {
+            for (int x = 0; x < 150; x++) {
+                boolean open = !(gameMap.getGrid(x, y) instanceof WallGrid);
+                Assertions.assertEquals(open, walkability.isWalkable(x, y));
+                walkable += open ? 1 : 0;
+
+                int next = x;
+                while (next < 150 && walkability.isWalkable(next, y)) {
+                    next++;
+                }
+                Assertions.assertEquals(next, walkability.nextBlockedInRow(x, y));
+                int previous = x;
+                while (previous >= 0 && walkability.isWalkable(previous, y)) {
+                    previous--;
+                }
+                Assertions.assertEquals(previous, walkability.previousBlockedInRow(x, y));
+                int below = y;
+                while (below < 70 && walkability.isWalkable(x, below)) {
+                    below++;
+                }
+                Assertions.assertEquals(below, walkability.nextBlockedInColumn(x, y));
+                int above = y;
+                while (above >= 0 && walkability.isWalkable(x, above)) {
+                    above--;
+                }
+                Assertions.assertEquals(above, walkability.previousBlockedInColumn(x, y));
+            }
+        }
+        Assertions.assertEquals(walkable, walkability.countWalkable());
+        Assertions.assertFalse(walkability.isWalkable(-1, 0), "outside the map should not be walkable");
+        Assertions.assertFalse(walkability.isWalkable(150, 0), "outside the map should not be walkable");
+    }
+
+    /**
+     * Test that changing the map updates the layer.
+     */
+    @Test
+    void testLayerFollowsMap() {
+        GameMap gameMap = new GameMap(100, 100);
+        WalkabilityLayer walkability = gameMap.getWalkability();
+        Assertions.assertEquals(-1L, walkability.rowWord(0, 5), "a new map should be open");
+        Assertions.assertEquals((1L << 36) - 1, walkability.rowWord(1, 5), "cells past the border are closed");
+
+        gameMap.setGrid(70, 5, new WallGrid());
+        Assertions.assertFalse(gameMap.isTargetPositionCanMove(70, 5));
+        Assertions.assertEquals(70, walkability.nextBlockedInRow(0, 5));
+        Assertions.assertEquals(0, walkability.columnWord(70, 0) >>> 5 & 1);
+
+        gameMap.setGridEmpty(70, 5);
+        Assertions.assertTrue(gameMap.isTargetPositionCanMove(70, 5));
+        Assertions.assertEquals(100, walkability.nextBlockedInRow(0, 5));
+    }
+
+    /**
+     * Test that the layer of a chunked world keeps only as many blocks as the
+     * chunk cache while a large area is visited, and that dropped blocks are
+     * read again with the changes made to them.
+     */
+    @Test
+    void testChunkedLayerStaysBounded() throws IOException {
+        GameConfig config = new GameConfig();
+        config.setMapChunkDirectory(Files.createTempDirectory("chunks").toString());
+        config.setMapChunkCache(4);
+        GameMap gameMap = new GameMap(config, 100000, 100000);
+        gameMap.generate(5);
+        WalkabilityLayer walkability = gameMap.getWalkability();
+
+        // a wall between lattice cells opened
+        gameMap.setGridEmpty(1, 1);
+        for (int i = 0; i < 1000; i++) {
+            int x = i * 97;
+            int y = i * 89;
+            Assertions.assertEquals(gameMap.getGrid(x, y) instanceof WallGrid, !walkability.isWalkable(x, y));
+            Assertions.assertTrue(walkability.getBlockCount() <= 4, "blocks should stay within the cache");
+        }
+        Assertions.assertTrue(walkability.isWalkable(1, 1), "change should be read again");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new WalkabilityLayer(null, 0));
+    }
+}